@@ -54,4 +54,22 @@ public class AsyncAppConstants {
      * Async thread name
      */
     public static final String ASYNC_THREAD_NAME = "Async-Witsml-";
+
+    /**
+     * Execution mode running each task on a platform thread of a bounded
+     * pool
+     */
+    public static final String POOL_MODE = "pool";
+
+    /**
+     * Execution mode running each task on its own virtual thread, needs
+     * Java 21 or later
+     */
+    public static final String VIRTUAL_MODE = "virtual";
+
+    /**
+     * How long a shutdown waits for the tasks of the virtual thread
+     * executor to complete
+     */
+    public static final int SHUTDOWN_TIMEOUT_IN_SEC = 60;
 }
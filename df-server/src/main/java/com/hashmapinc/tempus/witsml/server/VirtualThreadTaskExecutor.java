@@ -0,0 +1,74 @@
+/**
+ * Copyright © 2018-2019 Hashmap, Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hashmapinc.tempus.witsml.server;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.scheduling.concurrent.ConcurrentTaskExecutor;
+
+/**
+ * Runs every async task on its own virtual thread, so tasks blocked on
+ * DoT requests don't tie up a platform thread and the number of tasks
+ * in flight is not capped by a pool size.
+ *
+ * Virtual threads need Java 21 or later while Drillflow is built for
+ * Java 11, so they are created through reflection; use create to find
+ * out whether the running JVM has them.
+ */
+public class VirtualThreadTaskExecutor extends ConcurrentTaskExecutor implements DisposableBean {
+    private final ExecutorService executor;
+
+    private VirtualThreadTaskExecutor(ExecutorService executor) {
+        super(executor);
+        this.executor = executor;
+    }
+
+    /**
+     * @param threadNamePrefix - prefix of the names of the virtual threads
+     * @return the executor, or null if the JVM has no virtual threads
+     */
+    public static VirtualThreadTaskExecutor create(String threadNamePrefix) {
+        try {
+            // Thread.ofVirtual().name(prefix, 0).factory()
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, threadNamePrefix, 0L);
+            ThreadFactory factory = (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+            ExecutorService executor = (ExecutorService) Executors.class
+                    .getMethod("newThreadPerTaskExecutor", ThreadFactory.class)
+                    .invoke(null, factory);
+            return new VirtualThreadTaskExecutor(executor);
+        } catch (ClassNotFoundException | NoSuchMethodException | IllegalAccessException
+                | InvocationTargetException e) {
+            return null;
+        }
+    }
+
+    /**
+     * stops taking tasks and waits for the running ones, like the thread
+     * pool does with waitForTasksToCompleteOnShutdown
+     */
+    @Override
+    public void destroy() throws InterruptedException {
+        this.executor.shutdown();
+        this.executor.awaitTermination(AsyncAppConstants.SHUTDOWN_TIMEOUT_IN_SEC, TimeUnit.SECONDS);
+    }
+}
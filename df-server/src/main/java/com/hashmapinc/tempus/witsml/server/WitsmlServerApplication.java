@@ -15,6 +15,9 @@
  */
 package com.hashmapinc.tempus.witsml.server;
 
+import java.util.logging.Logger;
+
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.Banner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
@@ -26,6 +29,7 @@ import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 @SpringBootApplication()
 @EnableAsync(proxyTargetClass = true)
 public class WitsmlServerApplication {
+	private static final Logger LOG = Logger.getLogger(WitsmlServerApplication.class.getName());
 
 	public static void main(String[] args) {
 		SpringApplication drillFlow = new SpringApplication(WitsmlServerApplication.class);
@@ -33,12 +37,38 @@ public class WitsmlServerApplication {
 		drillFlow.run(args);
 	}
 
+	/**
+	 * Executor of the async valve calls, which mostly wait on DoT requests.
+	 *
+	 * @param mode - "pool" for a bounded pool of platform threads, "virtual"
+	 *             for a virtual thread per task (Java 21 or later, falls
+	 *             back to the pool on older JVMs)
+	 * @param corePoolSize - threads the pool keeps
+	 * @param maxPoolSize - threads the pool grows to once its queue is full
+	 * @param queueCapacity - tasks waiting for a pool thread
+	 * @return the executor
+	 */
 	@Bean("asyncCustomTaskExecutor")
-	public TaskExecutor getAsyncExecutor() {
+	public TaskExecutor getAsyncExecutor(
+			@Value("${async.executor.mode:" + AsyncAppConstants.POOL_MODE + "}") String mode,
+			@Value("${async.executor.core:" + AsyncAppConstants.CORE_POOL_SIZE + "}") int corePoolSize,
+			@Value("${async.executor.max:" + AsyncAppConstants.MAX_POOL_SIZE + "}") int maxPoolSize,
+			@Value("${async.executor.queue:" + AsyncAppConstants.QUEUE_CAPACITY + "}") int queueCapacity) {
+		if (AsyncAppConstants.VIRTUAL_MODE.equalsIgnoreCase(mode)) {
+			VirtualThreadTaskExecutor virtual = VirtualThreadTaskExecutor.create(AsyncAppConstants.ASYNC_THREAD_NAME);
+			if (null != virtual) {
+				LOG.info("Running async tasks on virtual threads");
+				return virtual;
+			}
+			LOG.warning("Virtual threads need Java 21 or later, running async tasks on a thread pool");
+		} else if (!AsyncAppConstants.POOL_MODE.equalsIgnoreCase(mode)) {
+			LOG.warning("Unknown async executor mode " + mode + ", running async tasks on a thread pool");
+		}
+
 		ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
-		executor.setCorePoolSize(AsyncAppConstants.CORE_POOL_SIZE);
-		executor.setMaxPoolSize(AsyncAppConstants.MAX_POOL_SIZE);
-		executor.setQueueCapacity(AsyncAppConstants.QUEUE_CAPACITY);
+		executor.setCorePoolSize(corePoolSize);
+		executor.setMaxPoolSize(Math.max(corePoolSize, maxPoolSize));
+		executor.setQueueCapacity(queueCapacity);
 		executor.setKeepAliveSeconds(AsyncAppConstants.KEEP_ALIVE_TIME_IN_SEC);
 		executor.setWaitForTasksToCompleteOnShutdown(true);
 		executor.setThreadNamePrefix(AsyncAppConstants.ASYNC_THREAD_NAME);
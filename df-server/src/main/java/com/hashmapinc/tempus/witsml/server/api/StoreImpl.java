@@ -28,8 +28,10 @@ import com.hashmapinc.tempus.witsml.valve.IValve;
 import com.hashmapinc.tempus.witsml.valve.ValveAuthException;
 import com.hashmapinc.tempus.witsml.valve.ValveException;
 import com.hashmapinc.tempus.witsml.valve.ValveFactory;
+import org.apache.cxf.annotations.UseAsyncMethod;
 import org.apache.cxf.ext.logging.event.LogEvent;
 import org.apache.cxf.feature.Features;
+import org.apache.cxf.jaxws.ServerAsyncResponse;
 import org.apache.cxf.message.Message;
 import org.apache.cxf.phase.PhaseInterceptorChain;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -38,12 +40,20 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import javax.jws.WebService;
 import javax.xml.bind.JAXBException;
+import javax.xml.ws.AsyncHandler;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
@@ -53,6 +63,8 @@ import java.util.stream.Collectors;
 @Features(features = "com.hashmapinc.tempus.witsml.server.api.interceptors.PrettyLoggingFeature")
 public class StoreImpl implements IStore {
     private static final Logger LOG = Logger.getLogger(StoreImpl.class.getName());
+    // server defined result of a valve call that did not complete within wmls.timeout
+    private static final short TIMEOUT_RESULT = -1002;
 
     private ServerCap cap;
     private WitsmlApiConfig witsmlApiConfigUtil;
@@ -64,6 +76,10 @@ public class StoreImpl implements IStore {
     @Value("${valve.name}")
     private String valveName;
 
+    // milliseconds a valve call may take, 0 or less to wait indefinitely
+    @Value("${wmls.timeout:300000}")
+    private long timeoutMillis;
+
     @Autowired
     private void setServerCap(ServerCap cap) {
         this.cap = cap;
@@ -111,6 +127,12 @@ public class StoreImpl implements IStore {
         // =====================================================================
     }
 
+    @PreDestroy
+    private void closeValve() {
+        if (null != valve)
+            valve.close();
+    }
+
     private String getExchangeId(){
         Message message = PhaseInterceptorChain.getCurrentMessage();
         if (message == null){
@@ -120,16 +142,42 @@ public class StoreImpl implements IStore {
     }
 
     @Override
+    @UseAsyncMethod
     public WMLS_AddToStoreResponse addToStore(
         String WMLtypeIn,
         String XMLin,
         String OptionsIn,
         String CapabilitiesIn
     ) {
-        LOG.fine(ValveLogging.getLogMsg(getExchangeId(), "Executing addToStore for query"));
+        return this.addToStoreFuture(WMLtypeIn, XMLin, OptionsIn, CapabilitiesIn).join();
+    }
+
+    /**
+     * Non-blocking addToStore. CXF calls it instead of addToStore when
+     * the transport can suspend the request, so no container thread
+     * waits for the valve.
+     */
+    public Future<?> addToStoreAsync(
+        String WMLtypeIn,
+        String XMLin,
+        String OptionsIn,
+        String CapabilitiesIn,
+        AsyncHandler<WMLS_AddToStoreResponse> asyncHandler
+    ) {
+        return respond(this.addToStoreFuture(WMLtypeIn, XMLin, OptionsIn, CapabilitiesIn), asyncHandler);
+    }
+
+    private CompletableFuture<WMLS_AddToStoreResponse> addToStoreFuture(
+        String WMLtypeIn,
+        String XMLin,
+        String OptionsIn,
+        String CapabilitiesIn
+    ) {
+        String exchangeId = getExchangeId();
+        LOG.fine(ValveLogging.getLogMsg(exchangeId, "Executing addToStore for query"));
         // try to add to store
         List<AbstractWitsmlObject> witsmlObjects;
-        String uid;
+        CompletableFuture<String> created;
         WMLS_AddToStoreResponse response = new WMLS_AddToStoreResponse();
         try {
             // build the query context
@@ -137,7 +185,7 @@ public class StoreImpl implements IStore {
             short validationResult = StoreValidator.validateAddToStore(WMLtypeIn, XMLin, optionsMap, valve);
             if (validationResult != 1){
                 response.setResult(validationResult);
-                return response;
+                return CompletableFuture.completedFuture(response);
             }
             String version = WitsmlUtil.getVersionFromXML(XMLin);
             // create the correct Object model (e.g. ObjFluidsReport) for the version from the raw XML
@@ -151,13 +199,32 @@ public class StoreImpl implements IStore {
                 witsmlObjects,
                 user.getUserName(),
                 user.getPassword(),
-                getExchangeId()
+                exchangeId
             );
             // handle each object asynchronously
-            uid = valve.createObject(qc).get();
-        } catch (ValveException ve) {
+            created = this.withTimeout(valve.createObject(qc));
+        } catch (Exception e) {
+            return CompletableFuture.completedFuture(this.addToStoreFailed(response, e, exchangeId));
+        }
+
+        return created.handle((uid, error) -> {
+            if (null != error)
+                return this.addToStoreFailed(response, unwrap(error), exchangeId);
+            response.setSuppMsgOut(uid);
+            response.setResult((short)1);
+            return response;
+        });
+    }
+
+    private WMLS_AddToStoreResponse addToStoreFailed(WMLS_AddToStoreResponse response, Throwable error, String exchangeId) {
+        if (error instanceof TimeoutException) {
+            LOG.warning(ValveLogging.getLogMsg(exchangeId, "Timed out in addToStore"));
+            response.setResult(TIMEOUT_RESULT);
+            response.setSuppMsgOut(witsmlApiConfigUtil.getProperty("basemessages." + TIMEOUT_RESULT));
+        } else if (error instanceof ValveException) {
             //TODO: handle exception
-            LOG.warning(ValveLogging.getLogMsg(getExchangeId(), "ValveException in addToStore: " + ve));
+            ValveException ve = (ValveException) error;
+            LOG.warning(ValveLogging.getLogMsg(exchangeId, "ValveException in addToStore: " + ve));
             if (ve.getErrorCode() != -1){
                 response.setSuppMsgOut(witsmlApiConfigUtil.getProperty("basemessages." + ve.getErrorCode()));
                 response.setResult(ve.getErrorCode());
@@ -165,32 +232,50 @@ public class StoreImpl implements IStore {
                 response.setSuppMsgOut(ve.getMessage());
                 response.setResult(ve.getErrorCode());
             }
-            return response;
-        } catch (Exception e) {
+        } else {
             //TODO: handle exception
-            LOG.warning(ValveLogging.getLogMsg(getExchangeId(), "Could not add WITSML object to store: \n" + "Error: " + e));
-            response.setSuppMsgOut("Error adding to store: " + e.getMessage());
+            LOG.warning(ValveLogging.getLogMsg(exchangeId, "Could not add WITSML object to store: \n" + "Error: " + error));
+            response.setSuppMsgOut("Error adding to store: " + error.getMessage());
             response.setResult((short)-1);
-
-            return response;
         }
-
-        response.setSuppMsgOut(uid);
-        response.setResult((short)1);
-
         return response;
     }
 
     @Override
+    @UseAsyncMethod
     public WMLS_UpdateInStoreResponse updateInStore(
         String WMLtypeIn,
         String XMLin,
         String OptionsIn,
         String CapabilitiesIn
     ) {
-        LOG.fine(ValveLogging.getLogMsg(getExchangeId(),"Executing updateInStore"));
+        return this.updateInStoreFuture(WMLtypeIn, XMLin, OptionsIn, CapabilitiesIn).join();
+    }
+
+    /**
+     * Non-blocking updateInStore, see addToStoreAsync
+     */
+    public Future<?> updateInStoreAsync(
+        String WMLtypeIn,
+        String XMLin,
+        String OptionsIn,
+        String CapabilitiesIn,
+        AsyncHandler<WMLS_UpdateInStoreResponse> asyncHandler
+    ) {
+        return respond(this.updateInStoreFuture(WMLtypeIn, XMLin, OptionsIn, CapabilitiesIn), asyncHandler);
+    }
+
+    private CompletableFuture<WMLS_UpdateInStoreResponse> updateInStoreFuture(
+        String WMLtypeIn,
+        String XMLin,
+        String OptionsIn,
+        String CapabilitiesIn
+    ) {
+        String exchangeId = getExchangeId();
+        LOG.fine(ValveLogging.getLogMsg(exchangeId,"Executing updateInStore"));
         // try to update in store
         List<AbstractWitsmlObject> witsmlObjects;
+        CompletableFuture<Boolean> updated;
         WMLS_UpdateInStoreResponse response = new WMLS_UpdateInStoreResponse();
         try {
             // build the query context
@@ -199,7 +284,7 @@ public class StoreImpl implements IStore {
             if (validationResult != 1){
                 response.setResult(validationResult);
                 response.setSuppMsgOut(witsmlApiConfigUtil.getProperty("basemessages." + response.getResult()));
-                return response;
+                return CompletableFuture.completedFuture(response);
             }
             String version = WitsmlUtil.getVersionFromXML(XMLin);
             // create the correct Object model (e.g. ObjFluidsReport) for the version from the raw XML
@@ -213,41 +298,81 @@ public class StoreImpl implements IStore {
                     witsmlObjects,
                     user.getUserName(),
                     user.getPassword(),
-                    getExchangeId()
+                    exchangeId
             );
 
             // perform update
-            valve.updateObject(qc).get();
-        } catch (ValveException ve) {
+            updated = this.withTimeout(valve.updateObject(qc));
+        } catch (Exception e) {
+            return CompletableFuture.completedFuture(this.updateInStoreFailed(response, e, exchangeId));
+        }
+
+        return updated.handle((result, error) -> {
+            if (null != error)
+                return this.updateInStoreFailed(response, unwrap(error), exchangeId);
+            response.setResult((short)1);
+            response.setSuppMsgOut(witsmlApiConfigUtil.getProperty("basemessages." + response.getResult()));
+            return response;
+        });
+    }
+
+    private WMLS_UpdateInStoreResponse updateInStoreFailed(WMLS_UpdateInStoreResponse response, Throwable error,
+                                                           String exchangeId) {
+        if (error instanceof TimeoutException) {
+            LOG.warning(ValveLogging.getLogMsg(exchangeId, "Timed out in updateInStore"));
+            response.setResult(TIMEOUT_RESULT);
+            response.setSuppMsgOut(witsmlApiConfigUtil.getProperty("basemessages." + TIMEOUT_RESULT));
+        } else if (error instanceof ValveException) {
             //TODO: handle exception
-            LOG.warning(ValveLogging.getLogMsg(getExchangeId(), "Valve Exception in updateInStore: " + ve.getMessage()));
+            ValveException ve = (ValveException) error;
+            LOG.warning(ValveLogging.getLogMsg(exchangeId, "Valve Exception in updateInStore: " + ve.getMessage()));
             response.setSuppMsgOut(ve.getMessage());
-            response.setResult((short)-1);
-            return response;
-        } catch (Exception e) {
+            // positive codes report a partial success
+            response.setResult(ve.getErrorCode() > 1 ? ve.getErrorCode() : (short)-1);
+        } else {
             //TODO: handle exception
-            LOG.warning(ValveLogging.getLogMsg(getExchangeId(),
+            LOG.warning(ValveLogging.getLogMsg(exchangeId,
                     "Could not add WITSML object to store: \n" +
-                            "Error: " + e
+                            "Error: " + error
             ));
-            response.setSuppMsgOut("Error updating in store: " + e.getMessage());
+            response.setSuppMsgOut("Error updating in store: " + error.getMessage());
             response.setResult((short)-1);
-            return response;
         }
-
-        response.setResult((short)1);
-        response.setSuppMsgOut(witsmlApiConfigUtil.getProperty("basemessages." + response.getResult()));
         return response;
     }
 
     @Override
+    @UseAsyncMethod
     public WMLS_DeleteFromStoreResponse deleteFromStore(
         String WMLtypeIn,
         String QueryIn,
         String OptionsIn,
         String CapabilitiesIn
     ) {
-        LOG.fine(ValveLogging.getLogMsg(getExchangeId(), "Deleting object from store."));
+        return this.deleteFromStoreFuture(WMLtypeIn, QueryIn, OptionsIn, CapabilitiesIn).join();
+    }
+
+    /**
+     * Non-blocking deleteFromStore, see addToStoreAsync
+     */
+    public Future<?> deleteFromStoreAsync(
+        String WMLtypeIn,
+        String QueryIn,
+        String OptionsIn,
+        String CapabilitiesIn,
+        AsyncHandler<WMLS_DeleteFromStoreResponse> asyncHandler
+    ) {
+        return respond(this.deleteFromStoreFuture(WMLtypeIn, QueryIn, OptionsIn, CapabilitiesIn), asyncHandler);
+    }
+
+    private CompletableFuture<WMLS_DeleteFromStoreResponse> deleteFromStoreFuture(
+        String WMLtypeIn,
+        String QueryIn,
+        String OptionsIn,
+        String CapabilitiesIn
+    ) {
+        String exchangeId = getExchangeId();
+        LOG.fine(ValveLogging.getLogMsg(exchangeId, "Deleting object from store."));
         WMLS_DeleteFromStoreResponse resp = new WMLS_DeleteFromStoreResponse();
         // set initial ERROR state for resp
         resp.setResult((short) -1);
@@ -257,7 +382,7 @@ public class StoreImpl implements IStore {
         if (validationResult != 1){
             resp.setResult(validationResult);
             resp.setSuppMsgOut(witsmlApiConfigUtil.getProperty("basemessages." + resp.getResult()));
-            return resp;
+            return CompletableFuture.completedFuture(resp);
         }
         // try to deserialize
         List<AbstractWitsmlObject> witsmlObjects;
@@ -267,17 +392,18 @@ public class StoreImpl implements IStore {
             witsmlObjects = WitsmlObjectParser.parse(WMLtypeIn, QueryIn, clientVersion);
         } catch (Exception e) {
             // TODO: handle exception
-            LOG.warning(ValveLogging.getLogMsg( getExchangeId(), "could not deserialize witsml object: \n" +
+            LOG.warning(ValveLogging.getLogMsg(exchangeId, "could not deserialize witsml object: \n" +
                     "WMLtypeIn: " + WMLtypeIn + " \n" +
                     "QueryIn: " + QueryIn + " \n" +
                     "OptionsIn: " + OptionsIn + " \n" +
                     "CapabilitiesIn: " + CapabilitiesIn
             ));
             resp.setSuppMsgOut("Bad QueryIn. Got error message: " + e.getMessage());
-            return resp;
+            return CompletableFuture.completedFuture(resp);
         }
 
         // try to delete
+        CompletableFuture<Boolean> deleted;
         try {
             // construct query context
 
@@ -290,24 +416,39 @@ public class StoreImpl implements IStore {
                     witsmlObjects,
                     user.getUserName(),
                     user.getPassword(),
-                    getExchangeId()
+                    exchangeId
             );
-            this.valve.deleteObject(qc).get();
+            deleted = this.withTimeout(this.valve.deleteObject(qc));
+        } catch (Exception e) {
+            return CompletableFuture.completedFuture(this.deleteFromStoreFailed(resp, e, exchangeId));
+        }
+
+        return deleted.handle((result, error) -> {
+            if (null != error)
+                return this.deleteFromStoreFailed(resp, unwrap(error), exchangeId);
             resp.setResult((short) 1);
-        } catch (ValveException e) {
+            resp.setSuppMsgOut(witsmlApiConfigUtil.getProperty("basemessages." + resp.getResult()));
+            return resp;
+        });
+    }
+
+    private WMLS_DeleteFromStoreResponse deleteFromStoreFailed(WMLS_DeleteFromStoreResponse resp, Throwable error,
+                                                               String exchangeId) {
+        if (error instanceof TimeoutException) {
+            LOG.warning(ValveLogging.getLogMsg(exchangeId, "Timed out in deleteFromStore"));
+            resp.setResult(TIMEOUT_RESULT);
+            resp.setSuppMsgOut(witsmlApiConfigUtil.getProperty("basemessages." + TIMEOUT_RESULT));
+        } else if (error instanceof ValveException) {
+            ValveException e = (ValveException) error;
             resp.setSuppMsgOut(e.getMessage());
             if (e.getErrorCode() != null){
                 resp.setResult(e.getErrorCode());
                 resp.setSuppMsgOut(witsmlApiConfigUtil.getProperty("basemessages." + e.getErrorCode()));
             }
-            return resp;
-        } catch (Exception ex){
-            resp.setSuppMsgOut(ex.getMessage());
+        } else {
+            resp.setSuppMsgOut(error.getMessage());
             resp.setResult((short)-1);
-            return resp;
         }
-
-        resp.setSuppMsgOut(witsmlApiConfigUtil.getProperty("basemessages." + resp.getResult()));
         return resp;
     }
 
@@ -367,12 +508,36 @@ public class StoreImpl implements IStore {
     }
 
     @Override
+    @UseAsyncMethod
     public WMLS_GetFromStoreResponse getFromStore(
         String WMLtypeIn, 
         String QueryIn, 
         String OptionsIn, 
         String CapabilitiesIn
     ) {
+        return this.getFromStoreFuture(WMLtypeIn, QueryIn, OptionsIn, CapabilitiesIn).join();
+    }
+
+    /**
+     * Non-blocking getFromStore, see addToStoreAsync
+     */
+    public Future<?> getFromStoreAsync(
+        String WMLtypeIn,
+        String QueryIn,
+        String OptionsIn,
+        String CapabilitiesIn,
+        AsyncHandler<WMLS_GetFromStoreResponse> asyncHandler
+    ) {
+        return respond(this.getFromStoreFuture(WMLtypeIn, QueryIn, OptionsIn, CapabilitiesIn), asyncHandler);
+    }
+
+    private CompletableFuture<WMLS_GetFromStoreResponse> getFromStoreFuture(
+        String WMLtypeIn,
+        String QueryIn,
+        String OptionsIn,
+        String CapabilitiesIn
+    ) {
+        String exchangeId = getExchangeId();
         WMLS_GetFromStoreResponse resp = new WMLS_GetFromStoreResponse();
         // try to deserialize
         Map<String,String> optionsMap = WitsmlUtil.parseOptionsIn(OptionsIn);
@@ -383,97 +548,113 @@ public class StoreImpl implements IStore {
         if (validationResult != 1){
             resp.setResult(validationResult);
             resp.setSuppMsgOut(witsmlApiConfigUtil.getProperty("basemessages." + resp.getResult()));
-            return resp;
+            return CompletableFuture.completedFuture(resp);
         }
 
-        String xmlOut=null;
         // check for the presence of the requestObjectSelectionCapability option --
         // it is not necessary to retrieve data for a query since the query is a
         // predefined constant that returns the capabilities of the server due to type
         if ( optionsMap.containsKey("requestObjectSelectionCapability") &&
                 optionsMap.get("requestObjectSelectionCapability").equals("true") ) {
-            xmlOut = valve.getObjectSelectionCapability(WMLtypeIn);
-        } else {
-            if ( optionsMap.containsKey("requestObjectSelectionCapability") &&
-                    !optionsMap.get("requestObjectSelectionCapability").equals("none") ) {
-                resp.setResult((short)-427);
-                resp.setSuppMsgOut(witsmlApiConfigUtil.getProperty("basemessages." + resp.getResult()));
-                return resp;
-            }
-            if ( OptionsIn.contains("requestObjectSelectionCapability") &&
-                    !optionsMap.containsKey("requestObjectSelectionCapability") ) {
-                // value of the key must have been null since the parse never placed the key/value pair
-                // into the map
-                resp.setResult((short)-411);
-                resp.setSuppMsgOut(witsmlApiConfigUtil.getProperty("basemessages." + resp.getResult()));
-                return resp;
-            }
-            List<AbstractWitsmlObject> witsmlObjects;
-            String clientVersion;
-            try {
-                clientVersion = WitsmlUtil.getVersionFromXML(QueryIn);
-                // create the correct Object model (e.g. ObjFluidsReport) for the version from the raw XML
-                witsmlObjects = WitsmlObjectParser.parse(WMLtypeIn, QueryIn, clientVersion);
-            } catch (Exception e) {
-                // TODO: handle exception
-                LOG.warning(ValveLogging.getLogMsg(getExchangeId() ,"Could not deserialize witsml object: \n" +
-                        "WMLtypeIn: " + WMLtypeIn + " \n" +
-                        "QueryIn: " + QueryIn + " \n" +
-                        "OptionsIn: " + OptionsIn + " \n" +
-                        "CapabilitiesIn: " + CapabilitiesIn)
-                );
-
-                resp.setSuppMsgOut("Error parsing input: " + e.getMessage());
-                resp.setResult((short) -1);
-                return resp;
-            }
+            String xmlOut = valve.getObjectSelectionCapability(WMLtypeIn);
+            return CompletableFuture.completedFuture(this.getFromStoreDone(resp, xmlOut));
+        }
+
+        if ( optionsMap.containsKey("requestObjectSelectionCapability") &&
+                !optionsMap.get("requestObjectSelectionCapability").equals("none") ) {
+            resp.setResult((short)-427);
+            resp.setSuppMsgOut(witsmlApiConfigUtil.getProperty("basemessages." + resp.getResult()));
+            return CompletableFuture.completedFuture(resp);
+        }
+        if ( OptionsIn.contains("requestObjectSelectionCapability") &&
+                !optionsMap.containsKey("requestObjectSelectionCapability") ) {
+            // value of the key must have been null since the parse never placed the key/value pair
+            // into the map
+            resp.setResult((short)-411);
+            resp.setSuppMsgOut(witsmlApiConfigUtil.getProperty("basemessages." + resp.getResult()));
+            return CompletableFuture.completedFuture(resp);
+        }
+        List<AbstractWitsmlObject> witsmlObjects;
+        String clientVersion;
+        try {
+            clientVersion = WitsmlUtil.getVersionFromXML(QueryIn);
+            // create the correct Object model (e.g. ObjFluidsReport) for the version from the raw XML
+            witsmlObjects = WitsmlObjectParser.parse(WMLtypeIn, QueryIn, clientVersion);
+        } catch (Exception e) {
+            // TODO: handle exception
+            LOG.warning(ValveLogging.getLogMsg(exchangeId ,"Could not deserialize witsml object: \n" +
+                    "WMLtypeIn: " + WMLtypeIn + " \n" +
+                    "QueryIn: " + QueryIn + " \n" +
+                    "OptionsIn: " + OptionsIn + " \n" +
+                    "CapabilitiesIn: " + CapabilitiesIn)
+            );
 
-            QueryContext qc = null;
-            // try to query
+            resp.setSuppMsgOut("Error parsing input: " + e.getMessage());
+            resp.setResult((short) -1);
+            return CompletableFuture.completedFuture(resp);
+        }
+
+        // try to query
+        CompletableFuture<String> query;
+        try {
+            // construct query context
+            ValveUser user = (ValveUser) SecurityContextHolder
+                    .getContext()
+                    .getAuthentication()
+                    .getPrincipal();
+            QueryContext qc = new QueryContext(
+                    clientVersion,
+                    WMLtypeIn,
+                    optionsMap,
+                    QueryIn,
+                    witsmlObjects,
+                    user.getUserName(),
+                    user.getPassword(),
+                    exchangeId
+            );
+
+            query = this.withTimeout(this.valve.getObject(qc));
+            // convert to WITSML XML
+            //LogConverterExtended logConverter = new LogConverterExtended();
+            /*
             try {
-                // construct query context
-                ValveUser user = (ValveUser) SecurityContextHolder
-                        .getContext()
-                        .getAuthentication()
-                        .getPrincipal();
-                qc = new QueryContext(
-                        clientVersion,
-                        WMLtypeIn,
-                        optionsMap,
-                        QueryIn,
-                        witsmlObjects,
-                        user.getUserName(),
-                        user.getPassword(),
-                        getExchangeId()
-                );
-
-                xmlOut = this.valve.getObject(qc).get();
-                // convert to WITSML XML
-                //LogConverterExtended logConverter = new LogConverterExtended();
-                /*
-                try {
-                    com.hashmapinc.tempus.WitsmlObjects.v1411.ObjLog witsmlXmlOut =
-                            logConverter.convertTo1411(xmlOut);
-                } catch (JAXBException jaxBEx) {
-                    throw new Exception("JAXB failure trying to generate GetFromStore response: " +
-                            jaxBEx.getMessage());
-                }
-                */
-                // TODO xmlOut is a String; need to go from an ObjLog v1411 to a String & put it into xmlOut
-
-            } catch (ValveException ve) {
-                resp.setResult((short) -425);
-                if (qc != null)
-                    LOG.warning(ValveLogging.getLogMsg(qc.EXCHANGE_ID,"Valve Exception in GetFromStore: " + ve.getMessage()));
-                else
-                    LOG.warning(ValveLogging.getLogMsg("Valve Exception in GetFromStore: " + ve.getMessage()));
-                resp.setSuppMsgOut(ve.getMessage());
-            } catch (Exception e) {
-                resp.setResult((short) -425);
-                LOG.warning(ValveLogging.getLogMsg("Valve Exception in GetFromStore: " + e.getMessage()));
+                com.hashmapinc.tempus.WitsmlObjects.v1411.ObjLog witsmlXmlOut =
+                        logConverter.convertTo1411(xmlOut);
+            } catch (JAXBException jaxBEx) {
+                throw new Exception("JAXB failure trying to generate GetFromStore response: " +
+                        jaxBEx.getMessage());
             }
+            */
+            // TODO xmlOut is a String; need to go from an ObjLog v1411 to a String & put it into xmlOut
+
+        } catch (Exception e) {
+            this.getFromStoreFailed(resp, e, exchangeId);
+            return CompletableFuture.completedFuture(this.getFromStoreDone(resp, null));
         }
 
+        return query.handle((xmlOut, error) -> {
+            if (null == error)
+                return this.getFromStoreDone(resp, xmlOut);
+            Throwable cause = unwrap(error);
+            if (cause instanceof TimeoutException) {
+                LOG.warning(ValveLogging.getLogMsg(exchangeId, "Timed out in GetFromStore"));
+                resp.setResult(TIMEOUT_RESULT);
+                resp.setSuppMsgOut(witsmlApiConfigUtil.getProperty("basemessages." + TIMEOUT_RESULT));
+                return resp;
+            }
+            this.getFromStoreFailed(resp, cause, exchangeId);
+            return this.getFromStoreDone(resp, null);
+        });
+    }
+
+    private void getFromStoreFailed(WMLS_GetFromStoreResponse resp, Throwable error, String exchangeId) {
+        resp.setResult((short) -425);
+        LOG.warning(ValveLogging.getLogMsg(exchangeId, "Valve Exception in GetFromStore: " + error.getMessage()));
+        if (error instanceof ValveException)
+            resp.setSuppMsgOut(error.getMessage());
+    }
+
+    private WMLS_GetFromStoreResponse getFromStoreDone(WMLS_GetFromStoreResponse resp, String xmlOut) {
         // populate response
         if (null != xmlOut) {
             resp.setSuppMsgOut("");
@@ -491,4 +672,61 @@ public class StoreImpl implements IStore {
         return resp;
     }
 
+    /**
+     * fails a valve call once the WMLS timeout has passed and cancels the
+     * valve's future, so its stages that have not run yet are skipped.
+     * Every valve hands each caller a future of its own (identical
+     * queries share an execution, not a future), so no other request is
+     * cancelled with it.
+     *
+     * A DoT request already sent is not interrupted; it still ends within
+     * the timeouts of the DoT client (dot.command.*.timeout with THREAD
+     * isolation, http.pool.socket.timeout or dot.transport.timeout, and
+     * the dot.retry.budget), so the work left behind is bounded.
+     *
+     * @param future - future of a valve call
+     * @return the future failing with a TimeoutException once the WMLS
+     *         timeout has passed
+     */
+    private <T> CompletableFuture<T> withTimeout(CompletableFuture<T> future) {
+        if (this.timeoutMillis <= 0)
+            return future;
+        return future.copy().orTimeout(this.timeoutMillis, TimeUnit.MILLISECONDS)
+                .whenComplete((result, error) -> {
+                    if (error instanceof TimeoutException)
+                        future.cancel(true);
+                });
+    }
+
+    /**
+     * hands the response to CXF once the future completes, which resumes
+     * the suspended request
+     *
+     * @param future - future of the WMLS response, never failing
+     * @param asyncHandler - handler CXF passed to the async method
+     * @return the response CXF waits on
+     */
+    private static <T> Future<?> respond(CompletableFuture<T> future, AsyncHandler<T> asyncHandler) {
+        ServerAsyncResponse<T> response = new ServerAsyncResponse<>();
+        future.whenComplete((result, error) -> {
+            if (null != error)
+                response.exception(error);
+            else
+                response.set(result);
+            asyncHandler.handleResponse(response);
+        });
+        return response;
+    }
+
+    /**
+     * @param error - failure of a valve future
+     * @return the failure the valve raised
+     */
+    private static Throwable unwrap(Throwable error) {
+        while ((error instanceof CompletionException || error instanceof ExecutionException)
+                && null != error.getCause())
+            error = error.getCause();
+        return error;
+    }
+
 }
@@ -18,6 +18,7 @@ package com.hashmapinc.tempus.witsml.server.api;
 import java.util.ArrayList;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
@@ -53,6 +54,12 @@ public class ValveAuthenticationProvider implements AuthenticationProvider {
     private void setValve() throws ValveException, ValveAuthException {
         valve = ValveFactory.buildValve(valveName,config.getConfiguration());
     }
+
+    @PreDestroy
+    private void closeValve() {
+        if (null != valve)
+            valve.close();
+    }
     
     @Override
     public Authentication authenticate(Authentication authentication) throws AuthenticationException {
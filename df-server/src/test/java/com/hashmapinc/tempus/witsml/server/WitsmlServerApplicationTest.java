@@ -0,0 +1,63 @@
+/**
+ * Copyright © 2018-2019 Hashmap, Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hashmapinc.tempus.witsml.server;
+
+import org.junit.Test;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class WitsmlServerApplicationTest {
+
+	private final WitsmlServerApplication application = new WitsmlServerApplication();
+
+	private static ThreadPoolTaskExecutor assertPool(TaskExecutor executor, int core, int max) {
+		assertTrue(executor instanceof ThreadPoolTaskExecutor);
+		ThreadPoolTaskExecutor pool = (ThreadPoolTaskExecutor) executor;
+		assertEquals(core, pool.getCorePoolSize());
+		assertEquals(max, pool.getMaxPoolSize());
+		pool.shutdown();
+		return pool;
+	}
+
+	@Test
+	public void poolModeShouldBuildThreadPool() {
+		assertPool(this.application.getAsyncExecutor("pool", 2, 4, 10), 2, 4);
+	}
+
+	@Test
+	public void poolShouldNotBeSmallerThanItsCore() {
+		assertPool(this.application.getAsyncExecutor("pool", 8, 4, 10), 8, 8);
+	}
+
+	@Test
+	public void unknownModeShouldFallBackToThreadPool() {
+		assertPool(this.application.getAsyncExecutor("fibers", 2, 4, 10), 2, 4);
+	}
+
+	@Test
+	public void virtualModeShouldUseVirtualThreadsIfAvailable() throws Exception {
+		TaskExecutor executor = this.application.getAsyncExecutor("VIRTUAL", 2, 4, 10);
+		if (Runtime.version().feature() >= 21) {
+			assertTrue(executor instanceof VirtualThreadTaskExecutor);
+			((VirtualThreadTaskExecutor) executor).destroy();
+		} else {
+			assertPool(executor, 2, 4);
+		}
+	}
+}
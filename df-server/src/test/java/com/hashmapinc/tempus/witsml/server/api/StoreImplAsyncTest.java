@@ -0,0 +1,160 @@
+/**
+ * Copyright © 2018-2019 Hashmap, Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hashmapinc.tempus.witsml.server.api;
+
+import com.hashmapinc.tempus.witsml.server.WitsmlApiConfig;
+import com.hashmapinc.tempus.witsml.server.api.model.WMLS_DeleteFromStoreResponse;
+import com.hashmapinc.tempus.witsml.valve.IValve;
+import com.hashmapinc.tempus.witsml.valve.ValveException;
+import org.apache.cxf.annotations.UseAsyncMethod;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.xml.ws.AsyncHandler;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class StoreImplAsyncTest {
+
+	private static final String QUERY =
+			"<wells xmlns=\"http://www.witsml.org/schemas/1series\" version=\"1.4.1.1\">" +
+			"<well uid=\"w1\"/>" +
+			"</wells>";
+
+	private StoreImpl store;
+	private IValve valve;
+
+	@Before
+	public void doSetup() {
+		this.valve = mock(IValve.class);
+		WitsmlApiConfig apiConfig = mock(WitsmlApiConfig.class);
+		when(apiConfig.getProperty(anyString())).thenAnswer(invocation -> invocation.getArgument(0));
+
+		this.store = new StoreImpl();
+		ReflectionTestUtils.setField(this.store, "valve", this.valve);
+		ReflectionTestUtils.setField(this.store, "witsmlApiConfigUtil", apiConfig);
+		ReflectionTestUtils.setField(this.store, "timeoutMillis", 100L);
+
+		ValveUser user = new ValveUser();
+		user.setUserName("user");
+		user.setPassword("pass");
+		SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(user, "pass"));
+	}
+
+	@After
+	public void tearDown() {
+		SecurityContextHolder.clearContext();
+	}
+
+	private CompletableFuture<WMLS_DeleteFromStoreResponse> deleteAsync() {
+		CompletableFuture<WMLS_DeleteFromStoreResponse> handled = new CompletableFuture<>();
+		this.store.deleteFromStoreAsync("well", QUERY, "", "", response -> {
+			try {
+				handled.complete(response.get());
+			} catch (Exception e) {
+				handled.completeExceptionally(e);
+			}
+		});
+		return handled;
+	}
+
+	@Test
+	public void everyUseAsyncMethodShouldHaveTheOverloadCxfLooksFor() throws Exception {
+		// CXF (AbstractJAXWSMethodInvoker.adjustMethodAndParams) looks the
+		// async method up by <name>Async with an AsyncHandler appended to the
+		// parameters, and silently stays on the blocking method if it's missing
+		int annotated = 0;
+		for (Method method : StoreImpl.class.getMethods()) {
+			if (!method.isAnnotationPresent(UseAsyncMethod.class))
+				continue;
+			annotated++;
+			Class<?>[] types = Arrays.copyOf(method.getParameterTypes(), method.getParameterCount() + 1);
+			types[types.length - 1] = AsyncHandler.class;
+			Method async = StoreImpl.class.getMethod(method.getName() + "Async", types);
+			assertThat(Future.class.isAssignableFrom(async.getReturnType())).isTrue();
+		}
+		assertThat(annotated).isEqualTo(4);
+	}
+
+	@Test
+	public void asyncDeleteShouldAnswerWhenValveCompletes() throws Exception {
+		CompletableFuture<Boolean> deleted = new CompletableFuture<>();
+		when(this.valve.deleteObject(any())).thenReturn(deleted);
+
+		CompletableFuture<WMLS_DeleteFromStoreResponse> handled = deleteAsync();
+		assertThat(handled.isDone()).isFalse();
+
+		deleted.complete(true);
+		WMLS_DeleteFromStoreResponse response = handled.get(5, TimeUnit.SECONDS);
+		assertThat(response.getResult()).isEqualTo((short) 1);
+		assertThat(response.getSuppMsgOut()).isEqualTo("basemessages.1");
+	}
+
+	@Test
+	public void asyncDeleteShouldMapValveFailure() throws Exception {
+		when(this.valve.deleteObject(any())).thenReturn(
+				CompletableFuture.failedFuture(new ValveException("not found", (short) -433)));
+
+		WMLS_DeleteFromStoreResponse response = deleteAsync().get(5, TimeUnit.SECONDS);
+		assertThat(response.getResult()).isEqualTo((short) -433);
+		assertThat(response.getSuppMsgOut()).isEqualTo("basemessages.-433");
+	}
+
+	@Test
+	public void deleteShouldUnwrapWrappedValveFailure() throws Exception {
+		when(this.valve.deleteObject(any())).thenReturn(CompletableFuture.failedFuture(
+				new CompletionException(new ExecutionException(new ValveException("not found", (short) -433)))));
+
+		WMLS_DeleteFromStoreResponse response = this.store.deleteFromStore("well", QUERY, "", "");
+		assertThat(response.getResult()).isEqualTo((short) -433);
+	}
+
+	@Test
+	public void deleteShouldMapOtherFailureToMinusOne() throws Exception {
+		when(this.valve.deleteObject(any())).thenReturn(
+				CompletableFuture.failedFuture(new CompletionException(new IllegalStateException("DoT down"))));
+
+		WMLS_DeleteFromStoreResponse response = this.store.deleteFromStore("well", QUERY, "", "");
+		assertThat(response.getResult()).isEqualTo((short) -1);
+		assertThat(response.getSuppMsgOut()).isEqualTo("DoT down");
+	}
+
+	@Test
+	public void asyncDeleteShouldTimeOutAndCancelValveCall() throws Exception {
+		CompletableFuture<Boolean> deleted = new CompletableFuture<>();
+		when(this.valve.deleteObject(any())).thenReturn(deleted);
+
+		WMLS_DeleteFromStoreResponse response = deleteAsync().get(5, TimeUnit.SECONDS);
+		assertThat(response.getResult()).isEqualTo((short) -1002);
+		assertThat(response.getSuppMsgOut()).isEqualTo("basemessages.-1002");
+		assertThat(deleted.isCancelled()).isTrue();
+	}
+}
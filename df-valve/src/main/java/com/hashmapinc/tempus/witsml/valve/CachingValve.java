@@ -0,0 +1,367 @@
+/**
+ * Copyright © 2018-2019 Hashmap, Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hashmapinc.tempus.witsml.valve;
+
+import com.hashmapinc.tempus.WitsmlObjects.AbstractWitsmlObject;
+import com.hashmapinc.tempus.witsml.QueryContext;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Valve decorator that caches the XML responses of GetFromStore.
+ *
+ * Responses are keyed by the normalized query: object type, client
+ * version, query XML (which holds the uids and the requested elements),
+ * OptionsIn and the credentials of the user, so a cached response is only
+ * served to the user it was read for. Each object type has its own TTL,
+ * and the cache is an LRU bounded by the total size of the cached
+ * responses.
+ *
+ * Every create, update and delete drops the cached responses of the
+ * touched object and of the objects below it, e.g. a well update drops
+ * its cached wellbores and logs. Queries without some uid act as
+ * wildcards for that level. Reads still running when a write starts are
+ * not cached, so a response read before the write cannot outlive it.
+ */
+public class CachingValve implements IValve {
+    private final IValve valve;
+    private final long defaultTtlMillis;
+    private final Map<String, Long> ttlMillisByType;
+    private final long maxBytes;
+
+    private final LinkedHashMap<String, Entry> cache = new LinkedHashMap<>(16, 0.75f, true);
+    private long cachedBytes;
+    // changes on every write, see getObject
+    private final AtomicLong writeGeneration = new AtomicLong();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    /**
+     * @param valve - the valve to cache the responses of
+     * @param defaultTtlMillis - time to live of a response in milliseconds
+     * @param ttlMillisByType - time to live by object type, overriding the
+     *                          default; 0 or less disables caching for the type
+     * @param maxBytes - bound on the total size of the cached responses
+     */
+    public CachingValve(IValve valve, long defaultTtlMillis, Map<String, Long> ttlMillisByType, long maxBytes) {
+        this.valve = valve;
+        this.defaultTtlMillis = defaultTtlMillis;
+        this.ttlMillisByType = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        this.ttlMillisByType.putAll(ttlMillisByType);
+        this.maxBytes = maxBytes;
+    }
+
+    @Override
+    public String getName() {
+        return this.valve.getName();
+    }
+
+    @Override
+    public String getDescription() {
+        return this.valve.getDescription();
+    }
+
+    @Override
+    public CompletableFuture<String> getObject(QueryContext qc) throws ValveException {
+        long ttl = getTtlMillis(qc.OBJECT_TYPE);
+        if (ttl <= 0)
+            return this.valve.getObject(qc);
+
+        String key = queryKey(qc);
+        String cached = get(key);
+        if (cached != null) {
+            hits.incrementAndGet();
+            return CompletableFuture.completedFuture(cached);
+        }
+        misses.incrementAndGet();
+
+        long generation = this.writeGeneration.get();
+        List<ObjectRef> refs = objectRefs(qc);
+        return this.valve.getObject(qc).thenApply(xml -> {
+            if (xml != null)
+                put(key, xml, refs, ttl, generation);
+            return xml;
+        });
+    }
+
+    @Override
+    public String getObjectSelectionCapability(String WMLtypeIn) {
+        return this.valve.getObjectSelectionCapability(WMLtypeIn);
+    }
+
+    @Override
+    public CompletableFuture<String> createObject(QueryContext qc) throws ValveException {
+        List<ObjectRef> refs = objectRefs(qc);
+        invalidate(refs);
+        return whenWritten(this.valve.createObject(qc), refs);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> deleteObject(QueryContext qc) throws ValveException {
+        List<ObjectRef> refs = objectRefs(qc);
+        invalidate(refs);
+        return whenWritten(this.valve.deleteObject(qc), refs);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> updateObject(QueryContext qc) throws ValveException {
+        List<ObjectRef> refs = objectRefs(qc);
+        invalidate(refs);
+        return whenWritten(this.valve.updateObject(qc), refs);
+    }
+
+    @Override
+    public void authenticate(String userName, String password) throws ValveAuthException {
+        this.valve.authenticate(userName, password);
+    }
+
+    @Override
+    public Map<String, AbstractWitsmlObject[]> getCap() {
+        return this.valve.getCap();
+    }
+
+    @Override
+    public void close() {
+        this.valve.close();
+    }
+
+    /**
+     * @return number of queries answered from the cache
+     */
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    /**
+     * @return number of cacheable queries passed on to the valve
+     */
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * @return number of responses dropped to stay under the size bound
+     */
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    /**
+     * @return number of responses dropped because of writes
+     */
+    public long getInvalidationCount() {
+        return invalidations.get();
+    }
+
+    /**
+     * @return number of cached responses, including expired ones not yet removed
+     */
+    public synchronized int size() {
+        return cache.size();
+    }
+
+    /**
+     * @return total size of the cached responses, counting a char as a byte
+     */
+    public synchronized long getCachedBytes() {
+        return cachedBytes;
+    }
+
+    /**
+     * @return summary of the cache counters for logging
+     */
+    public String getStats() {
+        return String.format("size=%d, bytes=%d, hits=%d, misses=%d, evictions=%d, invalidations=%d",
+                size(), getCachedBytes(), getHitCount(), getMissCount(), getEvictionCount(),
+                getInvalidationCount());
+    }
+
+    private long getTtlMillis(String objectType) {
+        Long ttl = (objectType == null) ? null : this.ttlMillisByType.get(objectType);
+        return (ttl == null) ? this.defaultTtlMillis : ttl;
+    }
+
+    /**
+     * Drops the touched objects again once the write is done, whatever
+     * its outcome.
+     */
+    private <T> CompletableFuture<T> whenWritten(CompletableFuture<T> write, List<ObjectRef> refs) {
+        return write.whenComplete((result, error) -> invalidate(refs));
+    }
+
+    private synchronized String get(String key) {
+        Entry entry = cache.get(key);
+        if (entry == null)
+            return null;
+        if (entry.expiresAt <= System.currentTimeMillis()) {
+            remove(key);
+            return null;
+        }
+        return entry.xml;
+    }
+
+    private synchronized void put(String key, String xml, List<ObjectRef> refs, long ttl, long generation) {
+        // a write started while this response was read, it may be stale
+        if (generation != this.writeGeneration.get())
+            return;
+        long bytes = (long) key.length() + xml.length();
+        if (bytes > this.maxBytes)
+            return;
+
+        remove(key);
+        cache.put(key, new Entry(xml, refs, System.currentTimeMillis() + ttl, bytes));
+        cachedBytes += bytes;
+
+        Iterator<Map.Entry<String, Entry>> eldest = cache.entrySet().iterator();
+        while (cachedBytes > this.maxBytes && eldest.hasNext()) {
+            cachedBytes -= eldest.next().getValue().bytes;
+            eldest.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+    private void remove(String key) {
+        Entry entry = cache.remove(key);
+        if (entry != null)
+            cachedBytes -= entry.bytes;
+    }
+
+    private synchronized void invalidate(List<ObjectRef> written) {
+        this.writeGeneration.incrementAndGet();
+        Iterator<Entry> entries = cache.values().iterator();
+        while (entries.hasNext()) {
+            Entry entry = entries.next();
+            if (affects(written, entry.refs)) {
+                cachedBytes -= entry.bytes;
+                entries.remove();
+                invalidations.incrementAndGet();
+            }
+        }
+    }
+
+    private static boolean affects(List<ObjectRef> written, List<ObjectRef> cached) {
+        for (ObjectRef write : written) {
+            for (ObjectRef read : cached) {
+                if (write.covers(read))
+                    return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Builds the normalized key of a query, which also holds the
+     * credentials of the user. The key is a digest, so long query XML does
+     * not count twice against the size bound.
+     */
+    static String queryKey(QueryContext qc) {
+        StringBuilder key = new StringBuilder();
+        key.append(qc.OBJECT_TYPE).append('\n')
+                .append(qc.CLIENT_VERSION).append('\n')
+                .append(qc.USERNAME).append('\n')
+                .append(qc.PASSWORD).append('\n')
+                .append(qc.OPTIONS_IN == null ? "" : new TreeMap<>(qc.OPTIONS_IN)).append('\n')
+                .append(qc.QUERY_XML == null ? "" : qc.QUERY_XML.replaceAll(">\\s+<", "><").trim());
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return Base64.getEncoder().encodeToString(
+                    digest.digest(key.toString().getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException ex) {
+            // every JRE ships SHA-256
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static List<ObjectRef> objectRefs(QueryContext qc) {
+        if (qc.WITSML_OBJECTS == null || qc.WITSML_OBJECTS.isEmpty())
+            return Collections.singletonList(new ObjectRef(qc.OBJECT_TYPE, null));
+
+        List<ObjectRef> refs = new ArrayList<>(qc.WITSML_OBJECTS.size());
+        for (AbstractWitsmlObject obj : qc.WITSML_OBJECTS)
+            refs.add(new ObjectRef(qc.OBJECT_TYPE, obj));
+        return refs;
+    }
+
+    /**
+     * An object of a query, by its uid path from the well down. Missing
+     * uids match any uid.
+     */
+    private static class ObjectRef {
+        private final String type;
+        private final String[] path;
+
+        private ObjectRef(String type, AbstractWitsmlObject obj) {
+            this.type = type;
+            String uid = (obj == null) ? null : obj.getUid();
+            String parentUid = (obj == null) ? null : obj.getParentUid();
+            if ("well".equals(type))
+                this.path = new String[] { uid };
+            else if ("wellbore".equals(type))
+                this.path = new String[] { parentUid, uid };
+            else
+                this.path = new String[] { (obj == null) ? null : obj.getGrandParentUid(), parentUid, uid };
+        }
+
+        /**
+         * @return true if writing this object can change the response for
+         *         the other one, i.e. it is the same object or one of its
+         *         parents
+         */
+        private boolean covers(ObjectRef read) {
+            if (read.path.length < this.path.length)
+                return false;
+            if (read.path.length == this.path.length && !String.valueOf(this.type).equals(read.type))
+                return false;
+            for (int i = 0; i < this.path.length; i++) {
+                String written = this.path[i];
+                String queried = read.path[i];
+                if (written != null && !written.isEmpty() && queried != null && !queried.isEmpty()
+                        && !written.equals(queried))
+                    return false;
+            }
+            return true;
+        }
+    }
+
+    private static class Entry {
+        private final String xml;
+        private final List<ObjectRef> refs;
+        private final long expiresAt;
+        private final long bytes;
+
+        private Entry(String xml, List<ObjectRef> refs, long expiresAt, long bytes) {
+            this.xml = xml;
+            this.refs = refs;
+            this.expiresAt = expiresAt;
+            this.bytes = bytes;
+        }
+    }
+}
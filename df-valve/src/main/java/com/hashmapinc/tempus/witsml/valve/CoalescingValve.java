@@ -0,0 +1,149 @@
+/**
+ * Copyright © 2018-2019 Hashmap, Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hashmapinc.tempus.witsml.valve;
+
+import com.hashmapinc.tempus.WitsmlObjects.AbstractWitsmlObject;
+import com.hashmapinc.tempus.witsml.QueryContext;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Valve decorator that coalesces identical concurrent GetFromStore
+ * queries.
+ *
+ * Queries with the same normalized key (see CachingValve.queryKey), which
+ * includes the credentials of the user, share one execution by the
+ * wrapped valve: the first query runs it and the others get its result.
+ * A query arriving after the execution finished runs a new one, and every
+ * write detaches the running executions, so nothing read before a write
+ * is handed to a query sent after it.
+ */
+public class CoalescingValve implements IValve {
+    private final IValve valve;
+    private final ConcurrentHashMap<String, CompletableFuture<String>> inFlight = new ConcurrentHashMap<>();
+
+    private final AtomicLong executions = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+
+    /**
+     * @param valve - the valve to coalesce the queries of
+     */
+    public CoalescingValve(IValve valve) {
+        this.valve = valve;
+    }
+
+    @Override
+    public String getName() {
+        return this.valve.getName();
+    }
+
+    @Override
+    public String getDescription() {
+        return this.valve.getDescription();
+    }
+
+    @Override
+    public CompletableFuture<String> getObject(QueryContext qc) throws ValveException {
+        String key = CachingValve.queryKey(qc);
+        CompletableFuture<String> flight = new CompletableFuture<>();
+        CompletableFuture<String> running = this.inFlight.putIfAbsent(key, flight);
+        if (running != null) {
+            coalesced.incrementAndGet();
+            // a dependent future, so a caller cancelling it does not cancel the others
+            return running.thenApply(xml -> xml);
+        }
+
+        executions.incrementAndGet();
+        try {
+            this.valve.getObject(qc).whenComplete((xml, error) -> {
+                this.inFlight.remove(key, flight);
+                if (error != null)
+                    flight.completeExceptionally(error);
+                else
+                    flight.complete(xml);
+            });
+        } catch (ValveException | RuntimeException e) {
+            this.inFlight.remove(key, flight);
+            flight.completeExceptionally(e);
+            throw e;
+        }
+        // the leader gets a dependent future as well, cancelling it must
+        // not cancel the queries waiting on the shared execution
+        return flight.thenApply(xml -> xml);
+    }
+
+    @Override
+    public String getObjectSelectionCapability(String WMLtypeIn) {
+        return this.valve.getObjectSelectionCapability(WMLtypeIn);
+    }
+
+    @Override
+    public CompletableFuture<String> createObject(QueryContext qc) throws ValveException {
+        this.inFlight.clear();
+        return this.valve.createObject(qc).whenComplete((result, error) -> this.inFlight.clear());
+    }
+
+    @Override
+    public CompletableFuture<Boolean> deleteObject(QueryContext qc) throws ValveException {
+        this.inFlight.clear();
+        return this.valve.deleteObject(qc).whenComplete((result, error) -> this.inFlight.clear());
+    }
+
+    @Override
+    public CompletableFuture<Boolean> updateObject(QueryContext qc) throws ValveException {
+        this.inFlight.clear();
+        return this.valve.updateObject(qc).whenComplete((result, error) -> this.inFlight.clear());
+    }
+
+    @Override
+    public void authenticate(String userName, String password) throws ValveAuthException {
+        this.valve.authenticate(userName, password);
+    }
+
+    @Override
+    public Map<String, AbstractWitsmlObject[]> getCap() {
+        return this.valve.getCap();
+    }
+
+    @Override
+    public void close() {
+        this.valve.close();
+    }
+
+    /**
+     * @return number of queries executed by the wrapped valve
+     */
+    public long getExecutionCount() {
+        return executions.get();
+    }
+
+    /**
+     * @return number of queries that shared a running execution
+     */
+    public long getCoalescedCount() {
+        return coalesced.get();
+    }
+
+    /**
+     * @return number of executions currently running
+     */
+    public int getInFlightCount() {
+        return this.inFlight.size();
+    }
+}
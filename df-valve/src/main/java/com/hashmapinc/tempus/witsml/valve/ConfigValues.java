@@ -0,0 +1,67 @@
+/**
+ * Copyright © 2018-2019 Hashmap, Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hashmapinc.tempus.witsml.valve;
+
+import com.hashmapinc.tempus.witsml.ValveLogging;
+
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * Reads the numeric values of the valve configuration.
+ */
+public class ConfigValues {
+    private static final Logger LOG = Logger.getLogger(ConfigValues.class.getName());
+
+    /**
+     * reads a numeric config value
+     *
+     * @param config - map with field values
+     * @param key - config key
+     * @param defaultValue - value used if the key is missing, empty or not a number
+     * @return the configured value
+     */
+    public static double getNumber(Map<String, String> config, String key, double defaultValue) {
+        String value = (null == config) ? null : config.get(key);
+        if (null == value || value.trim().isEmpty())
+            return defaultValue;
+        try {
+            return Double.parseDouble(value.trim());
+        } catch (NumberFormatException e) {
+            LOG.warning(ValveLogging.getLogMsg("Invalid value " + value + " for " + key + ", using " + defaultValue));
+            return defaultValue;
+        }
+    }
+
+    /**
+     * reads a numeric config value, dropping any fraction
+     *
+     * @param config - map with field values
+     * @param key - config key
+     * @param defaultValue - value used if the key is missing, empty or not a number
+     * @return the configured value
+     */
+    public static long getLong(Map<String, String> config, String key, long defaultValue) {
+        String value = (null == config) ? null : config.get(key);
+        if (null == value || value.trim().isEmpty())
+            return defaultValue;
+        try {
+            return Long.parseLong(value.trim());
+        } catch (NumberFormatException e) {
+            return (long) getNumber(config, key, defaultValue);
+        }
+    }
+}
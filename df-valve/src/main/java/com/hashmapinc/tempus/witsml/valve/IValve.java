@@ -92,4 +92,10 @@ public interface IValve {
      * @return capabilities - map of FUNCTION_NAME->ARRAY_OF_SUPPORTED_OBJECTS
      */
     public Map<String, AbstractWitsmlObject[]> getCap();
+
+    /**
+     * Releases the threads and credentials held by the valve
+     */
+    public default void close() {
+    }
 }
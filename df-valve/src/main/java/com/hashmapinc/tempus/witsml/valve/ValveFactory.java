@@ -15,18 +15,49 @@
  */
 package com.hashmapinc.tempus.witsml.valve;
 
+import java.util.HashMap;
 import java.util.Map;
 
 public class ValveFactory {
+    private static final String RESPONSE_CACHE_TTL_PREFIX = "response.cache.ttl.";
 
     public static IValve buildValve(String valveType, Map<String,String> config) throws ValveAuthException {
+        IValve valve;
         switch (valveType) {
             case "DoT":
-                return new com.hashmapinc.tempus.witsml.valve.dot.DotValve(config);
+                // the caches are process wide, set up by the first valve only
+                com.hashmapinc.tempus.witsml.valve.dot.DotCaches.initialize(config);
+                valve = new com.hashmapinc.tempus.witsml.valve.dot.DotValve(config);
+                break;
             default:
                 return null;
         }
+        if (config == null)
+            return valve;
+        // coalesce identical concurrent queries if enabled, behind the cache
+        if ("true".equalsIgnoreCase(config.get("request.coalescing.enabled")))
+            valve = new CoalescingValve(valve);
+        if ("true".equalsIgnoreCase(config.get("response.cache.enabled")))
+            valve = buildCachingValve(valve, config);
+        return valve;
     }
 
-
+    /**
+     * Wraps the valve in a CachingValve configured by the response.cache.*
+     * entries: ttl.default (seconds), ttl.{objectType} (seconds, overrides
+     * ttl.default for one object type) and size (bytes).
+     */
+    private static IValve buildCachingValve(IValve valve, Map<String,String> config) {
+        long defaultTtl = (long) (ConfigValues.getNumber(config, RESPONSE_CACHE_TTL_PREFIX + "default", 10) * 1000);
+        Map<String, Long> ttlByType = new HashMap<>();
+        for (String key : config.keySet()) {
+            if (key.startsWith(RESPONSE_CACHE_TTL_PREFIX) && !key.endsWith(".default")) {
+                double ttl = ConfigValues.getNumber(config, key, -1);
+                if (ttl >= 0)
+                    ttlByType.put(key.substring(RESPONSE_CACHE_TTL_PREFIX.length()), (long) (ttl * 1000));
+            }
+        }
+        long maxBytes = (long) ConfigValues.getNumber(config, "response.cache.size", 64 * 1024 * 1024);
+        return new CachingValve(valve, defaultTtl, ttlByType, maxBytes);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,93 @@
+/**
+ * Copyright © 2018-2019 Hashmap, Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hashmapinc.tempus.witsml.valve.dot;
+
+import com.hashmapinc.tempus.witsml.valve.ConfigValues;
+import com.hashmapinc.tempus.witsml.valve.dot.client.NameCache;
+import com.hashmapinc.tempus.witsml.valve.dot.client.RedisIdentityStore;
+import com.hashmapinc.tempus.witsml.valve.dot.client.StatsLogger;
+import com.hashmapinc.tempus.witsml.valve.dot.client.UidUuidCache;
+import com.hashmapinc.tempus.witsml.valve.dot.client.UidUuidCacheSnapshot;
+import com.hashmapinc.tempus.witsml.valve.dot.model.log.ChannelSetCache;
+import com.hashmapinc.tempus.witsml.valve.dot.model.log.ChannelsCache;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Sets up the process wide caches of the DoT valve: the name, channel
+ * set, channels and uid/uuid caches, the shared identity store behind the
+ * uid/uuid cache, its snapshot and the stats of all of them.
+ *
+ * Every valve in the process uses the same caches, so they are set up
+ * once, by ValveFactory when the first DoT valve is built. Later calls
+ * leave them as they are; in particular the identity store and its near
+ * cache in use by other valves are never replaced.
+ */
+public class DotCaches {
+    private static boolean initialized;
+
+    /**
+     * Sets up the caches from the valve configuration, unless that was
+     * done already.
+     *
+     * @param config - valve configuration, "name.cache.*",
+     *                 "channelset.cache.*", "channels.cache.*" and
+     *                 "uid.cache.*" entries are used
+     */
+    public static synchronized void initialize(Map<String, String> config) {
+        if (initialized)
+            return;
+        initialized = true;
+        if (null == config)
+            config = Collections.emptyMap();
+
+        NameCache.configure((long) (ConfigValues.getNumber(config, "name.cache.ttl", 600) * 1000),
+                (int) ConfigValues.getNumber(config, "name.cache.size", 10000));
+        ChannelSetCache.configure((long) (ConfigValues.getNumber(config, "channelset.cache.ttl", 300) * 1000),
+                (int) ConfigValues.getNumber(config, "channelset.cache.size", 10000));
+        ChannelsCache.configure((long) (ConfigValues.getNumber(config, "channels.cache.ttl", 30) * 1000),
+                (int) ConfigValues.getNumber(config, "channels.cache.size", 1000));
+        long ttl = (long) (ConfigValues.getNumber(config, "uid.cache.ttl", 3600) * 1000);
+        long missingTtl = (long) (ConfigValues.getNumber(config, "uid.cache.missing.ttl", 30) * 1000);
+        long restoreTtl = (long) (ConfigValues.getNumber(config, "uid.cache.restore.ttl", 300) * 1000);
+        UidUuidCache.configure(ttl, missingTtl, (int) ConfigValues.getNumber(config, "uid.cache.size", 100000));
+        StatsLogger.register("Name cache", NameCache::getStats);
+        StatsLogger.register("ChannelSet cache", ChannelSetCache::getStats);
+        StatsLogger.register("Channels cache", ChannelsCache::getStats);
+        StatsLogger.register("Uid/uuid cache", UidUuidCache::getStats);
+        if ("redis".equalsIgnoreCase(config.get("uid.cache.backend"))) {
+            // share identity lookups with the other nodes of the cluster
+            UidUuidCache.useSharedStore(new RedisIdentityStore(config.get("uid.cache.redis.host"),
+                    (int) ConfigValues.getNumber(config, "uid.cache.redis.port", 6379), config.get("uid.cache.redis.password"),
+                    (int) ConfigValues.getNumber(config, "uid.cache.redis.timeout", 2000),
+                    (int) ConfigValues.getNumber(config, "uid.cache.redis.pool", 8),
+                    (long) (ConfigValues.getNumber(config, "uid.cache.redis.backoff", 30) * 1000),
+                    Math.max(ttl, Math.max(missingTtl, restoreTtl))),
+                    (long) (ConfigValues.getNumber(config, "uid.cache.near.ttl", 30) * 1000));
+        }
+        UidUuidCacheSnapshot.start(config.get("uid.cache.snapshot.path"),
+                (long) ConfigValues.getNumber(config, "uid.cache.snapshot.interval", 300),
+                restoreTtl);
+    }
+
+    /**
+     * @return true once the caches were set up
+     */
+    public static synchronized boolean isInitialized() {
+        return initialized;
+    }
+}
@@ -26,14 +26,22 @@ import com.hashmapinc.tempus.WitsmlObjects.v1411.ObjLog;
 import com.hashmapinc.tempus.WitsmlObjects.v1411.ObjTrajectory;
 import com.hashmapinc.tempus.WitsmlObjects.v1411.ShortNameStruct;
 import com.hashmapinc.tempus.witsml.ValveLogging;
+import com.hashmapinc.tempus.witsml.valve.ConfigValues;
 import com.hashmapinc.tempus.witsml.valve.ValveAuthException;
 import com.hashmapinc.tempus.witsml.valve.ValveException;
 import com.hashmapinc.tempus.witsml.valve.dot.client.DotClient;
+import com.hashmapinc.tempus.witsml.valve.dot.client.NameCache;
 import com.hashmapinc.tempus.witsml.valve.dot.client.UidUuidCache;
 import com.hashmapinc.tempus.witsml.valve.dot.graphql.GraphQLQueryConverter;
 import com.hashmapinc.tempus.witsml.valve.dot.graphql.GraphQLRespConverter;
+import com.hashmapinc.tempus.witsml.valve.dot.model.log.ChannelSetCache;
+import com.hashmapinc.tempus.witsml.valve.dot.model.log.ChannelsCache;
+import com.hashmapinc.tempus.witsml.valve.dot.model.log.DotLogData;
 import com.hashmapinc.tempus.witsml.valve.dot.model.log.DotLogDataHelper;
+import com.hashmapinc.tempus.witsml.valve.dot.model.log.DotLogDataPacket;
+import com.hashmapinc.tempus.witsml.valve.dot.model.log.DotLogDataReader;
 import com.hashmapinc.tempus.witsml.valve.dot.model.log.LogConverterExtended;
+import com.hashmapinc.tempus.witsml.valve.dot.model.log.LogDataWindow;
 import com.hashmapinc.tempus.witsml.valve.dot.model.log.channel.Channel;
 import com.hashmapinc.tempus.witsml.valve.dot.model.log.channelset.ChannelSet;
 import com.mashape.unirest.http.HttpResponse;
@@ -49,6 +57,12 @@ import javax.xml.bind.JAXBException;
 import javax.xml.datatype.DatatypeConfigurationException;
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
 
@@ -65,6 +79,8 @@ public class DotDelegator {
 	private final int CS_IDX_4_PAYLOADS = 0;
 	private final int CHANNELS_IDX_4_PAYLOADS = 1;
 	private final int DATA_IDX_4_PAYLOADS = 2;
+	// WITSML result code for a log update where some data packets could not be written
+	public static final short LOG_DATA_PARTIAL_SUCCESS = 1001;
 
 	private final String WELL_PATH;
 	private final String WB_PATH;
@@ -85,8 +101,26 @@ public class DotDelegator {
 	private final String FLUIDS_REPORT_PATH;
 	private final String FLUIDS_REPORT_IDENTITIES_PATH;
 
+	private final double LOG_DATA_DEPTH_WINDOW;
+	private final double LOG_DATA_TIME_WINDOW;
+	private final int LOG_DATA_MAX_WINDOWS;
+	private final int LOG_DATA_WINDOW_RETRIES;
+	private final ExecutorService LOG_DATA_EXECUTOR;
+	private final ExecutorService LOG_SEARCH_EXECUTOR;
+	private final int LOG_DATA_PACKET_ROWS;
+	private final int LOG_DATA_PACKET_SIZE;
+	private final int LOG_DATA_PACKET_PARALLELISM;
+	private final int LOG_DATA_PACKET_RETRIES;
+	private final ExecutorService LOG_DATA_UPLOAD_EXECUTOR;
+	// skip the channel set PATCH of a header this node wrote last, off by default
+	private final boolean LOG_CHANNELSET_SKIP_UNCHANGED;
+	// null unless identity prefetching is enabled
+	private final ExecutorService IDENTITY_PREFETCH_EXECUTOR;
+	private final IdentityPrefetcher IDENTITY_PREFETCHER;
+
 	/**
-	 * Map based constructor
+	 * Map based constructor. The caches shared by all delegators are set
+	 * up by DotCaches.
 	 *
 	 * @param config - map with field values
 	 */
@@ -109,6 +143,101 @@ public class DotDelegator {
 		this.LOG_TIME_BOUNDARY_DATA_PATH = config.get("log.channel.timeBoundaryData.path");
 		this.FLUIDS_REPORT_PATH = config.get("fluids.report.path");
 		this.FLUIDS_REPORT_IDENTITIES_PATH = config.get("fluids.report.identities");
+		this.LOG_DATA_DEPTH_WINDOW = ConfigValues.getNumber(config, "log.data.window.depth", 5000);
+		this.LOG_DATA_TIME_WINDOW = ConfigValues.getNumber(config, "log.data.window.time", 86400);
+		this.LOG_DATA_MAX_WINDOWS = (int) ConfigValues.getNumber(config, "log.data.window.max", 32);
+		this.LOG_DATA_WINDOW_RETRIES = (int) ConfigValues.getNumber(config, "log.data.window.retries", 2);
+		this.LOG_DATA_EXECUTOR = newDaemonPool("dot-log-data",
+				Math.max(1, (int) ConfigValues.getNumber(config, "log.data.window.parallelism", 4)));
+		this.LOG_SEARCH_EXECUTOR = newDaemonPool("dot-log-search",
+				Math.max(1, (int) ConfigValues.getNumber(config, "log.search.parallelism", 8)));
+		this.LOG_DATA_PACKET_ROWS = (int) ConfigValues.getNumber(config, "log.data.packet.rows", 10000);
+		this.LOG_DATA_PACKET_SIZE = (int) ConfigValues.getNumber(config, "log.data.packet.size", 4000000);
+		this.LOG_DATA_PACKET_PARALLELISM = Math.max(1, (int) ConfigValues.getNumber(config, "log.data.packet.parallelism", 4));
+		this.LOG_DATA_PACKET_RETRIES = (int) ConfigValues.getNumber(config, "log.data.packet.retries", 2);
+		this.LOG_DATA_UPLOAD_EXECUTOR = newDaemonPool("dot-log-upload", this.LOG_DATA_PACKET_PARALLELISM);
+		this.LOG_CHANNELSET_SKIP_UNCHANGED = "true".equalsIgnoreCase(config.get("channelset.patch.skip"));
+		this.IDENTITY_PREFETCH_EXECUTOR = "true".equalsIgnoreCase(config.get("identity.prefetch.enabled"))
+				? newDaemonPool("dot-identity-prefetch",
+						Math.max(1, (int) ConfigValues.getNumber(config, "identity.prefetch.parallelism", 2)))
+				: null;
+		this.IDENTITY_PREFETCHER = (null != this.IDENTITY_PREFETCH_EXECUTOR)
+				? new IdentityPrefetcher(this.WELLBORE_GQL_PATH, this.LOG_CHANNELSET_PATH,
+						this.IDENTITY_PREFETCH_EXECUTOR,
+						(long) (ConfigValues.getNumber(config, "uid.cache.ttl", 3600) * 1000),
+						(int) ConfigValues.getNumber(config, "identity.prefetch.wells", 10000))
+				: null;
+	}
+
+	/**
+	 * Shuts down the pools of the delegator. Work already submitted is
+	 * finished, later log reads, searches, uploads and prefetches are
+	 * rejected.
+	 */
+	public void close() {
+		this.LOG_DATA_EXECUTOR.shutdown();
+		this.LOG_SEARCH_EXECUTOR.shutdown();
+		this.LOG_DATA_UPLOAD_EXECUTOR.shutdown();
+		if (null != this.IDENTITY_PREFETCH_EXECUTOR)
+			this.IDENTITY_PREFETCH_EXECUTOR.shutdown();
+	}
+
+	/**
+	 * builds a fixed size pool of daemon threads, so idle workers
+	 * never keep the server from shutting down
+	 *
+	 * @param name - thread name prefix
+	 * @param size - number of threads
+	 * @return the executor
+	 */
+	static ExecutorService newDaemonPool(String name, int size) {
+		AtomicInteger threadCount = new AtomicInteger();
+		return Executors.newFixedThreadPool(size, runnable -> {
+			Thread thread = new Thread(runnable, name + "-" + threadCount.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * waits for all futures and returns their results in submission order.
+	 * If one of them fails, the rest are cancelled and its exception is
+	 * rethrown.
+	 *
+	 * @param futures - futures to wait for
+	 * @return results in the order of futures
+	 *
+	 * @throws ValveException
+	 * @throws ValveAuthException
+	 * @throws UnirestException
+	 */
+	private static <T> List<T> awaitAll(List<Future<T>> futures)
+			throws ValveException, ValveAuthException, UnirestException {
+		List<T> results = new ArrayList<>(futures.size());
+		boolean completed = false;
+		try {
+			for (Future<T> future : futures)
+				results.add(future.get());
+			completed = true;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new ValveException("Interrupted while waiting for DoT requests");
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof ValveException)
+				throw (ValveException) cause;
+			if (cause instanceof ValveAuthException)
+				throw (ValveAuthException) cause;
+			if (cause instanceof UnirestException)
+				throw (UnirestException) cause;
+			throw new ValveException(cause.getMessage());
+		} finally {
+			if (!completed) {
+				for (Future<T> future : futures)
+					future.cancel(true);
+			}
+		}
+		return results;
 	}
 
 	/**
@@ -205,9 +334,6 @@ public class DotDelegator {
 		HttpRequest request = null;
 		String logCurveInfoUid = "";
 		String mnemonic = "";
-		String channelsEndPoint;
-		HttpRequest channelsRequest;
-		HttpResponse<String> channelsResponse;
 		int logCurveInfosize = 0;
 
 		endpoint = this.getEndpoint(objectType) + uid; // add uid for rest call
@@ -243,14 +369,8 @@ public class DotDelegator {
 				if (uuid == null) {
 					throw new ValveException("", (short) -433);
 				}
-				// Build Request for Get Channels
-				channelsEndPoint = this.getEndpoint("channels");
-				channelsRequest = Unirest.get(channelsEndPoint);
-				channelsRequest.header("accept", "application/json");
-				channelsRequest.queryString("channelSetUuid", uuid);
-				// get response
-				channelsResponse = client.makeRequest(channelsRequest, username, password, exchangeID);
-				List<Channel> channels = Channel.jsonToChannelList(channelsResponse.getBody());
+				// Get Channels
+				List<Channel> channels = getChannelMetadata(uuid, client, username, password, exchangeID);
 				for (Channel c : channels) {
 					try {
 						if (logCurveInfoUid.equals(c.getUid())) {
@@ -269,6 +389,7 @@ public class DotDelegator {
 				logMnemonicRequest.queryString("mnemonic", mnemonic);
 				HttpResponse<String> logMnemoniceResponse = client.makeRequest(logMnemonicRequest, username, password,
 						exchangeID);
+				ChannelsCache.removeFromCache(uuid);
 				int mnemonicDeleteStatus = logMnemoniceResponse.getStatus();
 				if (204 != mnemonicDeleteStatus) {
 					throw new ValveException("DELETE DoT REST call failed with status code: " + mnemonicDeleteStatus);
@@ -288,6 +409,9 @@ public class DotDelegator {
 				if (204 != deleteStatus) {
 					throw new ValveException("DELETE DoT REST call failed with status code: " + deleteStatus);
 				}
+				ChannelSetCache.removeFromCache(uuid);
+				ChannelsCache.removeFromCache(uuid);
+				invalidateIdentity(witsmlObj, true);
 			}
 
 		} else if ("fluidsreport".equals(objectType)) {
@@ -305,12 +429,15 @@ public class DotDelegator {
 			if (204 != deleteStatus) {
 				throw new ValveException("DELETE DoT REST call failed with status code: " + deleteStatus);
 			}
+			invalidateIdentity(witsmlObj, true);
 		} else {
 			response = client.makeRequest(request, username, password, exchangeID);
 			int status = response.getStatus();
 			if (201 == status || 200 == status || 204 == status) {
 				LOG.info(ValveLogging.getLogRespMsg(exchangeID, "Successfully Deleted Object with UID: " + uid,
 						response));
+				invalidateNames(witsmlObj);
+				invalidateIdentity(witsmlObj, true);
 			} else {
 				LOG.warning(
 						ValveLogging.getLogRespMsg(exchangeID, "Unable to delete Object with UID: " + uid, response));
@@ -448,14 +575,15 @@ public class DotDelegator {
 					// add query string params
 					addQueryStringParams(objectType, request, witsmlObj);
 
-					// make the UPDATE call
-					response = client.makeRequest(request, username, password, exchangeID);
+					// make the UPDATE call, sending the same update twice is harmless
+					response = client.makeRequest(request, username, password, exchangeID, true);
 
 					// check response status
 					int status = response.getStatus();
 					if (201 == status || 200 == status) {
 						LOG.info(ValveLogging.getLogRespMsg(exchangeID, "Successfully updated object with UID: " + uid,
 								response));
+						invalidateNames(witsmlObj);
 					} else {
 						LOG.warning(ValveLogging.getLogRespMsg(exchangeID, "Failed to update object with UID: " + uid,
 								response));
@@ -466,6 +594,38 @@ public class DotDelegator {
 		}
 	}
 
+	/**
+	 * drops the cached name of an updated or deleted well/wellbore; deleting a
+	 * well also drops the names of its wellbores
+	 *
+	 * @param witsmlObj - the updated or deleted object
+	 */
+	private void invalidateNames(AbstractWitsmlObject witsmlObj) {
+		String objectType = witsmlObj.getObjectType();
+		if ("well".equals(objectType)) {
+			NameCache.invalidateWell(witsmlObj.getUid());
+		} else if (WELLBORE_OBJECT.equals(objectType)) {
+			NameCache.invalidateWellbore(witsmlObj.getParentUid(), witsmlObj.getUid());
+		}
+	}
+
+	/**
+	 * drops the cached uid/uuid mapping of a deleted object, or the "missing"
+	 * entry of a created object
+	 *
+	 * @param witsmlObj - the created or deleted object
+	 * @param deleted   - true to also drop the mappings of the objects below a
+	 *                  deleted object
+	 */
+	private void invalidateIdentity(AbstractWitsmlObject witsmlObj, boolean deleted) {
+		String uid = witsmlObj.getUid();
+		if (null == uid || uid.isEmpty())
+			return;
+		UidUuidCache.removeFromCache(uid, witsmlObj.getParentUid(), witsmlObj.getGrandParentUid());
+		if (deleted)
+			UidUuidCache.removeChildren(uid, witsmlObj.getParentUid(), witsmlObj.getGrandParentUid());
+	}
+
 	/**
 	 * This method (Patch) Patches a FluidsReport by UUID
 	 *
@@ -578,7 +738,6 @@ public class DotDelegator {
 		String uuid;
 		HttpRequestWithBody channelSetRequest;
 		HttpRequestWithBody channelsRequest;
-		HttpRequestWithBody channelDataRequest;
 
 		// a log will derive its payloads from "payload":
 		// channelSet, channels, and data
@@ -591,11 +750,9 @@ public class DotDelegator {
 			throw new ValveException("Not Found", (short) -433);
 		}
 
-		// TODO check if there is anything to update with Redis cache
-		// for the payload object with cache object
-
-		// get up to three (3) payloads for log
-		String[] payloads = getMappedPayloads4Log(version, payload, witsmlObj);
+		// get up to three (3) payloads for log; the data rows are encoded
+		// packet by packet further down, so only their mnemonics are mapped
+		String[] payloads = getMappedPayloads4Log(version, payload, witsmlObj, false);
 		channelSetPayload = payloads[CS_IDX_4_PAYLOADS];
 		channelPayload = payloads[CHANNELS_IDX_4_PAYLOADS];
 		dataPayload = payloads[DATA_IDX_4_PAYLOADS];
@@ -620,9 +777,6 @@ public class DotDelegator {
 
 		if (channelSetPayload != null && channelSetPayload.length() > 0) {
 			// ************************* CHANNELSET *************************
-			// check if channelSet is in cache (not a granular search, but
-			// against the channelSet in its entirely)
-			// boolean bypass = false;channelPayloadAsJSON
 			try {
 				if ("1.4.1.1".equals(version)) {
 					cs = ChannelSet.from1411((com.hashmapinc.tempus.WitsmlObjects.v1411.ObjLog) witsmlObj);
@@ -637,27 +791,34 @@ public class DotDelegator {
 				throw new ValveException("Could not produce JSON payload for ChannelSet");
 			}
 
-			// TODO Check if CS was found in cache (if so, bypass update)
-			/*
-			 * if (ChannelSetCache.getCS(uuid, cs)) {
-			 * 
-			 * }
-			 */
-
-			// **************************** Payload Rest Call ****************************
-			// //
-			// PATCH is used to make partial changes to an existing resource. //
-			// //
-			// endpoint: //
-			// .../channelSets/{uuid} //
-			// ***************************************************************************
-			// //
-			channelSetEndpoint = this.getEndpoint(objectType);
-			channelSetEndpoint = channelSetEndpoint + "/{" + uuid + "}";
-			channelSetRequest = Unirest.patch(channelSetEndpoint);
-			// if any response other than success (status code 200, 201 or 202),
-			// this method will throw an error (stopping the chain of REST calls)
-			makeRESTCalls4Objects(channelSetRequest, channelSetPayload, exchangeID, username, password, client);
+			// if enabled, check if channelSet is in cache (not a granular
+			// search, but against the channelSet in its entirety); a header
+			// this node already wrote is not PATCHed again. The cache only
+			// knows this node's writes, so this is off unless every write to
+			// the channel set goes through this node.
+			if (this.LOG_CHANNELSET_SKIP_UNCHANGED && ChannelSetCache.isUnchanged(uuid, channelSetPayload)) {
+				LOG.fine(ValveLogging.getLogMsg(exchangeID,
+						"ChannelSet " + uuid + " unchanged, skipping PATCH", witsmlObj));
+			} else {
+				// **************************** Payload Rest Call ****************************
+				// //
+				// PATCH is used to make partial changes to an existing resource. //
+				// //
+				// endpoint: //
+				// .../channelSets/{uuid} //
+				// ***************************************************************************
+				// //
+				channelSetEndpoint = this.getEndpoint(objectType);
+				channelSetEndpoint = channelSetEndpoint + "/{" + uuid + "}";
+				channelSetRequest = Unirest.patch(channelSetEndpoint);
+				// a failed PATCH leaves the stored header unknown
+				ChannelSetCache.removeFromCache(uuid);
+				// if any response other than success (status code 200, 201 or 202),
+				// this method will throw an error (stopping the chain of REST calls)
+				makeRESTCalls4Objects(channelSetRequest, channelSetPayload, exchangeID, username, password, client);
+				if (this.LOG_CHANNELSET_SKIP_UNCHANGED)
+					ChannelSetCache.putInCache(uuid, channelSetPayload);
+			}
 		}
 
 		if (channelPayload != null && !channelPayload.isEmpty()) {
@@ -670,21 +831,201 @@ public class DotDelegator {
 			// if any response other than success (status code 200 or 201),
 			// this method will throw an error (stopping the chain of
 			// REST calls)
-			makeRESTCalls4Objects(channelsRequest, channelPayload, exchangeID, username, password, client);
+			try {
+				makeRESTCalls4Objects(channelsRequest, channelPayload, exchangeID, username, password, client);
+			} finally {
+				ChannelsCache.removeFromCache(uuid);
+			}
 		}
 
-		// TODO Allow multiple data packets card #598
 		if (dataPayload != null && !dataPayload.isEmpty()) {
 			// **************************** DATA *****************************
 			// .../witsml/channels/data?channelSetUuid={channelSetUuid}
 			dataEndpoint = this.getEndpoint("channelData");
-			channelDataRequest = Unirest.post(dataEndpoint);
+			// large appends are split into several packets
+			List<DotLogDataPacket> dataPackets = getDataPackets(witsmlObj, version);
+			try {
+				uploadDataPackets(dataPackets, dataEndpoint, uuid, exchangeID, username, password, client);
+			} finally {
+				// appended data moves the index ranges of the channels
+				ChannelsCache.removeFromCache(uuid);
+			}
+		}
+	}
+
+	/**
+	 * Splits the data rows of a log into packets bounded by
+	 * LOG_DATA_PACKET_ROWS rows and LOG_DATA_PACKET_SIZE chars.
+	 *
+	 * @param witsmlObj - log holding the data rows
+	 * @param version   - WITSML version of the log
+	 * @return the packets, a single one if the data is within bounds
+	 */
+	private List<DotLogDataPacket> getDataPackets(AbstractWitsmlObject witsmlObj, String version) {
+		if ("1.4.1.1".equals(version)) {
+			return DotLogDataHelper.convertDataToDotPacketsFrom1411((ObjLog) witsmlObj, this.LOG_DATA_PACKET_ROWS,
+					this.LOG_DATA_PACKET_SIZE);
+		}
+		return DotLogDataHelper.convertDataToDotPacketsFrom1311(
+				(com.hashmapinc.tempus.WitsmlObjects.v1311.ObjLog) witsmlObj, this.LOG_DATA_PACKET_ROWS,
+				this.LOG_DATA_PACKET_SIZE);
+	}
+
+	/**
+	 * Posts the data packets of a log, keeping at most
+	 * LOG_DATA_PACKET_PARALLELISM packets in flight. Every packet is retried
+	 * on its own.
+	 *
+	 * A single packet fails exactly like a single POST did. If every packet
+	 * fails, the first failure is rethrown; if only some fail, a
+	 * ValveException with LOG_DATA_PARTIAL_SUCCESS as error code is thrown,
+	 * naming the rows and index ranges that were and were not written so
+	 * the client can resend only the missing ones.
+	 *
+	 * @param packets    - data packets to post
+	 * @param endpoint   - channels/data endpoint
+	 * @param uuid       - channel set uuid
+	 * @param exchangeID - string ID for logging
+	 * @param username   - string username for basic client auth
+	 * @param password   - string password for basic client auth
+	 * @param client     - DotClient instance to use for sending API requests
+	 *
+	 * @throws ValveException
+	 * @throws ValveAuthException
+	 * @throws UnirestException
+	 */
+	private void uploadDataPackets(List<DotLogDataPacket> packets, String endpoint, String uuid, String exchangeID,
+			String username, String password, DotClient client)
+			throws ValveException, ValveAuthException, UnirestException {
+		if (packets.size() == 1) {
+			uploadDataPacket(packets.get(0), endpoint, uuid, exchangeID, username, password, client);
+			return;
+		}
+
+		LOG.info(ValveLogging.getLogMsg(exchangeID,
+				"Uploading log data for channel set " + uuid + " in " + packets.size() + " packets"));
+		Exception[] errors = new Exception[packets.size()];
+		boolean[] done = new boolean[packets.size()];
+		Deque<Future<?>> inFlight = new ArrayDeque<>();
+		try {
+			for (int i = 0; i < packets.size(); i++) {
+				if (inFlight.size() >= this.LOG_DATA_PACKET_PARALLELISM)
+					inFlight.removeFirst().get();
+				DotLogDataPacket packet = packets.get(i);
+				int packetIndex = i;
+				inFlight.addLast(this.LOG_DATA_UPLOAD_EXECUTOR.submit(() -> {
+					try {
+						uploadDataPacket(packet, endpoint, uuid, exchangeID, username, password, client);
+					} catch (Exception e) {
+						errors[packetIndex] = e;
+					} finally {
+						done[packetIndex] = true;
+					}
+				}));
+			}
+			while (!inFlight.isEmpty())
+				inFlight.removeFirst().get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			for (Future<?> future : inFlight)
+				future.cancel(true);
+			throw dataPacketsFailed(packets, errors, done, "Interrupted while uploading log data");
+		} catch (ExecutionException e) {
+			throw dataPacketsFailed(packets, errors, done, e.getCause().getMessage());
+		}
+
+		List<Integer> failed = new ArrayList<>();
+		for (int i = 0; i < errors.length; i++) {
+			if (errors[i] != null)
+				failed.add(i);
+		}
+		if (failed.isEmpty())
+			return;
+
+		Exception firstError = errors[failed.get(0)];
+		if (failed.size() == packets.size()) {
+			if (firstError instanceof ValveAuthException)
+				throw (ValveAuthException) firstError;
+			if (firstError instanceof UnirestException)
+				throw (UnirestException) firstError;
+			throw new ValveException(firstError.getMessage());
+		}
+		ValveException partial = dataPacketsFailed(packets, errors, done, firstError.getMessage());
+		LOG.warning(ValveLogging.getLogMsg(exchangeID,
+				"Log data for channel set " + uuid + ": " + partial.getMessage()));
+		throw partial;
+	}
+
+	/**
+	 * Describes which packets of an upload were written, e.g. "Partial
+	 * success: 1 of 3 log data packets could not be written (rows
+	 * 10001-20000 (index 100 to 199.9)), written: rows 1-10000 (index 0 to
+	 * 99.9), rows 20001-25000 (index 200 to 249.9): Bad Gateway"
+	 *
+	 * @param packets - all packets of the upload
+	 * @param errors  - error of each packet, null if it was written or not sent
+	 * @param done    - whether each packet's upload completed
+	 * @param cause   - message of the first failure
+	 * @return exception with LOG_DATA_PARTIAL_SUCCESS as error code if any
+	 *         packet was written
+	 */
+	private static ValveException dataPacketsFailed(List<DotLogDataPacket> packets, Exception[] errors,
+			boolean[] done, String cause) {
+		List<DotLogDataPacket> written = new ArrayList<>();
+		List<DotLogDataPacket> missing = new ArrayList<>();
+		for (int i = 0; i < packets.size(); i++) {
+			if (done[i] && errors[i] == null)
+				written.add(packets.get(i));
+			else
+				missing.add(packets.get(i));
+		}
+		if (written.isEmpty())
+			return new ValveException("No log data packets could be written: " + cause);
+		return new ValveException("Partial success: " + missing.size() + " of " + packets.size()
+				+ " log data packets could not be written (" + joinPackets(missing) + "), written: "
+				+ joinPackets(written) + ": " + cause, LOG_DATA_PARTIAL_SUCCESS);
+	}
+
+	private static String joinPackets(List<DotLogDataPacket> packets) {
+		StringBuilder joined = new StringBuilder();
+		for (DotLogDataPacket packet : packets) {
+			if (joined.length() > 0)
+				joined.append(", ");
+			joined.append(packet);
+		}
+		return joined.toString();
+	}
+
+	/**
+	 * Posts one data packet, retrying up to LOG_DATA_PACKET_RETRIES times on
+	 * transport errors and 5xx responses.
+	 *
+	 * @throws ValveException
+	 * @throws ValveAuthException
+	 * @throws UnirestException
+	 */
+	private void uploadDataPacket(DotLogDataPacket packet, String endpoint, String uuid, String exchangeID,
+			String username, String password, DotClient client)
+			throws ValveException, ValveAuthException, UnirestException {
+		String body = packet.getBody();
+		for (int attempt = 0;; attempt++) {
+			HttpRequestWithBody request = Unirest.post(endpoint);
 			// add channelSetUuid={channelSetUuid} as a query parameter
-			addQueryStringParams4Log(channelDataRequest, uuid);
-			// if any response other than success (status code 200 or 201),
-			// this method will throw an error (stopping the chain of
-			// REST calls)
-			makeRESTCalls4Objects(channelDataRequest, dataPayload, exchangeID, username, password, client);
+			addQueryStringParams4Log(request, uuid);
+			request.header("Content-Type", "application/json");
+			request.body(body);
+			try {
+				HttpResponse<String> response = client.makeRequest(request, username, password, exchangeID);
+				int status = response.getStatus();
+				if (201 == status || 200 == status || 202 == status)
+					return;
+				if (status < 500 || attempt >= this.LOG_DATA_PACKET_RETRIES)
+					throw new ValveException(response.getBody());
+			} catch (UnirestException e) {
+				if (attempt >= this.LOG_DATA_PACKET_RETRIES)
+					throw e;
+			}
+			LOG.warning(ValveLogging.getLogMsg(exchangeID, "Retrying log data packet for channel set " + uuid));
 		}
 	}
 
@@ -701,21 +1042,40 @@ public class DotDelegator {
 	 */
 	public String getUuid(AbstractWitsmlObject witsmlObj, String uid, DotClient client, String username,
 			String password, String exchangeID) throws ValveException, UnirestException, ValveAuthException {
-		String uuid;
-
 		// see if the uuid is stored in the uid/uuid cache
-		if (null != UidUuidCache.getUuid(witsmlObj.getUid(), witsmlObj.getParentUid(), witsmlObj.getGrandParentUid())) {
-			uuid = UidUuidCache.getUuid(witsmlObj.getUid(), witsmlObj.getParentUid(), witsmlObj.getGrandParentUid());
-		} else {
-			// make the call to get uuid, and put it in cache for next time
-			uuid = getUUID(uid, witsmlObj, client, username, password, exchangeID);
-			if (uuid == null)
-				return null;
-			UidUuidCache.putInCache(uuid, uid, witsmlObj.getParentUid(), witsmlObj.getGrandParentUid());
+		String uuid = UidUuidCache.getUuid(witsmlObj.getUid(), witsmlObj.getParentUid(), witsmlObj.getGrandParentUid());
+		if (null != uuid)
+			return uuid;
+
+		// DoT recently reported no such object
+		if (UidUuidCache.isMissing(witsmlObj.getUid(), witsmlObj.getParentUid(), witsmlObj.getGrandParentUid()))
+			return null;
+
+		// load the rest of the well in the background while this uuid is fetched
+		prefetchIdentities(witsmlObj.getGrandParentUid(), client, username, password, exchangeID);
+
+		// make the call to get uuid, and put it in cache for next time
+		uuid = getUUID(uid, witsmlObj, client, username, password, exchangeID);
+		if (uuid == null) {
+			UidUuidCache.putMissing(witsmlObj.getUid(), witsmlObj.getParentUid(), witsmlObj.getGrandParentUid());
+			return null;
 		}
+		UidUuidCache.putInCache(uuid, uid, witsmlObj.getParentUid(), witsmlObj.getGrandParentUid());
 		return uuid;
 	}
 
+	/**
+	 * starts loading the identities under a well into the uid/uuid cache, if
+	 * prefetching is enabled
+	 *
+	 * @param wellUid - uid of the well of an object that missed the cache
+	 */
+	private void prefetchIdentities(String wellUid, DotClient client, String username, String password,
+			String exchangeID) {
+		if (null != this.IDENTITY_PREFETCHER)
+			this.IDENTITY_PREFETCHER.prefetch(wellUid, client, username, password, exchangeID);
+	}
+
 	/**
 	 * builds out the HttpRequestWithBody request with parameters
 	 *
@@ -772,12 +1132,14 @@ public class DotDelegator {
 		// ****************************** LOG ****************************** //
 		if ("log".equals(objectType)) {
 			String response = createLogObject(witsmlObj, username, password, exchangeID, client);
+			invalidateIdentity(witsmlObj, false);
 			return response;
 		}
 
 		// ************************* FLUIDS REPORT ************************* //
 		if ("fluidsReport".equalsIgnoreCase(objectType)) {
 			String response = createFluidsReportObject(witsmlObj, username, password, exchangeID, client);
+			invalidateIdentity(witsmlObj, false);
 			return response;
 		}
 
@@ -816,6 +1178,7 @@ public class DotDelegator {
 		// check response status
 		int status = response.getStatus();
 		if (201 == status || 200 == status) {
+			invalidateIdentity(witsmlObj, false);
 			return (null == uid || uid.isEmpty()) ? new JsonNode(response.getBody()).getObject().getString("uid") : uid;
 		} else {
 			throw new ValveException(response.getBody());
@@ -989,15 +1352,11 @@ public class DotDelegator {
 
 		// success for adding channelSet is 201...
 		if (201 == status) {
-			/*
-			 * // cache the channelSet - null pointer exception now try {
-			 * ChannelSetCache.putInCache(getUuid(witsmlObj, uid, client, username,
-			 * password), cs); } catch (JsonProcessingException ex) { // not being able to
-			 * cache should not stop the workflow -- log it & continue
-			 * LOG.severe(ValveLogging.getLogMsg(exchangeID,
-			 * "JSON Processing Exception trying to cache a ChannelSet " + ex.getMessage(),
-			 * witsmlObj)); }
-			 */
+			// cache the channelSet, so the first update resending the same
+			// header does not PATCH it
+			if (this.LOG_CHANNELSET_SKIP_UNCHANGED)
+				ChannelSetCache.putInCache(new JsonNode(response.getBody()).getObject().optString("uuid", null),
+						allPayloads[CS_IDX_4_PAYLOADS]);
 			// ********************************** Channels
 			// ********************************** //
 			// add channels to an existing ChannelSet
@@ -1135,13 +1494,7 @@ public class DotDelegator {
 				// *********************** Channel Metadata *********************** //
 				// endpoint:
 				// .../channels/metadata?channelSetUuid={channelSetUuid}
-				String endpoint = this.getEndpoint("channels");
-				HttpRequest request = Unirest.get(endpoint);
-				request.header("accept", "application/json");
-				request.queryString("channelSetUuid", uuid);
-				HttpResponse<String> response;
-				response = client.makeRequest(request, username, password, exchangeID);
-				List<Channel> channels = Channel.jsonToChannelList(response.getBody());
+				List<Channel> channels = getChannelMetadata(uuid, client, username, password, exchangeID);
 				iterator = channels.iterator();
 				while (iterator.hasNext()) {
 					Channel currentCH = (Channel) iterator.next();
@@ -1345,6 +1698,19 @@ public class DotDelegator {
 	 */
 	public String[] getMappedPayloads4Log(String version, String payload, AbstractWitsmlObject witsmlObj)
 			throws ValveException {
+		return getMappedPayloads4Log(version, payload, witsmlObj, true);
+	}
+
+	/**
+	 * Same as getMappedPayloads4Log, but the data payload can leave out the
+	 * data rows.
+	 *
+	 * @param withDataRows - false to map the data payload with its
+	 *                     mnemonicList only, for callers that encode the rows
+	 *                     themselves
+	 */
+	private String[] getMappedPayloads4Log(String version, String payload, AbstractWitsmlObject witsmlObj,
+			boolean withDataRows) throws ValveException {
 		String[] payloads = new String[3];
 		JSONObject payloadJSON = new JSONObject(payload);
 
@@ -1406,14 +1772,18 @@ public class DotDelegator {
 					switch (version) {
 					case "1.3.1.1":
 						if (payloadJSON.getJSONObject("logData").length() > 0) {
-							payloads[DATA_IDX_4_PAYLOADS] = DotLogDataHelper.convertDataToDotFrom1311(
-									(com.hashmapinc.tempus.WitsmlObjects.v1311.ObjLog) witsmlObj);
+							com.hashmapinc.tempus.WitsmlObjects.v1311.ObjLog log1311 =
+									(com.hashmapinc.tempus.WitsmlObjects.v1311.ObjLog) witsmlObj;
+							payloads[DATA_IDX_4_PAYLOADS] = withDataRows
+									? DotLogDataHelper.convertDataToDotFrom1311(log1311)
+									: DotLogDataHelper.convertMnemonicsToDotFrom1311(log1311);
 						}
 						break;
 					case "1.4.1.1":
 						if (payloadJSON.getJSONArray("logData").length() > 0) {
-							payloads[DATA_IDX_4_PAYLOADS] = DotLogDataHelper
-									.convertDataToDotFrom1411((ObjLog) witsmlObj);
+							payloads[DATA_IDX_4_PAYLOADS] = withDataRows
+									? DotLogDataHelper.convertDataToDotFrom1411((ObjLog) witsmlObj)
+									: DotLogDataHelper.convertMnemonicsToDotFrom1411((ObjLog) witsmlObj);
 						}
 						break;
 					default:
@@ -1600,8 +1970,17 @@ public class DotDelegator {
 		request = Unirest.get(endpoint);
 		request.header("accept", "application/json");
 		request.queryString("containerId", uuid);
-		allChannelSets = client.makeRequest(request, username, password, exchangeID);
+		CompletableFuture<HttpResponse<String>> channelSetsFuture = client.makeRequestAsync(request, username,
+				password, exchangeID);
+
+		// the channel metadata does not depend on the channel sets, so both
+		// requests are issued before waiting for either response; they only
+		// overlap with a non-blocking transport (dot.transport=jdk)
+		List<Channel> channels = ChannelsCache.getChannels(uuid);
+		CompletableFuture<HttpResponse<String>> channelsFuture = (channels != null) ? null
+				: client.makeRequestAsync(this.buildChannelsMetadataRequest(uuid), username, password, exchangeID);
 
+		allChannelSets = DotClient.await(channelSetsFuture);
 		if (allChannelSets.getStatus() != 200) {
 			// if a 400 (Bad Request), 401 (Unauthorized), or 500 (Internal Server Error),
 			// let the Client know the get was not successful
@@ -1642,20 +2021,18 @@ public class DotDelegator {
 		//
 		// LOG_CHANNELS_PATH
 		// ...channels/metadata?containerId={containerId}[&deepSearch][&indexType][&channels]
-		endpoint = this.getEndpoint("channels");
-		request = Unirest.get(endpoint);
-		request.header("accept", "application/json");
-		// TODO Check out if the parameter is really named "containerId" as above
-		request.queryString("channelSetUuid", uuid);
+		// (sent above unless cached, see buildChannelsMetadataRequest)
+		if (channels == null) {
+			HttpResponse<String> channelsResponse = DotClient.await(channelsFuture);
 
-		HttpResponse<String> channelsResponse = client.makeRequest(request, username, password, exchangeID);
+			if (channelsResponse.getStatus() != 200) {
+				// let the client know that there was a failure to obtain channel metadata
+				return null;
+			}
 
-		if (channelsResponse.getStatus() != 200) {
-			// let the client know that there was a failure to obtain channel metadata
-			return null;
+			channels = Channel.jsonToChannelList(channelsResponse.getBody());
+			ChannelsCache.putChannels(uuid, channelsResponse.getBody());
 		}
-
-		List<Channel> channels = Channel.jsonToChannelList(channelsResponse.getBody());
 		String[] startAndEndIndices = getStartEndIndices(witsmlObject);
 
 		String startIndex = startAndEndIndices[0];
@@ -1666,14 +2043,10 @@ public class DotDelegator {
 
 		// At this point, channels contains the channels to work with
 		// (either ALL or SELECTED channels).
-		String channelsDepthEndPoint;
-		HttpRequestWithBody channelsDepthRequest;
-		HttpResponse<String> channelsDepthResponse;
 		ObjLog finalResponse;
-		String data;
 
 		// Build Request for Get Channels Depth
-		String channelData = null;
+		DotLogData channelData = null;
 		if (getData) {
 			if (getAllChannels || channels != null) {
 				if (indexType.equals("depth")) {
@@ -1687,27 +2060,15 @@ public class DotDelegator {
 							|| (witsmlObject.getVersion().equals("1.3.1.1")
 									&& ((com.hashmapinc.tempus.WitsmlObjects.v1311.ObjLog) witsmlObject)
 											.getLogData() != null)) {
-						String sortDesc = "true";
-						// map the data to the format required by DoT
-						data = DotLogDataHelper.convertChannelDepthDataToDotFrom(channels, uuid, sortDesc, startIndex,
-								endIndex);
-
 						// LOG_DEPTHDATA_PATH
 						// .../channels/depthdata
-						channelsDepthEndPoint = this.getEndpoint("logDepthPath");
-						channelsDepthRequest = Unirest.post(channelsDepthEndPoint);
-						channelsDepthRequest.header("Content-Type", "application/json");
-						// data is secure within the body of the HTTP request
-						channelsDepthRequest.body(data);
-						channelsDepthResponse = client.makeRequest(channelsDepthRequest, username, password,
-								exchangeID);
-
-						if (channelsDepthResponse.getStatus() != 200) {
+						channelData = this.fetchLogData(channels, uuid, cs.get(0), true, startIndex, endIndex, client,
+								username, password, exchangeID);
+
+						if (channelData == null) {
 							// let the client know that there was a failure to obtain channel metadata
 							return null;
 						}
-						// otherwise, get the Channel data
-						channelData = channelsDepthResponse.getBody();
 					}
 
 					// if getAllChannels has been specified
@@ -1721,26 +2082,15 @@ public class DotDelegator {
 							|| (witsmlObject.getVersion().equals("1.3.1.1")
 									&& ((com.hashmapinc.tempus.WitsmlObjects.v1311.ObjLog) witsmlObject)
 											.getLogData() != null)) {
-						String sortDesc = "true";
-						// map the data to the format required by DoT
-						data = DotLogDataHelper.convertChannelDepthDataToDotFrom(channels, uuid, sortDesc, startIndex,
-								endIndex);
-
 						// LOG_TIMEDATA_PATH
 						// .../channels/timedata
-						channelsDepthEndPoint = this.getEndpoint("logTimePath");
-						channelsDepthRequest = Unirest.post(channelsDepthEndPoint);
-						channelsDepthRequest.header("Content-Type", "application/json");
-						channelsDepthRequest.body(data);
-						channelsDepthResponse = client.makeRequest(channelsDepthRequest, username, password,
-								exchangeID);
-
-						if (channelsDepthResponse.getStatus() != 200) {
+						channelData = this.fetchLogData(channels, uuid, cs.get(0), false, startIndex, endIndex, client,
+								username, password, exchangeID);
+
+						if (channelData == null) {
 							// let the client know that there was a failure to obtain channel metadata
 							return null;
 						}
-						// otherwise, get the Channel data
-						channelData = channelsDepthResponse.getBody();
 					}
 				}
 			}
@@ -1765,6 +2115,142 @@ public class DotDelegator {
 			return null;
 	}
 
+	/**
+	 * Gets the channel metadata of a channel set, from ChannelsCache if it
+	 * is cached there.
+	 *
+	 * @param uuid       - channel set uuid
+	 * @param client     - DotClient instance to use for sending API requests
+	 * @param username   - string username for basic client auth
+	 * @param password   - string password for basic client auth
+	 * @param exchangeID - string ID for logging
+	 * @return the channels, a new list on every call
+	 *
+	 * @throws ValveException
+	 * @throws ValveAuthException
+	 * @throws UnirestException
+	 */
+	private List<Channel> getChannelMetadata(String uuid, DotClient client, String username, String password,
+			String exchangeID) throws ValveException, ValveAuthException, UnirestException {
+		List<Channel> channels = ChannelsCache.getChannels(uuid);
+		if (channels != null)
+			return channels;
+
+		HttpResponse<String> response = client.makeRequest(this.buildChannelsMetadataRequest(uuid), username,
+				password, exchangeID);
+		channels = Channel.jsonToChannelList(response.getBody());
+		if (response.getStatus() == 200)
+			ChannelsCache.putChannels(uuid, response.getBody());
+		return channels;
+	}
+
+	/**
+	 * Builds the request for the channel metadata of a channel set.
+	 *
+	 * @param uuid - channel set uuid
+	 * @return the request
+	 */
+	private HttpRequest buildChannelsMetadataRequest(String uuid) {
+		HttpRequest request = Unirest.get(this.getEndpoint("channels"));
+		request.header("accept", "application/json");
+		// TODO Check out if the parameter is really named "containerId" as above
+		request.queryString("channelSetUuid", uuid);
+		return request;
+	}
+
+	/**
+	 * Fetches the log data of the given channels from DoT.
+	 *
+	 * The requested range is split into windows (see LogDataWindow.split)
+	 * that are fetched concurrently on the log data executor, each one
+	 * retried on its own if it fails, and stitched back together in index
+	 * order.
+	 *
+	 * @param channels      - channels to get the data for
+	 * @param uuid          - channel set uuid
+	 * @param channelSet    - channel set, provides the index curve and range
+	 * @param depthIndexed  - true for depthdata, false for timedata
+	 * @param startIndex    - requested start index, may be null
+	 * @param endIndex      - requested end index, may be null
+	 * @param client        - DotClient instance to use for sending API requests
+	 * @param username      - string username for basic client auth
+	 * @param password      - string password for basic client auth
+	 * @param exchangeID    - string ID for logging
+	 *
+	 * @return the log data, or null if DoT did not return it
+	 *
+	 * @throws ValveException
+	 * @throws ValveAuthException
+	 * @throws UnirestException
+	 */
+	private DotLogData fetchLogData(List<Channel> channels, String uuid, ChannelSet channelSet, boolean depthIndexed,
+			String startIndex, String endIndex, DotClient client, String username, String password,
+			String exchangeID) throws ValveException, ValveAuthException, UnirestException {
+		// LOG_DEPTHDATA_PATH or LOG_TIMEDATA_PATH
+		String endpoint = this.getEndpoint(depthIndexed ? "logDepthPath" : "logTimePath");
+		String indexCurve = channelSet.getIndex().get(0).getMnemonic();
+		List<LogDataWindow> windows = LogDataWindow.split(depthIndexed, startIndex, endIndex,
+				channelSet.getStartIndex(), channelSet.getEndIndex(),
+				depthIndexed ? this.LOG_DATA_DEPTH_WINDOW : this.LOG_DATA_TIME_WINDOW, this.LOG_DATA_MAX_WINDOWS);
+
+		if (windows.size() == 1) {
+			return this.fetchLogDataWindow(endpoint, channels, uuid, windows.get(0), indexCurve, depthIndexed, client,
+					username, password, exchangeID);
+		}
+
+		LOG.info(ValveLogging.getLogMsg(exchangeID,
+				"Fetching log data for channel set " + uuid + " in " + windows.size() + " windows"));
+		List<Future<DotLogData>> futures = new ArrayList<>();
+		for (LogDataWindow window : windows) {
+			futures.add(this.LOG_DATA_EXECUTOR.submit(() -> this.fetchLogDataWindow(endpoint, channels, uuid, window,
+					indexCurve, depthIndexed, client, username, password, exchangeID)));
+		}
+
+		List<DotLogData> windowData = awaitAll(futures);
+		if (windowData.contains(null))
+			return null;
+		return DotLogData.merge(windowData, depthIndexed);
+	}
+
+	/**
+	 * Fetches the log data of one index window, retrying up to
+	 * LOG_DATA_WINDOW_RETRIES times on transport errors and 5xx responses.
+	 *
+	 * @return the log data, or null if DoT did not return it
+	 */
+	private DotLogData fetchLogDataWindow(String endpoint, List<Channel> channels, String uuid, LogDataWindow window,
+			String indexCurve, boolean depthIndexed, DotClient client, String username, String password,
+			String exchangeID) throws ValveException, ValveAuthException, UnirestException {
+		// map the data to the format required by DoT
+		String sortDesc = "true";
+		String data = DotLogDataHelper.convertChannelDepthDataToDotFrom(channels, uuid, sortDesc,
+				window.getStartIndex(), window.getEndIndex());
+
+		for (int attempt = 0;; attempt++) {
+			HttpRequestWithBody request = Unirest.post(endpoint);
+			request.header("Content-Type", "application/json");
+			// data is secure within the body of the HTTP request
+			request.body(data);
+
+			int[] status = new int[1];
+			try {
+				// stream the Channel data straight into the log data model
+				DotLogData logData = client.makeStreamingRequest(request, username, password, exchangeID,
+						(code, body) -> {
+							status[0] = code;
+							return 200 == code ? DotLogDataReader.read(body, indexCurve, depthIndexed) : null;
+						});
+				if (logData != null || status[0] < 500 || attempt >= this.LOG_DATA_WINDOW_RETRIES)
+					return logData;
+			} catch (ValveException | UnirestException e) {
+				if (attempt >= this.LOG_DATA_WINDOW_RETRIES)
+					throw e;
+			}
+			LOG.warning(ValveLogging.getLogMsg(exchangeID, "Retrying log data window " + window.getStartIndex()
+					+ " - " + window.getEndIndex() + " for channel set " + uuid));
+		}
+	}
+
 	/**
 	 * Return the startIndex and endIndex, respectively, from the witsmlObject
 	 * (based on version).
@@ -2072,15 +2558,18 @@ public class DotDelegator {
 			getAllChannels = true;
 		}
 
-		ArrayList<AbstractWitsmlObject> logs = new ArrayList<>();
+		// fetch the channel sets concurrently, results are kept in the order DoT found them
+		boolean allChannels = getAllChannels;
+		List<Future<AbstractWitsmlObject>> futures = new ArrayList<>();
 		for (String uuid : foundUuids) {
-			// Note never get data for a log search
-			String fullLog = getFromStoreRestCalls(witsmlObject, client, uuid, username, password, exchangeID, false,
-					getAllChannels);
-			DotTranslator.translateQueryResponse(witsmlObject, fullLog, optionsIn);
-			logs.add(DotTranslator.translateQueryResponse(witsmlObject, fullLog, optionsIn));
+			futures.add(this.LOG_SEARCH_EXECUTOR.submit(() -> {
+				// Note never get data for a log search
+				String fullLog = getFromStoreRestCalls(witsmlObject, client, uuid, username, password, exchangeID,
+						false, allChannels);
+				return DotTranslator.translateQueryResponse(witsmlObject, fullLog, optionsIn);
+			}));
 		}
-		return logs;
+		return new ArrayList<>(awaitAll(futures));
 
 	}
 
@@ -2106,10 +2595,14 @@ public class DotDelegator {
 			throw new ValveException("object type <" + objectType + "> does not have a parent wellbore");
 
 		// see if the uuid is stored in the uid/uuid cache
-		if (null != UidUuidCache.getUuid(wmlObject.getParentUid(), wmlObject.getGrandParentUid()))
-			return UidUuidCache.getUuid(wmlObject.getParentUid(), wmlObject.getGrandParentUid());
+		String cachedUuid = UidUuidCache.getUuid(wmlObject.getParentUid(), wmlObject.getGrandParentUid());
+		if (null != cachedUuid)
+			return cachedUuid;
+		if (UidUuidCache.isMissing(wmlObject.getParentUid(), wmlObject.getGrandParentUid(), null))
+			return null;
 
 		// wellbore uuid not found in cache. Proceed to fetch it
+		prefetchIdentities(wmlObject.getGrandParentUid(), client, username, password, exchangeID);
 		String query;
 		try {
 			query = GraphQLQueryConverter.getWellboreAndWellUuidQuery(wmlObject);
@@ -2133,8 +2626,10 @@ public class DotDelegator {
 			// get the UUID of the first wellbore in the response
 			String wellboreUUID = GraphQLRespConverter
 					.getWellboreUuidFromGraphqlResponse(new JSONObject(response.getBody()));
-			if (wellboreUUID == null)
+			if (wellboreUUID == null) {
+				UidUuidCache.putMissing(wmlObject.getParentUid(), wmlObject.getGrandParentUid(), null);
 				return null;
+			}
 			// cache the wellbore uuid/uid
 			UidUuidCache.putInCache(wellboreUUID, wmlObject.getParentUid(), wmlObject.getGrandParentUid());
 
@@ -18,20 +18,28 @@ package com.hashmapinc.tempus.witsml.valve.dot;
 import com.hashmapinc.tempus.WitsmlObjects.AbstractWitsmlObject;
 import com.hashmapinc.tempus.witsml.QueryContext;
 import com.hashmapinc.tempus.witsml.ValveLogging;
+import com.hashmapinc.tempus.witsml.valve.ConfigValues;
 import com.hashmapinc.tempus.witsml.valve.IValve;
 import com.hashmapinc.tempus.witsml.valve.ObjectSelectionConstants;
 import com.hashmapinc.tempus.witsml.valve.ValveAuthException;
 import com.hashmapinc.tempus.witsml.valve.ValveException;
 import com.hashmapinc.tempus.witsml.valve.dot.client.DotClient;
+import com.mashape.unirest.http.exceptions.UnirestException;
 //import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang.StringUtils;
 import org.json.JSONObject;
 import org.springframework.scheduling.annotation.Async;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.logging.Logger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -40,6 +48,7 @@ public class DotValve implements IValve {
 	private static final Logger LOG = Logger.getLogger(DotValve.class.getName());
 	private final DotClient CLIENT;
 	private final DotDelegator DELEGATOR;
+	private final ExecutorService WRITE_EXECUTOR;
 
 	/**
 	 * Constructor that accepts a config map and builds the client and delegator
@@ -51,8 +60,9 @@ public class DotValve implements IValve {
 	public DotValve(Map<String, String> config) throws ValveAuthException  {
 		String tokenPath = config.get("token.path");
 
-		this.CLIENT = new DotClient(tokenPath);
+		this.CLIENT = new DotClient(tokenPath, config);
 		this.DELEGATOR = new DotDelegator(config);
+		this.WRITE_EXECUTOR = newWriteExecutor(config);
 
 		LOG.info(ValveLogging.getLogMsg("Creating valve pointing to url: " + tokenPath));
 	}
@@ -64,8 +74,25 @@ public class DotValve implements IValve {
 	 * @param delegator - dotDelegator for executing valve methods
 	 */
 	public DotValve(DotClient client, DotDelegator delegator) {
+		this(client, delegator, Collections.emptyMap());
+	}
+
+	/**
+	 * Constructor for directly injecting a client and delegator
+	 *
+	 * @param client - dotClient for auth and request execution
+	 * @param delegator - dotDelegator for executing valve methods
+	 * @param config - valve configuration, only "write.parallelism" is used
+	 */
+	public DotValve(DotClient client, DotDelegator delegator, Map<String, String> config) {
 		this.CLIENT = client;
 		this.DELEGATOR = delegator;
+		this.WRITE_EXECUTOR = newWriteExecutor(config);
+	}
+
+	private static ExecutorService newWriteExecutor(Map<String, String> config) {
+		return DotDelegator.newDaemonPool("dot-write",
+				Math.max(1, (int) ConfigValues.getNumber(config, "write.parallelism", 8)));
 	}
 
 	/**
@@ -261,11 +288,8 @@ public class DotValve implements IValve {
 		LOG.fine(ValveLogging.getLogMsg(qc.EXCHANGE_ID,"Async create object"));
 
 		try {
-			for (AbstractWitsmlObject witsmlObject : qc.WITSML_OBJECTS) {
-				uids.add(this.DELEGATOR.createObject(witsmlObject, qc.USERNAME, qc.PASSWORD, qc.EXCHANGE_ID,
-						this.CLIENT));
-			}
-
+			uids.addAll(this.forEachObject(qc, "create", witsmlObject ->
+					this.DELEGATOR.createObject(witsmlObject, qc.USERNAME, qc.PASSWORD, qc.EXCHANGE_ID, this.CLIENT)));
 		} catch (ValveException e) {
 			LOG.warning(ValveLogging.getLogMsg(qc.EXCHANGE_ID,"Exception in DotValve createObject: " + e.getMessage()));
 			throw new ValveException(e.getMessage(), e.getErrorCode());
@@ -277,6 +301,143 @@ public class DotValve implements IValve {
 		return CompletableFuture.completedFuture(StringUtils.join(uids, ','));
 	}
 
+	/**
+	 * Action executed against a single object of a plural request
+	 */
+	private interface ObjectAction<T> {
+		T apply(AbstractWitsmlObject witsmlObject) throws Exception;
+	}
+
+	/**
+	 * Runs the action for every object in the query context and returns the
+	 * results in input order.
+	 *
+	 * Objects are split into lanes that run concurrently. An object that
+	 * repeats the uid of an earlier object, or whose parent uid is the uid of
+	 * an earlier object, is put on that object's lane and runs after it, so a
+	 * parent always exists before its child. When an object fails, the rest
+	 * of its lane is skipped but other lanes still run; a single failure is
+	 * rethrown as is, several are reported together in one ValveException.
+	 *
+	 * @param qc - query context holding the objects
+	 * @param operation - name of the operation, used in error messages
+	 * @param action - action to run per object
+	 * @return the action results in the order of qc.WITSML_OBJECTS
+	 * @throws Exception
+	 */
+	private <T> List<T> forEachObject(QueryContext qc, String operation, ObjectAction<T> action) throws Exception {
+		List<AbstractWitsmlObject> objects = qc.WITSML_OBJECTS;
+
+		// build the lanes
+		List<List<Integer>> lanes = new ArrayList<>();
+		Map<String, List<Integer>> laneByUid = new HashMap<>();
+		for (int i = 0; i < objects.size(); i++) {
+			AbstractWitsmlObject witsmlObject = objects.get(i);
+			List<Integer> lane = laneByUid.get(witsmlObject.getUid());
+			if (lane == null)
+				lane = laneByUid.get(witsmlObject.getParentUid());
+			if (lane == null) {
+				lane = new ArrayList<>();
+				lanes.add(lane);
+			}
+			lane.add(i);
+			if (!StringUtils.isEmpty(witsmlObject.getUid()))
+				laneByUid.put(witsmlObject.getUid(), lane);
+		}
+
+		// run the lanes, inline when there is only one
+		Object[] results = new Object[objects.size()];
+		Exception[] errors = new Exception[objects.size()];
+		if (lanes.size() == 1) {
+			runLane(objects, lanes.get(0), action, results, errors);
+		} else {
+			List<Future<?>> futures = new ArrayList<>(lanes.size());
+			for (List<Integer> lane : lanes)
+				futures.add(this.WRITE_EXECUTOR.submit(() -> runLane(objects, lane, action, results, errors)));
+			boolean completed = false;
+			try {
+				for (Future<?> future : futures)
+					future.get();
+				completed = true;
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new ValveException("Interrupted while waiting for DoT requests");
+			} catch (ExecutionException e) {
+				Throwable cause = e.getCause();
+				if (cause instanceof ValveException)
+					throw (ValveException) cause;
+				if (cause instanceof ValveAuthException)
+					throw (ValveAuthException) cause;
+				if (cause instanceof UnirestException)
+					throw (UnirestException) cause;
+				throw new ValveException(cause.getMessage());
+			} finally {
+				if (!completed) {
+					for (Future<?> future : futures)
+						future.cancel(true);
+				}
+			}
+		}
+
+		// aggregate the errors per object
+		List<Exception> failures = new ArrayList<>();
+		StringBuilder message = new StringBuilder();
+		for (int i = 0; i < errors.length; i++) {
+			if (errors[i] == null)
+				continue;
+			LOG.warning(ValveLogging.getLogMsg(qc.EXCHANGE_ID, "Failed to " + operation + " " +
+					objects.get(i).getObjectType() + " with UID " + objects.get(i).getUid() + ": " +
+					errors[i].getMessage()));
+			message.append(failures.isEmpty() ? "" : "; ")
+					.append(objects.get(i).getObjectType()).append(" uid=").append(objects.get(i).getUid())
+					.append(": ").append(errors[i].getMessage());
+			failures.add(errors[i]);
+		}
+		if (failures.size() == 1)
+			throw failures.get(0);
+		if (failures.size() > 1) {
+			// keep the error code only if all objects failed with the same one
+			Short errorCode = (failures.get(0) instanceof ValveException)
+					? ((ValveException) failures.get(0)).getErrorCode() : null;
+			for (Exception failure : failures) {
+				if (!(failure instanceof ValveException) ||
+						!Objects.equals(errorCode, ((ValveException) failure).getErrorCode()))
+					errorCode = null;
+			}
+			String summary = "Failed to " + operation + " " + failures.size() + " of " + objects.size() +
+					" objects: " + message;
+			throw (errorCode == null) ? new ValveException(summary) : new ValveException(summary, errorCode);
+		}
+
+		List<T> ordered = new ArrayList<>(results.length);
+		for (Object result : results) {
+			@SuppressWarnings("unchecked")
+			T value = (T) result;
+			ordered.add(value);
+		}
+		return ordered;
+	}
+
+	/**
+	 * Runs the action for the objects of one lane in order, stopping at the
+	 * first failure since later objects may depend on the failed one.
+	 */
+	private static <T> void runLane(List<AbstractWitsmlObject> objects, List<Integer> lane, ObjectAction<T> action,
+									Object[] results, Exception[] errors) {
+		for (int n = 0; n < lane.size(); n++) {
+			int i = lane.get(n);
+			try {
+				results[i] = action.apply(objects.get(i));
+			} catch (Exception e) {
+				errors[i] = e;
+				for (int skipped : lane.subList(n + 1, lane.size()))
+					errors[skipped] = new ValveException("Not processed because object with UID " +
+							objects.get(i).getUid() + " failed");
+				return;
+			}
+		}
+	}
+
 	/**
 	 * Deletes an object
 	 * 
@@ -346,10 +507,14 @@ public class DotValve implements IValve {
 		// update each object with 1 retry for bad tokens
 		boolean result = false;
 		try {
-			for (AbstractWitsmlObject witsmlObject : qc.WITSML_OBJECTS) {
+			this.forEachObject(qc, "update", witsmlObject -> {
 				this.DELEGATOR.updateObject(witsmlObject, qc.USERNAME, qc.PASSWORD, qc.EXCHANGE_ID, this.CLIENT);
-			}
+				return witsmlObject.getUid();
+			});
 			result = true;
+		} catch (ValveException e) {
+			LOG.warning(ValveLogging.getLogMsg(qc.EXCHANGE_ID,"Exception in DotValve updateObject: " + e.getMessage()));
+			throw new ValveException(e.getMessage(), e.getErrorCode());
 		} catch (Exception e) {
 			LOG.warning(ValveLogging.getLogMsg(qc.EXCHANGE_ID,"Exception in DotValve updateObject: " + e.getMessage()));
 			throw new ValveException(e.getMessage());
@@ -369,6 +534,17 @@ public class DotValve implements IValve {
 		this.CLIENT.getJWT(username, password, "n/a");
 	}
 
+	/**
+	 * Stops the background token renewal of the client, the pools of the
+	 * delegator and the write pool
+	 */
+	@Override
+	public void close() {
+		this.CLIENT.close();
+		this.DELEGATOR.close();
+		this.WRITE_EXECUTOR.shutdown();
+	}
+
 	/**
 	 * Return a map of FUNCTION_NAME->LIST_OF_SUPPORTED_OBJECTS
 	 * 
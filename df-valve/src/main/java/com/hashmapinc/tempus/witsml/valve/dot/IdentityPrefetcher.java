@@ -0,0 +1,201 @@
+/**
+ * Copyright © 2018-2019 Hashmap, Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hashmapinc.tempus.witsml.valve.dot;
+
+import com.hashmapinc.tempus.witsml.ValveLogging;
+import com.hashmapinc.tempus.witsml.valve.ValveAuthException;
+import com.hashmapinc.tempus.witsml.valve.ValveException;
+import com.hashmapinc.tempus.witsml.valve.dot.client.DotClient;
+import com.hashmapinc.tempus.witsml.valve.dot.client.UidUuidCache;
+import com.hashmapinc.tempus.witsml.valve.dot.graphql.GraphQLQueryConverter;
+import com.hashmapinc.tempus.witsml.valve.dot.graphql.GraphQLRespConverter;
+import com.mashape.unirest.http.HttpResponse;
+import com.mashape.unirest.http.Unirest;
+import com.mashape.unirest.http.exceptions.UnirestException;
+import com.mashape.unirest.request.HttpRequest;
+import com.mashape.unirest.request.HttpRequestWithBody;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.logging.Logger;
+
+/**
+ * Loads the uid/uuid mappings of all wellbores and logs (channel sets) of
+ * a well into UidUuidCache in the background, the first time a lookup
+ * under that well misses the cache. Later requests for other objects of
+ * the same well, like a dashboard polling many logs, then find their
+ * uuids in the cache instead of calling DoT for each one.
+ *
+ * Trajectories are addressed by uid in DoT, so they need no prefetching.
+ */
+public class IdentityPrefetcher {
+    private static final Logger LOG = Logger.getLogger(IdentityPrefetcher.class.getName());
+    private final String wellboreSearchEndpoint;
+    private final String channelSetEndpoint;
+    private final ExecutorService executor;
+    private final long refetchMillis;
+    private final int maxWells;
+    // wells prefetched (or being prefetched) and when the prefetch started,
+    // entries older than refetchMillis are dropped once maxWells is reached
+    private final ConcurrentHashMap<String, Long> wells = new ConcurrentHashMap<>();
+
+    /**
+     * @param wellboreSearchEndpoint - wellbore graphql endpoint
+     * @param channelSetEndpoint - channel set endpoint, searched by containerId
+     * @param executor - executor running the prefetches
+     * @param refetchMillis - time after which a well may be prefetched again,
+     *                        normally the TTL of the uid/uuid cache
+     */
+    public IdentityPrefetcher(String wellboreSearchEndpoint, String channelSetEndpoint, ExecutorService executor,
+                              long refetchMillis) {
+        this(wellboreSearchEndpoint, channelSetEndpoint, executor, refetchMillis, 10000);
+    }
+
+    /**
+     * @param wellboreSearchEndpoint - wellbore graphql endpoint
+     * @param channelSetEndpoint - channel set endpoint, searched by containerId
+     * @param executor - executor running the prefetches
+     * @param refetchMillis - time after which a well may be prefetched again,
+     *                        normally the TTL of the uid/uuid cache
+     * @param maxWells - maximum number of wells remembered within the
+     *                   refetch time; further wells are not prefetched
+     */
+    public IdentityPrefetcher(String wellboreSearchEndpoint, String channelSetEndpoint, ExecutorService executor,
+                              long refetchMillis, int maxWells) {
+        this.wellboreSearchEndpoint = wellboreSearchEndpoint;
+        this.channelSetEndpoint = channelSetEndpoint;
+        this.executor = executor;
+        this.refetchMillis = refetchMillis;
+        this.maxWells = Math.max(1, maxWells);
+    }
+
+    /**
+     * @return number of wells remembered as prefetched
+     */
+    public int getWellCount() {
+        return this.wells.size();
+    }
+
+    /**
+     * Starts loading the identities under the well in the background,
+     * unless that already happened within the refetch time. Returns
+     * immediately.
+     *
+     * @param wellUid - uid of the well
+     * @param client - DotClient used for the lookups
+     * @param username - auth username
+     * @param password - auth password
+     * @param exchangeID - exchange id of the request that missed the cache
+     */
+    public void prefetch(String wellUid, DotClient client, String username, String password, String exchangeID) {
+        if (null == wellUid || wellUid.isEmpty())
+            return;
+
+        // only one prefetch per well and refetch period
+        long now = System.currentTimeMillis();
+        Long last = this.wells.get(wellUid);
+        if (null != last && now - last < this.refetchMillis)
+            return;
+        if (null == last && !hasRoom(now))
+            return;
+        boolean claimed = (null == last)
+                ? null == this.wells.putIfAbsent(wellUid, now)
+                : this.wells.replace(wellUid, last, now);
+        if (!claimed)
+            return;
+
+        try {
+            this.executor.execute(() -> {
+                try {
+                    int count = load(wellUid, client, username, password, exchangeID);
+                    LOG.info(ValveLogging.getLogMsg(exchangeID,
+                            "Prefetched " + count + " identities under well " + wellUid));
+                } catch (ValveException | ValveAuthException | UnirestException | RuntimeException e) {
+                    this.wells.remove(wellUid, now); // allow another attempt
+                    LOG.warning(ValveLogging.getLogMsg(exchangeID,
+                            "Identity prefetch failed for well " + wellUid + ": " + e.getMessage()));
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            this.wells.remove(wellUid, now);
+        }
+    }
+
+    /**
+     * drops the wells whose refetch time has passed if the map is full
+     *
+     * @param now - current time in milliseconds
+     * @return true if another well can be remembered
+     */
+    private boolean hasRoom(long now) {
+        if (this.wells.size() < this.maxWells)
+            return true;
+        this.wells.values().removeIf(started -> now - started >= this.refetchMillis);
+        if (this.wells.size() < this.maxWells)
+            return true;
+        LOG.fine(ValveLogging.getLogMsg("Skipping identity prefetch, " + this.wells.size() + " wells in progress"));
+        return false;
+    }
+
+    /**
+     * loads the identities of the wellbores of the well and of the
+     * channel sets in each wellbore into the cache
+     *
+     * @return number of identities cached
+     */
+    int load(String wellUid, DotClient client, String username, String password, String exchangeID)
+            throws ValveException, ValveAuthException, UnirestException {
+        // all wellbores of the well in one graphql query
+        HttpRequestWithBody wellboreRequest = Unirest.post(this.wellboreSearchEndpoint);
+        wellboreRequest.header("Content-Type", "application/json");
+        wellboreRequest.body(GraphQLQueryConverter.getWellboreIdentitiesQuery(wellUid));
+        HttpResponse<String> wellboreResponse = client.makeRequest(wellboreRequest, username, password, exchangeID);
+        if (200 != wellboreResponse.getStatus() && 201 != wellboreResponse.getStatus())
+            throw new ValveException(wellboreResponse.getBody());
+        Map<String, String> wellbores = GraphQLRespConverter
+                .getWellboreIdentitiesFromGraphqlResponse(new JSONObject(wellboreResponse.getBody()));
+
+        int count = 0;
+        for (Map.Entry<String, String> wellbore : wellbores.entrySet()) {
+            String wellboreUid = wellbore.getKey();
+            String wellboreUuid = wellbore.getValue();
+            UidUuidCache.putInCache(wellboreUuid, wellboreUid, wellUid);
+            count++;
+
+            // all channel sets in the wellbore
+            HttpRequest channelSetRequest = Unirest.get(this.channelSetEndpoint);
+            channelSetRequest.queryString("containerId", wellboreUuid);
+            HttpResponse<String> channelSetResponse = client.makeRequest(channelSetRequest, username, password,
+                    exchangeID);
+            if (200 != channelSetResponse.getStatus())
+                throw new ValveException("Error searching for logs in container " + wellboreUuid);
+            JSONArray channelSets = new JSONArray(channelSetResponse.getBody());
+            for (int i = 0; i < channelSets.length(); i++) {
+                JSONObject channelSet = channelSets.getJSONObject(i);
+                if (channelSet.isNull("uid") || channelSet.isNull("uuid"))
+                    continue;
+                UidUuidCache.putInCache(channelSet.get("uuid").toString(), channelSet.get("uid").toString(),
+                        wellboreUid, wellUid);
+                count++;
+            }
+        }
+        return count;
+    }
+}
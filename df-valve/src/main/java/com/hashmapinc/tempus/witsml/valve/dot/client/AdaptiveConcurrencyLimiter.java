@@ -0,0 +1,353 @@
+/**
+ * Copyright © 2018-2019 Hashmap, Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hashmapinc.tempus.witsml.valve.dot.client;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import com.hashmapinc.tempus.witsml.ValveLogging;
+import com.hashmapinc.tempus.witsml.valve.ValveException;
+
+/**
+ * Bounds the number of concurrent requests to one group of DoT endpoints,
+ * adapting the bound to the latency the group shows (AIMD):
+ *
+ * 1: a request slower than tolerance times the smoothed latency of the
+ *    group, or a failed request, cuts the limit by 10%
+ * 2: any other request raises the limit by one while at least half of
+ *    the limit is in use
+ *
+ * Callers wait up to maxWaitMillis for a free slot: acquire blocks the
+ * calling thread, acquireAsync queues the caller and hands it a slot
+ * when one is released, so no thread is parked. After circuitFailures
+ * failures in a row the group's circuit opens: requests are rejected for
+ * circuitOpenMillis, then a single trial request decides whether it
+ * closes again. Failures are transport errors and 5xx responses, see
+ * Permit.release.
+ */
+public class AdaptiveConcurrencyLimiter {
+    private static final Logger LOG = Logger.getLogger(AdaptiveConcurrencyLimiter.class.getName());
+    private static final double BACKOFF_RATIO = 0.9;
+    private static final double RTT_SMOOTHING = 0.05;
+    // fails queued acquireAsync callers once their wait is over
+    private static final ScheduledThreadPoolExecutor TIMEOUTS = new ScheduledThreadPoolExecutor(1, runnable -> {
+        Thread thread = new Thread(runnable, "dot-limiter-timeout");
+        thread.setDaemon(true);
+        return thread;
+    });
+    static {
+        TIMEOUTS.setRemoveOnCancelPolicy(true);
+    }
+
+    private final String name;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final long maxWaitMillis;
+    private final int circuitFailures;
+    private final long circuitOpenMillis;
+
+    // guarded by this
+    private double limit;
+    private int inFlight;
+    private double smoothedRttMillis;
+    private int consecutiveFailures;
+    private long openUntil; // 0 while the circuit is closed
+    private boolean probing; // trial request of a half open circuit in flight
+    private long rejected;
+    // acquireAsync callers waiting for a slot, oldest first
+    private final ArrayDeque<Waiter> waiters = new ArrayDeque<>();
+
+    /**
+     * @param name - name of the endpoint group, used in messages
+     * @param initialLimit - concurrency limit to start with
+     * @param minLimit - lowest the limit may drop to
+     * @param maxLimit - highest the limit may grow to
+     * @param tolerance - latency, as a multiple of the smoothed latency,
+     *                    above which the limit is cut
+     * @param maxWaitMillis - how long a caller waits for a free slot
+     * @param circuitFailures - failures in a row that open the circuit
+     * @param circuitOpenMillis - how long an open circuit rejects requests
+     */
+    public AdaptiveConcurrencyLimiter(String name, int initialLimit, int minLimit, int maxLimit, double tolerance,
+                                      long maxWaitMillis, int circuitFailures, long circuitOpenMillis) {
+        this.name = name;
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.limit = Math.min(this.maxLimit, Math.max(this.minLimit, initialLimit));
+        this.tolerance = tolerance;
+        this.maxWaitMillis = maxWaitMillis;
+        this.circuitFailures = Math.max(1, circuitFailures);
+        this.circuitOpenMillis = circuitOpenMillis;
+    }
+
+    /**
+     * Takes a slot, waiting for one if the limit is reached. The permit
+     * must be released once the request is done.
+     *
+     * @return the permit of the slot
+     * @throws ValveException if the circuit is open or no slot was freed in time
+     */
+    public synchronized Permit acquire() throws ValveException {
+        if (this.openUntil > 0) {
+            if (this.probing || System.currentTimeMillis() < this.openUntil) {
+                this.rejected++;
+                throw new ValveException("Circuit broken for DoT " + this.name + " requests");
+            }
+            // half open, let one trial request through
+            this.probing = true;
+            this.inFlight++;
+            return new Permit(true);
+        }
+
+        long deadline = System.currentTimeMillis() + this.maxWaitMillis;
+        while (this.isSaturated()) {
+            long wait = deadline - System.currentTimeMillis();
+            if (wait <= 0) {
+                this.rejected++;
+                throw new ValveException("Too many concurrent DoT " + this.name + " requests");
+            }
+            try {
+                this.wait(wait);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ValveException("Interrupted while waiting for DoT " + this.name + " requests");
+            }
+            if (this.openUntil > 0) {
+                this.rejected++;
+                throw new ValveException("Circuit broken for DoT " + this.name + " requests");
+            }
+        }
+        this.inFlight++;
+        return new Permit(false);
+    }
+
+    /**
+     * Same as acquire, but the caller does not wait: if the limit is
+     * reached the returned future completes once a slot is released, on
+     * the releasing thread, or fails after maxWaitMillis. The permit
+     * must be released once the request is done.
+     *
+     * @return future completed with the permit of the slot, or failed
+     *         with a ValveException if the circuit is open or no slot
+     *         was freed in time
+     */
+    public CompletableFuture<Permit> acquireAsync() {
+        Waiter waiter;
+        synchronized (this) {
+            if (this.openUntil > 0 || !this.isSaturated()) {
+                try {
+                    return CompletableFuture.completedFuture(this.acquire()); // does not wait
+                } catch (ValveException e) {
+                    return CompletableFuture.failedFuture(e);
+                }
+            }
+            waiter = new Waiter();
+            this.waiters.add(waiter);
+        }
+        ScheduledFuture<?> timeout = TIMEOUTS.schedule(() -> this.expire(waiter), this.maxWaitMillis,
+                TimeUnit.MILLISECONDS);
+        waiter.future.whenComplete((permit, error) -> timeout.cancel(false));
+        return waiter.future;
+    }
+
+    /**
+     * @return true if a new request has to wait for a slot
+     */
+    private boolean isSaturated() {
+        return this.inFlight >= (int) this.limit || !this.waiters.isEmpty();
+    }
+
+    /**
+     * fails a queued acquireAsync caller whose wait is over
+     */
+    private void expire(Waiter waiter) {
+        synchronized (this) {
+            if (!this.waiters.remove(waiter))
+                return; // got a slot meanwhile
+            this.rejected++;
+        }
+        waiter.future.completeExceptionally(
+                new ValveException("Too many concurrent DoT " + this.name + " requests"));
+    }
+
+    private void release(Permit permit, boolean failed, double rttMillis) {
+        List<Waiter> granted = new ArrayList<>();
+        List<Waiter> broken = new ArrayList<>();
+        synchronized (this) {
+            this.updateLimit(permit, failed, rttMillis);
+            if (this.openUntil > 0) {
+                broken.addAll(this.waiters);
+                this.rejected += this.waiters.size();
+                this.waiters.clear();
+            }
+            // queued callers get the free slots before new ones
+            while (!this.waiters.isEmpty() && this.inFlight < (int) this.limit) {
+                this.inFlight++;
+                granted.add(this.waiters.poll());
+            }
+            this.notifyAll();
+        }
+        // complete outside the lock, the callers continue on this thread
+        for (Waiter waiter : broken)
+            waiter.future.completeExceptionally(
+                    new ValveException("Circuit broken for DoT " + this.name + " requests"));
+        for (Waiter waiter : granted) {
+            Permit grant = new Permit(false);
+            if (!waiter.future.complete(grant))
+                this.giveBack(); // caller gave up
+        }
+    }
+
+    /**
+     * frees a slot handed to a caller that no longer wants it, without
+     * counting it as a request
+     */
+    private void giveBack() {
+        Waiter next = null;
+        synchronized (this) {
+            this.inFlight--;
+            if (!this.waiters.isEmpty() && this.inFlight < (int) this.limit) {
+                this.inFlight++;
+                next = this.waiters.poll();
+            }
+            this.notifyAll();
+        }
+        if (null != next && !next.future.complete(new Permit(false)))
+            this.giveBack();
+    }
+
+    // guarded by this
+    private void updateLimit(Permit permit, boolean failed, double rttMillis) {
+        this.inFlight--;
+        if (failed) {
+            this.consecutiveFailures++;
+            this.limit = Math.max(this.minLimit, this.limit * BACKOFF_RATIO);
+            if (permit.probe || (this.openUntil == 0 && this.consecutiveFailures >= this.circuitFailures)) {
+                this.openUntil = System.currentTimeMillis() + this.circuitOpenMillis;
+                this.probing = false;
+                LOG.warning(ValveLogging.getLogMsg("Opening circuit for DoT " + this.name + " requests after "
+                        + this.consecutiveFailures + " failures"));
+            }
+        } else {
+            this.consecutiveFailures = 0;
+            if (permit.probe) {
+                this.openUntil = 0;
+                this.probing = false;
+                LOG.info(ValveLogging.getLogMsg("Closing circuit for DoT " + this.name + " requests"));
+            }
+            if (this.smoothedRttMillis > 0 && rttMillis > this.tolerance * this.smoothedRttMillis)
+                this.limit = Math.max(this.minLimit, this.limit * BACKOFF_RATIO);
+            else if (this.inFlight + 1 >= this.limit / 2)
+                this.limit = Math.min(this.maxLimit, this.limit + 1);
+            this.smoothedRttMillis = (this.smoothedRttMillis == 0)
+                    ? rttMillis
+                    : this.smoothedRttMillis * (1 - RTT_SMOOTHING) + rttMillis * RTT_SMOOTHING;
+        }
+    }
+
+    /**
+     * @return name of the endpoint group
+     */
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * @return current concurrency limit
+     */
+    public synchronized int getLimit() {
+        return (int) this.limit;
+    }
+
+    /**
+     * @return number of requests currently holding a slot
+     */
+    public synchronized int getInFlight() {
+        return this.inFlight;
+    }
+
+    /**
+     * @return true while the circuit rejects requests
+     */
+    public synchronized boolean isCircuitOpen() {
+        return this.openUntil > 0;
+    }
+
+    /**
+     * @return number of acquireAsync callers waiting for a slot
+     */
+    public synchronized int getQueued() {
+        return this.waiters.size();
+    }
+
+    /**
+     * @return number of requests rejected by the circuit or for lack of a slot
+     */
+    public synchronized long getRejectedCount() {
+        return this.rejected;
+    }
+
+    /**
+     * @return summary of the limiter state for logging
+     */
+    public synchronized String getStats() {
+        return String.format("%s: limit=%d, inFlight=%d, queued=%d, rtt=%.0fms, circuitOpen=%b, rejected=%d",
+                this.name, (int) this.limit, this.inFlight, this.waiters.size(), this.smoothedRttMillis,
+                this.openUntil > 0, this.rejected);
+    }
+
+    /**
+     * an acquireAsync caller waiting for a slot
+     */
+    private class Waiter {
+        private final CompletableFuture<Permit> future = new CompletableFuture<>();
+    }
+
+    /**
+     * A slot taken by acquire or acquireAsync
+     */
+    public class Permit {
+        private final boolean probe;
+        private final long startNanos = System.nanoTime();
+        private boolean released;
+
+        private Permit(boolean probe) {
+            this.probe = probe;
+        }
+
+        /**
+         * Frees the slot and feeds the outcome of the request to the
+         * limiter. Releasing more than once has no effect.
+         *
+         * @param failed - true for transport errors and 5xx responses
+         */
+        public void release(boolean failed) {
+            synchronized (this) {
+                if (this.released)
+                    return;
+                this.released = true;
+            }
+            AdaptiveConcurrencyLimiter.this.release(this, failed, (System.nanoTime() - this.startNanos) / 1e6);
+        }
+    }
+}
@@ -0,0 +1,282 @@
+/**
+ * Copyright © 2018-2019 Hashmap, Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hashmapinc.tempus.witsml.valve.dot.client;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * Map whose entries expire after a TTL, used by the caches of the DoT
+ * valve (names, identities, channel sets and channels).
+ *
+ * Once the map grows over its size bound it drops expired entries and,
+ * if that is not enough, the entries closest to expiry until it is at
+ * 90% of its bound, so a full map is not trimmed again on every put.
+ *
+ * @param <V> - type of the cached values
+ */
+public class BoundedTtlCache<V> {
+    private final ConcurrentHashMap<String, Entry<V>> cache = new ConcurrentHashMap<>();
+    private volatile long ttlMillis;
+    private volatile int maxSize;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * @param ttlMillis - time to live of an entry put without a TTL
+     * @param maxSize - maximum number of entries
+     */
+    public BoundedTtlCache(long ttlMillis, int maxSize) {
+        this.ttlMillis = ttlMillis;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * @param ttlMillis - time to live of an entry put without a TTL
+     * @param maxSize - maximum number of entries
+     */
+    public void configure(long ttlMillis, int maxSize) {
+        this.ttlMillis = ttlMillis;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * @param maxSize - maximum number of entries
+     */
+    public void setMaxSize(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * @return time to live of an entry put without a TTL
+     */
+    public long getTtlMillis() {
+        return this.ttlMillis;
+    }
+
+    /**
+     * @param key - key of the entry
+     * @return the live value, or null; counted as a hit or a miss
+     */
+    public V get(String key) {
+        return get(key, value -> true);
+    }
+
+    /**
+     * @param key - key of the entry
+     * @param usable - test a live value must pass to count as a hit
+     * @return the live value if it passes the test, or null
+     */
+    public V get(String key, Predicate<? super V> usable) {
+        V value = peek(key);
+        if (null != value && usable.test(value)) {
+            this.hits.incrementAndGet();
+            return value;
+        }
+        this.misses.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * @param key - key of the entry
+     * @return the live value, or null; not counted
+     */
+    public V peek(String key) {
+        Entry<V> entry = (null == key) ? null : this.cache.get(key);
+        if (null == entry)
+            return null;
+        if (entry.expiresAt <= System.currentTimeMillis()) {
+            this.cache.remove(key, entry); // expired
+            return null;
+        }
+        return entry.value;
+    }
+
+    /**
+     * @param key - key of the entry
+     * @param value - value to cache
+     */
+    public void put(String key, V value) {
+        put(key, value, this.ttlMillis);
+    }
+
+    /**
+     * @param key - key of the entry
+     * @param value - value to cache
+     * @param ttlMillis - time to live of the entry
+     */
+    public void put(String key, V value, long ttlMillis) {
+        this.cache.put(key, new Entry<>(value, System.currentTimeMillis() + ttlMillis));
+        trimIfFull();
+    }
+
+    /**
+     * adds an entry with a known expiry unless the key is cached already,
+     * e.g. when loading a snapshot
+     *
+     * @param key - key of the entry
+     * @param value - value to cache
+     * @param expiresAt - expiry time in milliseconds since the epoch
+     */
+    public void restore(String key, V value, long expiresAt) {
+        if (expiresAt <= System.currentTimeMillis())
+            return;
+        this.cache.putIfAbsent(key, new Entry<>(value, expiresAt));
+        trimIfFull();
+    }
+
+    /**
+     * @param key - key of the entry
+     */
+    public void remove(String key) {
+        if (null != key)
+            this.cache.remove(key);
+    }
+
+    /**
+     * @param prefix - key prefix
+     * @return the removed entries
+     */
+    public Map<String, V> removeByPrefix(String prefix) {
+        Map<String, V> removed = new HashMap<>();
+        for (String key : this.cache.keySet()) {
+            if (key.startsWith(prefix)) {
+                Entry<V> entry = this.cache.remove(key);
+                if (null != entry)
+                    removed.put(key, entry.value);
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Removes all entries and resets the counters.
+     */
+    public void clear() {
+        this.cache.clear();
+        this.hits.set(0);
+        this.misses.set(0);
+        this.evictions.set(0);
+    }
+
+    /**
+     * @return number of entries, including expired ones not yet removed
+     */
+    public int size() {
+        return this.cache.size();
+    }
+
+    /**
+     * visits the live entries
+     *
+     * @param visitor - called with key, value and expiry of each entry
+     */
+    public <E extends Exception> void forEach(EntryVisitor<V, E> visitor) throws E {
+        long now = System.currentTimeMillis();
+        for (Map.Entry<String, Entry<V>> entry : this.cache.entrySet()) {
+            Entry<V> value = entry.getValue();
+            if (value.expiresAt > now)
+                visitor.visit(entry.getKey(), value.value, value.expiresAt);
+        }
+    }
+
+    /**
+     * @return number of lookups answered from the cache
+     */
+    public long getHitCount() {
+        return this.hits.get();
+    }
+
+    /**
+     * @return number of lookups not answered from the cache
+     */
+    public long getMissCount() {
+        return this.misses.get();
+    }
+
+    /**
+     * @return number of entries dropped to stay under the size bound
+     */
+    public long getEvictionCount() {
+        return this.evictions.get();
+    }
+
+    /**
+     * @return fraction of lookups answered from the cache, 0 if there were none
+     */
+    public double getHitRate() {
+        long hitCount = this.hits.get();
+        long total = hitCount + this.misses.get();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    /**
+     * @return summary of the cache counters for logging
+     */
+    public String getStats() {
+        return String.format("size=%d, hits=%d, misses=%d, evictions=%d, hitRate=%.2f",
+                size(), getHitCount(), getMissCount(), getEvictionCount(), getHitRate());
+    }
+
+    private void trimIfFull() {
+        if (this.cache.size() > this.maxSize)
+            trim();
+    }
+
+    private synchronized void trim() {
+        if (this.cache.size() <= this.maxSize)
+            return;
+
+        long now = System.currentTimeMillis();
+        this.cache.values().removeIf(entry -> entry.expiresAt <= now);
+
+        int excess = this.cache.size() - (int) (this.maxSize * 0.9);
+        if (excess > 0) {
+            List<String> oldest = this.cache.entrySet().stream()
+                    .sorted(Comparator.comparingLong(e -> e.getValue().expiresAt))
+                    .limit(excess)
+                    .map(Map.Entry::getKey)
+                    .collect(Collectors.toList());
+            oldest.forEach(this.cache::remove);
+            this.evictions.addAndGet(oldest.size());
+        }
+    }
+
+    /**
+     * callback of forEach
+     */
+    public interface EntryVisitor<V, E extends Exception> {
+        void visit(String key, V value, long expiresAt) throws E;
+    }
+
+    private static class Entry<V> {
+        private final V value;
+        private final long expiresAt;
+
+        private Entry(V value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
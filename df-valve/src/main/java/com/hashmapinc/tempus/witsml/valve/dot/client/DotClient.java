@@ -15,11 +15,32 @@
  */
 package com.hashmapinc.tempus.witsml.valve.dot.client;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.security.KeyManagementException;
 import java.security.KeyStoreException;
+import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Collections;
 import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 import java.util.logging.Logger;
 
 import javax.net.ssl.HostnameVerifier;
@@ -29,26 +50,74 @@ import javax.net.ssl.SSLSession;
 import com.auth0.jwt.JWT;
 import com.auth0.jwt.interfaces.DecodedJWT;
 import com.hashmapinc.tempus.witsml.ValveLogging;
+import com.hashmapinc.tempus.witsml.valve.ConfigValues;
 import com.hashmapinc.tempus.witsml.valve.ValveAuthException;
 import com.hashmapinc.tempus.witsml.valve.ValveException;
 import com.mashape.unirest.http.HttpResponse;
 import com.mashape.unirest.http.JsonNode;
 import com.mashape.unirest.http.Unirest;
 import com.mashape.unirest.http.exceptions.UnirestException;
+import com.mashape.unirest.http.utils.ClientFactory;
 import com.mashape.unirest.request.HttpRequest;
 import com.mashape.unirest.request.HttpRequestWithBody;
 
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.client.methods.RequestBuilder;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
 import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
 import org.apache.http.conn.ssl.TrustSelfSignedStrategy;
 import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
 import org.apache.http.impl.client.HttpClients;
 import org.apache.http.ssl.SSLContexts;
+import org.apache.http.util.EntityUtils;
 
 public class DotClient {
     private static final Logger LOG = Logger.getLogger(DotClient.class.getName());
     //private final String URL;
     private final String TOKEN_PATH;
-    private ConcurrentHashMap<String, DecodedJWT> cache;
+    // token per user, with a digest of the password the token endpoint accepted
+    private ConcurrentHashMap<String, CachedToken> cache;
+    // salt of the password digests, so they are not comparable across processes
+    private final byte[] credentialSalt = new byte[16];
+    private final DotTransport transport;
+    // adaptive concurrency limit and circuit per group of DoT endpoints
+    private final DotEndpointLimiters limiters;
+    private final DotCommandSettings commandSettings; // Hystrix settings per endpoint group
+    private final DotRetryPolicy retryPolicy; // retries of transient failures
+    // sends retries once their backoff has passed, and requests that
+    // waited for a slot of their endpoint group, a fixed number at a time
+    private final ScheduledExecutorService retryExecutor;
+    private static final long JWT_TOKEN_EXPIRY_BUFFER = 5 * 60 * 1000; // 5 minute buffer
+    // token fetches in flight per user, shared by concurrent callers
+    private final ConcurrentHashMap<String, TokenRefresh> refreshes = new ConcurrentHashMap<>();
+    // credentials of recent users, so their tokens can be renewed in the background
+    private final ConcurrentHashMap<String, TokenUser> users = new ConcurrentHashMap<>();
+    private final long refreshAheadMillis;
+    private final long refreshIdleMillis;
+    // renews tokens of recent users, null if disabled or closed
+    private volatile ScheduledExecutorService tokenRefresher;
+    // token refresh metrics
+    private final AtomicLong refreshCount = new AtomicLong();
+    private final AtomicLong refreshFailureCount = new AtomicLong();
+    private final AtomicLong backgroundRefreshCount = new AtomicLong();
+    private final AtomicLong sharedRefreshCount = new AtomicLong();
+    private final AtomicLong totalRefreshMillis = new AtomicLong();
+    private final AtomicLong maxRefreshMillis = new AtomicLong();
+    // unirest's http client is process wide, so is its pool
+    private static volatile DotConnectionPool connectionPool;
+    // numbers the clients, so the stats of each client are logged apart
+    private static final AtomicInteger clientCount = new AtomicInteger();
+    private final String statsName;
+    // names of the stats registered by this client
+    private final List<String> registeredStats = new CopyOnWriteArrayList<>();
 
     /**
      * DotClient constructor
@@ -57,50 +126,157 @@ public class DotClient {
      * @throws ValveAuthException
      */
     public DotClient(String tokenPath)  throws ValveAuthException{
+        this(tokenPath, Collections.emptyMap());
+    }
+
+    /**
+     * DotClient constructor
+     *
+     * @param tokenPath - token endpoint
+     * @param config - valve configuration, "dot.transport" selects how
+     *                 requests are sent: "unirest" (default) or "jdk",
+     *                 "token.refresh.*" controls background token renewal,
+     *                 "dot.limiter.*" the limits per endpoint group,
+     *                 "dot.command.*" the Hystrix settings per endpoint group,
+     *                 "dot.retry.*" the retries of transient failures,
+     *                 "dot.hedge.*" the hedging of slow reads
+     * @throws ValveAuthException
+     */
+    public DotClient(String tokenPath, Map<String, String> config) throws ValveAuthException {
+        this(tokenPath, config, null);
+    }
+
+    /**
+     * DotClient constructor for tests, sending requests and token
+     * requests through the given transport
+     *
+     * @param tokenPath - token endpoint
+     * @param config - valve configuration
+     * @param transport - transport to use, null to build the configured one
+     * @throws ValveAuthException
+     */
+    DotClient(String tokenPath, Map<String, String> config, DotTransport transport) throws ValveAuthException {
         this.TOKEN_PATH = tokenPath;
+        this.limiters = new DotEndpointLimiters(config);
+        this.commandSettings = new DotCommandSettings(config, this.limiters);
+        this.retryPolicy = new DotRetryPolicy(config, this.limiters);
+        this.retryExecutor = Executors.newScheduledThreadPool(
+                Math.max(1, (int) ConfigValues.getLong(config, "dot.retry.threads", 8)), runnable -> {
+                    Thread thread = new Thread(runnable, "dot-retry");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.statsName = "DoT client " + clientCount.incrementAndGet();
+        this.registerStats("limiters", this.limiters::getStats);
+        this.registerStats("retries", this.retryPolicy::getStats);
         // changed to ConcurrentHashMap to make thread safe
-        this.cache = new ConcurrentHashMap<String, DecodedJWT>();
+        this.cache = new ConcurrentHashMap<String, CachedToken>();
+        new SecureRandom().nextBytes(this.credentialSalt);
+        this.refreshAheadMillis = ConfigValues.getLong(config, "token.refresh.ahead", 120) * 1000;
+        this.refreshIdleMillis = ConfigValues.getLong(config, "token.refresh.idle", 3600) * 1000;
+        this.startTokenRefresher(ConfigValues.getLong(config, "token.refresh.interval", 60));
+        // http.pool.stats.interval is the older name of stats.interval
+        StatsLogger.start(ConfigValues.getLong(config, "stats.interval", ConfigValues.getLong(config, "http.pool.stats.interval", 0)));
+        if (null != transport) {
+            this.transport = transport;
+            return;
+        }
         try {
-            buildHttpClient();
+            SSLContext sslcontext = buildSslContext();
+            buildHttpClient(sslcontext, config);
+            this.transport = buildTransport(config);
         } catch (KeyManagementException | NoSuchAlgorithmException | KeyStoreException e) {
             throw new ValveAuthException("Error creating http client: " + e.getMessage(), e);
         }
     }
 
     /**
-     * Generate Token for given creds and save the token in cache
+     * Generate Token for given creds and save the token in cache. The
+     * token request goes through the configured transport, so with the
+     * jdk transport no thread waits for it.
      *
      * @param username
      * @param password
+     * @return future completed with the new token, or failed with a
+     *         ValveAuthException
      */
-    private void refreshToken(String username, String password, String exchangeId) throws ValveAuthException {
+    private CompletableFuture<DecodedJWT> refreshToken(String username, String password, String exchangeId) {
+        long start = System.currentTimeMillis();
+        // build payload for authentication
+        String payload = "{\"account\":\"" + username + "\", \"password\":\"" + password + "\"}";
+        // build request
+        HttpRequestWithBody req = Unirest.post(this.TOKEN_PATH);
+        req.header("Content-Type", "application/json")
+            .body(payload);
+
+        // send request
+        LOG.info(ValveLogging.getLogMsg(exchangeId, "Refreshing Token"));
+        CompletableFuture<HttpResponse<String>> sent;
         try {
-            // build payload for authentication
-            String payload = "{\"account\":\"" + username + "\", \"password\":\"" + password + "\"}";
-            // build request
-            HttpRequestWithBody req = Unirest.post(this.TOKEN_PATH);
-            req.header("Content-Type", "application/json")
-                .body(payload);
-
-            // send request
-            HttpResponse<String> response = new DotRestCommand(req).run();
-
-            // validate response
-            int status = response.getStatus();
-
-            LOG.fine("refreshToken call for " + username + "returned REST status: " + status); // fine = debug I guess.
-            LOG.info(ValveLogging.getLogMsg(exchangeId, "Refreshing Token"));                                                                                   // Stupid JDK 11
-            if (201 == status || 200 == status) {
-                // get JWT from response
-                String tokenString = new JsonNode(response.getBody()).getObject().getString("jwt");
-                DecodedJWT decodedJwtToken = JWT.decode(tokenString);
-                cache.put(username, decodedJwtToken); // cache response
-            } else {
-                throw new ValveAuthException(response.getBody());
+            sent = this.transport.send(req);
+        } catch (RuntimeException e) {
+            sent = CompletableFuture.failedFuture(e);
+        }
+        return sent.handle((response, error) -> {
+            try {
+                if (null != error)
+                    throw (error instanceof CompletionException && null != error.getCause()) ? error.getCause() : error;
+                if (null == response)
+                    throw new ValveAuthException("Token request was rejected");
+
+                // validate response
+                int status = response.getStatus();
+                LOG.fine("refreshToken call for " + username + "returned REST status: " + status); // fine = debug I guess.
+                if (201 == status || 200 == status) {
+                    // get JWT from response
+                    String tokenString = new JsonNode(response.getBody()).getObject().getString("jwt");
+                    DecodedJWT decodedJwtToken = JWT.decode(tokenString);
+                    cache.put(username, new CachedToken(decodedJwtToken, this.digest(password))); // cache response
+                    return decodedJwtToken;
+                } else {
+                    throw new ValveAuthException(response.getBody());
+                }
+            } catch (Throwable e) {
+                this.refreshFailureCount.incrementAndGet();
+                throw new CompletionException(new ValveAuthException("Error refreshing token: " + e.getMessage(), e));
+            } finally {
+                long elapsed = System.currentTimeMillis() - start;
+                this.refreshCount.incrementAndGet();
+                this.totalRefreshMillis.addAndGet(elapsed);
+                this.maxRefreshMillis.accumulateAndGet(elapsed, Math::max);
+                LOG.fine("Token refresh for " + username + " took " + elapsed + " ms");
             }
-        } catch (Exception e) {
-            throw new ValveAuthException("Error refreshing token: " + e.getMessage(), e);
+        });
+    }
+
+    /**
+     * Fetches a new token for the user, unless a fetch with the same
+     * credentials is already in flight, in which case its result is
+     * shared instead of calling the token endpoint again.
+     *
+     * @param username
+     * @param password
+     * @return future completed with the new token
+     */
+    CompletableFuture<DecodedJWT> refreshTokenOnce(String username, String password, String exchangeId) {
+        TokenRefresh refresh = new TokenRefresh(password);
+        TokenRefresh inFlight = this.refreshes.putIfAbsent(username, refresh);
+        if (null != inFlight && inFlight.password.equals(password)) {
+            this.sharedRefreshCount.incrementAndGet();
+            return inFlight.future;
         }
+        if (null != inFlight) // different credentials, never hand out a token fetched with another password
+            return this.refreshToken(username, password, exchangeId);
+
+        this.refreshToken(username, password, exchangeId).whenComplete((jwt, error) -> {
+            // later callers find the token in the cache
+            this.refreshes.remove(username, refresh);
+            if (null != error)
+                refresh.future.completeExceptionally(error);
+            else
+                refresh.future.complete(jwt);
+        });
+        return refresh.future;
     }
 
     /**
@@ -112,45 +288,259 @@ public class DotClient {
      * @throws ValveAuthException
      */
     public DecodedJWT getJWT(String username, String password, String exchangeId) throws ValveAuthException {
+        return awaitToken(this.getJWTAsync(username, password, exchangeId));
+    }
+
+    /**
+     * Same as getJWT, but a token that needs a refresh is not waited for.
+     * A cached token is only handed out for the password it was fetched
+     * with; any other password goes to the token endpoint, which accepts
+     * or rejects it.
+     *
+     * @param username
+     * @param password
+     * @return future completed with the JWT, or failed with a ValveAuthException
+     */
+    public CompletableFuture<DecodedJWT> getJWTAsync(String username, String password, String exchangeId) {
         // refresh token if necessary
-        if (!cache.containsKey(username) || isTokenExpired(username))
-            refreshToken(username, password, exchangeId);
+        CachedToken cached = cache.get(username);
+        if (null != cached && cached.isFor(this.digest(password)) && !isTokenExpired(cached.jwt, JWT_TOKEN_EXPIRY_BUFFER)) {
+            this.rememberUser(username, password);
+            return CompletableFuture.completedFuture(cached.jwt);
+        }
+        return this.refreshTokenOnce(username, password, exchangeId).thenApply(refreshed -> {
+            this.rememberUser(username, password);
+            return refreshed;
+        });
+    }
 
-        return cache.get(username);
+    /**
+     * @param password - password of a user
+     * @return salted SHA-256 digest of the password
+     */
+    private byte[] digest(String password) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(this.credentialSalt);
+            return digest.digest(String.valueOf(password).getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e); // every JRE has it
+        }
     }
 
     /**
-     * Check if JWT Token will expire in the next BUFFER milliseconds
+     * remembers the user so the background refresher can renew the token,
+     * only called once the token endpoint accepted the password
+     */
+    private void rememberUser(String username, String password) {
+        // without a refresher nobody would renew the token or forget the password
+        if (null != this.tokenRefresher)
+            this.users.put(username, new TokenUser(password, System.currentTimeMillis()));
+    }
+
+    /**
+     * waits for a token future and rethrows its failure
      *
-     * @param username
-     * @return true if token expires in the next BUFFER milliseconds
+     * @param future - future of a token
+     * @return the token
+     * @throws ValveAuthException
+     */
+    private static DecodedJWT awaitToken(CompletableFuture<DecodedJWT> future) throws ValveAuthException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ValveAuthException("Interrupted while refreshing token");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof ValveAuthException)
+                throw (ValveAuthException) e.getCause();
+            throw new ValveAuthException("Error refreshing token: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    /**
+     * Check if JWT Token will expire in the next buffer milliseconds
+     *
+     * @param jwt - token to check
+     * @param buffer - milliseconds before the actual expiry
+     * @return true if token expires in the next buffer milliseconds
      */
-    private boolean isTokenExpired(String username) {
-        // create buffer
-        long JWT_TOKEN_EXPIRY_BUFFER = 5 * 60 * 1000; // 5 minute buffer
+    private boolean isTokenExpired(DecodedJWT jwt, long buffer) {
+        // tokens without an expiry never need a refresh
+        if (null == jwt.getExpiresAt())
+            return false;
 
         // get time until token expires
-        long timeUntilExpiration = cache.get(username).getExpiresAt().getTime() - (new Date()).getTime();
+        long timeUntilExpiration = jwt.getExpiresAt().getTime() - (new Date()).getTime();
 
-        // return true if token expires within the BUFFER time
-        return timeUntilExpiration <= JWT_TOKEN_EXPIRY_BUFFER;
+        // return true if token expires within the buffer time
+        return timeUntilExpiration <= buffer;
     }
 
     /**
-     * removes a user from the cache
+     * removes a user's token from the cache, unless it was already
+     * replaced by a newer token (e.g. by a concurrent request that also
+     * got a 401)
      *
      * @param username - key to remove in the cache
+     * @param jwt - the token that was rejected
+     */
+    private void removeFromCache(String username, DecodedJWT jwt) {
+        this.cache.computeIfPresent(username, (key, cached) -> (cached.jwt == jwt) ? null : cached);
+    }
+
+    /**
+     * schedules the background renewal of tokens about to expire
+     *
+     * @param interval - seconds between checks, 0 or less to disable
+     */
+    private void startTokenRefresher(long interval) {
+        if (interval <= 0)
+            return;
+        ScheduledExecutorService refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "dot-token-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+        refresher.scheduleWithFixedDelay(this::renewTokens, interval, interval, TimeUnit.SECONDS);
+        this.tokenRefresher = refresher;
+    }
+
+    /**
+     * stops the background token renewal and forgets the credentials
+     * kept for it. Requests can still be made, their tokens are then
+     * only refreshed when they expire. Retries already waiting are
+     * still sent, later failures are no longer retried.
      */
-    private void removeFromCache(String username) {
-        if (this.cache.containsKey(username))
-            this.cache.remove(username); // TODO: maybe make this thread safe?
+    public void close() {
+        ScheduledExecutorService refresher = this.tokenRefresher;
+        this.tokenRefresher = null;
+        if (null != refresher)
+            refresher.shutdownNow();
+        this.retryExecutor.shutdown();
+        this.users.clear();
+        for (String name : this.registeredStats)
+            StatsLogger.unregister(name);
+        this.registeredStats.clear();
     }
 
-    private void buildHttpClient() throws KeyManagementException, NoSuchAlgorithmException, KeyStoreException {
-        SSLContext sslcontext = SSLContexts.custom()
+    /**
+     * registers stats of this client, named after the client so the
+     * stats of other clients are kept
+     *
+     * @param what - what the stats are about, e.g. "limiters"
+     * @param stats - returns the current stats
+     */
+    private void registerStats(String what, Supplier<String> stats) {
+        String name = this.statsName + " " + what;
+        StatsLogger.register(name, stats);
+        this.registeredStats.add(name);
+    }
+
+    /**
+     * renews the tokens that expire within the refresh window ahead of
+     * the expiry buffer, so request threads find a valid token. Users
+     * that made no request for a while are forgotten instead.
+     */
+    void renewTokens() {
+        long now = System.currentTimeMillis();
+        boolean changed = false;
+        for (Map.Entry<String, TokenUser> entry : this.users.entrySet()) {
+            String username = entry.getKey();
+            TokenUser user = entry.getValue();
+            if (now - user.lastUsed > this.refreshIdleMillis) {
+                this.users.remove(username, user);
+                changed = true;
+                continue;
+            }
+
+            CachedToken cached = this.cache.get(username);
+            if (null != cached && !isTokenExpired(cached.jwt, JWT_TOKEN_EXPIRY_BUFFER + this.refreshAheadMillis))
+                continue;
+            changed = true;
+            try {
+                awaitToken(this.refreshTokenOnce(username, user.password, "token-refresh"));
+                this.backgroundRefreshCount.incrementAndGet();
+            } catch (ValveAuthException | RuntimeException e) {
+                // stop renewing until the user makes another request
+                this.users.remove(username, user);
+                LOG.warning(ValveLogging.getLogMsg("Background token refresh failed for " + username + ": " + e.getMessage()));
+            }
+        }
+        if (changed)
+            LOG.info(ValveLogging.getLogMsg("DoT tokens: " + this.getTokenStats()));
+        else
+            LOG.fine(ValveLogging.getLogMsg("DoT tokens: " + this.getTokenStats()));
+    }
+
+    /**
+     * @return number of calls to the token endpoint
+     */
+    public long getRefreshCount() {
+        return this.refreshCount.get();
+    }
+
+    /**
+     * @return number of failed calls to the token endpoint
+     */
+    public long getRefreshFailureCount() {
+        return this.refreshFailureCount.get();
+    }
+
+    /**
+     * @return number of tokens renewed by the background refresher
+     */
+    public long getBackgroundRefreshCount() {
+        return this.backgroundRefreshCount.get();
+    }
+
+    /**
+     * @return number of callers that waited for a refresh already in flight
+     */
+    public long getSharedRefreshCount() {
+        return this.sharedRefreshCount.get();
+    }
+
+    /**
+     * @return average latency of calls to the token endpoint in milliseconds
+     */
+    public double getAverageRefreshMillis() {
+        long count = this.refreshCount.get();
+        return (count == 0) ? 0 : (double) this.totalRefreshMillis.get() / count;
+    }
+
+    /**
+     * @return number of users whose tokens are renewed in the background
+     */
+    public int getRenewedUserCount() {
+        return this.users.size();
+    }
+
+    /**
+     * @return summary of the token refresh counters, logged by the
+     *         background refresher
+     */
+    public String getTokenStats() {
+        return String.format("tokens=%d, users=%d, refreshes=%d, failures=%d, background=%d, shared=%d, avgMs=%.1f, maxMs=%d",
+            this.cache.size(), getRenewedUserCount(), getRefreshCount(), getRefreshFailureCount(), getBackgroundRefreshCount(),
+            getSharedRefreshCount(), getAverageRefreshMillis(), this.maxRefreshMillis.get());
+    }
+
+    private SSLContext buildSslContext() throws KeyManagementException, NoSuchAlgorithmException, KeyStoreException {
+        return SSLContexts.custom()
             .loadTrustMaterial(null, new TrustSelfSignedStrategy())
             .build();
-            
+    }
+
+    /**
+     * builds the pooled http client shared by unirest and streaming
+     * requests. Pool sizes, timeouts (ms) and keep-alive are read from the
+     * "http.pool.*" keys of the valve configuration.
+     *
+     * @param sslcontext - ssl context used for https connections
+     * @param config - valve configuration
+     */
+    private void buildHttpClient(SSLContext sslcontext, Map<String, String> config) {
         HostnameVerifier verifier = new HostnameVerifier(){
             @Override
             public boolean verify(String hostname, SSLSession session) {
@@ -159,13 +549,85 @@ public class DotClient {
         };
 
         SSLConnectionSocketFactory sslsf = new SSLConnectionSocketFactory(sslcontext,verifier);
+        Registry<ConnectionSocketFactory> registry = RegistryBuilder.<ConnectionSocketFactory>create()
+            .register("http", PlainConnectionSocketFactory.getSocketFactory())
+            .register("https", sslsf)
+            .build();
+
+        DotConnectionPool pool = new DotConnectionPool(registry, ConfigValues.getLong(config, "http.pool.ttl", -1));
+        pool.setMaxTotal((int) ConfigValues.getLong(config, "http.pool.max.total", 200));
+        pool.setDefaultMaxPerRoute((int) ConfigValues.getLong(config, "http.pool.max.per.route", 50));
+        // check connections that sat idle for a while before reusing them
+        pool.setValidateAfterInactivity((int) ConfigValues.getLong(config, "http.pool.validate.after.inactivity", 2000));
+
+        RequestConfig requestConfig = RequestConfig.custom()
+            .setConnectTimeout((int) ConfigValues.getLong(config, "http.pool.connect.timeout", 10000))
+            .setSocketTimeout((int) ConfigValues.getLong(config, "http.pool.socket.timeout", 60000))
+            .setConnectionRequestTimeout((int) ConfigValues.getLong(config, "http.pool.request.timeout", 10000))
+            .build();
+
+        // honour the server's Keep-Alive header, but never keep a
+        // connection longer than maxKeepAlive
+        long maxKeepAlive = ConfigValues.getLong(config, "http.pool.keep.alive", 30000);
+        ConnectionKeepAliveStrategy keepAliveStrategy = (response, context) -> {
+            long keepAlive = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+            return (keepAlive > 0) ? Math.min(keepAlive, maxKeepAlive) : maxKeepAlive;
+        };
+
         CloseableHttpClient httpClient = HttpClients.custom()
-            .setSSLSocketFactory(sslsf)
+            .setConnectionManager(pool)
+            .setDefaultRequestConfig(requestConfig)
+            .setKeepAliveStrategy(keepAliveStrategy)
+            // background thread closing expired and idle connections
+            .evictExpiredConnections()
+            .evictIdleConnections(ConfigValues.getLong(config, "http.pool.idle.timeout", 60000), TimeUnit.MILLISECONDS)
             .build();
         Unirest.setHttpClient(httpClient);
+        connectionPool = pool;
+        StatsLogger.register("DoT connection pool", DotClient::getConnectionPoolStats);
+    }
+
+    /**
+     * @return the connection pool used by unirest, null before a client was built
+     */
+    public static DotConnectionPool getConnectionPool() {
+        return connectionPool;
+    }
+
+    /**
+     * @return summary of the connection pool state and lease counters
+     */
+    public static String getConnectionPoolStats() {
+        DotConnectionPool pool = connectionPool;
+        return (null == pool) ? "no connection pool" : pool.getStats();
+    }
+
+    private DotTransport buildTransport(Map<String, String> config)
+            throws KeyManagementException, NoSuchAlgorithmException, KeyStoreException {
+        DotTransport transport;
+        String name = config.get("dot.transport");
+        if ("jdk".equalsIgnoreCase(name)) {
+            long timeoutMillis = ConfigValues.getLong(config, "dot.transport.timeout", 60000);
+            LOG.info(ValveLogging.getLogMsg("Using java.net.http transport for DoT requests"));
+            transport = new JdkHttpTransport(JdkHttpTransport.newSslContext(), Duration.ofMillis(timeoutMillis));
+        } else {
+            if (null != name && !name.isEmpty() && !"unirest".equalsIgnoreCase(name))
+                LOG.warning(ValveLogging.getLogMsg("Unknown DoT transport " + name + ", using unirest"));
+            transport = new UnirestTransport(this.commandSettings);
+        }
+        if ("true".equalsIgnoreCase(config.get("dot.hedge.enabled"))) {
+            LOG.info(ValveLogging.getLogMsg("Hedging slow DoT reads"));
+            HedgingTransport hedging = new HedgingTransport(transport, this.limiters, config);
+            this.registerStats("hedging", hedging::getStats);
+            transport = hedging;
+        }
+        return transport;
     }
     /**
-     * retry wrapper for private makeRequest
+     * executes the given unirest request with proper authorization
+     * credentials and returns the response string object, retrying
+     * once on bad credentials and, for idempotent requests, on
+     * transient failures (see DotRetryPolicy)
      *
      * @param req - HttpRequest object to execute
      * @param username - auth username
@@ -177,59 +639,556 @@ public class DotClient {
         String password,
         String exchangeId
     ) throws ValveException, UnirestException, ValveAuthException {
+        return this.makeRequest(req, username, password, exchangeId, false);
+    }
+
+    /**
+     * same as makeRequest, but a PATCH, POST, PUT or DELETE marked as
+     * idempotent is retried on transient failures like a GET
+     *
+     * @param req - HttpRequest object to execute
+     * @param username - auth username
+     * @param password - auth password
+     * @param idempotent - true if sending the request twice is harmless
+     */
+    public HttpResponse<String> makeRequest(
+        HttpRequest req,
+        String username,
+        String password,
+        String exchangeId,
+        boolean idempotent
+    ) throws ValveException, UnirestException, ValveAuthException {
+        // the calling thread waits anyway, so it also waits for the slot
+        AdaptiveConcurrencyLimiter.Permit permit = this.acquirePermit(req);
+        return await(this.makeRequestAsync(req, username, password, exchangeId, idempotent, permit));
+    }
+
+    /**
+     * executes the given unirest request with proper authorization
+     * credentials without waiting for the response. The caller only
+     * gets the future back before the response is in if the transport
+     * is non-blocking (jdk); the unirest transport completes it on the
+     * calling thread.
+     *
+     * on bad credentials, the request is attempted once more. The future
+     * completes exceptionally with a ValveException, ValveAuthException
+     * or UnirestException, use await to get them back as checked
+     * exceptions.
+     *
+     * @param req - HttpRequest object to execute
+     * @param username - auth username
+     * @param password - auth password
+     * @return future completed with the response
+     */
+    public CompletableFuture<HttpResponse<String>> makeRequestAsync(
+        HttpRequest req,
+        String username,
+        String password,
+        String exchangeId
+    ) {
+        return this.makeRequestAsync(req, username, password, exchangeId, false);
+    }
+
+    /**
+     * same as makeRequestAsync, but a PATCH, POST, PUT or DELETE marked
+     * as idempotent is retried on transient failures like a GET
+     *
+     * @param req - HttpRequest object to execute
+     * @param username - auth username
+     * @param password - auth password
+     * @param idempotent - true if sending the request twice is harmless
+     * @return future completed with the response
+     */
+    public CompletableFuture<HttpResponse<String>> makeRequestAsync(
+        HttpRequest req,
+        String username,
+        String password,
+        String exchangeId,
+        boolean idempotent
+    ) {
+        return this.makeRequestAsync(req, username, password, exchangeId, idempotent, null);
+    }
+
+    private CompletableFuture<HttpResponse<String>> makeRequestAsync(
+        HttpRequest req,
+        String username,
+        String password,
+        String exchangeId,
+        boolean idempotent,
+        AdaptiveConcurrencyLimiter.Permit permit
+    ) {
         // default numRetries
         int numRetries = 1;
-        return this.makeRequest(req, username, password, exchangeId, numRetries);
+        DotRetryPolicy.Budget budget = this.retryPolicy.isIdempotent(req, idempotent)
+                ? this.retryPolicy.newBudget()
+                : null;
+        return this.makeRequestAsync(req, username, password, exchangeId, numRetries, budget, permit);
     }
 
     /**
-     * executes the given unirest request with proper authorization
-     * credentials and returns the response string object.
+     * sends the given unirest request with proper authorization
+     * credentials through the configured transport.
      *
-     * on bad credentials, the request is attempted numRetries times
+     * on bad credentials, the request is attempted numRetries times,
+     * on transient failures as long as the retry budget allows
      *
      * @param req - HttpRequest object to execute
      * @param username - auth username
      * @param password - auth password
      * @param numRetries - number of times to retry when auth errors occur
+     * @param budget - retries left for transient failures, null if the
+     *                 request must not be retried
+     * @param permit - slot already taken for the first attempt, null to
+     *                 take one without blocking
      */
-    private HttpResponse<String> makeRequest(
+    private CompletableFuture<HttpResponse<String>> makeRequestAsync(
         HttpRequest req,
         String username,
         String password,
         String exchangeId,
-        int numRetries
-    ) throws UnirestException, ValveAuthException, ValveException {
-        // get jwt
-        String tokenString = this.getJWT(username, password, exchangeId).getToken();
+        int numRetries,
+        DotRetryPolicy.Budget budget,
+        AdaptiveConcurrencyLimiter.Permit permit
+    ) {
+        // get jwt, without waiting if it needs a refresh
+        CompletableFuture<DecodedJWT> token = this.getJWTAsync(username, password, exchangeId);
+        if (null != permit)
+            token.whenComplete((jwt, error) -> {
+                if (null != error)
+                    releasePermit(permit, false);
+            });
+        return token.thenCompose(jwt -> (null != permit)
+                ? this.send(req, jwt, username, password, exchangeId, numRetries, budget, permit)
+                : this.send(req, jwt, username, password, exchangeId, numRetries, budget));
+    }
+
+    private CompletableFuture<HttpResponse<String>> makeRequestAsync(
+        HttpRequest req,
+        String username,
+        String password,
+        String exchangeId,
+        int numRetries,
+        DotRetryPolicy.Budget budget
+    ) {
+        return this.makeRequestAsync(req, username, password, exchangeId, numRetries, budget, null);
+    }
+
+    /**
+     * takes a slot of the endpoint group without blocking, then sends
+     * the request, see makeRequestAsync
+     */
+    private CompletableFuture<HttpResponse<String>> send(
+        HttpRequest req,
+        DecodedJWT jwt,
+        String username,
+        String password,
+        String exchangeId,
+        int numRetries,
+        DotRetryPolicy.Budget budget
+    ) {
+        CompletableFuture<AdaptiveConcurrencyLimiter.Permit> slot = this.acquirePermitAsync(req);
+        if (slot.isDone())
+            return slot.thenCompose(permit -> this.send(req, jwt, username, password, exchangeId, numRetries, budget,
+                    permit));
+
+        // waited for a slot: send on a retry thread, not on the thread
+        // that freed the slot while completing another response
+        CompletableFuture<HttpResponse<String>> sent = new CompletableFuture<>();
+        slot.whenComplete((permit, error) -> {
+            if (null != error) {
+                sent.completeExceptionally(error);
+                return;
+            }
+            try {
+                this.retryExecutor.execute(() -> {
+                    try {
+                        forward(this.send(req, jwt, username, password, exchangeId, numRetries, budget, permit), sent);
+                    } catch (RuntimeException e) {
+                        sent.completeExceptionally(e);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                releasePermit(permit, false);
+                sent.completeExceptionally(new ValveException("DoT client is closed"));
+            }
+        });
+        return sent;
+    }
+
+    /**
+     * completes target with the outcome of source
+     */
+    private static <T> void forward(CompletableFuture<T> source, CompletableFuture<T> target) {
+        source.whenComplete((result, error) -> {
+            if (null != error)
+                target.completeExceptionally(error);
+            else
+                target.complete(result);
+        });
+    }
+
+    /**
+     * sends the request with the given token holding the given slot and
+     * handles its response, see makeRequestAsync
+     */
+    private CompletableFuture<HttpResponse<String>> send(
+        HttpRequest req,
+        DecodedJWT jwt,
+        String username,
+        String password,
+        String exchangeId,
+        int numRetries,
+        DotRetryPolicy.Budget budget,
+        AdaptiveConcurrencyLimiter.Permit permit
+    ) {
+        // hold the slot of the endpoint group until the response is in
+        CompletableFuture<HttpResponse<String>> sent;
 
         LOG.info(ValveLogging.getLogMsg(exchangeId, "Making call to DOT", req));
         // execute request.
-        req.header("Authorization", "Bearer " + tokenString); // add auth header
-        HttpResponse<String> response = new DotRestCommand(req).run();
+        setAuthorization(req, jwt);
+        try {
+            sent = this.transport.send(req);
+        } catch (RuntimeException e) {
+            releasePermit(permit, true);
+            throw e;
+        }
+        return sent.whenComplete((response, error) ->
+                releasePermit(permit, null != error || null == response || response.getStatus() >= 500)
+        ).handle((response, error) -> {
+            // send again after a backoff if the failure is transient
+            long delay = this.getRetryDelay(budget, response, error);
+            if (delay >= 0) {
+                CompletableFuture<HttpResponse<String>> retry = this.scheduleRetry(delay,
+                        () -> this.makeRequestAsync(req, username, password, exchangeId, numRetries, budget));
+                if (null != retry) {
+                    LOG.info(ValveLogging.getLogMsg(exchangeId, "Retrying DoT request in " + delay + " ms after "
+                            + ((null != response) ? "status " + response.getStatus() : "failed request")));
+                    return retry;
+                }
+            }
+            if (null != error)
+                throw (error instanceof CompletionException) ? (CompletionException) error : new CompletionException(error);
+
+            // ensure response is not null
+            if (null == response)
+                throw new CompletionException(new ValveException("Circuit broken for DoT REST requests"));
 
-        // ensure response is not null
+            LOG.info(ValveLogging.getLogRespMsg(exchangeId, "Received response from DoT", response));
+
+            // check for auth errors.
+            if (401 == response.getStatus()) {
+                LOG.warning(ValveLogging.getLogMsg(exchangeId, "Auth token invalid, remove from cache and request new."));
+                this.removeFromCache(username, jwt); // uncache the jwt for this user
+
+                // if there are retries left, retry.
+                if (numRetries > 0)
+                    return this.makeRequestAsync(req, username, password, exchangeId, numRetries - 1, budget);
+                throw new CompletionException(new ValveAuthException("Bad JWT"));
+            }
+            return CompletableFuture.completedFuture(response);
+        }).thenCompose(future -> future);
+    }
+
+    /**
+     * @param budget - retries left to the request, null if it must not be retried
+     * @param response - response of the attempt, null if rejected or failed
+     * @param error - failure of the attempt, null if there was a response
+     * @return milliseconds to wait before sending the request again, -1 to not retry
+     */
+    private long getRetryDelay(DotRetryPolicy.Budget budget, HttpResponse<String> response, Throwable error) {
+        if (null == budget)
+            return -1;
+        if (null != error)
+            return DotRetryPolicy.isRetryableError(error) ? budget.nextDelay(-1) : -1;
         if (null == response)
-            throw new ValveException("Circuit broken for DoT REST requests");
-
-        LOG.info(ValveLogging.getLogRespMsg(exchangeId, "Received response from DoT", response));
-
-        // check for auth errors.
-        int status = response.getStatus();
-        if (401 == status) {
-            LOG.warning(ValveLogging.getLogMsg(exchangeId, "Auth token invalid, remove from cache and request new."));
-            this.removeFromCache(username); // uncache the jwt for this user
-
-            // if there are retries left, retry.
-            if (numRetries > 0) {
-                HttpResponse<String> resp = this.makeRequest(req, username, password, exchangeId, numRetries-1);
-                LOG.info(ValveLogging.getLogRespMsg(exchangeId, "Received response from DoT", resp));
-                return resp;
-            } else {
-                throw new ValveAuthException("Bad JWT");
+            return budget.nextDelay(-1); // rejected by Hystrix
+        if (DotRetryPolicy.isRetryableStatus(response.getStatus()))
+            return budget.nextDelay(DotRetryPolicy.getRetryAfter(response.getHeaders()));
+        return -1;
+    }
+
+    /**
+     * sets the bearer token of the request, replacing the token of an
+     * earlier attempt
+     *
+     * @param req - request about to be sent
+     * @param jwt - token of the user
+     */
+    private static void setAuthorization(HttpRequest req, DecodedJWT jwt) {
+        req.getHeaders().remove("Authorization");
+        req.header("Authorization", "Bearer " + jwt.getToken()); // add auth header
+    }
+
+    /**
+     * waits for a future returned by makeRequestAsync and rethrows its
+     * failure as the checked exception makeRequest would have thrown
+     *
+     * @param future - future to wait for
+     * @return the result of the future
+     */
+    public static <T> T await(CompletableFuture<T> future)
+        throws ValveException, UnirestException, ValveAuthException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ValveException("Interrupted while waiting for DoT response");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof ValveException)
+                throw (ValveException) cause;
+            if (cause instanceof ValveAuthException)
+                throw (ValveAuthException) cause;
+            if (cause instanceof UnirestException)
+                throw (UnirestException) cause;
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException) cause;
+            throw new ValveException(cause.getMessage());
+        }
+    }
+
+    /**
+     * executes the given unirest request with proper authorization
+     * credentials and hands the response entity to the handler as a
+     * stream. Unlike makeRequest the body is never buffered into a
+     * String, which matters for large log data responses.
+     *
+     * on bad credentials, the request is attempted once more, and an
+     * idempotent request is retried on transient failures
+     *
+     * @param req - HttpRequest object to execute
+     * @param username - auth username
+     * @param password - auth password
+     * @param handler - reads the response status and body
+     * @return the value returned by the handler
+     */
+    public <T> T makeStreamingRequest(
+        HttpRequest req,
+        String username,
+        String password,
+        String exchangeId,
+        DotResponseHandler<T> handler
+    ) throws ValveException, UnirestException, ValveAuthException {
+        // default numRetries
+        int numRetries = 1;
+        DotRetryPolicy.Budget budget = this.retryPolicy.isIdempotent(req, false)
+                ? this.retryPolicy.newBudget()
+                : null;
+        return this.makeStreamingRequest(req, username, password, exchangeId, handler, numRetries, budget);
+    }
+
+    private <T> T makeStreamingRequest(
+        HttpRequest req,
+        String username,
+        String password,
+        String exchangeId,
+        DotResponseHandler<T> handler,
+        int numRetries,
+        DotRetryPolicy.Budget budget
+    ) throws ValveException, UnirestException, ValveAuthException {
+        // get jwt
+        DecodedJWT jwt = this.getJWT(username, password, exchangeId);
+
+        // hold a slot of the endpoint group until the body is read
+        AdaptiveConcurrencyLimiter.Permit permit = this.acquirePermit(req);
+        boolean failed = true;
+
+        LOG.info(ValveLogging.getLogMsg(exchangeId, "Making streaming call to DOT", req));
+        // execute request on the same http client unirest uses.
+        setAuthorization(req, jwt);
+        org.apache.http.HttpResponse response;
+        try {
+            response = ClientFactory.getHttpClient().execute(toHttpUriRequest(req));
+        } catch (IOException | RuntimeException e) {
+            releasePermit(permit, true);
+            if (e instanceof IOException) {
+                long delay = (null == budget) ? -1 : budget.nextDelay(-1);
+                if (delay >= 0) {
+                    LOG.info(ValveLogging.getLogMsg(exchangeId, "Retrying DoT streaming request in " + delay
+                            + " ms after " + e.getMessage()));
+                    sleep(delay);
+                    return this.makeStreamingRequest(req, username, password, exchangeId, handler, numRetries, budget);
+                }
+                throw new UnirestException(e);
             }
+            throw (RuntimeException) e;
+        }
+
+        HttpEntity entity = response.getEntity();
+        try {
+            int status = response.getStatusLine().getStatusCode();
+            failed = status >= 500;
+            LOG.info(ValveLogging.getLogMsg(exchangeId, "Received streaming response from DoT with status " + status));
+
+            // send again after a backoff if the failure is transient
+            if (null != budget && DotRetryPolicy.isRetryableStatus(status)) {
+                Header retryAfter = response.getFirstHeader("Retry-After");
+                long delay = budget.nextDelay(
+                        (null == retryAfter) ? -1 : DotRetryPolicy.parseRetryAfter(retryAfter.getValue()));
+                if (delay >= 0) {
+                    LOG.info(ValveLogging.getLogMsg(exchangeId, "Retrying DoT streaming request in " + delay
+                            + " ms after status " + status));
+                    EntityUtils.consumeQuietly(entity); // release the connection before retrying
+                    releasePermit(permit, failed);
+                    sleep(delay);
+                    return this.makeStreamingRequest(req, username, password, exchangeId, handler, numRetries, budget);
+                }
+            }
+
+            // check for auth errors.
+            if (401 == status) {
+                LOG.warning(ValveLogging.getLogMsg(exchangeId, "Auth token invalid, remove from cache and request new."));
+                this.removeFromCache(username, jwt); // uncache the jwt for this user
+                EntityUtils.consumeQuietly(entity); // release the connection before retrying
+                releasePermit(permit, false);
+
+                // if there are retries left, retry.
+                if (numRetries > 0)
+                    return this.makeStreamingRequest(req, username, password, exchangeId, handler, numRetries - 1, budget);
+                else
+                    throw new ValveAuthException("Bad JWT");
+            }
+
+            InputStream body = (null == entity) ? new ByteArrayInputStream(new byte[0]) : entity.getContent();
+            return handler.handle(status, body);
+        } catch (IOException e) {
+            failed = true;
+            throw new ValveException("Could not read DoT response: " + e.getMessage());
+        } finally {
+            EntityUtils.consumeQuietly(entity);
+            releasePermit(permit, failed);
+        }
+    }
+
+    /**
+     * waits for the backoff of a streaming retry
+     *
+     * @param millis - milliseconds to wait
+     * @throws ValveException if the thread is interrupted
+     */
+    private static void sleep(long millis) throws ValveException {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ValveException("Interrupted while waiting to retry DoT request");
+        }
+    }
+
+    /**
+     * takes a slot of the endpoint group of the request
+     *
+     * @param req - request about to be sent
+     * @return the permit, or null if requests are not limited
+     * @throws ValveException if the group's circuit is open or it is saturated
+     */
+    private AdaptiveConcurrencyLimiter.Permit acquirePermit(HttpRequest req) throws ValveException {
+        if (!this.limiters.isEnabled())
+            return null;
+        return this.limiters.forUrl(req.getUrl()).acquire();
+    }
+
+    /**
+     * same as acquirePermit, but never blocks the calling thread
+     *
+     * @param req - request about to be sent
+     * @return future completed with the permit, or null if requests are
+     *         not limited
+     */
+    private CompletableFuture<AdaptiveConcurrencyLimiter.Permit> acquirePermitAsync(HttpRequest req) {
+        if (!this.limiters.isEnabled())
+            return CompletableFuture.completedFuture(null);
+        return this.limiters.forUrl(req.getUrl()).acquireAsync();
+    }
+
+    private static void releasePermit(AdaptiveConcurrencyLimiter.Permit permit, boolean failed) {
+        if (null != permit)
+            permit.release(failed);
+    }
+
+    /**
+     * sends a retry on a retry thread once its backoff has passed
+     *
+     * @param delay - backoff in milliseconds
+     * @param send - sends the request again
+     * @return future completed with the response of the retry, or null
+     *         if the client is closed
+     */
+    private CompletableFuture<HttpResponse<String>> scheduleRetry(
+            long delay, Supplier<CompletableFuture<HttpResponse<String>>> send) {
+        CompletableFuture<HttpResponse<String>> retry = new CompletableFuture<>();
+        try {
+            this.retryExecutor.schedule(() -> {
+                try {
+                    forward(send.get(), retry);
+                } catch (RuntimeException e) {
+                    retry.completeExceptionally(e);
+                }
+            }, delay, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            return null;
         }
+        return retry;
+    }
 
-        return response;
+    /**
+     * copies method, url (including query string), headers and body of a
+     * unirest request onto an apache http client request
+     *
+     * @param req - unirest request
+     * @return equivalent apache http client request
+     */
+    private HttpUriRequest toHttpUriRequest(HttpRequest req) {
+        RequestBuilder builder = RequestBuilder.create(req.getHttpMethod().name()).setUri(req.getUrl());
+        for (Map.Entry<String, List<String>> header : req.getHeaders().entrySet()) {
+            for (String value : header.getValue())
+                builder.addHeader(header.getKey(), value);
+        }
+        if (null != req.getBody())
+            builder.setEntity(req.getBody().getEntity());
+        return builder.build();
+    }
+
+    /**
+     * a token fetch in flight and the password it was made with
+     */
+    private static class TokenRefresh {
+        private final String password;
+        private final CompletableFuture<DecodedJWT> future = new CompletableFuture<>();
+
+        private TokenRefresh(String password) {
+            this.password = password;
+        }
+    }
+
+    /**
+     * a cached token and the digest of the password it was fetched with
+     */
+    private static class CachedToken {
+        private final DecodedJWT jwt;
+        private final byte[] passwordDigest;
+
+        private CachedToken(DecodedJWT jwt, byte[] passwordDigest) {
+            this.jwt = jwt;
+            this.passwordDigest = passwordDigest;
+        }
+
+        private boolean isFor(byte[] passwordDigest) {
+            return MessageDigest.isEqual(this.passwordDigest, passwordDigest);
+        }
+    }
+
+    /**
+     * credentials of a user and when they were last used
+     */
+    private static class TokenUser {
+        private final String password;
+        private final long lastUsed;
+
+        private TokenUser(String password, long lastUsed) {
+            this.password = password;
+            this.lastUsed = lastUsed;
+        }
     }
-}
\ No newline at end of file
+}
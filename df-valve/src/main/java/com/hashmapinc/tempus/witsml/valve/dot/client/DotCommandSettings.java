@@ -0,0 +1,129 @@
+/**
+ * Copyright © 2018-2019 Hashmap, Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hashmapinc.tempus.witsml.valve.dot.client;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.netflix.hystrix.HystrixCommand;
+import com.netflix.hystrix.HystrixCommandGroupKey;
+import com.netflix.hystrix.HystrixCommandKey;
+import com.netflix.hystrix.HystrixCommandProperties;
+import com.netflix.hystrix.HystrixThreadPoolKey;
+import com.netflix.hystrix.HystrixThreadPoolProperties;
+
+/**
+ * Hystrix settings of DotRestCommand. Every endpoint group (see
+ * DotEndpointLimiters) is its own command key with its own settings, so
+ * slow channel data transfers don't share a semaphore or pool with
+ * identity lookups. The Hystrix circuit breaker is disabled, the
+ * circuit of each endpoint group is kept by its
+ * AdaptiveConcurrencyLimiter.
+ *
+ * Settings are read from "dot.command.{group}.{setting}", falling back
+ * to "dot.command.default.{setting}":
+ * 1: isolation - SEMAPHORE runs the request on the calling thread,
+ *    THREAD on a pool of the command key
+ * 2: timeout - milliseconds, 0 or less disables the timeout. With
+ *    SEMAPHORE isolation the timeout can't interrupt the calling thread:
+ *    the caller gets the timeout error, but the request keeps running
+ *    until the socket timeout of the http client ends it
+ * 3: max.concurrent - concurrent requests allowed with SEMAPHORE isolation
+ * 4: pool.size - threads of the pool with THREAD isolation
+ * 5: queue.size - requests queued for the pool, -1 for no queue
+ */
+public class DotCommandSettings {
+    private static final HystrixCommandGroupKey GROUP_KEY = HystrixCommandGroupKey.Factory.asKey("DotValve");
+    private static final String PREFIX = "dot.command.";
+
+    private final Map<String, String> config;
+    private final DotEndpointLimiters groups;
+    private final ConcurrentHashMap<String, HystrixCommand.Setter> setters = new ConcurrentHashMap<>();
+
+    /**
+     * @param config - valve configuration
+     * @param groups - maps request urls to endpoint groups
+     */
+    public DotCommandSettings(Map<String, String> config, DotEndpointLimiters groups) {
+        this.config = config;
+        this.groups = groups;
+    }
+
+    /**
+     * settings without any configuration, every group uses the defaults
+     */
+    public DotCommandSettings() {
+        this(Collections.emptyMap(), new DotEndpointLimiters(Collections.emptyMap()));
+    }
+
+    /**
+     * @param url - url of a DoT request
+     * @return the command settings of the endpoint group of the url
+     */
+    public HystrixCommand.Setter forUrl(String url) {
+        return this.forGroup(this.groups.getGroup(url));
+    }
+
+    /**
+     * @param group - name of an endpoint group
+     * @return the command settings of the group
+     */
+    public HystrixCommand.Setter forGroup(String group) {
+        return this.setters.computeIfAbsent(group, this::buildSetter);
+    }
+
+    private HystrixCommand.Setter buildSetter(String group) {
+        HystrixCommandProperties.ExecutionIsolationStrategy isolation =
+                "THREAD".equalsIgnoreCase(this.get(group, "isolation", "SEMAPHORE"))
+                        ? HystrixCommandProperties.ExecutionIsolationStrategy.THREAD
+                        : HystrixCommandProperties.ExecutionIsolationStrategy.SEMAPHORE;
+        int timeout = this.getInt(group, "timeout", 60000);
+        int maxConcurrent = this.getInt(group, "max.concurrent", 200);
+        int poolSize = this.getInt(group, "pool.size", 20);
+        int queueSize = this.getInt(group, "queue.size", -1);
+
+        return HystrixCommand.Setter.withGroupKey(GROUP_KEY)
+                .andCommandKey(HystrixCommandKey.Factory.asKey("Dot-" + group))
+                .andThreadPoolKey(HystrixThreadPoolKey.Factory.asKey("Dot-" + group))
+                .andCommandPropertiesDefaults(HystrixCommandProperties.Setter()
+                        .withExecutionIsolationStrategy(isolation)
+                        .withExecutionTimeoutEnabled(timeout > 0)
+                        .withExecutionTimeoutInMilliseconds(Math.max(1, timeout))
+                        .withCircuitBreakerEnabled(false)
+                        .withExecutionIsolationSemaphoreMaxConcurrentRequests(maxConcurrent)
+                        .withFallbackIsolationSemaphoreMaxConcurrentRequests(maxConcurrent))
+                .andThreadPoolPropertiesDefaults(HystrixThreadPoolProperties.Setter()
+                        .withCoreSize(poolSize)
+                        .withMaxQueueSize(queueSize)
+                        .withQueueSizeRejectionThreshold(Math.max(1, queueSize)));
+    }
+
+    private String get(String group, String setting, String defaultValue) {
+        String value = this.config.get(PREFIX + group + "." + setting);
+        if (null == value || value.trim().isEmpty())
+            value = this.config.get(PREFIX + "default." + setting);
+        return (null == value || value.trim().isEmpty()) ? defaultValue : value.trim();
+    }
+
+    private int getInt(String group, String setting, int defaultValue) {
+        try {
+            return Integer.parseInt(this.get(group, setting, Integer.toString(defaultValue)));
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+}
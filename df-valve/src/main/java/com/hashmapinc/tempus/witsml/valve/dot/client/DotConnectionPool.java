@@ -0,0 +1,119 @@
+/**
+ * Copyright © 2018-2019 Hashmap, Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hashmapinc.tempus.witsml.valve.dot.client;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.http.HttpClientConnection;
+import org.apache.http.config.Registry;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.http.conn.ConnectionRequest;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+
+/**
+ * Connection pool for DoT traffic that also records how long requests
+ * wait to lease a connection, so the pool can be sized from real load.
+ */
+public class DotConnectionPool extends PoolingHttpClientConnectionManager {
+    private final AtomicLong leaseCount = new AtomicLong();
+    private final AtomicLong leaseTimeoutCount = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    /**
+     * @param registry - socket factories per scheme
+     * @param timeToLiveMillis - maximum lifetime of a pooled connection, 0 or less for no limit
+     */
+    public DotConnectionPool(Registry<ConnectionSocketFactory> registry, long timeToLiveMillis) {
+        super(registry, null, null, null, timeToLiveMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public ConnectionRequest requestConnection(HttpRoute route, Object state) {
+        ConnectionRequest request = super.requestConnection(route, state);
+        return new ConnectionRequest() {
+            @Override
+            public HttpClientConnection get(long timeout, TimeUnit unit)
+                throws InterruptedException, ExecutionException, ConnectionPoolTimeoutException {
+                long start = System.nanoTime();
+                try {
+                    HttpClientConnection connection = request.get(timeout, unit);
+                    recordLease(System.nanoTime() - start);
+                    return connection;
+                } catch (ConnectionPoolTimeoutException e) {
+                    leaseTimeoutCount.incrementAndGet();
+                    throw e;
+                }
+            }
+
+            @Override
+            public boolean cancel() {
+                return request.cancel();
+            }
+        };
+    }
+
+    private void recordLease(long waitNanos) {
+        leaseCount.incrementAndGet();
+        totalWaitNanos.addAndGet(waitNanos);
+        maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+    }
+
+    /**
+     * @return number of connections leased so far
+     */
+    public long getLeaseCount() {
+        return leaseCount.get();
+    }
+
+    /**
+     * @return number of requests that gave up waiting for a connection
+     */
+    public long getLeaseTimeoutCount() {
+        return leaseTimeoutCount.get();
+    }
+
+    /**
+     * @return average time in milliseconds a request waited for a connection
+     */
+    public double getAverageWaitMillis() {
+        long leases = leaseCount.get();
+        return leases == 0 ? 0 : totalWaitNanos.get() / 1e6 / leases;
+    }
+
+    /**
+     * @return longest time in milliseconds a request waited for a connection
+     */
+    public double getMaxWaitMillis() {
+        return maxWaitNanos.get() / 1e6;
+    }
+
+    /**
+     * @return summary of the pool state and lease counters for logging
+     */
+    public String getStats() {
+        PoolStats total = getTotalStats();
+        return String.format("leased=%d, pending=%d, available=%d, max=%d, leases=%d, leaseTimeouts=%d, " +
+                "avgWaitMs=%.2f, maxWaitMs=%.2f",
+            total.getLeased(), total.getPending(), total.getAvailable(), total.getMax(),
+            getLeaseCount(), getLeaseTimeoutCount(), getAverageWaitMillis(), getMaxWaitMillis());
+    }
+}
@@ -0,0 +1,172 @@
+/**
+ * Copyright © 2018-2019 Hashmap, Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hashmapinc.tempus.witsml.valve.dot.client;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import com.hashmapinc.tempus.witsml.valve.ConfigValues;
+
+/**
+ * One AdaptiveConcurrencyLimiter per group of DoT endpoints, so a slow
+ * or failing group (e.g. channel data) does not hold back or trip the
+ * others (e.g. well lookups).
+ *
+ * Requests are matched to a group by the longest configured endpoint
+ * path their url starts with; requests to unknown urls share the
+ * "other" group.
+ */
+public class DotEndpointLimiters {
+    public static final String WELL = "well";
+    public static final String WELLBORE = "wellbore";
+    public static final String TRAJECTORY = "trajectory";
+    public static final String CHANNEL_SET = "channelSet";
+    public static final String CHANNEL_DATA = "channelData";
+    public static final String IDENTITIES = "identities";
+    public static final String FLUIDS_REPORT = "fluidsReport";
+    public static final String GRAPHQL = "graphql";
+    public static final String OTHER = "other";
+
+    // endpoint config key -> group
+    private static final Map<String, String> ENDPOINT_GROUPS = new LinkedHashMap<>();
+    static {
+        ENDPOINT_GROUPS.put("well.path", WELL);
+        ENDPOINT_GROUPS.put("wellbore.path", WELLBORE);
+        ENDPOINT_GROUPS.put("trajectory.path", TRAJECTORY);
+        ENDPOINT_GROUPS.put("log.channelset.path", CHANNEL_SET);
+        ENDPOINT_GROUPS.put("log.channel.path", CHANNEL_SET);
+        ENDPOINT_GROUPS.put("log.channels.path", CHANNEL_SET);
+        ENDPOINT_GROUPS.put("log.channels.data.path", CHANNEL_DATA);
+        ENDPOINT_GROUPS.put("log.mnemonic.data.path", CHANNEL_DATA);
+        ENDPOINT_GROUPS.put("log.channel.depthData.path", CHANNEL_DATA);
+        ENDPOINT_GROUPS.put("log.channel.timeData.path", CHANNEL_DATA);
+        ENDPOINT_GROUPS.put("log.channel.depthBoundaryData.path", CHANNEL_DATA);
+        ENDPOINT_GROUPS.put("log.channel.timeBoundaryData.path", CHANNEL_DATA);
+        ENDPOINT_GROUPS.put("log.channelset.uuid.path", IDENTITIES);
+        ENDPOINT_GROUPS.put("fluids.report.identities", IDENTITIES);
+        ENDPOINT_GROUPS.put("fluids.report.path", FLUIDS_REPORT);
+        ENDPOINT_GROUPS.put("well.gql.path", GRAPHQL);
+        ENDPOINT_GROUPS.put("wellbore.gql.path", GRAPHQL);
+        ENDPOINT_GROUPS.put("trajectory.gql.path", GRAPHQL);
+    }
+
+    private final boolean enabled;
+    // endpoint path -> group, longest path first
+    private final List<Map.Entry<String, String>> prefixes;
+    private final Map<String, AdaptiveConcurrencyLimiter> limiters = new LinkedHashMap<>();
+
+    /**
+     * @param config - valve configuration, holding the endpoint paths and
+     *                 the "dot.limiter.*" settings
+     */
+    public DotEndpointLimiters(Map<String, String> config) {
+        this.enabled = !"false".equalsIgnoreCase(config.get("dot.limiter.enabled"));
+
+        Map<String, String> paths = new LinkedHashMap<>();
+        for (Map.Entry<String, String> endpoint : ENDPOINT_GROUPS.entrySet()) {
+            String path = normalize(config.get(endpoint.getKey()));
+            if (null != path && !path.isEmpty())
+                paths.putIfAbsent(path, endpoint.getValue());
+        }
+        this.prefixes = paths.entrySet().stream()
+                .sorted(Comparator.comparingInt((Map.Entry<String, String> e) -> e.getKey().length()).reversed())
+                .collect(Collectors.toList());
+
+        List<String> groups = new ArrayList<>(new LinkedHashSet<>(ENDPOINT_GROUPS.values()));
+        groups.add(OTHER);
+        for (String group : groups) {
+            this.limiters.put(group, new AdaptiveConcurrencyLimiter(group,
+                    (int) ConfigValues.getNumber(config, "dot.limiter.initial", 20),
+                    (int) ConfigValues.getNumber(config, "dot.limiter.min", 2),
+                    (int) ConfigValues.getNumber(config, "dot.limiter.max", 100),
+                    ConfigValues.getNumber(config, "dot.limiter.tolerance", 2.0),
+                    (long) ConfigValues.getNumber(config, "dot.limiter.queue.timeout", 30000),
+                    (int) ConfigValues.getNumber(config, "dot.limiter.circuit.failures", 20),
+                    (long) ConfigValues.getNumber(config, "dot.limiter.circuit.open", 5000)));
+        }
+    }
+
+    /**
+     * @return false if requests are not limited
+     */
+    public boolean isEnabled() {
+        return this.enabled;
+    }
+
+    /**
+     * @param url - url of a DoT request, with or without query string
+     * @return name of the endpoint group the url belongs to
+     */
+    public String getGroup(String url) {
+        String path = normalize(url);
+        if (null != path) {
+            for (Map.Entry<String, String> prefix : this.prefixes) {
+                if (path.startsWith(prefix.getKey()))
+                    return prefix.getValue();
+            }
+        }
+        return OTHER;
+    }
+
+    /**
+     * @param url - url of a DoT request
+     * @return the limiter of the endpoint group the url belongs to
+     */
+    public AdaptiveConcurrencyLimiter forUrl(String url) {
+        return this.limiters.get(this.getGroup(url));
+    }
+
+    /**
+     * @param group - name of an endpoint group
+     * @return its limiter, or null for an unknown group
+     */
+    public AdaptiveConcurrencyLimiter getLimiter(String group) {
+        return this.limiters.get(group);
+    }
+
+    /**
+     * @return summary of all limiters for logging
+     */
+    public String getStats() {
+        return this.limiters.values().stream()
+                .map(AdaptiveConcurrencyLimiter::getStats)
+                .collect(Collectors.joining("; "));
+    }
+
+    /**
+     * drops the query string, path parameters (":mnemonic") and trailing
+     * slashes, so configured paths and request urls compare
+     */
+    private static String normalize(String url) {
+        if (null == url)
+            return null;
+        String path = url.trim();
+        int query = path.indexOf('?');
+        if (query >= 0)
+            path = path.substring(0, query);
+        int parameter = path.indexOf("/:");
+        if (parameter >= 0)
+            path = path.substring(0, parameter);
+        while (path.endsWith("/"))
+            path = path.substring(0, path.length() - 1);
+        return path;
+    }
+}
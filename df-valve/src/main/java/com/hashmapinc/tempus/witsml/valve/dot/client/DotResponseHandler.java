@@ -0,0 +1,36 @@
+/**
+ * Copyright © 2018-2019 Hashmap, Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hashmapinc.tempus.witsml.valve.dot.client;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Consumes a DoT response body as a stream, see DotClient.makeStreamingRequest
+ *
+ * @param <T> - type the response is read into
+ */
+@FunctionalInterface
+public interface DotResponseHandler<T> {
+
+    /**
+     * @param status - HTTP status of the response
+     * @param body - response entity, only valid for the duration of the call
+     * @return the value read from the response
+     * @throws IOException if the body cannot be read
+     */
+    T handle(int status, InputStream body) throws IOException;
+}
@@ -38,6 +38,17 @@ public class DotRestCommand extends HystrixCommand<HttpResponse<String>> {
         this.request = req;
     }
 
+    /**
+     * builds a new rest command with the command key, isolation and
+     * timeout of its endpoint group, see DotCommandSettings
+     * @param req - request to execute in run
+     * @param setter - settings of the command
+     */
+    public DotRestCommand(HttpRequest req, HystrixCommand.Setter setter) {
+        super(setter);
+        this.request = req;
+    }
+
     /**
      * Hystrix run command for executing rest requests
      *
@@ -50,13 +61,18 @@ public class DotRestCommand extends HystrixCommand<HttpResponse<String>> {
     }
 
     /**
-     * This runs when an unexpected error occurs in run.
+     * This runs when the request was not executed or failed.
      * Returning null informs the caller that Hystrix is
-     * preventing execution.
+     * preventing execution (broken circuit, full semaphore or
+     * pool). Failures of the request itself have no fallback,
+     * so execute rethrows them as the cause of a
+     * HystrixRuntimeException.
      * @return null
      */
     @Override
     protected HttpResponse<String> getFallback() {
+        if (!this.isResponseShortCircuited() && !this.isResponseRejected())
+            return super.getFallback();
         LOG.warning(ValveLogging.getLogMsg("DotRestCommand encountered broken circuit. Getting Fallback now..."));
         return null; // fail silently
     }
@@ -0,0 +1,223 @@
+/**
+ * Copyright © 2018-2019 Hashmap, Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hashmapinc.tempus.witsml.valve.dot.client;
+
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.hashmapinc.tempus.witsml.valve.ConfigValues;
+import com.mashape.unirest.http.HttpMethod;
+import com.mashape.unirest.http.exceptions.UnirestException;
+import com.mashape.unirest.request.HttpRequest;
+
+/**
+ * Decides whether and when a failed DoT request is sent again.
+ *
+ * Only idempotent requests are retried: GET/HEAD/OPTIONS, requests to
+ * the identities and GraphQL endpoint groups (lookups and queries), and
+ * requests the caller marks as idempotent. They are retried on 429,
+ * 502, 503 and 504 responses, on transport failures (connection reset,
+ * timeout) and when Hystrix rejected the command.
+ *
+ * The delay before a retry is drawn uniformly between 0 and a capped
+ * exponential backoff ("full jitter"), so clients failing together do
+ * not retry together. A Retry-After header from DoT is a lower bound
+ * on the delay. Each request has a budget of retries and of total time
+ * spent waiting; a Retry-After beyond the budget ends the retries.
+ */
+public class DotRetryPolicy {
+    private static final int MAX_SHIFT = 20;
+
+    private final boolean enabled;
+    private final int maxRetries;
+    private final long baseMillis;
+    private final long capMillis;
+    private final long budgetMillis;
+    private final DotEndpointLimiters groups;
+
+    private final AtomicLong retries = new AtomicLong();
+    private final AtomicLong exhausted = new AtomicLong();
+
+    /**
+     * @param config - valve configuration, "dot.retry.*" keys
+     * @param groups - maps request urls to endpoint groups
+     */
+    public DotRetryPolicy(Map<String, String> config, DotEndpointLimiters groups) {
+        this.enabled = !"false".equalsIgnoreCase(config.get("dot.retry.enabled"));
+        this.maxRetries = (int) ConfigValues.getLong(config, "dot.retry.max", 3);
+        this.baseMillis = Math.max(1, ConfigValues.getLong(config, "dot.retry.base", 100));
+        this.capMillis = ConfigValues.getLong(config, "dot.retry.cap", 5000);
+        this.budgetMillis = ConfigValues.getLong(config, "dot.retry.budget", 10000);
+        this.groups = groups;
+    }
+
+    /**
+     * @return false if requests are never retried
+     */
+    public boolean isEnabled() {
+        return this.enabled;
+    }
+
+    /**
+     * @param req - request about to be sent
+     * @param marked - true if the caller knows the request is idempotent
+     * @return true if sending the request twice has the same effect as once
+     */
+    public boolean isIdempotent(HttpRequest req, boolean marked) {
+        if (marked)
+            return true;
+        HttpMethod method = req.getHttpMethod();
+        if (HttpMethod.GET == method || HttpMethod.HEAD == method || HttpMethod.OPTIONS == method)
+            return true;
+        String group = this.groups.getGroup(req.getUrl());
+        return DotEndpointLimiters.IDENTITIES.equals(group) || DotEndpointLimiters.GRAPHQL.equals(group);
+    }
+
+    /**
+     * @param status - http status of a DoT response
+     * @return true if the status reports a transient failure
+     */
+    public static boolean isRetryableStatus(int status) {
+        return 429 == status || 502 == status || 503 == status || 504 == status;
+    }
+
+    /**
+     * @param error - failure of a DoT request
+     * @return true if the request failed in transport and may succeed if sent again
+     */
+    public static boolean isRetryableError(Throwable error) {
+        Throwable cause = (error instanceof CompletionException && null != error.getCause())
+                ? error.getCause()
+                : error;
+        return cause instanceof UnirestException;
+    }
+
+    /**
+     * @param headers - response headers
+     * @return the Retry-After of the response in milliseconds, -1 if absent or invalid
+     */
+    public static long getRetryAfter(Map<String, List<String>> headers) {
+        if (null == headers)
+            return -1;
+        for (Map.Entry<String, List<String>> header : headers.entrySet()) {
+            if ("Retry-After".equalsIgnoreCase(header.getKey()) && null != header.getValue()
+                    && !header.getValue().isEmpty())
+                return parseRetryAfter(header.getValue().get(0));
+        }
+        return -1;
+    }
+
+    /**
+     * @param value - Retry-After header value, seconds or an http date
+     * @return the delay in milliseconds, -1 if the value is invalid
+     */
+    public static long parseRetryAfter(String value) {
+        if (null == value || value.trim().isEmpty())
+            return -1;
+        String trimmed = value.trim();
+        try {
+            return Math.max(0, Long.parseLong(trimmed) * 1000);
+        } catch (NumberFormatException e) {
+            // not seconds, try a date
+        }
+        try {
+            ZonedDateTime date = ZonedDateTime.parse(trimmed, DateTimeFormatter.RFC_1123_DATE_TIME);
+            return Math.max(0, date.toInstant().toEpochMilli() - System.currentTimeMillis());
+        } catch (DateTimeParseException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * @return a new budget for the retries of one request
+     */
+    public Budget newBudget() {
+        return new Budget();
+    }
+
+    /**
+     * @return number of retries made
+     */
+    public long getRetryCount() {
+        return this.retries.get();
+    }
+
+    /**
+     * @return number of requests that failed with their retry budget spent
+     */
+    public long getExhaustedCount() {
+        return this.exhausted.get();
+    }
+
+    /**
+     * @return summary of the retry counters for logging
+     */
+    public String getStats() {
+        return String.format("retries=%d, exhausted=%d", getRetryCount(), getExhaustedCount());
+    }
+
+    /**
+     * The retries left to one request. A budget is used by one request
+     * at a time, its attempts run one after the other.
+     */
+    public class Budget {
+        private int attempts;
+        private long waitedMillis;
+
+        private Budget() {
+        }
+
+        /**
+         * Takes the next retry from the budget.
+         *
+         * @param retryAfterMillis - delay asked for by DoT, -1 if none
+         * @return milliseconds to wait before the retry, -1 if the budget is spent
+         */
+        public long nextDelay(long retryAfterMillis) {
+            if (!enabled)
+                return -1;
+            if (this.attempts >= maxRetries) {
+                exhausted.incrementAndGet();
+                return -1;
+            }
+            long backoff = Math.min(capMillis, baseMillis << Math.min(this.attempts, MAX_SHIFT));
+            long delay = ThreadLocalRandom.current().nextLong(Math.max(0, backoff) + 1);
+            if (retryAfterMillis > delay)
+                delay = retryAfterMillis;
+            if (this.waitedMillis + delay > budgetMillis) {
+                exhausted.incrementAndGet();
+                return -1;
+            }
+            this.attempts++;
+            this.waitedMillis += delay;
+            retries.incrementAndGet();
+            return delay;
+        }
+
+        /**
+         * @return number of retries taken from the budget
+         */
+        public int getAttempts() {
+            return this.attempts;
+        }
+    }
+}
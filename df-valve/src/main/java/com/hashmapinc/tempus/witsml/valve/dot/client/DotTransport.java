@@ -0,0 +1,37 @@
+/**
+ * Copyright © 2018-2019 Hashmap, Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hashmapinc.tempus.witsml.valve.dot.client;
+
+import java.util.concurrent.CompletableFuture;
+
+import com.mashape.unirest.http.HttpResponse;
+import com.mashape.unirest.request.HttpRequest;
+
+/**
+ * Sends prepared DoT requests, see DotClient.makeRequestAsync
+ *
+ * The request already carries its authorization header. Transport
+ * failures complete the future exceptionally with a UnirestException;
+ * a null response means the request was not executed (broken circuit).
+ */
+public interface DotTransport {
+
+    /**
+     * @param req - request to send
+     * @return future completed with the response
+     */
+    CompletableFuture<HttpResponse<String>> send(HttpRequest req);
+}
@@ -0,0 +1,356 @@
+/**
+ * Copyright © 2018-2019 Hashmap, Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hashmapinc.tempus.witsml.valve.dot.client;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.http.util.EntityUtils;
+
+import com.hashmapinc.tempus.witsml.valve.ConfigValues;
+import com.mashape.unirest.http.HttpMethod;
+import com.mashape.unirest.http.HttpResponse;
+import com.mashape.unirest.request.HttpRequest;
+import com.mashape.unirest.request.HttpRequestWithBody;
+
+/**
+ * Wraps a transport and hedges reads: if a GET or GraphQL request has
+ * not been answered after the given percentile of the recent latencies
+ * of its endpoint group, an identical second request is sent. The first
+ * response wins; the other attempt is cancelled and its response, if it
+ * still arrives, is dropped. A failed attempt only fails the request
+ * once no other attempt is in flight.
+ *
+ * Hedges are paid from a budget that every request adds budgetPercent
+ * percent of a hedge to, so hedging never adds more than that share of
+ * extra requests, even when a whole endpoint group is slow.
+ *
+ * A 429 or 5xx response doesn't win while another attempt is in
+ * flight; it is only returned if no attempt succeeds.
+ *
+ * Attempts are sent from a bounded pool, so a blocking transport
+ * (unirest) does not hold up the hedge. The hedge is a copy of the
+ * request. When the pool is busy, a request is sent without hedging.
+ */
+public class HedgingTransport implements DotTransport {
+    private static final long CREDIT = 1000; // budget units of one hedge
+    private static final long MAX_CREDIT = 10 * CREDIT; // hedges that can be saved up
+
+    private final DotTransport delegate;
+    private final DotEndpointLimiters groups;
+    private final double percentile;
+    private final long minDelayMillis;
+    private final long creditPerRequest;
+    private final int minSamples;
+    private final int windowSize;
+    private final Executor executor;
+
+    private final ConcurrentHashMap<String, LatencyWindow> latencies = new ConcurrentHashMap<>();
+    private final AtomicLong credit = new AtomicLong();
+    private final AtomicLong hedges = new AtomicLong();
+    private final AtomicLong hedgeWins = new AtomicLong();
+    private final AtomicLong denied = new AtomicLong();
+
+    /**
+     * @param delegate - transport sending the attempts
+     * @param groups - maps request urls to endpoint groups
+     * @param config - valve configuration, "dot.hedge.*" keys
+     */
+    public HedgingTransport(DotTransport delegate, DotEndpointLimiters groups, Map<String, String> config) {
+        this(delegate, groups,
+                ConfigValues.getNumber(config, "dot.hedge.percentile", 95),
+                (long) ConfigValues.getNumber(config, "dot.hedge.delay.min", 20),
+                ConfigValues.getNumber(config, "dot.hedge.budget", 5),
+                (int) ConfigValues.getNumber(config, "dot.hedge.samples", 20),
+                newAttemptExecutor(Math.max(1, (int) ConfigValues.getNumber(config, "dot.hedge.threads", 100))));
+    }
+
+    /**
+     * @param delegate - transport sending the attempts
+     * @param groups - maps request urls to endpoint groups
+     * @param percentile - latency percentile after which a request is hedged
+     * @param minDelayMillis - lowest delay before a hedge
+     * @param budgetPercent - hedges allowed per 100 requests
+     * @param minSamples - latencies a group needs before its requests are hedged
+     * @param executor - sends the attempts
+     */
+    HedgingTransport(DotTransport delegate, DotEndpointLimiters groups, double percentile, long minDelayMillis,
+                     double budgetPercent, int minSamples, Executor executor) {
+        this.delegate = delegate;
+        this.groups = groups;
+        this.percentile = Math.min(100, Math.max(0, percentile));
+        this.minDelayMillis = Math.max(0, minDelayMillis);
+        this.creditPerRequest = (long) (Math.max(0, budgetPercent) * CREDIT / 100);
+        this.minSamples = Math.max(1, minSamples);
+        this.windowSize = Math.max(256, this.minSamples);
+        this.executor = executor;
+    }
+
+    /**
+     * @param threads - attempts sent at most at a time
+     * @return pool of daemon threads that rejects attempts when all are busy
+     */
+    private static ThreadPoolExecutor newAttemptExecutor(int threads) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new SynchronousQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "dot-hedge");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    @Override
+    public CompletableFuture<HttpResponse<String>> send(HttpRequest req) {
+        String group = this.groups.getGroup(req.getUrl());
+        if (!this.isHedged(req, group))
+            return this.delegate.send(req);
+
+        this.credit.updateAndGet(c -> Math.min(MAX_CREDIT, c + this.creditPerRequest));
+        long delay = this.getHedgeDelay(group);
+        // copied before the first attempt is sent, the caller may change
+        // the request once it has a response
+        HttpRequest hedge = (delay >= 0) ? copy(req) : null;
+        Race race = new Race();
+        try {
+            this.attempt(req, group, race, false);
+        } catch (RejectedExecutionException e) {
+            return this.delegate.send(req); // all attempt threads busy
+        }
+
+        if (null != hedge) {
+            CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS).execute(() -> {
+                if (race.result.isDone())
+                    return;
+                if (!this.tryTakeCredit()) {
+                    this.denied.incrementAndGet();
+                    return;
+                }
+                this.hedges.incrementAndGet();
+                race.pending.incrementAndGet();
+                try {
+                    this.attempt(hedge, group, race, true);
+                } catch (RejectedExecutionException e) {
+                    this.hedges.decrementAndGet();
+                    this.denied.incrementAndGet();
+                    race.failed(null, null);
+                    return;
+                }
+                if (race.result.isDone())
+                    race.attempts.forEach(attempt -> attempt.cancel(false));
+            });
+        }
+        return race.result;
+    }
+
+    /**
+     * @param req - request to send
+     * @return true if the request is a read whose latency is hedged
+     */
+    private boolean isHedged(HttpRequest req, String group) {
+        return HttpMethod.GET == req.getHttpMethod()
+                || DotEndpointLimiters.GRAPHQL.equals(group)
+                || DotEndpointLimiters.IDENTITIES.equals(group);
+    }
+
+    /**
+     * sends one attempt of a request and completes the result with it
+     * unless another attempt was faster
+     *
+     * @throws RejectedExecutionException if all attempt threads are busy
+     */
+    private void attempt(HttpRequest req, String group, Race race, boolean hedge) {
+        long start = System.currentTimeMillis();
+        CompletableFuture<HttpResponse<String>> sent = CompletableFuture
+                .supplyAsync(() -> this.delegate.send(req), this.executor)
+                .thenCompose(future -> future);
+        race.attempts.add(sent);
+        sent.whenComplete((response, error) -> {
+            if (null == error && (null == response || !isFailure(response))) {
+                if (null != response) // not a rejected command
+                    this.getWindow(group).add(System.currentTimeMillis() - start);
+                // counted before the caller can see the response
+                if (hedge)
+                    this.hedgeWins.incrementAndGet();
+                if (!race.result.complete(response) && hedge)
+                    this.hedgeWins.decrementAndGet();
+            } else {
+                race.failed(response, error);
+            }
+        });
+    }
+
+    /**
+     * @param response - response of an attempt
+     * @return true if the response reports a transient failure
+     */
+    private static boolean isFailure(HttpResponse<String> response) {
+        return 429 == response.getStatus() || response.getStatus() >= 500;
+    }
+
+    /**
+     * @param req - request to copy
+     * @return request with the same method, url, headers and body, or
+     *         null if the body can't be read twice
+     */
+    private static HttpRequest copy(HttpRequest req) {
+        HttpRequestWithBody copy = new HttpRequestWithBody(req.getHttpMethod(), req.getUrl());
+        for (Map.Entry<String, List<String>> header : req.getHeaders().entrySet()) {
+            for (String value : header.getValue())
+                copy.header(header.getKey(), value);
+        }
+        if (null != req.getBody() && null != req.getBody().getEntity()) {
+            if (!req.getBody().getEntity().isRepeatable())
+                return null;
+            try {
+                copy.body(EntityUtils.toByteArray(req.getBody().getEntity()));
+            } catch (IOException e) {
+                return null;
+            }
+        }
+        return copy;
+    }
+
+    /**
+     * @param group - endpoint group of a request
+     * @return milliseconds after which the request is hedged, -1 if the
+     *         group has too few latencies yet
+     */
+    long getHedgeDelay(String group) {
+        long delay = this.getWindow(group).percentile(this.percentile, this.minSamples);
+        return (delay < 0) ? -1 : Math.max(this.minDelayMillis, delay);
+    }
+
+    private boolean tryTakeCredit() {
+        long current;
+        do {
+            current = this.credit.get();
+            if (current < CREDIT)
+                return false;
+        } while (!this.credit.compareAndSet(current, current - CREDIT));
+        return true;
+    }
+
+    private LatencyWindow getWindow(String group) {
+        return this.latencies.computeIfAbsent(group, g -> new LatencyWindow(this.windowSize));
+    }
+
+    /**
+     * @return number of hedged requests sent
+     */
+    public long getHedgeCount() {
+        return this.hedges.get();
+    }
+
+    /**
+     * @return number of hedged requests that answered first
+     */
+    public long getHedgeWinCount() {
+        return this.hedgeWins.get();
+    }
+
+    /**
+     * @return number of hedges not sent because the budget was spent
+     */
+    public long getDeniedCount() {
+        return this.denied.get();
+    }
+
+    /**
+     * @return summary of the hedging counters for logging
+     */
+    public String getStats() {
+        return String.format("hedges=%d, wins=%d, denied=%d", getHedgeCount(), getHedgeWinCount(), getDeniedCount());
+    }
+
+    /**
+     * The attempts of one hedged request.
+     */
+    private static class Race {
+        private final CompletableFuture<HttpResponse<String>> result = new CompletableFuture<>();
+        private final List<CompletableFuture<HttpResponse<String>>> attempts = new CopyOnWriteArrayList<>();
+        private final AtomicInteger pending = new AtomicInteger(1);
+        private volatile HttpResponse<String> failedResponse;
+        private volatile Throwable error;
+
+        private Race() {
+            this.result.whenComplete((response, error) -> this.attempts.forEach(attempt -> attempt.cancel(false)));
+        }
+
+        /**
+         * an attempt failed or was not sent; once none is left the result
+         * gets the first failure response, or else the first error
+         */
+        private void failed(HttpResponse<String> response, Throwable error) {
+            synchronized (this) {
+                if (null != response && null == this.failedResponse)
+                    this.failedResponse = response;
+                else if (null != error && null == this.error)
+                    this.error = error;
+            }
+            if (0 != this.pending.decrementAndGet())
+                return;
+            if (null != this.failedResponse || null == this.error)
+                this.result.complete(this.failedResponse);
+            else
+                this.result.completeExceptionally(this.error);
+        }
+    }
+
+    /**
+     * The most recent latencies of an endpoint group.
+     */
+    private static class LatencyWindow {
+        private final long[] samples;
+        private int next;
+        private int count;
+
+        private LatencyWindow(int size) {
+            this.samples = new long[size];
+        }
+
+        private synchronized void add(long millis) {
+            this.samples[this.next] = millis;
+            this.next = (this.next + 1) % this.samples.length;
+            this.count = Math.min(this.count + 1, this.samples.length);
+        }
+
+        private long percentile(double percentile, int minSamples) {
+            long[] sorted;
+            synchronized (this) {
+                if (this.count < minSamples)
+                    return -1;
+                sorted = Arrays.copyOf(this.samples, this.count);
+            }
+            Arrays.sort(sorted);
+            int index = (int) Math.ceil(percentile / 100 * sorted.length) - 1;
+            return sorted[Math.min(sorted.length - 1, Math.max(0, index))];
+        }
+    }
+}
@@ -0,0 +1,100 @@
+/**
+ * Copyright © 2018-2019 Hashmap, Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hashmapinc.tempus.witsml.valve.dot.client;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * Storage behind UidUuidCache. Keys are uid composite keys or uuids,
+ * values are uuids or uids, or MISSING for objects DoT does not know.
+ *
+ * The default store is the in-process InMemoryIdentityStore. Nodes of a
+ * cluster can share lookups through a networked store such as
+ * RedisIdentityStore, fronted by a NearCacheIdentityStore.
+ *
+ * Implementations must be thread safe.
+ */
+public interface IdentityStore {
+    // value of an entry for an object DoT does not know
+    String MISSING = "";
+    // separator of the uids in a composite key, the prefixes removed when a parent is deleted end with it
+    String SEPARATOR = "|===|";
+
+    /**
+     * @param key - uid composite key or uuid
+     * @return the value, MISSING, or null if nothing is cached
+     */
+    String get(String key);
+
+    /**
+     * @param key - uid composite key or uuid
+     * @param value - uuid, uid or MISSING
+     * @param ttlMillis - time to live of the entry in milliseconds
+     */
+    void put(String key, String value, long ttlMillis);
+
+    /**
+     * @param key - key to remove
+     */
+    void remove(String key);
+
+    /**
+     * removes all entries whose key starts with the prefix
+     *
+     * @param prefix - key prefix
+     * @return the removed keys and their values
+     */
+    Map<String, String> removeByPrefix(String prefix);
+
+    /**
+     * removes all entries
+     */
+    void clear();
+
+    /**
+     * @return number of entries
+     */
+    int size();
+
+    /**
+     * visits the live uid/uuid mappings held locally, stores without a
+     * local copy visit nothing
+     *
+     * @param visitor - called with the key, value and expiry of each mapping
+     * @throws IOException if the visitor fails
+     */
+    default void forEachMapping(MappingVisitor visitor) throws IOException {
+    }
+
+    /**
+     * adds a mapping read back from a snapshot, unless the key is already
+     * present
+     *
+     * @param key - uid composite key or uuid
+     * @param value - uuid or uid
+     * @param expiresAt - expiry time in epoch milliseconds
+     */
+    default void restore(String key, String value, long expiresAt) {
+    }
+
+    /**
+     * receives the mappings of a store
+     */
+    interface MappingVisitor {
+        void visit(String key, String value, long expiresAt) throws IOException;
+    }
+}
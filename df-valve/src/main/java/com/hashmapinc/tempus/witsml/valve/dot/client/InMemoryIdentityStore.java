@@ -0,0 +1,92 @@
+/**
+ * Copyright © 2018-2019 Hashmap, Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hashmapinc.tempus.witsml.valve.dot.client;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * In-process identity store. Entries expire after their TTL and the
+ * store is trimmed back under its size bound by dropping the oldest
+ * entries.
+ */
+public class InMemoryIdentityStore implements IdentityStore {
+    private final BoundedTtlCache<String> cache;
+
+    /**
+     * @param maxSize - maximum number of entries
+     */
+    public InMemoryIdentityStore(int maxSize) {
+        this.cache = new BoundedTtlCache<>(0, maxSize);
+    }
+
+    /**
+     * @param maxSize - maximum number of entries
+     */
+    public void setMaxSize(int maxSize) {
+        this.cache.setMaxSize(maxSize);
+    }
+
+    /**
+     * @return number of entries dropped to stay under the size bound
+     */
+    public long getEvictionCount() {
+        return this.cache.getEvictionCount();
+    }
+
+    @Override
+    public String get(String key) {
+        return this.cache.peek(key);
+    }
+
+    @Override
+    public void put(String key, String value, long ttlMillis) {
+        this.cache.put(key, value, ttlMillis);
+    }
+
+    @Override
+    public void remove(String key) {
+        this.cache.remove(key);
+    }
+
+    @Override
+    public Map<String, String> removeByPrefix(String prefix) {
+        return this.cache.removeByPrefix(prefix);
+    }
+
+    @Override
+    public void clear() {
+        this.cache.clear();
+    }
+
+    @Override
+    public int size() {
+        return this.cache.size();
+    }
+
+    @Override
+    public void forEachMapping(MappingVisitor visitor) throws IOException {
+        this.cache.forEach((key, value, expiresAt) -> {
+            if (!MISSING.equals(value))
+                visitor.visit(key, value, expiresAt);
+        });
+    }
+
+    @Override
+    public void restore(String key, String value, long expiresAt) {
+        this.cache.restore(key, value, expiresAt);
+    }
+}
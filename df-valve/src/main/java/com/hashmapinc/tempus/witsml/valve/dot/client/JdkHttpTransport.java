@@ -0,0 +1,257 @@
+/**
+ * Copyright © 2018-2019 Hashmap, Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hashmapinc.tempus.witsml.valve.dot.client;
+
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.Socket;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLDecoder;
+import java.net.http.HttpClient;
+import java.security.KeyManagementException;
+import java.security.KeyStore;
+import java.security.KeyStoreException;
+import java.security.NoSuchAlgorithmException;
+import java.security.cert.CertificateException;
+import java.security.cert.X509Certificate;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.TrustManagerFactory;
+import javax.net.ssl.X509ExtendedTrustManager;
+import javax.net.ssl.X509TrustManager;
+
+import com.mashape.unirest.http.HttpResponse;
+import com.mashape.unirest.http.exceptions.UnirestException;
+import com.mashape.unirest.request.HttpRequest;
+
+import org.apache.http.HttpVersion;
+import org.apache.http.ProtocolVersion;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.message.BasicStatusLine;
+import org.apache.http.util.EntityUtils;
+
+/**
+ * Sends requests with the non-blocking java.net.http client, using
+ * HTTP/2 where DoT supports it. No thread is held while a request is
+ * in flight.
+ *
+ * Unirest requests are translated on the way in and responses are
+ * wrapped back into Unirest responses, so callers see the same types
+ * as with UnirestTransport.
+ *
+ * Use newSslContext for the ssl context: like the Unirest client it
+ * trusts self-signed certificates and does not verify host names.
+ */
+public class JdkHttpTransport implements DotTransport {
+
+    // headers the JDK client sets itself and refuses to take from callers
+    private static final Set<String> RESTRICTED_HEADERS =
+            Set.of("connection", "content-length", "date", "expect", "from", "host", "origin", "referer",
+                    "upgrade", "via", "warning");
+    private static final ProtocolVersion HTTP_2 = new ProtocolVersion("HTTP", 2, 0);
+
+    private final HttpClient client;
+    private final Duration timeout;
+
+    /**
+     * @param sslContext - ssl context used for https connections
+     * @param timeout - connect timeout and per request timeout
+     */
+    public JdkHttpTransport(SSLContext sslContext, Duration timeout) {
+        this.client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_2)
+            .followRedirects(HttpClient.Redirect.NORMAL)
+            .sslContext(sslContext)
+            .connectTimeout(timeout)
+            .build();
+        this.timeout = timeout;
+    }
+
+    /**
+     * builds an ssl context with the same trust rules as the Unirest
+     * client: self-signed certificates are trusted, other chains are
+     * checked against the default trust store, host names are not
+     * verified. The JDK client verifies host names in the trust manager,
+     * so this can't be done with the ssl context of the Unirest client.
+     *
+     * @return ssl context for the constructor
+     */
+    public static SSLContext newSslContext()
+            throws NoSuchAlgorithmException, KeyStoreException, KeyManagementException {
+        TrustManagerFactory factory = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+        factory.init((KeyStore) null);
+        X509TrustManager trusted = null;
+        for (TrustManager manager : factory.getTrustManagers()) {
+            if (manager instanceof X509TrustManager)
+                trusted = (X509TrustManager) manager;
+        }
+        if (null == trusted)
+            throw new KeyStoreException("No X509 trust manager available");
+
+        SSLContext context = SSLContext.getInstance("TLS");
+        context.init(null, new TrustManager[] { new RelaxedTrustManager(trusted) }, null);
+        return context;
+    }
+
+    @Override
+    public CompletableFuture<HttpResponse<String>> send(HttpRequest req) {
+        java.net.http.HttpRequest request;
+        try {
+            request = this.toJdkRequest(req);
+        } catch (IOException | URISyntaxException | IllegalArgumentException e) {
+            return CompletableFuture.failedFuture(new UnirestException(e));
+        }
+
+        return this.client.sendAsync(request, java.net.http.HttpResponse.BodyHandlers.ofByteArray())
+            .handle((response, error) -> {
+                if (null != error) {
+                    Throwable cause = (error instanceof CompletionException && null != error.getCause())
+                        ? error.getCause() : error;
+                    throw new CompletionException((cause instanceof Exception)
+                        ? new UnirestException((Exception) cause) : new UnirestException(cause.toString()));
+                }
+                return toUnirestResponse(response);
+            });
+    }
+
+    /**
+     * copies method, url (including query string), headers and body of a
+     * unirest request onto a java.net.http request
+     *
+     * @param req - unirest request
+     * @return equivalent java.net.http request
+     */
+    private java.net.http.HttpRequest toJdkRequest(HttpRequest req) throws IOException, URISyntaxException {
+        java.net.http.HttpRequest.Builder builder = java.net.http.HttpRequest.newBuilder(toUri(req.getUrl()))
+            .timeout(this.timeout);
+        for (Map.Entry<String, List<String>> header : req.getHeaders().entrySet()) {
+            List<String> values = header.getValue();
+            if (values.isEmpty() || RESTRICTED_HEADERS.contains(header.getKey().toLowerCase()))
+                continue;
+            // a request retried after a 401 carries every Authorization
+            // header added so far; only the latest one is sent
+            builder.setHeader(header.getKey(), values.get(values.size() - 1));
+        }
+
+        java.net.http.HttpRequest.BodyPublisher body = (null == req.getBody() || null == req.getBody().getEntity())
+            ? java.net.http.HttpRequest.BodyPublishers.noBody()
+            : java.net.http.HttpRequest.BodyPublishers.ofByteArray(EntityUtils.toByteArray(req.getBody().getEntity()));
+        return builder.method(req.getHttpMethod().name(), body).build();
+    }
+
+    /**
+     * escapes the path of the url the same way unirest does before
+     * executing a request, so paths like .../channelSets/{uuid} work
+     *
+     * @param url - url with query string
+     * @return escaped uri
+     */
+    private static URI toUri(String url) throws MalformedURLException, URISyntaxException, IOException {
+        URL parsed = new URL(url);
+        URI uri = new URI(parsed.getProtocol(), parsed.getUserInfo(), parsed.getHost(), parsed.getPort(),
+            URLDecoder.decode(parsed.getPath(), "UTF-8"), null, parsed.getRef());
+        String escaped = uri.toString();
+        if (null != parsed.getQuery() && !parsed.getQuery().isEmpty())
+            escaped += "?" + parsed.getQuery();
+        return URI.create(escaped);
+    }
+
+    /**
+     * wraps a java.net.http response into a unirest response
+     *
+     * @param response - java.net.http response with a byte array body
+     * @return unirest response with a String body
+     */
+    private static HttpResponse<String> toUnirestResponse(java.net.http.HttpResponse<byte[]> response) {
+        ProtocolVersion version = (HttpClient.Version.HTTP_2 == response.version()) ? HTTP_2 : HttpVersion.HTTP_1_1;
+        BasicHttpResponse apacheResponse =
+            new BasicHttpResponse(new BasicStatusLine(version, response.statusCode(), ""));
+        for (Map.Entry<String, List<String>> header : response.headers().map().entrySet()) {
+            for (String value : header.getValue())
+                apacheResponse.addHeader(header.getKey(), value);
+        }
+
+        ByteArrayEntity entity = new ByteArrayEntity(response.body());
+        response.headers().firstValue("content-type").ifPresent(entity::setContentType);
+        response.headers().firstValue("content-encoding").ifPresent(entity::setContentEncoding);
+        apacheResponse.setEntity(entity);
+        return new HttpResponse<>(apacheResponse, String.class);
+    }
+
+    /**
+     * trusts self-signed server certificates like TrustSelfSignedStrategy
+     * and skips the host name check the JDK client would otherwise make
+     */
+    private static class RelaxedTrustManager extends X509ExtendedTrustManager {
+        private final X509TrustManager trusted;
+
+        private RelaxedTrustManager(X509TrustManager trusted) {
+            this.trusted = trusted;
+        }
+
+        @Override
+        public void checkServerTrusted(X509Certificate[] chain, String authType) throws CertificateException {
+            if (null != chain && 1 == chain.length)
+                return; // self-signed
+            this.trusted.checkServerTrusted(chain, authType);
+        }
+
+        @Override
+        public void checkServerTrusted(X509Certificate[] chain, String authType, Socket socket)
+                throws CertificateException {
+            this.checkServerTrusted(chain, authType);
+        }
+
+        @Override
+        public void checkServerTrusted(X509Certificate[] chain, String authType, SSLEngine engine)
+                throws CertificateException {
+            this.checkServerTrusted(chain, authType);
+        }
+
+        @Override
+        public void checkClientTrusted(X509Certificate[] chain, String authType) throws CertificateException {
+            this.trusted.checkClientTrusted(chain, authType);
+        }
+
+        @Override
+        public void checkClientTrusted(X509Certificate[] chain, String authType, Socket socket)
+                throws CertificateException {
+            this.trusted.checkClientTrusted(chain, authType);
+        }
+
+        @Override
+        public void checkClientTrusted(X509Certificate[] chain, String authType, SSLEngine engine)
+                throws CertificateException {
+            this.trusted.checkClientTrusted(chain, authType);
+        }
+
+        @Override
+        public X509Certificate[] getAcceptedIssuers() {
+            return this.trusted.getAcceptedIssuers();
+        }
+    }
+}
@@ -0,0 +1,156 @@
+/**
+ * Copyright © 2018-2019 Hashmap, Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hashmapinc.tempus.witsml.valve.dot.client;
+
+/**
+ * This cache stores well and wellbore names, so log responses don't need
+ * two GraphQL lookups per log to fill nameWell and nameWellbore.
+ *
+ * Like UidUuidCache, composite keys are used since uids are only unique
+ * within a parent:
+ * 1: well names use "well|===|well_uid" as the key
+ * 2: wellbore names use "wellbore|===|well_uid|===|wellbore_uid" as the key
+ *
+ * Entries expire after a TTL, and the cache is trimmed back under its
+ * size bound by dropping the oldest entries. Names are invalidated when
+ * the well or wellbore is updated or deleted through the valve.
+ */
+public class NameCache {
+    private static final String SEPARATOR = "|===|"; // separator used when building composite keys
+    private static final String WELL_PREFIX = "well" + SEPARATOR;
+    private static final String WELLBORE_PREFIX = "wellbore" + SEPARATOR;
+
+    private static final BoundedTtlCache<String> cache = new BoundedTtlCache<>(10 * 60 * 1000, 10000); // 10 minutes
+
+    /**
+     * Sets the TTL and size bound of the cache.
+     *
+     * @param ttl - time to live of an entry in milliseconds
+     * @param size - maximum number of cached names
+     */
+    public static void configure(long ttl, int size) {
+        cache.configure(ttl, size);
+    }
+
+    /**
+     * @param wellUid - uid of the well
+     * @return the cached name of the well, or null if not cached
+     */
+    public static String getWellName(String wellUid) {
+        return cache.get(WELL_PREFIX + wellUid);
+    }
+
+    /**
+     * @param wellUid - uid of the well
+     * @param name - name of the well
+     */
+    public static void putWellName(String wellUid, String name) {
+        put(WELL_PREFIX + wellUid, name);
+    }
+
+    /**
+     * @param wellUid - uid of the parent well
+     * @param wellboreUid - uid of the wellbore
+     * @return the cached name of the wellbore, or null if not cached
+     */
+    public static String getWellboreName(String wellUid, String wellboreUid) {
+        return cache.get(WELLBORE_PREFIX + wellUid + SEPARATOR + wellboreUid);
+    }
+
+    /**
+     * @param wellUid - uid of the parent well
+     * @param wellboreUid - uid of the wellbore
+     * @param name - name of the wellbore
+     */
+    public static void putWellboreName(String wellUid, String wellboreUid, String name) {
+        put(WELLBORE_PREFIX + wellUid + SEPARATOR + wellboreUid, name);
+    }
+
+    /**
+     * Removes the name of a well and of all its wellbores.
+     *
+     * @param wellUid - uid of the well
+     */
+    public static void invalidateWell(String wellUid) {
+        cache.remove(WELL_PREFIX + wellUid);
+        cache.removeByPrefix(WELLBORE_PREFIX + wellUid + SEPARATOR);
+    }
+
+    /**
+     * Removes the name of a wellbore.
+     *
+     * @param wellUid - uid of the parent well
+     * @param wellboreUid - uid of the wellbore
+     */
+    public static void invalidateWellbore(String wellUid, String wellboreUid) {
+        cache.remove(WELLBORE_PREFIX + wellUid + SEPARATOR + wellboreUid);
+    }
+
+    /**
+     * Removes all names and resets the counters.
+     */
+    public static void clear() {
+        cache.clear();
+    }
+
+    /**
+     * @return number of lookups answered from the cache
+     */
+    public static long getHitCount() {
+        return cache.getHitCount();
+    }
+
+    /**
+     * @return number of lookups not answered from the cache
+     */
+    public static long getMissCount() {
+        return cache.getMissCount();
+    }
+
+    /**
+     * @return number of entries dropped to stay under the size bound
+     */
+    public static long getEvictionCount() {
+        return cache.getEvictionCount();
+    }
+
+    /**
+     * @return fraction of lookups answered from the cache, 0 if there were none
+     */
+    public static double getHitRate() {
+        return cache.getHitRate();
+    }
+
+    /**
+     * @return number of cached names, including expired ones not yet removed
+     */
+    public static int size() {
+        return cache.size();
+    }
+
+    /**
+     * @return summary of the cache counters for logging
+     */
+    public static String getStats() {
+        return cache.getStats();
+    }
+
+    private static void put(String key, String name) {
+        if (name == null)
+            return;
+        cache.put(key, name);
+    }
+}
@@ -0,0 +1,152 @@
+/**
+ * Copyright © 2018-2019 Hashmap, Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hashmapinc.tempus.witsml.valve.dot.client;
+
+import com.hashmapinc.tempus.witsml.ValveLogging;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * Keeps a short lived local copy of the entries of a shared (remote)
+ * store, so repeated lookups on this node don't need a network round
+ * trip while lookups made by other nodes are still reused.
+ *
+ * Writes go to both stores. Deletes made through another node reach this
+ * node's local copy only when it expires, so the near TTL bounds how long
+ * a stale mapping can be served.
+ *
+ * Failures of the remote store are logged and treated as cache misses;
+ * the cache never fails a request.
+ */
+public class NearCacheIdentityStore implements IdentityStore {
+    private static final Logger LOG = Logger.getLogger(NearCacheIdentityStore.class.getName());
+    private final InMemoryIdentityStore near;
+    private final IdentityStore remote;
+    private final long nearTtlMillis;
+
+    private final AtomicLong remoteHits = new AtomicLong();
+    private final AtomicLong remoteErrors = new AtomicLong();
+
+    /**
+     * @param near - local store in front of the remote store
+     * @param remote - shared store
+     * @param nearTtlMillis - upper bound on how long an entry is kept locally
+     */
+    public NearCacheIdentityStore(InMemoryIdentityStore near, IdentityStore remote, long nearTtlMillis) {
+        this.near = near;
+        this.remote = remote;
+        this.nearTtlMillis = nearTtlMillis;
+    }
+
+    /**
+     * @return number of lookups answered by the remote store
+     */
+    public long getRemoteHitCount() {
+        return this.remoteHits.get();
+    }
+
+    /**
+     * @return number of failed calls to the remote store
+     */
+    public long getRemoteErrorCount() {
+        return this.remoteErrors.get();
+    }
+
+    @Override
+    public String get(String key) {
+        String value = this.near.get(key);
+        if (null != value)
+            return value;
+
+        try {
+            value = this.remote.get(key);
+        } catch (RuntimeException e) {
+            remoteFailed("get", e);
+            return null;
+        }
+        if (null != value) {
+            this.remoteHits.incrementAndGet();
+            this.near.put(key, value, this.nearTtlMillis);
+        }
+        return value;
+    }
+
+    @Override
+    public void put(String key, String value, long ttlMillis) {
+        this.near.put(key, value, Math.min(ttlMillis, this.nearTtlMillis));
+        try {
+            this.remote.put(key, value, ttlMillis);
+        } catch (RuntimeException e) {
+            remoteFailed("put", e);
+        }
+    }
+
+    @Override
+    public void remove(String key) {
+        this.near.remove(key);
+        try {
+            this.remote.remove(key);
+        } catch (RuntimeException e) {
+            remoteFailed("remove", e);
+        }
+    }
+
+    @Override
+    public Map<String, String> removeByPrefix(String prefix) {
+        Map<String, String> removed = new HashMap<>(this.near.removeByPrefix(prefix));
+        try {
+            removed.putAll(this.remote.removeByPrefix(prefix));
+        } catch (RuntimeException e) {
+            remoteFailed("removeByPrefix", e);
+        }
+        return Collections.unmodifiableMap(removed);
+    }
+
+    @Override
+    public void clear() {
+        this.near.clear();
+        try {
+            this.remote.clear();
+        } catch (RuntimeException e) {
+            remoteFailed("clear", e);
+        }
+    }
+
+    @Override
+    public int size() {
+        return this.near.size();
+    }
+
+    @Override
+    public void forEachMapping(MappingVisitor visitor) throws IOException {
+        this.near.forEachMapping(visitor);
+    }
+
+    @Override
+    public void restore(String key, String value, long expiresAt) {
+        this.near.restore(key, value, expiresAt);
+    }
+
+    private void remoteFailed(String operation, RuntimeException e) {
+        this.remoteErrors.incrementAndGet();
+        LOG.warning(ValveLogging.getLogMsg("Shared identity cache " + operation + " failed: " + e.getMessage()));
+    }
+}
@@ -0,0 +1,459 @@
+/**
+ * Copyright © 2018-2019 Hashmap, Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hashmapinc.tempus.witsml.valve.dot.client;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Identity store shared by all nodes, kept in Redis (or any server
+ * speaking the Redis protocol). Keys are prefixed with a namespace so the
+ * server can be shared with other applications.
+ *
+ * Every composite key is also added to a set per parent ("well|===|" and
+ * "well|===|wellbore|===|"), so removeByPrefix reads the children of a
+ * deleted parent from its set instead of scanning the keyspace. The sets
+ * are kept for the longest time to live of an entry after every put, so
+ * they outlive the entries they list; members that expired or were
+ * removed on their own are dropped the next time the parent is removed.
+ *
+ * Only GET, MGET, SET with PX, DEL, SADD, SREM, SMEMBERS, PEXPIRE and
+ * SCAN are used, over a small pool of plain socket connections; the
+ * commands of a put or a removal are pipelined. The protocol is spoken
+ * directly rather than through Jedis or Lettuce: the valve depends on
+ * little more than spring-context, and either client would bring its
+ * own pool (commons-pool2) or event loop (Netty and Reactor) into every
+ * valve host, for a handful of commands. The fail-fast backoff below
+ * would still have to be built on top of them.
+ *
+ * After a connection failure, commands fail right away for a backoff
+ * period that doubles with every further failure, so an outage doesn't
+ * cost every lookup a connect timeout. Once the period is over, a single
+ * command probes the server while the others keep failing fast.
+ */
+public class RedisIdentityStore implements IdentityStore {
+    private static final String NAMESPACE = "drillflow:uid:";
+    // sets of the keys under a parent, outside NAMESPACE so SCAN doesn't see them
+    private static final String INDEX_NAMESPACE = "drillflow:uid-index:";
+    private static final long DEFAULT_MAX_TTL_MILLIS = 3600 * 1000;
+    private static final int SCAN_COUNT = 1000;
+    private static final long MIN_BACKOFF_MILLIS = 1000;
+
+    private final String host;
+    private final int port;
+    private final String password;
+    private final int timeoutMillis;
+    private final BlockingQueue<Connection> idle;
+    private final long maxBackoffMillis;
+    private final long maxTtlMillis;
+    // time before which commands fail without contacting the server
+    private final AtomicLong retryAt = new AtomicLong();
+    private volatile int failures;
+
+    /**
+     * @param host - redis host
+     * @param port - redis port
+     * @param password - password sent with AUTH, null or empty for none
+     * @param timeoutMillis - connect and read timeout in milliseconds
+     * @param poolSize - maximum number of idle connections kept open
+     */
+    public RedisIdentityStore(String host, int port, String password, int timeoutMillis, int poolSize) {
+        this(host, port, password, timeoutMillis, poolSize, 30000);
+    }
+
+    /**
+     * @param host - redis host
+     * @param port - redis port
+     * @param password - password sent with AUTH, null or empty for none
+     * @param timeoutMillis - connect and read timeout in milliseconds
+     * @param poolSize - maximum number of idle connections kept open
+     * @param maxBackoffMillis - longest time commands fail fast after a
+     *                           connection failure
+     */
+    public RedisIdentityStore(String host, int port, String password, int timeoutMillis, int poolSize,
+            long maxBackoffMillis) {
+        this(host, port, password, timeoutMillis, poolSize, maxBackoffMillis, DEFAULT_MAX_TTL_MILLIS);
+    }
+
+    /**
+     * @param host - redis host
+     * @param port - redis port
+     * @param password - password sent with AUTH, null or empty for none
+     * @param timeoutMillis - connect and read timeout in milliseconds
+     * @param poolSize - maximum number of idle connections kept open
+     * @param maxBackoffMillis - longest time commands fail fast after a
+     *                           connection failure
+     * @param maxTtlMillis - longest time to live any node gives an entry,
+     *                       the sets of the keys under a parent are kept
+     *                       at least this long
+     */
+    public RedisIdentityStore(String host, int port, String password, int timeoutMillis, int poolSize,
+            long maxBackoffMillis, long maxTtlMillis) {
+        this.host = host;
+        this.port = port;
+        this.password = password;
+        this.timeoutMillis = timeoutMillis;
+        this.idle = new ArrayBlockingQueue<>(Math.max(1, poolSize));
+        this.maxBackoffMillis = Math.max(0, maxBackoffMillis);
+        this.maxTtlMillis = maxTtlMillis;
+    }
+
+    @Override
+    public String get(String key) {
+        return (String) execute("GET", NAMESPACE + key);
+    }
+
+    @Override
+    public void put(String key, String value, long ttlMillis) {
+        if (ttlMillis <= 0)
+            return;
+        List<String[]> commands = new ArrayList<>();
+        commands.add(new String[] { "SET", NAMESPACE + key, value, "PX", Long.toString(ttlMillis) });
+        String indexTtl = Long.toString(Math.max(ttlMillis, this.maxTtlMillis));
+        for (int i = key.indexOf(SEPARATOR); i >= 0; i = key.indexOf(SEPARATOR, i + SEPARATOR.length())) {
+            String parent = INDEX_NAMESPACE + key.substring(0, i + SEPARATOR.length());
+            commands.add(new String[] { "SADD", parent, key });
+            commands.add(new String[] { "PEXPIRE", parent, indexTtl });
+        }
+        execute(commands.toArray(new String[0][]));
+    }
+
+    @Override
+    public void remove(String key) {
+        execute("DEL", NAMESPACE + key);
+    }
+
+    /**
+     * removes the keys under a parent, listed in the set of the parent,
+     * in two round trips; other prefixes fall back to a SCAN of the
+     * keyspace
+     */
+    @Override
+    public Map<String, String> removeByPrefix(String prefix) {
+        if (!prefix.endsWith(SEPARATOR))
+            return removeByScan(prefix);
+        String index = INDEX_NAMESPACE + prefix;
+        List<?> members = (List<?>) execute("SMEMBERS", index);
+        if (members.isEmpty())
+            return Collections.emptyMap();
+
+        int count = members.size();
+        String[] get = new String[count + 1];
+        String[] delete = new String[2 * count + 1];
+        String[] unindex = new String[count + 2];
+        get[0] = "MGET";
+        delete[0] = "DEL";
+        unindex[0] = "SREM";
+        unindex[1] = index;
+        for (int i = 0; i < count; i++) {
+            String key = (String) members.get(i);
+            get[i + 1] = NAMESPACE + key;
+            delete[i + 1] = NAMESPACE + key;
+            delete[count + i + 1] = INDEX_NAMESPACE + key + SEPARATOR; // its own children are members as well
+            unindex[i + 2] = key;
+        }
+        // only the members read are taken out of the set, not keys added since
+        List<?> values = (List<?>) execute(get, delete, unindex)[0];
+
+        Map<String, String> removed = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            if (null != values.get(i))
+                removed.put((String) members.get(i), (String) values.get(i));
+        }
+        return removed;
+    }
+
+    private Map<String, String> removeByScan(String prefix) {
+        Map<String, String> removed = new HashMap<>();
+        for (String key : scan(prefix)) {
+            String value = (String) execute("GET", key);
+            execute("DEL", key);
+            if (null != value)
+                removed.put(key.substring(NAMESPACE.length()), value);
+        }
+        return removed;
+    }
+
+    @Override
+    public void clear() {
+        for (String key : scan(""))
+            execute("DEL", key);
+        for (String index : scan(INDEX_NAMESPACE, ""))
+            execute("DEL", index);
+    }
+
+    @Override
+    public int size() {
+        return scan("").size();
+    }
+
+    /**
+     * @param prefix - key prefix without the namespace
+     * @return all namespaced keys starting with the prefix
+     */
+    private List<String> scan(String prefix) {
+        return scan(NAMESPACE, prefix);
+    }
+
+    private List<String> scan(String namespace, String prefix) {
+        String pattern = escapeGlob(namespace + prefix) + "*";
+        List<String> keys = new ArrayList<>();
+        String cursor = "0";
+        do {
+            List<?> reply = (List<?>) execute("SCAN", cursor, "MATCH", pattern, "COUNT", Integer.toString(SCAN_COUNT));
+            cursor = (String) reply.get(0);
+            for (Object key : (List<?>) reply.get(1))
+                keys.add((String) key);
+        } while (!"0".equals(cursor));
+        return keys;
+    }
+
+    /**
+     * escapes the characters SCAN MATCH treats as glob patterns
+     */
+    private static String escapeGlob(String value) {
+        StringBuilder escaped = new StringBuilder(value.length());
+        for (char c : value.toCharArray()) {
+            if (c == '*' || c == '?' || c == '[' || c == ']' || c == '\\')
+                escaped.append('\\');
+            escaped.append(c);
+        }
+        return escaped.toString();
+    }
+
+    /**
+     * sends a command on a pooled connection
+     *
+     * @param args - command and arguments
+     * @return the reply: a String, Long, List or null
+     */
+    private Object execute(String... args) {
+        return execute(new String[][] { args })[0];
+    }
+
+    /**
+     * sends commands on a pooled connection in one write and reads their
+     * replies, the server runs them in order
+     *
+     * @param commands - commands and their arguments
+     * @return the replies: a String, Long, List or null each
+     */
+    private Object[] execute(String[]... commands) {
+        String name = commands[0][0];
+        checkAvailable(name);
+        Connection connection = this.idle.poll();
+        try {
+            if (null == connection)
+                connection = connect();
+            Object[] replies = connection.call(commands);
+            release(connection);
+            if (this.failures > 0)
+                this.failures = 0;
+            for (int i = 0; i < replies.length; i++) {
+                if (replies[i] instanceof ErrorReply)
+                    throw new IllegalStateException("Redis " + commands[i][0] + " failed: "
+                            + ((ErrorReply) replies[i]).message);
+            }
+            return replies;
+        } catch (IOException e) {
+            if (null != connection)
+                connection.close();
+            backOff();
+            throw new UncheckedIOException("Redis " + name + " failed: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * fails the command if the server is backed off; the first command
+     * after the backoff period is let through to probe the server and
+     * moves the period on by one timeout for the others
+     *
+     * @param command - name of the command, for the error message
+     */
+    private void checkAvailable(String command) {
+        if (0 == this.failures)
+            return;
+        long now = System.currentTimeMillis();
+        long until = this.retryAt.get();
+        if (now >= until && this.retryAt.compareAndSet(until, now + this.timeoutMillis))
+            return;
+        throw new UncheckedIOException("Redis " + command + " skipped: server unavailable",
+                new IOException("backing off for " + Math.max(0, this.retryAt.get() - now) + " ms"));
+    }
+
+    /**
+     * starts or extends the backoff period after a failure and drops the
+     * idle connections, which are likely broken as well
+     */
+    private synchronized void backOff() {
+        int failed = Math.min(30, ++this.failures);
+        long backoff = Math.min(this.maxBackoffMillis, MIN_BACKOFF_MILLIS << (failed - 1));
+        this.retryAt.set(System.currentTimeMillis() + backoff);
+        Connection connection;
+        while (null != (connection = this.idle.poll()))
+            connection.close();
+    }
+
+    private Connection connect() throws IOException {
+        Socket socket = new Socket();
+        try {
+            socket.connect(new InetSocketAddress(this.host, this.port), this.timeoutMillis);
+            socket.setSoTimeout(this.timeoutMillis);
+            Connection connection = new Connection(socket);
+            if (null != this.password && !this.password.isEmpty()) {
+                Object reply = connection.call("AUTH", this.password);
+                if (reply instanceof ErrorReply)
+                    throw new IOException("AUTH failed: " + ((ErrorReply) reply).message);
+            }
+            return connection;
+        } catch (IOException e) {
+            socket.close();
+            throw e;
+        }
+    }
+
+    private void release(Connection connection) {
+        if (!this.idle.offer(connection))
+            connection.close();
+    }
+
+    /**
+     * error reply sent by the server, the connection stays usable
+     */
+    private static class ErrorReply {
+        private final String message;
+
+        private ErrorReply(String message) {
+            this.message = message;
+        }
+    }
+
+    /**
+     * one connection speaking the Redis serialization protocol (RESP)
+     */
+    private static class Connection {
+        private final Socket socket;
+        private final InputStream in;
+        private final OutputStream out;
+
+        private Connection(Socket socket) throws IOException {
+            this.socket = socket;
+            this.in = new BufferedInputStream(socket.getInputStream());
+            this.out = new BufferedOutputStream(socket.getOutputStream());
+        }
+
+        private Object call(String... args) throws IOException {
+            return call(new String[][] { args })[0];
+        }
+
+        private Object[] call(String[]... commands) throws IOException {
+            for (String[] args : commands) {
+                this.out.write(("*" + args.length + "\r\n").getBytes(StandardCharsets.US_ASCII));
+                for (String arg : args) {
+                    byte[] bytes = arg.getBytes(StandardCharsets.UTF_8);
+                    this.out.write(("$" + bytes.length + "\r\n").getBytes(StandardCharsets.US_ASCII));
+                    this.out.write(bytes);
+                    this.out.write('\r');
+                    this.out.write('\n');
+                }
+            }
+            this.out.flush();
+            Object[] replies = new Object[commands.length];
+            for (int i = 0; i < commands.length; i++)
+                replies[i] = read();
+            return replies;
+        }
+
+        private Object read() throws IOException {
+            int type = this.in.read();
+            if (type < 0)
+                throw new EOFException("connection closed by server");
+            String line = readLine();
+            switch (type) {
+                case '+':
+                    return line;
+                case '-':
+                    return new ErrorReply(line);
+                case ':':
+                    return Long.parseLong(line);
+                case '$': {
+                    int length = Integer.parseInt(line);
+                    if (length < 0)
+                        return null;
+                    byte[] bytes = new byte[length];
+                    int read = 0;
+                    while (read < length) {
+                        int n = this.in.read(bytes, read, length - read);
+                        if (n < 0)
+                            throw new EOFException("connection closed by server");
+                        read += n;
+                    }
+                    readLine(); // trailing CRLF
+                    return new String(bytes, StandardCharsets.UTF_8);
+                }
+                case '*': {
+                    int count = Integer.parseInt(line);
+                    if (count < 0)
+                        return null;
+                    List<Object> items = new ArrayList<>(count);
+                    for (int i = 0; i < count; i++)
+                        items.add(read());
+                    return items;
+                }
+                default:
+                    throw new IOException("unexpected reply type " + (char) type);
+            }
+        }
+
+        private String readLine() throws IOException {
+            ByteArrayOutputStream line = new ByteArrayOutputStream();
+            int b;
+            while ((b = this.in.read()) != '\r') {
+                if (b < 0)
+                    throw new EOFException("connection closed by server");
+                line.write(b);
+            }
+            if (this.in.read() != '\n')
+                throw new IOException("malformed reply");
+            return new String(line.toByteArray(), StandardCharsets.UTF_8);
+        }
+
+        private void close() {
+            try {
+                this.socket.close();
+            } catch (IOException e) {
+                // nothing left to do with a broken connection
+            }
+        }
+    }
+}
@@ -0,0 +1,99 @@
+/**
+ * Copyright © 2018-2019 Hashmap, Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hashmapinc.tempus.witsml.valve.dot.client;
+
+import com.hashmapinc.tempus.witsml.ValveLogging;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+
+/**
+ * Logs the counters of the caches, the connection pool and the other
+ * parts of the DoT valve that keep stats, one line each, every
+ * interval seconds.
+ */
+public class StatsLogger {
+    private static final Logger LOG = Logger.getLogger(StatsLogger.class.getName());
+    // stats by name, in the order they were registered
+    private static final Map<String, Supplier<String>> sources = new LinkedHashMap<>();
+    private static ScheduledExecutorService logger;
+
+    /**
+     * Adds (or replaces) a source of stats.
+     *
+     * @param name - name logged in front of the stats
+     * @param stats - returns the current stats
+     */
+    public static synchronized void register(String name, Supplier<String> stats) {
+        sources.put(name, stats);
+    }
+
+    /**
+     * Removes a source of stats.
+     *
+     * @param name - name the stats were registered with
+     */
+    public static synchronized void unregister(String name) {
+        sources.remove(name);
+    }
+
+    /**
+     * Starts logging the registered stats, unless already started.
+     *
+     * @param interval - seconds between logs, 0 or less to disable
+     */
+    public static synchronized void start(long interval) {
+        if (interval <= 0 || null != logger)
+            return;
+        logger = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "dot-stats");
+            thread.setDaemon(true);
+            return thread;
+        });
+        logger.scheduleAtFixedRate(StatsLogger::logStats, interval, interval, TimeUnit.SECONDS);
+    }
+
+    /**
+     * @return one line per registered source, "name: stats"
+     */
+    public static List<String> getStats() {
+        List<Map.Entry<String, Supplier<String>>> registered;
+        synchronized (StatsLogger.class) {
+            registered = new ArrayList<>(sources.entrySet());
+        }
+        List<String> lines = new ArrayList<>(registered.size());
+        for (Map.Entry<String, Supplier<String>> source : registered) {
+            try {
+                lines.add(source.getKey() + ": " + source.getValue().get());
+            } catch (RuntimeException e) {
+                lines.add(source.getKey() + ": " + e.getMessage());
+            }
+        }
+        return lines;
+    }
+
+    private static void logStats() {
+        for (String line : getStats())
+            LOG.info(ValveLogging.getLogMsg(line));
+    }
+}
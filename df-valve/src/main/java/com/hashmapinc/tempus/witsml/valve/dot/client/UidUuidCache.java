@@ -15,7 +15,9 @@
  */
 package com.hashmapinc.tempus.witsml.valve.dot.client;
 
-import java.util.concurrent.ConcurrentHashMap;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * This cache stores mappings between uid/uuid pairs. The same
@@ -36,15 +38,69 @@ import java.util.concurrent.ConcurrentHashMap;
  * 2: single parent objects use "parent_uid|===|object_uid" as the key
  * 3: single grandparent objects use "grandparent_uid|===|parent_uid|===|object_uid" as the key
  *
- * each composite key points directly to a UUID string.
+ * each composite key points directly to a UUID string. A null parent or
+ * grandparent uid is left out of the key, so an object looked up with a
+ * null grandparent shares its key with the same object looked up as a
+ * single parent object.
  *
- * This class can be easily update to support external caching (like REDIS) by replacing
- * the concurrent hashmap with calls to an external service.
+ * Entries expire after a TTL and the cache is trimmed back under its size
+ * bound by dropping the oldest entries. Uids that DoT does not know are
+ * cached as short lived "missing" entries, so repeated lookups of unknown
+ * objects don't go back to DoT every time. Mappings are removed when the
+ * object is deleted through the valve.
+ *
+ * Entries are kept in an IdentityStore. By default this is an in-process
+ * map; useSharedStore puts a store shared by all nodes (like REDIS) behind
+ * the in-process map, so identities looked up by one node are reused by
+ * the others.
  */
 public class UidUuidCache {
-    // cache used for uid->uuid AND uuid->uid mapping
-    private static ConcurrentHashMap<String, String> cache = new ConcurrentHashMap<>();
-    private static final String SEPARATOR = "|===|"; // separator used when building composite keys
+    private static final String SEPARATOR = IdentityStore.SEPARATOR; // separator used when building composite keys
+
+    // in-process map, the whole cache or the near cache of a shared store
+    private static final InMemoryIdentityStore local = new InMemoryIdentityStore(100000);
+    // store used for uid->uuid AND uuid->uid mapping
+    private static volatile IdentityStore store = local;
+
+    private static volatile long ttlMillis = 60 * 60 * 1000; // 1 hour
+    private static volatile long missingTtlMillis = 30 * 1000; // 30 seconds
+
+    private static final AtomicLong hits = new AtomicLong();
+    private static final AtomicLong misses = new AtomicLong();
+    private static final AtomicLong missingHits = new AtomicLong();
+
+    /**
+     * Sets the TTLs and size bound of the cache.
+     *
+     * @param ttl - time to live of a uid/uuid mapping in milliseconds
+     * @param missingTtl - time to live of a "missing" entry in milliseconds,
+     *                   0 or less disables negative caching
+     * @param size - maximum number of entries cached in process
+     */
+    public static void configure(long ttl, long missingTtl, int size) {
+        ttlMillis = ttl;
+        missingTtlMillis = missingTtl;
+        local.setMaxSize(size);
+    }
+
+    /**
+     * Shares the cache with other nodes through the given store. The
+     * in-process map is kept in front of it as a near cache.
+     *
+     * @param shared - store shared by all nodes
+     * @param nearTtl - upper bound in milliseconds on how long an entry
+     *                  is used from the in-process map
+     */
+    public static void useSharedStore(IdentityStore shared, long nearTtl) {
+        store = new NearCacheIdentityStore(local, shared, nearTtl);
+    }
+
+    /**
+     * Goes back to the in-process map only.
+     */
+    public static void useLocalStore() {
+        store = local;
+    }
 
     /**
      * This function stores a mapping between a uid and uuid.
@@ -58,9 +114,7 @@ public class UidUuidCache {
         String uuid,
         String uid
     ) {
-        // store 2-way mappings in cache
-        cache.put(uuid, uid); // uuid->uid mapping
-        cache.put(uid, uuid); // uid->uuid mapping
+        put(uuid, uid, uid);
     }
 
     /**
@@ -78,12 +132,7 @@ public class UidUuidCache {
         String uid,
         String parentUid
     ) {
-        // build composite key
-        String compositeKey = parentUid + SEPARATOR + uid;
-
-        // store 2-way mappings in cache
-        cache.put(uuid, uid);          // uuid->uid
-        cache.put(compositeKey, uuid); // uid->uuid
+        put(uuid, uid, compositeKey(uid, parentUid, null));
     }
 
     /**
@@ -104,12 +153,41 @@ public class UidUuidCache {
         String parentUid,
         String grandparentUid
     ) {
-        // build composite key
-        String compositeKey = grandparentUid + SEPARATOR + parentUid + SEPARATOR + uid;
+        put(uuid, uid, compositeKey(uid, parentUid, grandparentUid));
+    }
 
-        // store 2-way mappings in cache
-        cache.put(uuid, uid);          // uuid->uid
-        cache.put(compositeKey, uuid); // uid->uuid
+    /**
+     * Records that DoT has no object with the given uids.
+     *
+     * @param uid - string uid of the missing object
+     * @param parentUid - string uid of the parent, may be null
+     * @param grandparentUid - string uid of the grandparent, may be null
+     */
+    public static void putMissing(
+        String uid,
+        String parentUid,
+        String grandparentUid
+    ) {
+        if (missingTtlMillis <= 0)
+            return;
+        store.put(compositeKey(uid, parentUid, grandparentUid), IdentityStore.MISSING, missingTtlMillis);
+    }
+
+    /**
+     * @param uid - string uid of the object
+     * @param parentUid - string uid of the parent, may be null
+     * @param grandparentUid - string uid of the grandparent, may be null
+     * @return true if the object was recently found missing in DoT
+     */
+    public static boolean isMissing(
+        String uid,
+        String parentUid,
+        String grandparentUid
+    ) {
+        if (!IdentityStore.MISSING.equals(store.get(compositeKey(uid, parentUid, grandparentUid))))
+            return false;
+        missingHits.incrementAndGet();
+        return true;
     }
 
     /**
@@ -121,11 +199,7 @@ public class UidUuidCache {
      * @return - uid String found mapped to the given uuid.
      */
     public static String getUid(String uuid) {
-        // check cache
-        if (cache.containsKey(uuid))
-            return cache.get(uuid);
-
-        return null; // no match found
+        return get(uuid);
     }
 
     /**
@@ -135,11 +209,7 @@ public class UidUuidCache {
      * @return - uuid string if a uuid can be found, otherwise null is returned
      */
     public static String getUuid(String uid) {
-        // check cache
-        if (cache.containsKey(uid))
-            return cache.get(uid);
-
-        return null; // no match found
+        return get(uid);
     }
 
     /**
@@ -154,14 +224,7 @@ public class UidUuidCache {
         String uid,
         String parentUid
     ) {
-        // build composite key
-        String compositeKey = parentUid + SEPARATOR + uid;
-
-        // check cache
-        if (cache.containsKey(compositeKey))
-            return cache.get(compositeKey);
-
-        return null; // no match found
+        return get(compositeKey(uid, parentUid, null));
     }
 
     /**
@@ -177,13 +240,166 @@ public class UidUuidCache {
         String parentUid,
         String grandparentUid
     ) {
-        // build composite key
-        String compositeKey = grandparentUid + SEPARATOR + parentUid + SEPARATOR + uid;
+        return get(compositeKey(uid, parentUid, grandparentUid));
+    }
 
-        // check cache
-        if (cache.containsKey(compositeKey))
-            return cache.get(compositeKey);
+    /**
+     * removes the uid->uuid and uuid->uid mappings (or the "missing"
+     * entry) of an object
+     *
+     * @param uid - string uid of the object
+     * @param parentUid - string uid of the parent, may be null
+     * @param grandparentUid - string uid of the grandparent, may be null
+     */
+    public static void removeFromCache(
+        String uid,
+        String parentUid,
+        String grandparentUid
+    ) {
+        remove(compositeKey(uid, parentUid, grandparentUid));
+    }
 
+    /**
+     * removes the mappings of all objects below the given object, e.g.
+     * the wellbores and logs of a deleted well
+     *
+     * @param uid - string uid of the object
+     * @param parentUid - string uid of the parent, may be null
+     * @param grandparentUid - string uid of the grandparent, may be null
+     */
+    public static void removeChildren(
+        String uid,
+        String parentUid,
+        String grandparentUid
+    ) {
+        String prefix = compositeKey(uid, parentUid, grandparentUid) + SEPARATOR;
+        for (Map.Entry<String, String> removed : store.removeByPrefix(prefix).entrySet())
+            removeReverse(removed.getKey(), removed.getValue());
+    }
+
+    /**
+     * Removes all entries and resets the counters.
+     */
+    public static void clear() {
+        store.clear();
+        hits.set(0);
+        misses.set(0);
+        missingHits.set(0);
+    }
+
+    /**
+     * @return number of lookups answered with a mapping from the cache
+     */
+    public static long getHitCount() {
+        return hits.get();
+    }
+
+    /**
+     * @return number of lookups without a cached mapping
+     */
+    public static long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * @return number of lookups answered with a cached "missing" entry
+     */
+    public static long getMissingHitCount() {
+        return missingHits.get();
+    }
+
+    /**
+     * @return number of entries dropped to stay under the size bound
+     */
+    public static long getEvictionCount() {
+        return local.getEvictionCount();
+    }
+
+    /**
+     * @return number of entries cached in process, including expired ones not yet removed
+     */
+    public static int size() {
+        return local.size();
+    }
+
+    /**
+     * @return summary of the cache counters for logging
+     */
+    public static String getStats() {
+        return String.format("size=%d, hits=%d, misses=%d, missingHits=%d, evictions=%d",
+            size(), getHitCount(), getMissCount(), getMissingHitCount(), getEvictionCount());
+    }
+
+    /**
+     * visits every live uid/uuid mapping, used to snapshot the cache
+     *
+     * @param visitor - called with the key, value and expiry of each mapping
+     * @throws IOException if the visitor fails
+     */
+    static void forEachMapping(IdentityStore.MappingVisitor visitor) throws IOException {
+        local.forEachMapping(visitor);
+    }
+
+    /**
+     * adds a mapping read back from a snapshot, unless the key was
+     * already cached since startup
+     *
+     * @param key - uid composite key or uuid
+     * @param value - uuid or uid
+     * @param expiresAt - expiry time in epoch milliseconds
+     */
+    static void restore(String key, String value, long expiresAt) {
+        local.restore(key, value, expiresAt);
+    }
+
+    /**
+     * builds the cache key of an object, leaving out null ancestors
+     */
+    private static String compositeKey(String uid, String parentUid, String grandparentUid) {
+        if (null != grandparentUid)
+            return grandparentUid + SEPARATOR + parentUid + SEPARATOR + uid;
+        if (null != parentUid)
+            return parentUid + SEPARATOR + uid;
+        return uid;
+    }
+
+    private static void put(String uuid, String uid, String key) {
+        // store 2-way mappings in cache
+        store.put(uuid, uid, ttlMillis); // uuid->uid
+        store.put(key, uuid, ttlMillis); // uid->uuid
+    }
+
+    private static String get(String key) {
+        String value = store.get(key);
+        if (null != value && !IdentityStore.MISSING.equals(value)) {
+            hits.incrementAndGet();
+            return value;
+        }
+        misses.incrementAndGet();
         return null; // no match found
     }
+
+    /**
+     * removes a uid->uuid entry and the uuid->uid entry pointing back to it
+     */
+    private static void remove(String key) {
+        String value = store.get(key);
+        store.remove(key);
+        removeReverse(key, value);
+    }
+
+    /**
+     * removes the uuid->uid entry of a removed uid->uuid entry
+     *
+     * @param key - the removed uid composite key
+     * @param uuid - its value, may be null or MISSING
+     */
+    private static void removeReverse(String key, String uuid) {
+        if (null == uuid || IdentityStore.MISSING.equals(uuid))
+            return;
+        int separator = key.lastIndexOf(SEPARATOR);
+        String uid = (separator < 0) ? key : key.substring(separator + SEPARATOR.length());
+        if (uid.equals(store.get(uuid)))
+            store.remove(uuid);
+    }
 }
@@ -0,0 +1,164 @@
+/**
+ * Copyright © 2018-2019 Hashmap, Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hashmapinc.tempus.witsml.valve.dot.client;
+
+import com.hashmapinc.tempus.witsml.ValveLogging;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Saves the uid/uuid mappings of UidUuidCache to a local file and loads
+ * them back on startup, so a restarted server does not have to look up
+ * every identity in DoT again.
+ *
+ * The snapshot is rewritten periodically (and on shutdown) to a temporary
+ * file that is then moved over the previous snapshot, so a crash never
+ * leaves a half written file behind. "Missing" entries are not saved.
+ *
+ * Restored mappings may be stale (objects deleted by other DoT clients
+ * while the server was down), so they only live for a short, randomly
+ * spread time. They answer the first wave of requests after startup and
+ * are then looked up again in DoT as they are used, instead of all at once.
+ */
+public class UidUuidCacheSnapshot {
+    private static final Logger LOG = Logger.getLogger(UidUuidCacheSnapshot.class.getName());
+    private static final int MAGIC = 0x55554944; // "UUID"
+    private static final int VERSION = 1;
+
+    private static ScheduledExecutorService snapshotWriter;
+
+    /**
+     * Loads the snapshot at path, then saves the cache to it every
+     * interval seconds and on shutdown. Only the first call has any
+     * effect.
+     *
+     * @param path - snapshot file, null or empty disables snapshots
+     * @param interval - seconds between snapshots
+     * @param restoreTtl - upper bound in milliseconds on how long a
+     *                     restored mapping is used before it is looked up again
+     */
+    public static synchronized void start(String path, long interval, long restoreTtl) {
+        if (null == path || path.isEmpty() || null != snapshotWriter)
+            return;
+        Path file = Paths.get(path);
+
+        try {
+            int restored = load(file, restoreTtl);
+            LOG.info(ValveLogging.getLogMsg("Restored " + restored + " uid/uuid cache entries from " + file));
+        } catch (IOException e) {
+            LOG.warning(ValveLogging.getLogMsg("Could not restore uid/uuid cache from " + file + ": " + e.getMessage()));
+        }
+
+        snapshotWriter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "dot-uid-cache-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (interval > 0)
+            snapshotWriter.scheduleWithFixedDelay(() -> saveQuietly(file), interval, interval, TimeUnit.SECONDS);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> saveQuietly(file), "dot-uid-cache-snapshot-shutdown"));
+    }
+
+    /**
+     * writes all live mappings of the cache to the file
+     *
+     * @param file - snapshot file
+     * @return number of mappings written
+     * @throws IOException if the snapshot cannot be written
+     */
+    public static int save(Path file) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (null != parent)
+            Files.createDirectories(parent);
+        Path temp = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+        int[] count = {0};
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                UidUuidCache.forEachMapping((key, value, expiresAt) -> {
+                    out.writeBoolean(true); // another entry follows
+                    out.writeUTF(key);
+                    out.writeUTF(value);
+                    out.writeLong(expiresAt);
+                    count[0]++;
+                });
+                out.writeBoolean(false); // end of entries
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        return count[0];
+    }
+
+    /**
+     * reads the mappings of a snapshot back into the cache
+     *
+     * @param file - snapshot file, nothing is loaded if it does not exist
+     * @param restoreTtl - upper bound in milliseconds on how long a
+     *                     restored mapping is used before it is looked up again
+     * @return number of mappings restored
+     * @throws IOException if the snapshot cannot be read
+     */
+    public static int load(Path file, long restoreTtl) throws IOException {
+        if (!Files.exists(file))
+            return 0;
+
+        long now = System.currentTimeMillis();
+        int count = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION)
+                throw new IOException("not a uid/uuid cache snapshot");
+            while (in.readBoolean()) {
+                String key = in.readUTF();
+                String value = in.readUTF();
+                long expiresAt = in.readLong();
+                // spread expiry over [restoreTtl/2, restoreTtl] so restored
+                // entries are not looked up again all at the same moment
+                long ttl = restoreTtl / 2 + (long) (ThreadLocalRandom.current().nextDouble() * restoreTtl / 2);
+                UidUuidCache.restore(key, value, Math.min(expiresAt, now + ttl));
+                count++;
+            }
+        } catch (EOFException e) {
+            throw new IOException("truncated uid/uuid cache snapshot after " + count + " entries", e);
+        }
+        return count;
+    }
+
+    private static void saveQuietly(Path file) {
+        try {
+            int saved = save(file);
+            LOG.fine("Saved " + saved + " uid/uuid cache entries to " + file);
+        } catch (IOException | RuntimeException e) {
+            LOG.warning(ValveLogging.getLogMsg("Could not save uid/uuid cache to " + file + ": " + e.getMessage()));
+        }
+    }
+}
@@ -0,0 +1,63 @@
+/**
+ * Copyright © 2018-2019 Hashmap, Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hashmapinc.tempus.witsml.valve.dot.client;
+
+import java.util.concurrent.CompletableFuture;
+
+import com.mashape.unirest.http.HttpResponse;
+import com.mashape.unirest.http.exceptions.UnirestException;
+import com.mashape.unirest.request.HttpRequest;
+import com.netflix.hystrix.exception.HystrixRuntimeException;
+
+/**
+ * Sends requests through Unirest wrapped in a DotRestCommand of the
+ * request's endpoint group. The command waits for the response, so the
+ * returned future is always complete; with SEMAPHORE isolation (the
+ * default) the request also runs on the calling thread.
+ */
+public class UnirestTransport implements DotTransport {
+    private final DotCommandSettings settings;
+
+    public UnirestTransport() {
+        this(new DotCommandSettings());
+    }
+
+    /**
+     * @param settings - command settings per endpoint group
+     */
+    public UnirestTransport(DotCommandSettings settings) {
+        this.settings = settings;
+    }
+
+    @Override
+    public CompletableFuture<HttpResponse<String>> send(HttpRequest req) {
+        try {
+            return CompletableFuture.completedFuture(
+                    new DotRestCommand(req, this.settings.forUrl(req.getUrl())).execute());
+        } catch (HystrixRuntimeException e) {
+            // hand back the failure of the request, or the timeout
+            Throwable cause = e.getCause();
+            if (cause instanceof UnirestException || cause instanceof RuntimeException)
+                return CompletableFuture.failedFuture(cause);
+            if (null == cause)
+                return CompletableFuture.failedFuture(new UnirestException(e));
+            return CompletableFuture.failedFuture((cause instanceof Exception)
+                    ? new UnirestException((Exception) cause) : new UnirestException(cause.toString()));
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+}
@@ -805,6 +805,18 @@ public class GraphQLQueryConstants {
                     "  }\n" +
                     "}";
 
+    //=========================================================================
+    // WELLBORE IDENTITIES QUERY
+    //=========================================================================
+
+    public static final String WELLBORE_IDENTITIES_QUERY =
+            "query WellboreQuery($arg: WellboreArgument) {\n" +
+                    "  wellbores(wellboreArgument: $arg) {\n" +
+                    "    uuid\n" +
+                    "    uid\n" +
+                    "  }\n" +
+                    "}";
+
     //=========================================================================
     // WELLBORENAME QUERY FOR LOG
     //=========================================================================
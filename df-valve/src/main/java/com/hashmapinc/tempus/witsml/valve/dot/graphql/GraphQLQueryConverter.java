@@ -237,6 +237,32 @@ public class GraphQLQueryConverter {
         return payload.toString(2);
     }
 
+    /**
+     * builds a graphql query for the uid and uuid of all wellbores
+     * of a well
+     *
+     * @param wellUid - uid of the well
+     * @return - graphQL query string
+     */
+    public static String getWellboreIdentitiesQuery(String wellUid){
+        JSONObject payload = new JSONObject();
+
+        // query all wellbores of the well
+        JSONObject queryFields = new JSONObject();
+        queryFields.put("uidWell", wellUid);
+
+        // build variables section
+        JSONObject variables = new JSONObject();
+        variables.put("arg", queryFields);
+        payload.put("variables", variables);
+
+        // build query section of payload
+        payload.put("query", GraphQLQueryConstants.WELLBORE_IDENTITIES_QUERY);
+
+        // return payload
+        return payload.toString(2);
+    }
+
     private static String createWellboreQuery(String jsonObj) {
 
         // ====================================================================
@@ -27,6 +27,8 @@ import org.json.JSONObject;
 import javax.xml.datatype.DatatypeConfigurationException;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 public class GraphQLRespConverter {
 
@@ -150,6 +152,30 @@ public class GraphQLRespConverter {
         return data.getJSONArray("wellbores").getJSONObject(0).getString("uuid");
     }
 
+    /**
+     * This function accepts the JSONObject wellbore graphql response
+     * representation and extracts the uid and uuid of each wellbore
+     * @param response
+     * @return map of wellbore uid to wellbore uuid, empty if none were found
+     */
+    public static Map<String, String> getWellboreIdentitiesFromGraphqlResponse(JSONObject response){
+        Map<String, String> identities = new LinkedHashMap<>();
+        // check that wellbores exist in the response
+        if (!response.has("data") || response.isNull("data"))
+            return identities;
+        JSONObject data = response.getJSONObject("data");
+        if (!data.has("wellbores") || data.isNull("wellbores"))
+            return identities;
+
+        JSONArray wellbores = data.getJSONArray("wellbores");
+        for (int i = 0; i < wellbores.length(); i++) {
+            JSONObject wellbore = wellbores.getJSONObject(i);
+            if (wellbore.has("uid") && wellbore.has("uuid") && !wellbore.isNull("uid") && !wellbore.isNull("uuid"))
+                identities.put(wellbore.getString("uid"), wellbore.getString("uuid"));
+        }
+        return identities;
+    }
+
     /**
      * This function accepts the JSONObject wellbore graphql response
      * representation and extracts the wellbore's name
@@ -15,66 +15,132 @@
  */
 package com.hashmapinc.tempus.witsml.valve.dot.model.log;
 
+import com.hashmapinc.tempus.witsml.valve.dot.client.BoundedTtlCache;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.hashmapinc.tempus.witsml.valve.dot.model.log.channelset.ChannelSet;
-
-import java.util.concurrent.ConcurrentHashMap;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 
 /**
- *  This cache stores channelSets.
+ *  This cache stores a fingerprint of the last channelSet header written
+ *  to DoT, keyed by the channelSet uuid.
  *
  *  Search in the cache is never granular; it is against the entire
- *  channelSet.
+ *  channelSet. Acquisition systems resend the same log header with every
+ *  data append, so an update whose channelSet matches the cached
+ *  fingerprint does not need to be PATCHed again.
+ *
+ *  The cache only knows the writes of this server: a header written by
+ *  another node or another DoT client makes its entry stale, and the
+ *  skipped PATCH then leaves the other writer's header in DoT. The skip
+ *  is therefore off unless channelset.patch.skip is set, for
+ *  deployments where a single server writes each log. Entries expire
+ *  after a TTL, which bounds how long such a stale entry is used.
  */
 public class ChannelSetCache {
-    private static ConcurrentHashMap<String, String> cache = new ConcurrentHashMap<>();
-    private static final String SEPARATOR = "|===|"; // separator used when building composite keys
+    private static final BoundedTtlCache<String> cache = new BoundedTtlCache<>(5 * 60 * 1000, 10000); // 5 minutes
+
+    /**
+     * Sets the TTL and size bound of the cache.
+     *
+     * @param ttl - time to live of an entry in milliseconds
+     * @param size - maximum number of cached channelSets
+     */
+    public static void configure(long ttl, int size) {
+        cache.configure(ttl, size);
+    }
 
     /**
-     * This function stores a ChannelSet (JSON format) in cache along with the
-     * composite key of uuid + SEPARATOR + hashCode() (from the ChannelSet).
+     * This function stores the fingerprint of a channelSet that was just
+     * written to DoT.
      *
      * @param uuid - string uuid used as a cache key
-     * @param cs - query's ChannelSet converted for DoT's API
-     *             (v1.4.1.1 or v1.3.1.1)
+     * @param channelSetJson - channelSet payload as sent to DoT
+     *                         (v1.4.1.1 or v1.3.1.1)
      */
-    public static void putInCache( String uuid,
-                                   ChannelSet cs )
-                                        throws JsonProcessingException
-    {
-        // store mapping in cache
-        // **********************
-        // use a composite key of uuid and the hash code of the
-        // payload's JSON String (which can be seen as an object's
-        // equality boiled down to an integer value; note that
-        // while instances with the same hash code are not necessarily
-        // equal, equal instances have the same hash code)
-        // build composite key
-        String compositeKey = uuid + SEPARATOR + (cs.hashCode());
-        cache.put(compositeKey, cs.toJson());
+    public static void putInCache(String uuid, String channelSetJson) {
+        if (uuid == null || channelSetJson == null)
+            return;
+        cache.put(uuid, fingerprint(channelSetJson));
     }
 
     /**
-     * This function returns the matching ChannelSet from cache to the
-     * one passed in.
+     * This function checks whether the channelSet passed in is the one
+     * last written to DoT for this uuid.
      *
-     * @param uuid - string value of the uuid to use for ChannelSet lookup
-     * @param cs - ChannelSet to check for a match within the cache
+     * @param uuid - string value of the uuid to use for channelSet lookup
+     * @param channelSetJson - channelSet payload to check for a match
      *
-     * @return - ChannelSet found channel set; null otherwise
+     * @return - true if the cached fingerprint matches; false otherwise
      */
-    public static String getCS( String uuid,
-                                ChannelSet cs )
-    {
-        // check cache
-        if (cache.containsKey(uuid + SEPARATOR + (cs.hashCode()))) {
-            return cache.get(uuid);
-        }
+    public static boolean isUnchanged(String uuid, String channelSetJson) {
+        return null != cache.get(uuid, fingerprint -> fingerprint.equals(fingerprint(channelSetJson)));
+    }
+
+    /**
+     * Removes the channelSet, e.g. after it was deleted or a write failed.
+     *
+     * @param uuid - string uuid of the channelSet
+     */
+    public static void removeFromCache(String uuid) {
+        cache.remove(uuid);
+    }
+
+    /**
+     * Removes all channelSets and resets the counters.
+     */
+    public static void clear() {
+        cache.clear();
+    }
+
+    /**
+     * @return number of lookups that matched the cached channelSet
+     */
+    public static long getHitCount() {
+        return cache.getHitCount();
+    }
+
+    /**
+     * @return number of lookups that did not match the cached channelSet
+     */
+    public static long getMissCount() {
+        return cache.getMissCount();
+    }
+
+    /**
+     * @return number of entries dropped to stay under the size bound
+     */
+    public static long getEvictionCount() {
+        return cache.getEvictionCount();
+    }
 
-        return null; // no match found
+    /**
+     * @return number of cached channelSets, including expired ones not yet removed
+     */
+    public static int size() {
+        return cache.size();
+    }
+
+    /**
+     * @return summary of the cache counters for logging
+     */
+    public static String getStats() {
+        return cache.getStats();
     }
 
-    // TODO Should there be a "cache cleanup" function just in case it needs
-    //      to be cleared out?
+    /**
+     * A SHA-256 digest of the payload, so the cache does not keep whole
+     * headers around and a hash collision is not a practical concern.
+     */
+    private static String fingerprint(String channelSetJson) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return Base64.getEncoder().encodeToString(
+                    digest.digest(channelSetJson.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException ex) {
+            // every JRE ships SHA-256
+            throw new IllegalStateException(ex);
+        }
+    }
 }
@@ -15,163 +15,109 @@
  */
 package com.hashmapinc.tempus.witsml.valve.dot.model.log;
 
-// TODO Provide the code for local caching, then move on to Redis.
+import com.hashmapinc.tempus.witsml.valve.ValveException;
+import com.hashmapinc.tempus.witsml.valve.dot.client.BoundedTtlCache;
+import com.hashmapinc.tempus.witsml.valve.dot.model.log.channel.Channel;
+
+import java.util.List;
+
+/**
+ *  This cache stores the channel metadata of a channelSet, keyed by the
+ *  channelSet uuid, so updates and reads of the same log don't GET
+ *  channels/metadata every time.
+ *
+ *  The metadata is kept as returned by DoT and parsed on every lookup:
+ *  callers adjust the index range of the channels they get for their own
+ *  request, so the Channel objects cannot be shared between requests.
+ *
+ *  Entries are removed whenever the channels or data of the channelSet
+ *  are written or deleted through the valve, and expire after a short TTL
+ *  so index ranges grown by other writers show up soon.
+ */
 public class ChannelsCache {
+    private static final BoundedTtlCache<String> cache = new BoundedTtlCache<>(30 * 1000, 1000); // 30 seconds
+
     /**
-     *  This cache stores channels.
+     * Sets the TTL and size bound of the cache.
      *
-     *  Search in the cache starts at the channel list level,
-     *  .
+     * @param ttl - time to live of an entry in milliseconds, 0 or less
+     *              disables the cache
+     * @param size - maximum number of cached channelSets
      */
-/*
-    public class ChannelsCache {
-        // cache used for uid->uuid AND uuid->uid mapping
-        private static ConcurrentHashMap<String, String> cache = new ConcurrentHashMap<>();
-        private static final String SEPARATOR = "|===|"; // separator used when building composite keys
-*/
-        /**
-         * This function stores a channelSet.
-         *
-         * @param uuid - string uuid used as a cache key
-         * @param channelSet - query's channelSet
-         */
-/*
-        public static void putInCache(
-                String uuid,
-                String uid
-        ) {
-            // store 2-way mappings in cache
-            cache.put(uuid, uid); // uuid->uid mapping
-            cache.put(uid, uuid); // uid->uuid mapping
-        }
-*/
-
-        /**
-         * This function stores a mapping between a uid and uuid.
-         *
-         * This function is used for parent-only objects
-         *
-         * @param uuid - string uuid to cache
-         * @param uid - string uid to cache
-         * @param parentUid - string uid of the parent object needed for
-         *                  building the composite key
-         */
-/*
-        public static void putInCache(
-                String uuid,
-                String uid,
-                String parentUid
-        ) {
-            // build composite key
-            String compositeKey = parentUid + SEPARATOR + uid;
-
-            // store 2-way mappings in cache
-            cache.put(uuid, uid);          // uuid->uid
-            cache.put(compositeKey, uuid); // uid->uuid
-        }
-*/
-
-        /**
-         * This function stores a mapping between a uid and uuid.
-         *
-         * This function is used for grandparent-only objects
-         *
-         * @param uuid - string uuid to cache
-         * @param uid - string uid to cache
-         * @param parentUid - string uid of the parent object needed for
-         *                    building the composite key
-         * @param grandparentUid - string uid of the grandparent object needed
-         *                         for building the composite key
-         */
-/*        public static void putInCache(
-                String uuid,
-                String uid,
-                String parentUid,
-                String grandparentUid
-        ) {
-            // build composite key
-            String compositeKey = grandparentUid + SEPARATOR + parentUid + SEPARATOR + uid;
-
-            // store 2-way mappings in cache
-            cache.put(uuid, uid);          // uuid->uid
-            cache.put(compositeKey, uuid); // uid->uuid
-        } */
-
-        /**
-         * This function checks the cache for a matching uid.
-         *
-         * If a match is found, it is returned.
-         *
-         * @param uuid - string value of the uuid to use for uid lookup
-         * @return - uid String found mapped to the given uuid.
-         */
-        /*public static String getUid(String uuid) {
-            // check cache
-            if (cache.containsKey(uuid))
-                return cache.get(uuid);
-
-            return null; // no match found
-        }*/
+    public static void configure(long ttl, int size) {
+        cache.configure(ttl, size);
+        if (ttl <= 0)
+            cache.removeByPrefix("");
+    }
 
-        /**
-         * returns the uuid for a parentless object with given uid.
-         *
-         * @param uid - string identifier for the object uuid being requested
-         * @return - uuid string if a uuid can be found, otherwise null is returned
-         */
-        /*public static String getUuid(String uid) {
-            // check cache
-            if (cache.containsKey(uid))
-                return cache.get(uid);
+    /**
+     * @param uuid - string uuid of the channelSet
+     * @return a new list of the cached channels, or null if not cached
+     * @throws ValveException if the cached metadata cannot be parsed
+     */
+    public static List<Channel> getChannels(String uuid) throws ValveException {
+        String channelsJson = cache.get(uuid);
+        return (channelsJson == null) ? null : Channel.jsonToChannelList(channelsJson);
+    }
 
-            return null; // no match found
-        }*/
+    /**
+     * @param uuid - string uuid of the channelSet
+     * @param channelsJson - channel metadata as returned by DoT
+     */
+    public static void putChannels(String uuid, String channelsJson) {
+        if (uuid == null || channelsJson == null || cache.getTtlMillis() <= 0)
+            return;
+        cache.put(uuid, channelsJson);
+    }
 
-        /**
-         * returns the uuid for a grandparent-only object with
-         * the given uid and parentUid.
-         *
-         * @param uid - string identifier for the object uuid being requested
-         * @param parentUid - string uid of the parent of the object UUID being requested
-         * @return - uuid string if a uuid can be found, otherwise null is returned
-         */
-        /*public static String getUuid(
-                String uid,
-                String parentUid
-        ) {
-            // build composite key
-            String compositeKey = parentUid + SEPARATOR + uid;
+    /**
+     * Removes the channels of a channelSet, e.g. after they were written.
+     *
+     * @param uuid - string uuid of the channelSet
+     */
+    public static void removeFromCache(String uuid) {
+        cache.remove(uuid);
+    }
 
-            // check cache
-            if (cache.containsKey(compositeKey))
-                return cache.get(compositeKey);
+    /**
+     * Removes all channels and resets the counters.
+     */
+    public static void clear() {
+        cache.clear();
+    }
 
-            return null; // no match found
-        }*/
+    /**
+     * @return number of lookups answered from the cache
+     */
+    public static long getHitCount() {
+        return cache.getHitCount();
+    }
 
-        /**
-         * returns the uuid for a grandparent-only object with
-         * the given uid, parentUid, and grandparentUid.
-         *
-         * @param uid - string identifier for the object uuid being requested
-         * @param parentUid - string uid of the parent of the object UUID being requested
-         * @return - uuid string if a uuid can be found, otherwise null is returned
-         */
-        /*public static String getUuid(
-                String uid,
-                String parentUid,
-                String grandparentUid
-        ) {
-            // build composite key
-            String compositeKey = grandparentUid + SEPARATOR + parentUid + SEPARATOR + uid;
+    /**
+     * @return number of lookups not answered from the cache
+     */
+    public static long getMissCount() {
+        return cache.getMissCount();
+    }
 
-            // check cache
-            if (cache.containsKey(compositeKey))
-                return cache.get(compositeKey);
+    /**
+     * @return number of entries dropped to stay under the size bound
+     */
+    public static long getEvictionCount() {
+        return cache.getEvictionCount();
+    }
 
-            return null; // no match found
-        }
+    /**
+     * @return number of cached channelSets, including expired ones not yet removed
+     */
+    public static int size() {
+        return cache.size();
     }
-    */
 
+    /**
+     * @return summary of the cache counters for logging
+     */
+    public static String getStats() {
+        return cache.getStats();
+    }
 }
@@ -0,0 +1,741 @@
+/**
+ * Copyright © 2018-2019 Hashmap, Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hashmapinc.tempus.witsml.valve.dot.model.log;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Columnar, primitive-array representation of the log data returned by
+ * DoT's depthdata/timedata endpoints.
+ *
+ * DoT returns one sorted series of {index: value} points per channel.
+ * Each series is collected into a primitive key array (double[] for
+ * depth, String[] otherwise) plus a value column, and the series are
+ * then k-way merged into a single sorted index. Numeric values are kept
+ * in a double[], only other text is dictionary-encoded or kept as
+ * Strings (see Column). WITSML CSV data rows are emitted directly from
+ * the columns.
+ *
+ * Missing values are rendered as "null", matching the previous
+ * TreeMap based conversion.
+ */
+public class ColumnarLogData {
+    private final boolean numericIndex;
+    private final double[] depthIndex;
+    private final String[] textIndex;
+    private final int rowCount;
+    private final List<String> mnemonics;
+    private final List<String> units;
+    private final Column[] columns;
+
+    private ColumnarLogData(boolean numericIndex, double[] depthIndex, String[] textIndex, int rowCount,
+                            List<String> mnemonics, List<String> units, Column[] columns) {
+        this.numericIndex = numericIndex;
+        this.depthIndex = depthIndex;
+        this.textIndex = textIndex;
+        this.rowCount = rowCount;
+        this.mnemonics = mnemonics;
+        this.units = units;
+        this.columns = columns;
+    }
+
+    /**
+     * @return number of distinct index values (rows)
+     */
+    public int getRowCount() {
+        return this.rowCount;
+    }
+
+    /**
+     * @return number of value columns (the index is not a column)
+     */
+    public int getColumnCount() {
+        return this.columns.length;
+    }
+
+    /**
+     * @return channel mnemonics in column order
+     */
+    public List<String> getMnemonics() {
+        return this.mnemonics;
+    }
+
+    /**
+     * @return channel units in column order
+     */
+    public List<String> getUnits() {
+        return this.units;
+    }
+
+    /**
+     * Returns the string form of the index for the given row. Numeric
+     * indexes are rendered with Double.toString.
+     *
+     * @param row - row number
+     * @return index value as a String
+     */
+    public String getIndex(int row) {
+        return this.numericIndex ? Double.toString(this.depthIndex[row]) : this.textIndex[row];
+    }
+
+    /**
+     * @param row - row number
+     * @param column - column number
+     * @return the value at row/column, or null if the channel has no value at that index
+     */
+    public String getValue(int row, int column) {
+        return this.columns[column].get(row);
+    }
+
+    /**
+     * @param column - column number
+     * @return type of the array holding the values of the column
+     */
+    Class<?> getStorageType(int column) {
+        return this.columns[column].getStorageType();
+    }
+
+    /**
+     * Builds the WITSML CSV data rows, ascending by index:
+     * "index,value1,value2,..."
+     *
+     * @return list of CSV data rows
+     */
+    public List<String> toDataRows() {
+        List<String> dataRows = new ArrayList<>(this.rowCount);
+        StringBuilder row = new StringBuilder();
+        for (int r = 0; r < this.rowCount; r++) {
+            row.setLength(0);
+            if (this.numericIndex)
+                row.append(this.depthIndex[r]);
+            else
+                row.append(this.textIndex[r]);
+            row.append(',');
+            for (int c = 0; c < this.columns.length; c++) {
+                if (c > 0)
+                    row.append(',');
+                this.columns[c].appendTo(row, r);
+            }
+            dataRows.add(row.toString());
+        }
+        return dataRows;
+    }
+
+    /**
+     * Stitches log data read per index window together without going back
+     * to Strings: indexes are merged like the series of a Builder and
+     * numeric columns are copied as numbers. Channels are matched by
+     * mnemonic; where windows share an index, the value of the higher
+     * window is kept.
+     *
+     * @param windows - log data per window, ordered from the lowest index to the highest
+     * @param numericIndex - true if the windows have numeric (depth) indexes
+     * @return log data covering all windows
+     */
+    public static ColumnarLogData concat(List<ColumnarLogData> windows, boolean numericIndex) {
+        List<String> mnemonics = new ArrayList<>();
+        List<String> units = new ArrayList<>();
+        Map<String, Integer> channels = new HashMap<>();
+        List<Boolean> numeric = new ArrayList<>();
+        int[][] channelOf = new int[windows.size()][];
+        int total = 0;
+        for (int w = 0; w < windows.size(); w++) {
+            ColumnarLogData window = windows.get(w);
+            channelOf[w] = new int[window.columns.length];
+            for (int c = 0; c < window.columns.length; c++) {
+                Integer channel = channels.get(window.mnemonics.get(c));
+                if (channel == null) {
+                    channel = mnemonics.size();
+                    channels.put(window.mnemonics.get(c), channel);
+                    mnemonics.add(window.mnemonics.get(c));
+                    units.add(window.units.get(c));
+                    numeric.add(true);
+                }
+                channelOf[w][c] = channel;
+                // numbers are only copied as such if the channel is numeric in every window
+                if (window.columns[c].mode != Column.NUMERIC)
+                    numeric.set(channel, false);
+            }
+            total += window.rowCount;
+        }
+
+        // k-way merge of the window indexes, recording the row of every window row
+        int[][] rowOf = new int[windows.size()][];
+        PriorityQueue<int[]> heap = new PriorityQueue<>(Math.max(1, windows.size()),
+                (a, b) -> windows.get(a[0]).compareIndex(a[1], windows.get(b[0]), b[1]));
+        for (int w = 0; w < windows.size(); w++) {
+            rowOf[w] = new int[windows.get(w).rowCount];
+            if (windows.get(w).rowCount > 0)
+                heap.add(new int[] { w, 0 });
+        }
+        double[] depthIndex = numericIndex ? new double[total] : null;
+        String[] textIndex = numericIndex ? null : new String[total];
+        int rows = 0;
+        int lastWindow = -1;
+        int lastRow = -1;
+        while (!heap.isEmpty()) {
+            int[] cursor = heap.poll();
+            ColumnarLogData window = windows.get(cursor[0]);
+            if (lastWindow < 0 || windows.get(lastWindow).compareIndex(lastRow, window, cursor[1]) != 0) {
+                if (numericIndex)
+                    depthIndex[rows] = window.depthIndex[cursor[1]];
+                else
+                    textIndex[rows] = window.textIndex[cursor[1]];
+                rows++;
+            }
+            rowOf[cursor[0]][cursor[1]] = rows - 1;
+            lastWindow = cursor[0];
+            lastRow = cursor[1];
+            if (++cursor[1] < window.rowCount)
+                heap.add(cursor);
+        }
+
+        Column[] columns = new Column[mnemonics.size()];
+        for (int channel = 0; channel < columns.length; channel++)
+            columns[channel] = new Column(rows);
+        // last value first, so a shared index keeps the value of the higher window
+        for (int w = windows.size() - 1; w >= 0; w--) {
+            for (int c = channelOf[w].length - 1; c >= 0; c--) {
+                Column source = windows.get(w).columns[c];
+                Column target = columns[channelOf[w][c]];
+                boolean copy = numeric.get(channelOf[w][c]);
+                for (int r = 0; r < rowOf[w].length; r++) {
+                    int row = rowOf[w][r];
+                    if (!source.present.get(r) || target.present.get(row))
+                        continue;
+                    if (copy)
+                        target.copy(row, source, r);
+                    else
+                        target.set(row, source.get(r));
+                }
+            }
+        }
+        return new ColumnarLogData(numericIndex, (depthIndex == null) ? null : Arrays.copyOf(depthIndex, rows),
+                (textIndex == null) ? null : Arrays.copyOf(textIndex, rows), rows, mnemonics, units, columns);
+    }
+
+    private int compareIndex(int row, ColumnarLogData other, int otherRow) {
+        return this.numericIndex
+                ? Double.compare(this.depthIndex[row], other.depthIndex[otherRow])
+                : this.textIndex[row].compareTo(other.textIndex[otherRow]);
+    }
+
+    /**
+     * Collects per-channel series and merges them into a ColumnarLogData.
+     * Points may be added in any order; series that DoT already sorted
+     * (ascending or descending) are not re-sorted.
+     */
+    public static class Builder {
+        private final boolean numericIndex;
+        private final List<Series> series = new ArrayList<>();
+
+        /**
+         * @param numericIndex - true for depth (double) indexes, false
+         *                     for indexes compared as Strings
+         */
+        public Builder(boolean numericIndex) {
+            this.numericIndex = numericIndex;
+        }
+
+        /**
+         * Adds a value column.
+         *
+         * @param mnemonic - channel mnemonic
+         * @param unit - channel unit
+         * @return channel number to use with addPoint
+         */
+        public int addChannel(String mnemonic, String unit) {
+            this.series.add(new Series(mnemonic, unit, this.numericIndex));
+            return this.series.size() - 1;
+        }
+
+        /**
+         * Sets the unit of a channel that was added before its unit was known.
+         *
+         * @param channel - channel number returned by addChannel
+         * @param unit - channel unit
+         */
+        public void setUnit(int channel, String unit) {
+            this.series.get(channel).unit = unit;
+        }
+
+        /**
+         * Adds a single data point to a channel.
+         *
+         * @param channel - channel number returned by addChannel
+         * @param index - index value as a String
+         * @param value - data value as a String
+         */
+        public void addPoint(int channel, String index, String value) {
+            this.series.get(channel).add(index, value);
+        }
+
+        /**
+         * @return the merged columnar log data
+         */
+        public ColumnarLogData build() {
+            for (Series s : this.series)
+                s.sortAscending();
+
+            List<String> mnemonics = new ArrayList<>(this.series.size());
+            List<String> units = new ArrayList<>(this.series.size());
+            for (Series s : this.series) {
+                mnemonics.add(s.mnemonic);
+                units.add(s.unit);
+            }
+
+            Column[] columns = new Column[this.series.size()];
+            if (this.numericIndex) {
+                double[] index = mergeDepthIndex();
+                for (int c = 0; c < columns.length; c++)
+                    columns[c] = this.series.get(c).alignTo(index, null);
+                return new ColumnarLogData(true, index, null, index.length, mnemonics, units, columns);
+            } else {
+                String[] index = mergeTextIndex();
+                for (int c = 0; c < columns.length; c++)
+                    columns[c] = this.series.get(c).alignTo(null, index);
+                return new ColumnarLogData(false, null, index, index.length, mnemonics, units, columns);
+            }
+        }
+
+        // k-way merge of the sorted depth keys into a distinct, ascending index
+        private double[] mergeDepthIndex() {
+            PriorityQueue<int[]> heap = new PriorityQueue<>(Math.max(1, this.series.size()),
+                    Comparator.comparingDouble((int[] cursor) -> this.series.get(cursor[0]).depthKeys[cursor[1]]));
+            int total = 0;
+            for (int c = 0; c < this.series.size(); c++) {
+                Series s = this.series.get(c);
+                total += s.size;
+                if (s.size > 0)
+                    heap.add(new int[] { c, 0 });
+            }
+
+            double[] merged = new double[total];
+            int count = 0;
+            while (!heap.isEmpty()) {
+                int[] cursor = heap.poll();
+                Series s = this.series.get(cursor[0]);
+                double key = s.depthKeys[cursor[1]];
+                if (count == 0 || Double.compare(merged[count - 1], key) != 0)
+                    merged[count++] = key;
+                if (++cursor[1] < s.size)
+                    heap.add(cursor);
+            }
+            return Arrays.copyOf(merged, count);
+        }
+
+        // k-way merge of the sorted text keys into a distinct, ascending index
+        private String[] mergeTextIndex() {
+            PriorityQueue<int[]> heap = new PriorityQueue<>(Math.max(1, this.series.size()),
+                    Comparator.comparing((int[] cursor) -> this.series.get(cursor[0]).textKeys[cursor[1]]));
+            int total = 0;
+            for (int c = 0; c < this.series.size(); c++) {
+                Series s = this.series.get(c);
+                total += s.size;
+                if (s.size > 0)
+                    heap.add(new int[] { c, 0 });
+            }
+
+            String[] merged = new String[total];
+            int count = 0;
+            while (!heap.isEmpty()) {
+                int[] cursor = heap.poll();
+                Series s = this.series.get(cursor[0]);
+                String key = s.textKeys[cursor[1]];
+                if (count == 0 || !merged[count - 1].equals(key))
+                    merged[count++] = key;
+                if (++cursor[1] < s.size)
+                    heap.add(cursor);
+            }
+            return Arrays.copyOf(merged, count);
+        }
+    }
+
+    /**
+     * One channel's points: primitive keys plus a value column in arrival
+     * order.
+     */
+    private static class Series {
+        private final String mnemonic;
+        private String unit;
+        private final boolean numericIndex;
+        private final Column values = new Column(16);
+        private double[] depthKeys;
+        private String[] textKeys;
+        private int[] order; // arrival position of each sorted key, null while the keys are in arrival order
+        private int size = 0;
+
+        private Series(String mnemonic, String unit, boolean numericIndex) {
+            this.mnemonic = mnemonic;
+            this.unit = unit;
+            this.numericIndex = numericIndex;
+            if (numericIndex)
+                this.depthKeys = new double[16];
+            else
+                this.textKeys = new String[16];
+        }
+
+        private void add(String index, String value) {
+            int capacity = this.numericIndex ? this.depthKeys.length : this.textKeys.length;
+            if (this.size == capacity) {
+                if (this.numericIndex)
+                    this.depthKeys = Arrays.copyOf(this.depthKeys, capacity * 2);
+                else
+                    this.textKeys = Arrays.copyOf(this.textKeys, capacity * 2);
+            }
+            if (this.numericIndex)
+                this.depthKeys[this.size] = Double.parseDouble(index);
+            else
+                this.textKeys[this.size] = index;
+            this.values.set(this.size, value);
+            this.size++;
+        }
+
+        private int compare(int a, int b) {
+            return this.numericIndex
+                    ? Double.compare(this.depthKeys[a], this.depthKeys[b])
+                    : this.textKeys[a].compareTo(this.textKeys[b]);
+        }
+
+        /**
+         * Puts the keys in ascending order and records where each key's
+         * value arrived. DoT returns series sorted descending, which only
+         * needs a reversal; anything else falls back to a stable sort.
+         * Points sharing a key keep their arrival order so the last one
+         * wins when aligned.
+         */
+        private void sortAscending() {
+            boolean ascending = true;
+            boolean descending = true;
+            for (int i = 1; i < this.size && (ascending || descending); i++) {
+                int cmp = compare(i - 1, i);
+                if (cmp > 0)
+                    ascending = false;
+                else if (cmp < 0)
+                    descending = false;
+            }
+            if (ascending)
+                return;
+
+            if (descending) {
+                this.order = new int[this.size];
+                for (int i = 0; i < this.size; i++)
+                    this.order[i] = i;
+                reverse(0, this.size);
+                // restore arrival order within runs of equal keys
+                int runStart = 0;
+                for (int i = 1; i <= this.size; i++) {
+                    if (i == this.size || compare(runStart, i) != 0) {
+                        reverse(runStart, i);
+                        runStart = i;
+                    }
+                }
+                return;
+            }
+
+            Integer[] sorted = new Integer[this.size];
+            for (int i = 0; i < this.size; i++)
+                sorted[i] = i;
+            Arrays.sort(sorted, this::compare);
+            this.order = new int[this.size];
+            for (int i = 0; i < this.size; i++)
+                this.order[i] = sorted[i];
+            if (this.numericIndex) {
+                double[] sortedKeys = new double[this.size];
+                for (int i = 0; i < this.size; i++)
+                    sortedKeys[i] = this.depthKeys[this.order[i]];
+                this.depthKeys = sortedKeys;
+            } else {
+                String[] sortedKeys = new String[this.size];
+                for (int i = 0; i < this.size; i++)
+                    sortedKeys[i] = this.textKeys[this.order[i]];
+                this.textKeys = sortedKeys;
+            }
+        }
+
+        private void reverse(int from, int to) {
+            for (int i = from, j = to - 1; i < j; i++, j--) {
+                int position = this.order[i];
+                this.order[i] = this.order[j];
+                this.order[j] = position;
+                if (this.numericIndex) {
+                    double key = this.depthKeys[i];
+                    this.depthKeys[i] = this.depthKeys[j];
+                    this.depthKeys[j] = key;
+                } else {
+                    String key = this.textKeys[i];
+                    this.textKeys[i] = this.textKeys[j];
+                    this.textKeys[j] = key;
+                }
+            }
+        }
+
+        /**
+         * Lays this series out against the merged index. Both are
+         * ascending, so a single two-pointer walk is enough.
+         */
+        private Column alignTo(double[] depthIndex, String[] textIndex) {
+            int rows = this.numericIndex ? depthIndex.length : textIndex.length;
+            Column column = this.values.emptyCopy(rows);
+            int row = 0;
+            for (int i = 0; i < this.size; i++) {
+                if (this.numericIndex) {
+                    while (Double.compare(depthIndex[row], this.depthKeys[i]) < 0)
+                        row++;
+                } else {
+                    while (textIndex[row].compareTo(this.textKeys[i]) < 0)
+                        row++;
+                }
+                column.copy(row, this.values, (this.order == null) ? i : this.order[i]);
+            }
+            return column;
+        }
+    }
+
+    /**
+     * Values of one channel by position.
+     *
+     * A column starts out numeric: values whose text survives a round trip
+     * through long or double (e.g. "7" or "1.5") are kept in a double[],
+     * with a bit per position marking the integers. The first value that
+     * doesn't (e.g. "1.50" or "true") switches the column to dictionary
+     * codes, and a dictionary that keeps growing with the column switches
+     * it to plain Strings, so only low-cardinality text is encoded.
+     */
+    static class Column {
+        private static final int NUMERIC = 0;
+        private static final int DICTIONARY = 1;
+        private static final int TEXT = 2;
+        // distinct values before a dictionary's cardinality is checked
+        private static final int DICTIONARY_MIN = 256;
+        // larger integers are not exact as a double
+        private static final long MAX_EXACT_INTEGER = 1L << 53;
+
+        private int mode;
+        private int capacity;
+        private int valueCount = 0;
+        private final BitSet present = new BitSet();
+        private double[] numbers;
+        private final BitSet integers = new BitSet();
+        private final BitSet nulls = new BitSet(); // the value "null", kept numeric
+        private int[] codes;
+        private Map<String, Integer> dictionary;
+        private List<String> dictionaryValues;
+        private String[] texts;
+
+        Column(int capacity) {
+            this.mode = NUMERIC;
+            this.capacity = capacity;
+            this.numbers = new double[capacity];
+        }
+
+        /**
+         * @return an empty column of the same kind, sharing the dictionary
+         */
+        private Column emptyCopy(int capacity) {
+            Column copy = new Column(0);
+            copy.mode = this.mode;
+            copy.capacity = capacity;
+            if (this.mode == NUMERIC) {
+                copy.numbers = new double[capacity];
+            } else if (this.mode == DICTIONARY) {
+                copy.numbers = null;
+                copy.codes = new int[capacity];
+                copy.dictionaryValues = this.dictionaryValues;
+            } else {
+                copy.numbers = null;
+                copy.texts = new String[capacity];
+            }
+            return copy;
+        }
+
+        /**
+         * @param position - position of the value
+         * @param value - value as a String, null for none
+         */
+        void set(int position, String value) {
+            if (position >= this.capacity)
+                grow(Math.max(position + 1, this.capacity * 2));
+            if (value == null) {
+                this.present.clear(position);
+                return;
+            }
+            this.valueCount++;
+            if (this.mode == NUMERIC && !setNumber(position, value))
+                toDictionary();
+            this.present.set(position);
+            if (this.mode == DICTIONARY) {
+                this.codes[position] = encode(value);
+                if (this.dictionaryValues.size() > DICTIONARY_MIN && this.dictionaryValues.size() * 2 > this.valueCount)
+                    toText();
+            } else if (this.mode == TEXT) {
+                this.texts[position] = value;
+            }
+        }
+
+        /**
+         * @param position - position of the value
+         * @return the value as a String, or null if there is none
+         */
+        String get(int position) {
+            if (!this.present.get(position))
+                return null;
+            switch (this.mode) {
+                case NUMERIC:
+                    if (this.nulls.get(position))
+                        return "null";
+                    return this.integers.get(position)
+                            ? Long.toString((long) this.numbers[position])
+                            : Double.toString(this.numbers[position]);
+                case DICTIONARY:
+                    return this.dictionaryValues.get(this.codes[position]);
+                default:
+                    return this.texts[position];
+            }
+        }
+
+        /**
+         * @return double[], int[] (dictionary codes) or String[]
+         */
+        Class<?> getStorageType() {
+            switch (this.mode) {
+                case NUMERIC:
+                    return double[].class;
+                case DICTIONARY:
+                    return int[].class;
+                default:
+                    return String[].class;
+            }
+        }
+
+        /**
+         * Appends the value to a data row without creating a String for
+         * numeric values, "null" if there is none.
+         */
+        void appendTo(StringBuilder row, int position) {
+            if (this.mode != NUMERIC || !this.present.get(position) || this.nulls.get(position))
+                row.append(get(position));
+            else if (this.integers.get(position))
+                row.append((long) this.numbers[position]);
+            else
+                row.append(this.numbers[position]);
+        }
+
+        // copies a value from a column of the same kind
+        private void copy(int position, Column source, int sourcePosition) {
+            if (!source.present.get(sourcePosition)) {
+                this.present.clear(position);
+                return;
+            }
+            this.present.set(position);
+            if (this.mode == NUMERIC) {
+                this.numbers[position] = source.numbers[sourcePosition];
+                this.integers.set(position, source.integers.get(sourcePosition));
+                this.nulls.set(position, source.nulls.get(sourcePosition));
+            } else if (this.mode == DICTIONARY) {
+                this.codes[position] = source.codes[sourcePosition];
+            } else {
+                this.texts[position] = source.texts[sourcePosition];
+            }
+        }
+
+        private boolean setNumber(int position, String value) {
+            if (value.equals("null")) {
+                this.nulls.set(position);
+                return true;
+            }
+            int length = value.length();
+            if (length == 0 || length > 25)
+                return false;
+            char first = value.charAt(0);
+            if (first != '-' && !Character.isDigit(first))
+                return false;
+            boolean integer = true;
+            for (int i = (first == '-') ? 1 : 0; i < length && integer; i++)
+                integer = Character.isDigit(value.charAt(i));
+            try {
+                if (integer) {
+                    long number = Long.parseLong(value);
+                    if (number < -MAX_EXACT_INTEGER || number > MAX_EXACT_INTEGER
+                            || !Long.toString(number).equals(value))
+                        return false;
+                    this.numbers[position] = number;
+                    this.integers.set(position);
+                } else {
+                    double number = Double.parseDouble(value);
+                    if (!Double.toString(number).equals(value))
+                        return false;
+                    this.numbers[position] = number;
+                }
+                return true;
+            } catch (NumberFormatException e) {
+                return false;
+            }
+        }
+
+        private int encode(String value) {
+            Integer code = this.dictionary.get(value);
+            if (code == null) {
+                code = this.dictionaryValues.size();
+                this.dictionary.put(value, code);
+                this.dictionaryValues.add(value);
+            }
+            return code;
+        }
+
+        private void grow(int newCapacity) {
+            if (this.mode == NUMERIC)
+                this.numbers = Arrays.copyOf(this.numbers, newCapacity);
+            else if (this.mode == DICTIONARY)
+                this.codes = Arrays.copyOf(this.codes, newCapacity);
+            else
+                this.texts = Arrays.copyOf(this.texts, newCapacity);
+            this.capacity = newCapacity;
+        }
+
+        private void toDictionary() {
+            this.codes = new int[this.capacity];
+            this.dictionary = new HashMap<>();
+            this.dictionaryValues = new ArrayList<>();
+            for (int i = this.present.nextSetBit(0); i >= 0; i = this.present.nextSetBit(i + 1)) {
+                String value = get(i);
+                if (value != null)
+                    this.codes[i] = encode(value);
+            }
+            this.numbers = null;
+            this.integers.clear();
+            this.nulls.clear();
+            this.mode = DICTIONARY;
+        }
+
+        private void toText() {
+            this.texts = new String[this.capacity];
+            for (int i = this.present.nextSetBit(0); i >= 0; i = this.present.nextSetBit(i + 1))
+                this.texts[i] = this.dictionaryValues.get(this.codes[i]);
+            this.codes = null;
+            this.dictionary = null;
+            this.dictionaryValues = null;
+            this.mode = TEXT;
+        }
+    }
+}
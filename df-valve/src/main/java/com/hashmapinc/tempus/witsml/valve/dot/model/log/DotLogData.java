@@ -0,0 +1,198 @@
+/**
+ * Copyright © 2018-2019 Hashmap, Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hashmapinc.tempus.witsml.valve.dot.model.log;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The result of reading a DoT depthdata/timedata response: the log data
+ * columns plus the index range of every channel that was returned.
+ *
+ * Both are filled from a single pass over the channel values, either by
+ * DotLogDataReader (streamed from the HTTP entity) or from an already
+ * parsed JSONObject.
+ */
+public class DotLogData {
+    private final ColumnarLogData columns;
+    private final Map<String, IndexRange> indexRanges;
+
+    private DotLogData(ColumnarLogData columns, Map<String, IndexRange> indexRanges) {
+        this.columns = columns;
+        this.indexRanges = indexRanges;
+    }
+
+    /**
+     * @return log data columns, without the index channel
+     */
+    public ColumnarLogData getColumns() {
+        return this.columns;
+    }
+
+    /**
+     * @param mnemonic - channel mnemonic, matched ignoring case
+     * @return index range of the channel or null if DoT did not return it
+     */
+    public IndexRange getIndexRange(String mnemonic) {
+        if (mnemonic == null)
+            return null;
+        return this.indexRanges.get(mnemonic.toLowerCase());
+    }
+
+    /**
+     * Builds DotLogData from an already parsed DoT response.
+     *
+     * @param object - DoT depthdata/timedata response
+     * @param indexCurve - mnemonic of the index curve
+     * @param numericIndex - true to merge on numeric (depth) indexes
+     * @return DotLogData for the response
+     */
+    public static DotLogData fromJson(JSONObject object, String indexCurve, boolean numericIndex) {
+        JSONArray jsonValues = (JSONArray)object.get("value");
+        Builder builder = new Builder(indexCurve, numericIndex);
+        for (int i = 0; i < jsonValues.length(); i++) {
+            JSONObject currentValue = (JSONObject)jsonValues.get(i);
+            builder.startChannel(currentValue.get("name").toString(), String.valueOf(currentValue.opt("unit")));
+            JSONArray dataPoints = currentValue.getJSONArray("values");
+            for (int j = 0; j < dataPoints.length(); j++) {
+                JSONObject dataPoint = (JSONObject)dataPoints.get(j);
+                String index = dataPoint.keys().next().toString();
+                builder.addPoint(index, dataPoint.get(index).toString());
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Stitches log data that was fetched per index window back together.
+     * Channels are matched by mnemonic; rows on a shared window boundary
+     * are only kept once.
+     *
+     * @param windows - log data per window, ordered from the highest index to the lowest
+     * @param numericIndex - true to merge on numeric (depth) indexes
+     * @return DotLogData covering all windows
+     */
+    public static DotLogData merge(List<DotLogData> windows, boolean numericIndex) {
+        // lowest window first, as ColumnarLogData.concat takes them
+        List<ColumnarLogData> columns = new ArrayList<>(windows.size());
+        for (int w = windows.size() - 1; w >= 0; w--)
+            columns.add(windows.get(w).columns);
+
+        // highest window first, matching the order the ranges were read in
+        Map<String, IndexRange> indexRanges = new HashMap<>();
+        for (DotLogData window : windows) {
+            for (Map.Entry<String, IndexRange> range : window.indexRanges.entrySet())
+                indexRanges.merge(range.getKey(), range.getValue(), IndexRange::followedBy);
+        }
+        return new DotLogData(ColumnarLogData.concat(columns, numericIndex), indexRanges);
+    }
+
+    /**
+     * First and last non-null index of a channel, in the order DoT
+     * returned the values. Log data is always requested with sortDesc,
+     * so the first index is the maximum and the last is the minimum.
+     */
+    public static class IndexRange {
+        private String maxIndex;
+        private String minIndex;
+        private int pointCount;
+
+        private void add(String index, String value) {
+            this.pointCount++;
+            if (value.equalsIgnoreCase("null") || value.isEmpty())
+                return;
+            if (this.maxIndex == null)
+                this.maxIndex = index;
+            this.minIndex = index;
+        }
+
+        // combines this range with the range of the next (lower) window
+        private IndexRange followedBy(IndexRange lower) {
+            IndexRange combined = new IndexRange();
+            combined.maxIndex = (this.maxIndex != null) ? this.maxIndex : lower.maxIndex;
+            combined.minIndex = (lower.minIndex != null) ? lower.minIndex : this.minIndex;
+            combined.pointCount = this.pointCount + lower.pointCount;
+            return combined;
+        }
+
+        /**
+         * @return index of the first non-null value, or null if there is none
+         */
+        public String getMaxIndex() {
+            return this.maxIndex;
+        }
+
+        /**
+         * @return index of the last non-null value, or null if there is none
+         */
+        public String getMinIndex() {
+            return this.minIndex;
+        }
+
+        /**
+         * @return number of values returned for the channel, including nulls
+         */
+        public int getPointCount() {
+            return this.pointCount;
+        }
+    }
+
+    /**
+     * Accumulates channels and their values in response order. The index
+     * channel only contributes an index range, not a column.
+     */
+    static class Builder {
+        private final String indexCurve;
+        private final ColumnarLogData.Builder columns;
+        private final Map<String, IndexRange> indexRanges = new HashMap<>();
+        private IndexRange currentRange;
+        private int currentChannel = -1;
+
+        Builder(String indexCurve, boolean numericIndex) {
+            this.indexCurve = indexCurve;
+            this.columns = new ColumnarLogData.Builder(numericIndex);
+        }
+
+        void startChannel(String mnemonic, String unit) {
+            this.currentRange = new IndexRange();
+            this.indexRanges.put(mnemonic.toLowerCase(), this.currentRange);
+            if (mnemonic.equalsIgnoreCase(this.indexCurve))
+                this.currentChannel = -1;
+            else
+                this.currentChannel = this.columns.addChannel(mnemonic, unit);
+        }
+
+        void setUnit(String unit) {
+            if (this.currentChannel != -1)
+                this.columns.setUnit(this.currentChannel, unit);
+        }
+
+        void addPoint(String index, String value) {
+            this.currentRange.add(index, value);
+            if (this.currentChannel != -1)
+                this.columns.addPoint(this.currentChannel, index, value);
+        }
+
+        DotLogData build() {
+            return new DotLogData(this.columns.build(), this.indexRanges);
+        }
+    }
+}
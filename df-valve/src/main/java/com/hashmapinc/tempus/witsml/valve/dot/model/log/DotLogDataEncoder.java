@@ -0,0 +1,218 @@
+/**
+ * Copyright © 2018-2019 Hashmap, Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hashmapinc.tempus.witsml.valve.dot.model.log;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streams WITSML CSV logData rows into the DoT channel data body:
+ *
+ *     {"mnemonicList":"b,c","data":"[[[1],[2, 3]],[[2],[3, 4]]]"}
+ *
+ * Every row is scanned once and written straight to the target
+ * Appendable, so encoding is linear in the size of the log and
+ * does not allocate per-row token lists or intermediate strings.
+ */
+public class DotLogDataEncoder {
+
+    // rough number of output chars per input char, used to presize buffers
+    private static final double EXPANSION_FACTOR = 1.2;
+
+    /**
+     * Encodes the full DoT data body into a single presized buffer.
+     *
+     * @param mnemonicList - comma separated curve mnemonics (index excluded)
+     * @param dataLines - WITSML CSV data rows (index first)
+     * @return DoT data body as a String
+     */
+    public static String encode(String mnemonicList, List<String> dataLines) {
+        StringBuilder out = new StringBuilder(estimateSize(mnemonicList, dataLines));
+        try {
+            encode(mnemonicList, dataLines, out);
+        } catch (IOException ex) {
+            // StringBuilder never throws
+            throw new UncheckedIOException(ex);
+        }
+        return out.toString();
+    }
+
+    /**
+     * Splits the rows into packets, each holding a consecutive run of at
+     * most maxRows rows whose body is roughly maxChars chars at most. A
+     * packet always holds at least one row. Nothing is encoded here.
+     *
+     * @param mnemonicList - comma separated curve mnemonics (index excluded)
+     * @param dataLines - WITSML CSV data rows (index first)
+     * @param maxRows - upper bound on rows per packet, 0 or less for no bound
+     * @param maxChars - approximate upper bound on chars per packet, 0 or less for no bound
+     * @return packets in row order
+     */
+    public static List<DotLogDataPacket> splitPackets(String mnemonicList, List<String> dataLines,
+                                                      int maxRows, int maxChars) {
+        List<DotLogDataPacket> packets = new ArrayList<>();
+        int rowLimit = (maxRows > 0) ? maxRows : Integer.MAX_VALUE;
+        long charLimit = (maxChars > 0) ? (long) (maxChars / EXPANSION_FACTOR) : Long.MAX_VALUE;
+
+        int first = 0;
+        while (first < dataLines.size()) {
+            int last = first;
+            long chars = mnemonicList.length() + 32;
+            do {
+                chars += dataLines.get(last).length() + 8;
+                last++;
+            } while (last < dataLines.size() && last - first < rowLimit
+                    && chars + dataLines.get(last).length() + 8 <= charLimit);
+
+            packets.add(new DotLogDataPacket(mnemonicList, dataLines.subList(first, last), first));
+            first = last;
+        }
+        return packets;
+    }
+
+    /**
+     * Writes the full DoT data body to the given Appendable.
+     *
+     * @param mnemonicList - comma separated curve mnemonics (index excluded)
+     * @param dataLines - WITSML CSV data rows (index first)
+     * @param out - target to write to
+     * @throws IOException if the target cannot be written to
+     */
+    public static void encode(String mnemonicList, List<String> dataLines, Appendable out) throws IOException {
+        out.append("{\"mnemonicList\":\"").append(mnemonicList).append("\",\"data\":\"");
+        encodeRows(dataLines, out);
+        out.append("\"}");
+    }
+
+    /**
+     * Writes the data rows as a WITSML 2.0 style nested array:
+     * [[[index],[value, value, ...]], ...]
+     *
+     * Values are split on commas and the whitespace around each comma
+     * is dropped, exactly like String.split("\\s*,\\s*").
+     *
+     * @param dataLines - WITSML CSV data rows (index first)
+     * @param out - target to write to
+     * @throws IOException if the target cannot be written to
+     */
+    public static void encodeRows(List<String> dataLines, Appendable out) throws IOException {
+        // token boundaries for the current row, reused across rows
+        int[] bounds = new int[32];
+        int rowCount = dataLines.size();
+
+        out.append('[');
+        for (int j = 0; j < rowCount; j++) {
+            String row = dataLines.get(j);
+            int tokenCount = tokenize(row, bounds);
+            if (tokenCount * 2 > bounds.length) {
+                bounds = new int[tokenCount * 2];
+                tokenCount = tokenize(row, bounds);
+            }
+
+            for (int i = 0; i < tokenCount; i++) {
+                if (i == 0) {
+                    out.append("[[").append(row, bounds[0], bounds[1]).append(']');
+                } else if (i == 1) {
+                    out.append(",[").append(row, bounds[2], bounds[3]);
+                } else {
+                    out.append(", ").append(row, bounds[2 * i], bounds[2 * i + 1]);
+                }
+                if (i == tokenCount - 1) {
+                    out.append("]]");
+                    if (j != rowCount - 1)
+                        out.append(',');
+                }
+            }
+        }
+        out.append(']');
+    }
+
+    /**
+     * Finds the [start, end) offsets of every value in a CSV row.
+     *
+     * Offsets are only written while they fit in bounds; the returned
+     * count may be larger, in which case the caller should grow the
+     * array and tokenize again.
+     *
+     * @param row - CSV row to scan
+     * @param bounds - output array of start/end pairs
+     * @return number of values in the row
+     */
+    private static int tokenize(String row, int[] bounds) {
+        int length = row.length();
+        int count = 0;
+        int start = 0;
+        boolean sawComma = false;
+
+        for (int c = 0; c < length; c++) {
+            if (row.charAt(c) != ',')
+                continue;
+            sawComma = true;
+
+            // drop whitespace between the value and the comma
+            int end = c;
+            while (end > start && isWhitespace(row.charAt(end - 1)))
+                end--;
+            count = putBounds(bounds, count, start, end);
+
+            // drop whitespace between the comma and the next value
+            start = c + 1;
+            while (start < length && isWhitespace(row.charAt(start)))
+                start++;
+            c = start - 1;
+        }
+        count = putBounds(bounds, count, start, length);
+
+        // like String.split, trailing empty values are discarded
+        // unless there was nothing to split on
+        if (sawComma) {
+            while (count > 0 && emptyAt(bounds, count - 1))
+                count--;
+        }
+        return count;
+    }
+
+    private static int putBounds(int[] bounds, int count, int start, int end) {
+        if (2 * count + 1 < bounds.length) {
+            bounds[2 * count] = start;
+            bounds[2 * count + 1] = end;
+        }
+        return count + 1;
+    }
+
+    private static boolean emptyAt(int[] bounds, int index) {
+        // values that did not fit are treated as non-empty; the caller
+        // retokenizes with room for all of them
+        if (2 * index + 1 >= bounds.length)
+            return false;
+        return bounds[2 * index] == bounds[2 * index + 1];
+    }
+
+    // matches the regex \s character class
+    private static boolean isWhitespace(char ch) {
+        return ch == ' ' || ch == '\t' || ch == '\n' || ch == '\u000B' || ch == '\f' || ch == '\r';
+    }
+
+    private static int estimateSize(String mnemonicList, List<String> dataLines) {
+        long chars = mnemonicList.length() + 32;
+        for (String row : dataLines)
+            chars += row.length() + 8;
+        chars = (long) (chars * EXPANSION_FACTOR);
+        return (int) Math.min(chars, Integer.MAX_VALUE - 8);
+    }
+}
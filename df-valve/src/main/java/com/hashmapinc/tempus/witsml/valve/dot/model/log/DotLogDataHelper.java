@@ -22,8 +22,9 @@ import com.hashmapinc.tempus.witsml.valve.dot.model.log.channel.Channel;
 import org.json.JSONArray;
 import org.json.JSONObject;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.*;
-import java.util.stream.Collectors;
 
 
 public class DotLogDataHelper extends LogDataHelper {
@@ -36,57 +37,74 @@ public class DotLogDataHelper extends LogDataHelper {
 
     }
 
-    private static String convertDataToWitsml20From1411(com.hashmapinc.tempus.WitsmlObjects.v1411.ObjLog log){
-        if (log == null)
-            return null;
-
-        return convertStringListToJson(log.getLogData().get(0).getData());
-    }
-
     private static String convertStringListToJson(List<String> dataLines){
-        String wml20Data = "[";
-        for (int j = 0; j < dataLines.size(); j++){
-            List<String> data = Arrays.asList(dataLines.get(j).split("\\s*,\\s*"));
-            for (int i = 0; i < data.size(); i++){
-                if (i == 0){
-                    wml20Data = wml20Data + "[[" + data.get(i) + "]";
-                } else if (i == 1){
-                    wml20Data = wml20Data + ",[" + data.get(i);
-                } else {
-                    wml20Data = wml20Data + ", "+ data.get(i);
-                }
-                if (i == (data.size() - 1)){
-                    wml20Data = wml20Data + "]]";
-                    if (j != (dataLines.size() - 1)){
-                        wml20Data = wml20Data + ",";
-                    }
-                }
-            }
+        StringBuilder wml20Data = new StringBuilder();
+        try {
+            DotLogDataEncoder.encodeRows(dataLines, wml20Data);
+        } catch (IOException ex) {
+            // StringBuilder never throws
+            throw new UncheckedIOException(ex);
         }
-        wml20Data = wml20Data + "]";
-        return wml20Data;
+        return wml20Data.toString();
     }
 
     public static String convertDataToDotFrom1411(com.hashmapinc.tempus.WitsmlObjects.v1411.ObjLog log){
-        String result = "{";
-        String wml20MnemonicList = log.getLogData().get(0).getMnemonicList();
-        String curveMnemonics = wml20MnemonicList.substring(wml20MnemonicList.indexOf(",")+1);
-        result = result + "\"mnemonicList\":" + "\"" + curveMnemonics + "\"" + ",";
-        result = result + "\"data\":" + "\"" + convertDataToWitsml20From1411(log) + "\"}";
-        return result;
+        return DotLogDataEncoder.encode(getCurveMnemonics(log), log.getLogData().get(0).getData());
     }
 
     public static String convertDataToDotFrom1311(com.hashmapinc.tempus.WitsmlObjects.v1311.ObjLog log){
-        String result = "{";
+        return DotLogDataEncoder.encode(getCurveMnemonics(log), log.getLogData().getData());
+    }
+
+    /**
+     * Same as convertDataToDotFrom1411, but without the data rows, for
+     * checks that only need the mnemonicList.
+     */
+    public static String convertMnemonicsToDotFrom1411(com.hashmapinc.tempus.WitsmlObjects.v1411.ObjLog log){
+        return DotLogDataEncoder.encode(getCurveMnemonics(log), Collections.emptyList());
+    }
+
+    /**
+     * Same as convertDataToDotFrom1311, but without the data rows, for
+     * checks that only need the mnemonicList.
+     */
+    public static String convertMnemonicsToDotFrom1311(com.hashmapinc.tempus.WitsmlObjects.v1311.ObjLog log){
+        return DotLogDataEncoder.encode(getCurveMnemonics(log), Collections.emptyList());
+    }
+
+    /**
+     * Splits the data of a 1.4.1.1 log into packets of at most maxRows
+     * rows and roughly maxChars chars, see DotLogDataEncoder.splitPackets.
+     */
+    public static List<DotLogDataPacket> convertDataToDotPacketsFrom1411(
+            com.hashmapinc.tempus.WitsmlObjects.v1411.ObjLog log, int maxRows, int maxChars){
+        return DotLogDataEncoder.splitPackets(getCurveMnemonics(log), log.getLogData().get(0).getData(),
+                maxRows, maxChars);
+    }
+
+    /**
+     * Splits the data of a 1.3.1.1 log into packets of at most maxRows
+     * rows and roughly maxChars chars, see DotLogDataEncoder.splitPackets.
+     */
+    public static List<DotLogDataPacket> convertDataToDotPacketsFrom1311(
+            com.hashmapinc.tempus.WitsmlObjects.v1311.ObjLog log, int maxRows, int maxChars){
+        return DotLogDataEncoder.splitPackets(getCurveMnemonics(log), log.getLogData().getData(),
+                maxRows, maxChars);
+    }
+
+    private static String getCurveMnemonics(com.hashmapinc.tempus.WitsmlObjects.v1411.ObjLog log){
+        String wml20MnemonicList = log.getLogData().get(0).getMnemonicList();
+        return wml20MnemonicList.substring(wml20MnemonicList.indexOf(",")+1);
+    }
+
+    private static String getCurveMnemonics(com.hashmapinc.tempus.WitsmlObjects.v1311.ObjLog log){
         StringBuilder mnemList= new StringBuilder();
         for (int i = 1; i < log.getLogCurveInfo().size(); i++){
             mnemList.append(log.getLogCurveInfo().get(i).getMnemonic());
             if ((i + 1) < log.getLogCurveInfo().size())
                 mnemList.append(",");
         }
-        result = result + "\"mnemonicList\":" + "\"" + mnemList + "\"" + ",";
-        result = result + "\"data\":" + "\"" + convertDataToWitsml20From1311(log) + "\"}";
-        return result;
+        return mnemList.toString();
     }
 
     // Code added to build log data request
@@ -145,178 +163,33 @@ public class DotLogDataHelper extends LogDataHelper {
     //code added for logData Transformation
 
     public static CsLogData convertTo1411FromDot(JSONObject object,String indexType, String indexCurve, String indexUnit ){
-        JSONArray jsonValues = (JSONArray)object.get("value");
+        // depth indexes sort numerically, everything else lexically
+        DotLogData logData = DotLogData.fromJson(object, indexCurve, "depth".equals(indexType));
+        return convertTo1411FromDot(logData.getColumns(), indexCurve, indexUnit);
+    }
+
+    public static CsLogData convertTo1411FromDot(ColumnarLogData columns, String indexCurve, String indexUnit){
         ArrayList<String> mnems = new ArrayList<String>();
         ArrayList<String> units = new ArrayList<String>();
         mnems.add(indexCurve);
         units.add(indexUnit);
-        SortedMap<String, String[]> values = new TreeMap<>();
-        Boolean indexCurveExists = false;
-        //Check if values contains index Channel
-        for(int i = 0; i < jsonValues.length(); i ++)
-        {
-            JSONObject currentValue = (JSONObject)jsonValues.get(i);
-            var mnemonic = currentValue.get("name").toString();
-            if(mnemonic.equalsIgnoreCase(indexCurve))
-            {
-                indexCurveExists = true;
-                break;
-            }
-        }
+        mnems.addAll(columns.getMnemonics());
+        units.addAll(columns.getUnits());
 
-        //Iterate through and get values
-        Boolean indexCurvePassed = false;
-        for(int i = 0; i < jsonValues.length(); i ++)
-        {
-            JSONObject currentValue = (JSONObject)jsonValues.get(i);
-            var mnemonic = currentValue.get("name").toString();
-            var unit = currentValue.get("unit").toString();
-            if(mnemonic.equalsIgnoreCase(indexCurve))
-            {
-                indexCurvePassed = true;
-                continue;
-            }
-            mnems.add(mnemonic);
-            units.add(unit);
-            JSONArray dataPoints = currentValue.getJSONArray("values");
-            for(int j = 0; j < dataPoints.length(); j ++)
-            {
-                JSONObject dataPoint = (JSONObject)dataPoints.get(j);
-                String index = dataPoint.keys().next().toString();
-                String value = dataPoint.get(index).toString();
-                if(!values.containsKey(index))
-                {
-                    if(indexCurveExists.booleanValue())
-                    {
-                        values.put(index, new String[jsonValues.length() - 1]);
-                    }
-                    else
-                    {
-                        values.put(index, new String[jsonValues.length()]);
-                    }
-                }
-                if(indexCurvePassed.booleanValue())
-                {
-                    values.get(index)[i - 1] = value;
-                }
-                else
-                {
-                    values.get(index)[i] = value;
-                }
-            }
-        }
-        
-        //sorting
+        //Build the Log Data
         CsLogData data = new CsLogData();
-        List<String> dataRows = new ArrayList<>();
-        if (indexType.equals("depth")) {
-            Map<Double, String[]> newMap = values.entrySet().stream()
-                    .collect(Collectors.toMap(entry -> Double.parseDouble(entry.getKey()), Map.Entry::getValue));
-            Map<Double, String[]> sortedMap = new TreeMap<Double, String[]>(newMap);
-
-            //Build the Log Data
-
-            data.setMnemonicList(String.join(",", mnems));
-            data.setUnitList(String.join(",", units));
-            Iterator valueIterator = sortedMap.entrySet().iterator();
-            while (valueIterator.hasNext()) {
-                Map.Entry pair = (Map.Entry)valueIterator.next();
-                StringBuilder logDataRow = new StringBuilder();
-                logDataRow.append(pair.getKey());
-                logDataRow.append(',');
-                logDataRow.append(String.join(",", (String[])pair.getValue()));
-                dataRows.add(logDataRow.toString());
-                valueIterator.remove(); // avoids a ConcurrentModificationException
-            }
-
-        }else{
-            //Build the Log Data
-            data.setMnemonicList(String.join(",", mnems));
-            data.setUnitList(String.join(",", units));
-            Iterator valueIterator = values.entrySet().iterator();
-            while (valueIterator.hasNext()) {
-                Map.Entry pair = (Map.Entry)valueIterator.next();
-                StringBuilder logDataRow = new StringBuilder();
-                logDataRow.append(pair.getKey());
-                logDataRow.append(',');
-                logDataRow.append(String.join(",", (String[])pair.getValue()));
-                dataRows.add(logDataRow.toString());
-                valueIterator.remove(); // avoids a ConcurrentModificationException
-            }
-
-        }
-        data.setData(dataRows);
+        data.setMnemonicList(String.join(",", mnems));
+        data.setUnitList(String.join(",", units));
+        data.setData(columns.toDataRows());
         return data;
     }
 
     public static com.hashmapinc.tempus.WitsmlObjects.v1311.CsLogData convertTo1311FromDot(JSONObject object, String indexCurve){
-        JSONArray jsonValues = (JSONArray)object.get("value");
-        SortedMap<String, String[]> values = new TreeMap<>();
-        Boolean indexCurveExists = false;
-        for(int i = 0; i < jsonValues.length(); i ++)
-        {
-            JSONObject currentValue = (JSONObject)jsonValues.get(i);
-            var mnemonic = currentValue.get("name").toString();
-            if(mnemonic.equalsIgnoreCase(indexCurve))
-            {
-                indexCurveExists = true;
-                break;
-            }
-        }
-
-        Boolean indexCurvePassed = false;
-        for(int i = 0; i < jsonValues.length(); i ++)
-        {
-            JSONObject currentValue = (JSONObject)jsonValues.get(i);
-            var mnemonic = currentValue.get("name").toString();
-            if(mnemonic.equalsIgnoreCase(indexCurve))
-            {
-                indexCurvePassed = true;
-                continue;
-            }
-            JSONArray dataPoints = currentValue.getJSONArray("values");
-            //Iterate through and get values
-            for(int j = 0; j < dataPoints.length(); j ++)
-            {
-                JSONObject dataPoint = (JSONObject)dataPoints.get(j);
-                String index = dataPoint.keys().next().toString();
-                String value = dataPoint.get(index).toString();
-                if (!values.containsKey(index))
-                {
-                    if(indexCurveExists.booleanValue())
-                    {
-                        values.put(index, new String[jsonValues.length() - 1]);
-                    }
-                    else
-                    {
-                        values.put(index, new String[jsonValues.length()]);
-                    }
-                }
-                if(indexCurvePassed.booleanValue())
-                {
-                    values.get(index)[i - 1] = value;
-                }
-                else
-                {
-                    values.get(index)[i] = value;
-                }
-            }
-        }
+        ColumnarLogData columns = DotLogData.fromJson(object, indexCurve, false).getColumns();
 
         //Build the Log Data
         com.hashmapinc.tempus.WitsmlObjects.v1311.CsLogData data = new com.hashmapinc.tempus.WitsmlObjects.v1311.CsLogData();
-        List<String> dataRows = new ArrayList<>();
-        Iterator valueIterator = values.entrySet().iterator();
-        while (valueIterator.hasNext()) {
-            Map.Entry pair = (Map.Entry)valueIterator.next();
-            StringBuilder logDataRow = new StringBuilder();
-            logDataRow.append(pair.getKey());
-            logDataRow.append(',');
-            logDataRow.append(String.join(",", (String[])pair.getValue()));
-            dataRows.add(logDataRow.toString());
-            valueIterator.remove(); // avoids a ConcurrentModificationException
-        }
-        data.setData(dataRows);
+        data.setData(columns.toDataRows());
         return data;
     }
 }
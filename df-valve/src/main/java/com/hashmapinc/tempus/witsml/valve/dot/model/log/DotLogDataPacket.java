@@ -0,0 +1,86 @@
+/**
+ * Copyright © 2018-2019 Hashmap, Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hashmapinc.tempus.witsml.valve.dot.model.log;
+
+import java.util.List;
+
+/**
+ * A consecutive run of WITSML CSV data rows that is posted to DoT as one
+ * channel data body.
+ *
+ * The packet only refers to the rows of the log; its body is encoded
+ * when it is sent, so a large append holds no more encoded data than the
+ * packets in flight.
+ */
+public class DotLogDataPacket {
+    private final String mnemonicList;
+    private final List<String> dataLines;
+    private final int firstRow;
+
+    /**
+     * @param mnemonicList - comma separated curve mnemonics (index excluded)
+     * @param dataLines - the packet's data rows (index first)
+     * @param firstRow - position of the packet's first row in the log, 0 based
+     */
+    public DotLogDataPacket(String mnemonicList, List<String> dataLines, int firstRow) {
+        this.mnemonicList = mnemonicList;
+        this.dataLines = dataLines;
+        this.firstRow = firstRow;
+    }
+
+    /**
+     * @return the DoT data body of the packet
+     */
+    public String getBody() {
+        return DotLogDataEncoder.encode(this.mnemonicList, this.dataLines);
+    }
+
+    /**
+     * @return number of rows in the packet
+     */
+    public int getRowCount() {
+        return this.dataLines.size();
+    }
+
+    /**
+     * @return index of the first row
+     */
+    public String getStartIndex() {
+        return getIndex(this.dataLines.get(0));
+    }
+
+    /**
+     * @return index of the last row
+     */
+    public String getEndIndex() {
+        return getIndex(this.dataLines.get(this.dataLines.size() - 1));
+    }
+
+    /**
+     * @return the rows and index range of the packet, e.g.
+     *         "rows 1-10000 (index 0 to 2499.75)"
+     */
+    @Override
+    public String toString() {
+        return "rows " + (this.firstRow + 1) + "-" + (this.firstRow + this.dataLines.size())
+                + " (index " + getStartIndex() + " to " + getEndIndex() + ")";
+    }
+
+    private static String getIndex(String row) {
+        int comma = row.indexOf(',');
+        return (comma == -1 ? row : row.substring(0, comma)).trim();
+    }
+}
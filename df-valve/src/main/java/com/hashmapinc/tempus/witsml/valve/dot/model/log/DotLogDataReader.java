@@ -0,0 +1,173 @@
+/**
+ * Copyright © 2018-2019 Hashmap, Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hashmapinc.tempus.witsml.valve.dot.model.log;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Token-streaming reader for DoT depthdata/timedata responses:
+ *
+ *     {"value":[{"name":"a","unit":"m","values":[{"2.0":1.5},{"1.0":null}]}]}
+ *
+ * The response is consumed straight from the HTTP entity and every
+ * value is handed to the log data columns and the per-channel index
+ * ranges as it is read, so neither the response body String nor a
+ * JSON tree is ever held in memory.
+ *
+ * Values are rendered the same way org.json renders them, so the
+ * result matches DotLogData.fromJson for the same response.
+ */
+public class DotLogDataReader {
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    /**
+     * Reads a DoT log data response. The stream is closed when done.
+     *
+     * @param in - DoT depthdata/timedata response body
+     * @param indexCurve - mnemonic of the index curve
+     * @param numericIndex - true to merge on numeric (depth) indexes
+     * @return DotLogData for the response
+     * @throws IOException if the stream cannot be read or is not a DoT log data response
+     */
+    public static DotLogData read(InputStream in, String indexCurve, boolean numericIndex) throws IOException {
+        DotLogData.Builder builder = new DotLogData.Builder(indexCurve, numericIndex);
+        try (JsonParser parser = JSON_FACTORY.createParser(in)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT)
+                throw new JsonParseException(parser, "Expected a DoT log data object");
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken token = parser.nextToken();
+                if ("value".equals(field) && token == JsonToken.START_ARRAY) {
+                    while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                        if (token != JsonToken.START_OBJECT)
+                            throw new JsonParseException(parser, "Expected a DoT channel object");
+                        readChannel(parser, builder);
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+        return builder.build();
+    }
+
+    private static void readChannel(JsonParser parser, DotLogData.Builder builder) throws IOException {
+        String name = null;
+        String unit = null;
+        // index/value pairs seen before the channel name, normally empty
+        List<String> pending = null;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken token = parser.nextToken();
+            if ("name".equals(field) && name == null) {
+                name = readValue(parser, token);
+                builder.startChannel(name, unit);
+                if (pending != null) {
+                    for (int i = 0; i < pending.size(); i += 2)
+                        builder.addPoint(pending.get(i), pending.get(i + 1));
+                    pending = null;
+                }
+            } else if ("unit".equals(field)) {
+                unit = readValue(parser, token);
+                if (name != null)
+                    builder.setUnit(unit);
+            } else if ("values".equals(field) && token == JsonToken.START_ARRAY) {
+                if (name == null && pending == null)
+                    pending = new ArrayList<>();
+                readValues(parser, builder, pending);
+            } else {
+                parser.skipChildren();
+            }
+        }
+
+        if (name == null)
+            throw new JsonParseException(parser, "DoT channel without a name");
+    }
+
+    // values: [{"<index>": <value>}, ...]
+    private static void readValues(JsonParser parser, DotLogData.Builder builder, List<String> pending)
+            throws IOException {
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            if (token != JsonToken.START_OBJECT)
+                throw new JsonParseException(parser, "Expected a DoT data point object");
+
+            String index = null;
+            String value = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String key = parser.getCurrentName();
+                token = parser.nextToken();
+                if (index == null) {
+                    index = key;
+                    value = readValue(parser, token);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            if (index == null)
+                continue;
+
+            if (pending != null) {
+                pending.add(index);
+                pending.add(value);
+            } else {
+                builder.addPoint(index, value);
+            }
+        }
+    }
+
+    /**
+     * Renders the current value like org.json's toString of the parsed
+     * value: numbers with a fraction or exponent go through Double,
+     * integers and strings are kept verbatim.
+     */
+    private static String readValue(JsonParser parser, JsonToken token) throws IOException {
+        switch (token) {
+            case VALUE_STRING:
+            case VALUE_NUMBER_INT:
+                return parser.getText();
+            case VALUE_NUMBER_FLOAT:
+                String text = parser.getText();
+                double number = Double.parseDouble(text);
+                return Double.isInfinite(number) || Double.isNaN(number) ? text : Double.toString(number);
+            case VALUE_TRUE:
+                return "true";
+            case VALUE_FALSE:
+                return "false";
+            case VALUE_NULL:
+                return "null";
+            default:
+                // nested object or array, kept as compact JSON
+                StringWriter writer = new StringWriter();
+                try (JsonGenerator generator = JSON_FACTORY.createGenerator(writer)) {
+                    generator.copyCurrentStructure(parser);
+                }
+                return writer.toString();
+        }
+    }
+}
@@ -22,6 +22,7 @@ import com.hashmapinc.tempus.witsml.valve.ValveAuthException;
 import com.hashmapinc.tempus.witsml.valve.ValveException;
 import com.hashmapinc.tempus.witsml.valve.dot.DotDelegator;
 import com.hashmapinc.tempus.witsml.valve.dot.client.DotClient;
+import com.hashmapinc.tempus.witsml.valve.dot.client.NameCache;
 import com.hashmapinc.tempus.witsml.valve.dot.graphql.GraphQLQueryConverter;
 import com.hashmapinc.tempus.witsml.valve.dot.graphql.GraphQLRespConverter;
 import com.hashmapinc.tempus.witsml.valve.dot.model.log.channel.Channel;
@@ -54,7 +55,7 @@ public class LogConverterExtended extends com.hashmapinc.tempus.WitsmlObjects.Ut
 
     public static ObjLog convertDotResponseToWitsml(String wellSearchEndpoint,String wellBoreSearchEndpoint,DotClient client, String username,
                                                     String password, String exchangeID,AbstractWitsmlObject witsmlObject,String channelSet,
-                                                    List<Channel> channels,String channelsDepthResponse,Boolean getAllChannels,String indexType, boolean getData) throws
+                                                    List<Channel> channels,DotLogData logData,Boolean getAllChannels,String indexType, boolean getData) throws
             DatatypeConfigurationException, ParseException,ValveException, ValveAuthException, UnirestException {
 
         ObjLog log;
@@ -68,13 +69,12 @@ public class LogConverterExtended extends com.hashmapinc.tempus.WitsmlObjects.Ut
 
         //LogData requested or not
         if (getData){
-            if (channelsDepthResponse != null) {
-                JSONObject logDataJsonObject = new JSONObject(channelsDepthResponse);
+            if (logData != null) {
                 List<com.hashmapinc.tempus.WitsmlObjects.v1411.CsLogData> curves = new ArrayList<>();
                 var channelIndex = cs.get(0).getIndex().get(0);
-                curves.add(DotLogDataHelper.convertTo1411FromDot(logDataJsonObject,indexType, channelIndex.getMnemonic(), channelIndex.getUom()));
+                curves.add(DotLogDataHelper.convertTo1411FromDot(logData.getColumns(), channelIndex.getMnemonic(), channelIndex.getUom()));
                 log.setLogData(curves);
-                List<com.hashmapinc.tempus.WitsmlObjects.v1411.CsLogCurveInfo> lcis = Channel.to1411WithLogData(channels,logDataJsonObject,cs.get(0));
+                List<com.hashmapinc.tempus.WitsmlObjects.v1411.CsLogCurveInfo> lcis = Channel.to1411WithLogData(channels,logData,cs.get(0));
                 log.setLogCurveInfo(lcis);
             }
         }else{
@@ -87,8 +87,14 @@ public class LogConverterExtended extends com.hashmapinc.tempus.WitsmlObjects.Ut
 
     private static String getWellName(String wellSearchEndpoint,DotClient client, String username,
                                       String password, String exchangeID,AbstractWitsmlObject witsmlObject) throws ValveException, ValveAuthException, UnirestException {
+        // check the cache first
+        String wellUid = witsmlObject.getGrandParentUid();
+        boolean cacheable = !isEmpty(wellUid);
+        String wellName = cacheable ? NameCache.getWellName(wellUid) : null;
+        if (wellName != null)
+            return wellName;
+
         // REST call
-        String wellName=null;
         String query;
         try {
             query = GraphQLQueryConverter.getWellNameQuery(witsmlObject);
@@ -118,17 +124,25 @@ public class LogConverterExtended extends com.hashmapinc.tempus.WitsmlObjects.Ut
             // get the wellborename of the first wellbore in the response
             wellName = GraphQLRespConverter.getWellNameFromGraphqlResponse(new JSONObject(response.getBody()));
 
-            // cache the wellbore uuid/uid
-            //UidUuidCache.putInCache(wellName, witsmlObject.getParentUid(), witsmlObject.getGrandParentUid());
-
+            // cache the well name
+            if (cacheable) {
+                NameCache.putWellName(wellUid, wellName);
+            }
         }
         return wellName;
     }
 
     private static String getWelBorelName(String wellBoreSearchEndpoint,DotClient client, String username,
                                           String password, String exchangeID,AbstractWitsmlObject witsmlObject) throws ValveException, ValveAuthException, UnirestException {
+        // check the cache first
+        String wellUid = witsmlObject.getGrandParentUid();
+        String wellboreUid = witsmlObject.getParentUid();
+        boolean cacheable = !isEmpty(wellUid) && !isEmpty(wellboreUid);
+        String wellboreName = cacheable ? NameCache.getWellboreName(wellUid, wellboreUid) : null;
+        if (wellboreName != null)
+            return wellboreName;
+
         // REST call
-        String wellboreName=null;
         String query;
         try {
             query = GraphQLQueryConverter.getWellboreNameQuery(witsmlObject);
@@ -157,11 +171,16 @@ public class LogConverterExtended extends com.hashmapinc.tempus.WitsmlObjects.Ut
             // get the wellborename of the first wellbore in the response
             wellboreName = GraphQLRespConverter.getWellboreNameFromGraphqlResponse(new JSONObject(response.getBody()));
 
-            // cache the wellbore uuid/uid
-            //UidUuidCache.putInCache(wellboreName, witsmlObject.getParentUid(), witsmlObject.getGrandParentUid());
-
+            // cache the wellbore name
+            if (cacheable) {
+                NameCache.putWellboreName(wellUid, wellboreUid, wellboreName);
+            }
         }
         return wellboreName;
     }
 
+    private static boolean isEmpty(String uid) {
+        return uid == null || uid.isEmpty();
+    }
+
 }
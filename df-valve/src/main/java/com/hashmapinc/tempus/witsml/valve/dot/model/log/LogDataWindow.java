@@ -0,0 +1,126 @@
+/**
+ * Copyright © 2018-2019 Hashmap, Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hashmapinc.tempus.witsml.valve.dot.model.log;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One index range of a log data request. Long ranges are split into
+ * several windows so they can be fetched from DoT concurrently.
+ */
+public class LogDataWindow {
+    private final String startIndex;
+    private final String endIndex;
+
+    public LogDataWindow(String startIndex, String endIndex) {
+        this.startIndex = startIndex;
+        this.endIndex = endIndex;
+    }
+
+    /**
+     * @return start of the window, null for an open start
+     */
+    public String getStartIndex() {
+        return this.startIndex;
+    }
+
+    /**
+     * @return end of the window, null for an open end
+     */
+    public String getEndIndex() {
+        return this.endIndex;
+    }
+
+    /**
+     * Splits the requested index range into windows of at most windowSize.
+     *
+     * The range to split is the requested range clipped to the channel
+     * set's own start/end index. Only interior cut points are added: the
+     * top window keeps the requested end and the bottom window keeps the
+     * requested start (either may be null), so nothing outside the
+     * channel set's reported range is lost. Adjacent windows share their
+     * boundary index.
+     *
+     * If the range cannot be determined or fits in a single window, the
+     * request is returned unchanged as the only window.
+     *
+     * @param depthIndexed - true for depth logs, false for time logs
+     * @param startIndex - requested start index, may be null
+     * @param endIndex - requested end index, may be null
+     * @param channelSetStart - channel set start index, may be null
+     * @param channelSetEnd - channel set end index, may be null
+     * @param windowSize - window size in index units for depth, seconds for time;
+     *                   0 or less disables splitting
+     * @param maxWindows - upper bound on the number of windows
+     * @return windows ordered from the highest index to the lowest,
+     *         matching the sortDesc order DoT returns data in
+     */
+    public static List<LogDataWindow> split(boolean depthIndexed, String startIndex, String endIndex,
+                                            String channelSetStart, String channelSetEnd,
+                                            double windowSize, int maxWindows) {
+        List<LogDataWindow> single = Collections.singletonList(new LogDataWindow(startIndex, endIndex));
+        if (windowSize <= 0 || maxWindows <= 1)
+            return single;
+
+        double low;
+        double high;
+        try {
+            Double start = depthIndexed ? parseDepth(startIndex) : parseTime(startIndex);
+            Double end = depthIndexed ? parseDepth(endIndex) : parseTime(endIndex);
+            Double csStart = depthIndexed ? parseDepth(channelSetStart) : parseTime(channelSetStart);
+            Double csEnd = depthIndexed ? parseDepth(channelSetEnd) : parseTime(channelSetEnd);
+            if ((start == null && csStart == null) || (end == null && csEnd == null))
+                return single;
+            low = (start == null) ? csStart : (csStart == null) ? start : Math.max(start, csStart);
+            high = (end == null) ? csEnd : (csEnd == null) ? end : Math.min(end, csEnd);
+        } catch (NumberFormatException | DateTimeParseException ex) {
+            return single;
+        }
+
+        // time windows are configured in seconds, indexes are parsed to millis
+        double size = depthIndexed ? windowSize : windowSize * 1000;
+        double range = high - low;
+        if (!(range > size))
+            return single;
+        int count = (int) Math.min(Math.ceil(range / size), maxWindows);
+
+        List<LogDataWindow> windows = new ArrayList<>(count);
+        String upper = endIndex;
+        for (int i = count - 1; i > 0; i--) {
+            double cut = low + range * i / count;
+            String lower = depthIndexed ? Double.toString(cut) : Instant.ofEpochMilli((long) cut).toString();
+            windows.add(new LogDataWindow(lower, upper));
+            upper = lower;
+        }
+        windows.add(new LogDataWindow(startIndex, upper));
+        return windows;
+    }
+
+    private static Double parseDepth(String index) {
+        return (index == null || index.isEmpty()) ? null : Double.parseDouble(index);
+    }
+
+    private static Double parseTime(String index) {
+        return (index == null || index.isEmpty())
+                ? null
+                : (double) OffsetDateTime.parse(index).toInstant().toEpochMilli();
+    }
+}
@@ -24,11 +24,9 @@ import com.fasterxml.jackson.databind.util.StdDateFormat;
 import com.hashmapinc.tempus.WitsmlObjects.v1311.GenericMeasure;
 import com.hashmapinc.tempus.WitsmlObjects.v1411.ShortNameStruct;
 import com.hashmapinc.tempus.witsml.valve.ValveException;
+import com.hashmapinc.tempus.witsml.valve.dot.model.log.DotLogData;
 import com.hashmapinc.tempus.witsml.valve.dot.model.log.channelset.*;
 
-import org.json.JSONArray;
-import org.json.JSONObject;
-
 import javax.xml.datatype.DatatypeConfigurationException;
 import javax.xml.datatype.DatatypeFactory;
 import javax.xml.datatype.XMLGregorianCalendar;
@@ -815,8 +813,7 @@ public class Channel {
     }
 
     public static List<com.hashmapinc.tempus.WitsmlObjects.v1411.CsLogCurveInfo> to1411WithLogData(
-            List<Channel> channels, JSONObject object, ChannelSet channelSet) {
-        JSONArray jsonValues = (JSONArray) object.get("value");
+            List<Channel> channels, DotLogData logData, ChannelSet channelSet) {
 
         List<com.hashmapinc.tempus.WitsmlObjects.v1411.CsLogCurveInfo> curves = new ArrayList<>();
         if (channels == null || channels.isEmpty())
@@ -876,91 +873,28 @@ public class Channel {
                 lci.setSensorOffset(SensorOffset.to1411(c.getSensorOffset()));
                 lci.setWellDatum(WellDatum.to1411(c.getWellDatum()));
                 lci.setClassIndex(String.valueOf(c.getClassIndex()));
-                if (c.getTimeDepth().toLowerCase().contains("time")) {
-                    // logic to implement startIndex and endIndex from logData
-                    for (int i = 0; i < jsonValues.length(); i++) {
-                        JSONObject currentValue = (JSONObject) jsonValues.get(i);
-                        if (currentValue.get("name").toString().equalsIgnoreCase(c.getMnemonic())) {
-                            JSONArray dataPoints = currentValue.getJSONArray("values");
-                            if (dataPoints.length() > 0) {
-                                for (int j = 0; j < dataPoints.length(); j++) {
-                                    JSONObject dataPoint = (JSONObject) dataPoints.get(j);
-                                    String maxIndex = dataPoint.keys().next().toString();
-                                    String maxValue = dataPoint.get(maxIndex).toString();
-                                    if (!maxValue.equalsIgnoreCase("null") && !maxValue.equalsIgnoreCase("")) {
-                                        lci.setMaxDateTimeIndex(maxIndex);
-                                        j = dataPoints.length();
-                                        JSONArray toReturn = new JSONArray();
-                                        int length = dataPoints.length() - 1;
-                                        for (int k = length; k >= 0; k--) {
-                                            toReturn.put(dataPoints.getJSONObject(k));
-                                        }
-                                        for (int l = 0; l < toReturn.length(); l++) {
-                                            JSONObject minDataPoint = (JSONObject) toReturn.get(l);
-                                            String minIndex = minDataPoint.keys().next().toString();
-                                            String minValue = minDataPoint.get(minIndex).toString();
-                                            if (!minValue.equalsIgnoreCase("null") && !minValue.equalsIgnoreCase("")) {
-                                                lci.setMinDateTimeIndex(minIndex);
-                                                l = toReturn.length();
-                                            }
-                                        }
-                                    }
-                                }
-                            } else {
-                                lci.setMaxDateTimeIndex(channelSet.getEndIndex());
-                                lci.setMinDateTimeIndex(channelSet.getStartIndex());
-                            }
+                // startIndex and endIndex from the logData, if DoT returned this channel
+                boolean timeIndexed = c.getTimeDepth().toLowerCase().contains("time");
+                DotLogData.IndexRange range = logData.getIndexRange(c.getMnemonic());
+                if (range != null && timeIndexed) {
+                    if (range.getPointCount() > 0) {
+                        if (range.getMaxIndex() != null) {
+                            lci.setMaxDateTimeIndex(range.getMaxIndex());
+                            lci.setMinDateTimeIndex(range.getMinIndex());
                         }
+                    } else {
+                        lci.setMaxDateTimeIndex(channelSet.getEndIndex());
+                        lci.setMinDateTimeIndex(channelSet.getStartIndex());
                     }
-                } else {
-                    // logic to implement startIndex and endIndex from logData
-                    for (int i = 0; i < jsonValues.length(); i++) {
-                        JSONObject currentValue = (JSONObject) jsonValues.get(i);
-                        if (currentValue.get("name").toString().equalsIgnoreCase(c.getMnemonic())) {
-                            JSONArray dataPoints = currentValue.getJSONArray("values");
-                            if (dataPoints.length() > 0) {
-                                for (int j = 0; j < dataPoints.length(); j++) {
-                                    JSONObject dataPoint = (JSONObject) dataPoints.get(j);
-                                    String maxIndex = dataPoint.keys().next().toString();
-                                    String maxValue = dataPoint.get(maxIndex).toString();
-                                    if (!maxValue.equalsIgnoreCase("null") && !maxValue.equalsIgnoreCase("")) {
-                                        com.hashmapinc.tempus.WitsmlObjects.v1411.GenericMeasure maxMeasure = new com.hashmapinc.tempus.WitsmlObjects.v1411.GenericMeasure();
-                                        maxMeasure.setUom("m");
-                                        maxMeasure.setValue(Double.parseDouble(maxIndex));
-                                        lci.setMaxIndex(maxMeasure);
-                                        j = dataPoints.length();
-
-                                        JSONArray toReturn = new JSONArray();
-                                        int length = dataPoints.length() - 1;
-                                        for (int k = length; k >= 0; k--) {
-                                            toReturn.put(dataPoints.getJSONObject(k));
-                                        }
-                                        for (int l = 0; l < toReturn.length(); l++) {
-                                            JSONObject minDataPoint = (JSONObject) toReturn.get(l);
-                                            String minIndex = minDataPoint.keys().next().toString();
-                                            String minValue = minDataPoint.get(minIndex).toString();
-                                            if (!minValue.equalsIgnoreCase("null") && !minValue.equalsIgnoreCase("")) {
-                                                com.hashmapinc.tempus.WitsmlObjects.v1411.GenericMeasure minMeasure = new com.hashmapinc.tempus.WitsmlObjects.v1411.GenericMeasure();
-                                                minMeasure.setUom("m");
-                                                minMeasure.setValue(Double.parseDouble(minIndex));
-                                                lci.setMinIndex(minMeasure);
-                                                l = toReturn.length();
-                                            }
-                                        }
-                                    }
-                                }
-                            } else {
-                                com.hashmapinc.tempus.WitsmlObjects.v1411.GenericMeasure maxMeasure = new com.hashmapinc.tempus.WitsmlObjects.v1411.GenericMeasure();
-                                maxMeasure.setUom("m");
-                                maxMeasure.setValue(Double.parseDouble(channelSet.getEndIndex()));
-                                lci.setMaxIndex(maxMeasure);
-
-                                com.hashmapinc.tempus.WitsmlObjects.v1411.GenericMeasure minMeasure = new com.hashmapinc.tempus.WitsmlObjects.v1411.GenericMeasure();
-                                minMeasure.setUom("m");
-                                minMeasure.setValue(Double.parseDouble(channelSet.getStartIndex()));
-                                lci.setMinIndex(minMeasure);
-                            }
+                } else if (range != null) {
+                    if (range.getPointCount() > 0) {
+                        if (range.getMaxIndex() != null) {
+                            lci.setMaxIndex(toDepthMeasure(range.getMaxIndex()));
+                            lci.setMinIndex(toDepthMeasure(range.getMinIndex()));
                         }
+                    } else {
+                        lci.setMaxIndex(toDepthMeasure(channelSet.getEndIndex()));
+                        lci.setMinIndex(toDepthMeasure(channelSet.getStartIndex()));
                     }
                 }
                 curves.add(lci);
@@ -975,6 +909,13 @@ public class Channel {
         return curves;
     }
 
+    private static com.hashmapinc.tempus.WitsmlObjects.v1411.GenericMeasure toDepthMeasure(String index) {
+        com.hashmapinc.tempus.WitsmlObjects.v1411.GenericMeasure measure = new com.hashmapinc.tempus.WitsmlObjects.v1411.GenericMeasure();
+        measure.setUom("m");
+        measure.setValue(Double.parseDouble(index));
+        return measure;
+    }
+
     public static List<com.hashmapinc.tempus.WitsmlObjects.v1311.CsLogCurveInfo> to1311(List<Channel> channels) {
         List<com.hashmapinc.tempus.WitsmlObjects.v1311.CsLogCurveInfo> curves = new ArrayList<>();
 
@@ -0,0 +1,183 @@
+/**
+ * Copyright © 2018-2019 Hashmap, Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hashmapinc.tempus.witsml.valve;
+
+import com.hashmapinc.tempus.WitsmlObjects.AbstractWitsmlObject;
+import com.hashmapinc.tempus.WitsmlObjects.v1411.ObjLog;
+import com.hashmapinc.tempus.WitsmlObjects.v1411.ObjWell;
+import com.hashmapinc.tempus.WitsmlObjects.v1411.ObjWellbore;
+import com.hashmapinc.tempus.witsml.QueryContext;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class CachingValveTest {
+
+    @Test
+    public void shouldAnswerRepeatedQueryFromCache() throws Exception {
+        CountingValve valve = new CountingValve();
+        CachingValve caching = new CachingValve(valve, 60000, new HashMap<>(), 1024 * 1024);
+
+        assertEquals("<wells>1</wells>", caching.getObject(wellQuery("w1", "user", "<wells/>")).get());
+        assertEquals("<wells>1</wells>", caching.getObject(wellQuery("w1", "user", "<wells/>")).get());
+        assertEquals(1, valve.reads.get());
+
+        // other users and other queries are not served the cached response
+        caching.getObject(wellQuery("w1", "other", "<wells/>")).get();
+        caching.getObject(wellQuery("w1", "user", "<wells><name/></wells>")).get();
+        assertEquals(3, valve.reads.get());
+        assertEquals(1, caching.getHitCount());
+    }
+
+    @Test
+    public void shouldDropObjectAndChildrenOnWrite() throws Exception {
+        CountingValve valve = new CountingValve();
+        CachingValve caching = new CachingValve(valve, 60000, new HashMap<>(), 1024 * 1024);
+        caching.getObject(wellQuery("w1", "user", "<wells/>")).get();
+        caching.getObject(logQuery("w1", "wb1", "l1")).get();
+        caching.getObject(logQuery("w2", "wb1", "l1")).get();
+        assertEquals(3, caching.size());
+
+        // a log update does not change the well
+        caching.updateObject(logQuery("w2", "wb1", "l1")).get();
+        assertEquals(2, caching.size());
+
+        // a well update drops the well and everything below it
+        caching.updateObject(wellQuery("w1", "user", "<wells/>")).get();
+        assertEquals(0, caching.size());
+        assertEquals(3, caching.getInvalidationCount());
+    }
+
+    @Test
+    public void shouldDropSearchesOnWrite() throws Exception {
+        CountingValve valve = new CountingValve();
+        CachingValve caching = new CachingValve(valve, 60000, new HashMap<>(), 1024 * 1024);
+        caching.getObject(logQuery("w1", "wb1", "")).get();
+        caching.getObject(wellboreQuery("w1", "wb1")).get();
+
+        caching.createObject(logQuery("w1", "wb1", "l2")).get();
+        assertEquals(1, caching.size());
+    }
+
+    @Test
+    public void shouldApplyTtlByObjectType() throws Exception {
+        CountingValve valve = new CountingValve();
+        Map<String, Long> ttlByType = new HashMap<>();
+        ttlByType.put("log", 0L);
+        CachingValve caching = new CachingValve(valve, 60000, ttlByType, 1024 * 1024);
+
+        caching.getObject(logQuery("w1", "wb1", "l1")).get();
+        caching.getObject(logQuery("w1", "wb1", "l1")).get();
+        assertEquals(2, valve.reads.get());
+        assertEquals(0, caching.size());
+    }
+
+    @Test
+    public void shouldStayWithinByteBound() throws Exception {
+        CountingValve valve = new CountingValve();
+        CachingValve caching = new CachingValve(valve, 60000, new HashMap<>(), 200);
+        for (int i = 0; i < 20; i++)
+            caching.getObject(wellQuery("w" + i, "user", "<wells/>")).get();
+        assertTrue(caching.getCachedBytes() <= 200);
+        assertTrue(caching.getEvictionCount() > 0);
+
+        // the most recent query is still cached
+        caching.getObject(wellQuery("w19", "user", "<wells/>")).get();
+        assertEquals(20, valve.reads.get());
+    }
+
+    private static QueryContext wellQuery(String uid, String username, String xml) {
+        ObjWell well = new ObjWell();
+        well.setUid(uid);
+        return query("well", well, username, xml + uid);
+    }
+
+    private static QueryContext wellboreQuery(String wellUid, String uid) {
+        ObjWellbore wellbore = new ObjWellbore();
+        wellbore.setUidWell(wellUid);
+        wellbore.setUid(uid);
+        return query("wellbore", wellbore, "user", "<wellbores/>" + wellUid + uid);
+    }
+
+    private static QueryContext logQuery(String wellUid, String wellboreUid, String uid) {
+        ObjLog log = new ObjLog();
+        log.setUidWell(wellUid);
+        log.setUidWellbore(wellboreUid);
+        log.setUid(uid);
+        return query("log", log, "user", "<logs/>" + wellUid + wellboreUid + uid);
+    }
+
+    private static QueryContext query(String type, AbstractWitsmlObject obj, String username, String xml) {
+        return new QueryContext("1.4.1.1", type, new HashMap<>(), xml, Collections.singletonList(obj),
+                username, "secret", "exchange");
+    }
+
+    private static class CountingValve implements IValve {
+        private final AtomicInteger reads = new AtomicInteger();
+
+        @Override
+        public String getName() {
+            return "counting";
+        }
+
+        @Override
+        public String getDescription() {
+            return "counts the queries it gets";
+        }
+
+        @Override
+        public CompletableFuture<String> getObject(QueryContext qc) {
+            return CompletableFuture.completedFuture("<" + qc.OBJECT_TYPE + "s>" + reads.incrementAndGet()
+                    + "</" + qc.OBJECT_TYPE + "s>");
+        }
+
+        @Override
+        public String getObjectSelectionCapability(String WMLtypeIn) {
+            return null;
+        }
+
+        @Override
+        public CompletableFuture<String> createObject(QueryContext qc) {
+            return CompletableFuture.completedFuture(qc.WITSML_OBJECTS.get(0).getUid());
+        }
+
+        @Override
+        public CompletableFuture<Boolean> deleteObject(QueryContext qc) {
+            return CompletableFuture.completedFuture(true);
+        }
+
+        @Override
+        public CompletableFuture<Boolean> updateObject(QueryContext qc) {
+            return CompletableFuture.completedFuture(true);
+        }
+
+        @Override
+        public void authenticate(String userName, String password) {
+        }
+
+        @Override
+        public Map<String, AbstractWitsmlObject[]> getCap() {
+            return new HashMap<>();
+        }
+    }
+}
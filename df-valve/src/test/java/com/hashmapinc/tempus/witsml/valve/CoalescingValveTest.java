@@ -0,0 +1,198 @@
+/**
+ * Copyright © 2018-2019 Hashmap, Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hashmapinc.tempus.witsml.valve;
+
+import com.hashmapinc.tempus.WitsmlObjects.AbstractWitsmlObject;
+import com.hashmapinc.tempus.WitsmlObjects.v1411.ObjWell;
+import com.hashmapinc.tempus.witsml.QueryContext;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class CoalescingValveTest {
+
+    @Test
+    public void shouldShareOneExecutionForIdenticalQueries() throws Exception {
+        BlockingValve valve = new BlockingValve();
+        CoalescingValve coalescing = new CoalescingValve(valve);
+        ExecutorService executor = Executors.newFixedThreadPool(10);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            results.add(executor.submit(() -> coalescing.getObject(query("w1", "user")).get()));
+            assertTrue(valve.started.await(5, TimeUnit.SECONDS));
+            for (int i = 0; i < 9; i++)
+                results.add(executor.submit(() -> coalescing.getObject(query("w1", "user")).get()));
+            while (coalescing.getCoalescedCount() < 9)
+                Thread.sleep(1);
+
+            valve.release.countDown();
+            for (Future<String> result : results)
+                assertEquals("<wells>1</wells>", result.get(5, TimeUnit.SECONDS));
+            assertEquals(1, valve.reads.get());
+            assertEquals(0, coalescing.getInFlightCount());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void shouldNotShareBetweenUsers() throws Exception {
+        BlockingValve valve = new BlockingValve();
+        valve.release.countDown();
+        CoalescingValve coalescing = new CoalescingValve(valve);
+        coalescing.getObject(query("w1", "user")).get();
+        coalescing.getObject(query("w1", "other")).get();
+        coalescing.getObject(query("w1", "user")).get();
+        assertEquals(3, valve.reads.get());
+        assertEquals(0, coalescing.getCoalescedCount());
+    }
+
+    @Test
+    public void shouldShareFailure() throws Exception {
+        BlockingValve valve = new BlockingValve();
+        valve.failure = new ValveException("DoT is down");
+        CoalescingValve coalescing = new CoalescingValve(valve);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> leader = executor.submit(() -> coalescing.getObject(query("w1", "user")));
+            assertTrue(valve.started.await(5, TimeUnit.SECONDS));
+            CompletableFuture<String> follower = coalescing.getObject(query("w1", "user"));
+            valve.release.countDown();
+            try {
+                follower.get(5, TimeUnit.SECONDS);
+                fail("the failure should be shared");
+            } catch (ExecutionException e) {
+                assertEquals("DoT is down", e.getCause().getMessage());
+            }
+            try {
+                leader.get(5, TimeUnit.SECONDS);
+                fail("the leader should get the failure");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof ValveException);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void shouldNotCancelFollowersWithLeader() throws Exception {
+        BlockingValve valve = new BlockingValve();
+        valve.pending = new CompletableFuture<>();
+        CoalescingValve coalescing = new CoalescingValve(valve);
+
+        CompletableFuture<String> leader = coalescing.getObject(query("w1", "user"));
+        CompletableFuture<String> follower = coalescing.getObject(query("w1", "user"));
+        assertTrue(leader.cancel(true));
+
+        valve.pending.complete("<wells>1</wells>");
+        assertEquals("<wells>1</wells>", follower.get(5, TimeUnit.SECONDS));
+        assertTrue(leader.isCancelled());
+        assertEquals(1, valve.reads.get());
+        assertEquals(0, coalescing.getInFlightCount());
+    }
+
+    private static QueryContext query(String uid, String username) {
+        ObjWell well = new ObjWell();
+        well.setUid(uid);
+        return new QueryContext("1.4.1.1", "well", new HashMap<>(), "<wells/>" + uid,
+                Collections.singletonList(well), username, "secret", "exchange");
+    }
+
+    /**
+     * Runs queries on the calling thread like DotValve, blocking until
+     * released.
+     */
+    private static class BlockingValve implements IValve {
+        private final AtomicInteger reads = new AtomicInteger();
+        private final CountDownLatch started = new CountDownLatch(1);
+        private final CountDownLatch release = new CountDownLatch(1);
+        private volatile ValveException failure;
+        // if set, returned by getObject without blocking
+        private volatile CompletableFuture<String> pending;
+
+        @Override
+        public String getName() {
+            return "blocking";
+        }
+
+        @Override
+        public String getDescription() {
+            return "blocks queries until released";
+        }
+
+        @Override
+        public CompletableFuture<String> getObject(QueryContext qc) throws ValveException {
+            int read = reads.incrementAndGet();
+            if (pending != null)
+                return pending;
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (failure != null)
+                throw failure;
+            return CompletableFuture.completedFuture("<wells>" + read + "</wells>");
+        }
+
+        @Override
+        public String getObjectSelectionCapability(String WMLtypeIn) {
+            return null;
+        }
+
+        @Override
+        public CompletableFuture<String> createObject(QueryContext qc) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        @Override
+        public CompletableFuture<Boolean> deleteObject(QueryContext qc) {
+            return CompletableFuture.completedFuture(true);
+        }
+
+        @Override
+        public CompletableFuture<Boolean> updateObject(QueryContext qc) {
+            return CompletableFuture.completedFuture(true);
+        }
+
+        @Override
+        public void authenticate(String userName, String password) {
+        }
+
+        @Override
+        public Map<String, AbstractWitsmlObject[]> getCap() {
+            return new HashMap<>();
+        }
+    }
+}
@@ -369,6 +369,94 @@ public class DotValveTest {
 		assertEquals(expected, actual);
 	}
 
+	@Test
+	public void shouldRunLanesWithConfiguredParallelism() throws Exception {
+		Map<String, String> config = new HashMap<>();
+		config.put("write.parallelism", "1");
+		DotValve valve = new DotValve(this.mockClient, this.mockDelegator, config);
+
+		// build witsmlObjects list, each object on a lane of its own
+		ArrayList<AbstractWitsmlObject> witsmlObjects = new ArrayList<>();
+		for (String uid : new String[]{"wellbore-A", "wellbore-B", "wellbore-C"}) {
+			ObjWellbore wellbore = new ObjWellbore();
+			wellbore.setName(uid);
+			wellbore.setUid(uid);
+			witsmlObjects.add(wellbore);
+		}
+		QueryContext qc = new QueryContext(
+			"1.3.1.1",
+			"wellbore",
+			null,
+			"",
+			witsmlObjects,
+			"goodUsername",
+			"goodPassword",
+			"shouldRunLanesWithConfiguredParallelism" // exchange ID
+		);
+
+		// mock delegator behavior, answering with the thread of the lane
+		when(
+			this.mockDelegator.createObject(any(), eq(qc.USERNAME), eq(qc.PASSWORD), eq(qc.EXCHANGE_ID), eq(this.mockClient))
+		).thenAnswer(invocation -> Thread.currentThread().getName());
+
+		// test
+		String[] threads = valve.createObject(qc).get().split(",");
+		assertEquals(3, threads.length);
+		assertTrue(threads[0].startsWith("dot-write"));
+		assertEquals(threads[0], threads[1]);
+		assertEquals(threads[0], threads[2]);
+		valve.close();
+	}
+
+	@Test
+	public void shouldReportEachFailedObjectOfPluralCreate() throws Exception {
+		// build witsmlObjects list
+		ArrayList<AbstractWitsmlObject> witsmlObjects = new ArrayList<>();
+		for (String uid : new String[]{"wellbore-A", "wellbore-B", "wellbore-C"}) {
+			ObjWellbore wellbore = new ObjWellbore();
+			wellbore.setName(uid);
+			wellbore.setUid(uid);
+			witsmlObjects.add(wellbore);
+		}
+
+
+		// build query context
+		QueryContext qc = new QueryContext(
+			"1.3.1.1",
+			"wellbore",
+			null,
+			"",
+			witsmlObjects,
+			"goodUsername",
+			"goodPassword",
+			"shouldReportEachFailedObjectOfPluralCreate" // exchange ID
+		);
+
+
+		// mock delegator behavior
+		when(
+			this.mockDelegator.createObject(witsmlObjects.get(0), qc.USERNAME, qc.PASSWORD, qc.EXCHANGE_ID, this.mockClient)
+		).thenThrow(new ValveException("duplicate", (short) -405));
+		when(
+			this.mockDelegator.createObject(witsmlObjects.get(1), qc.USERNAME, qc.PASSWORD, qc.EXCHANGE_ID, this.mockClient)
+		).thenReturn("wellbore-B");
+		when(
+			this.mockDelegator.createObject(witsmlObjects.get(2), qc.USERNAME, qc.PASSWORD, qc.EXCHANGE_ID, this.mockClient)
+		).thenThrow(new ValveException("duplicate", (short) -405));
+
+
+		// test
+		try {
+			this.valve.createObject(qc);
+			fail("expected a ValveException");
+		} catch (ValveException e) {
+			assertEquals("Failed to create 2 of 3 objects: wellbore uid=wellbore-A: duplicate; " +
+					"wellbore uid=wellbore-C: duplicate", e.getMessage());
+			assertEquals(Short.valueOf((short) -405), e.getErrorCode());
+		}
+		verify(this.mockDelegator).createObject(witsmlObjects.get(1), qc.USERNAME, qc.PASSWORD, qc.EXCHANGE_ID, this.mockClient);
+	}
+
 	@Test
 	public void shouldDeleteSingleObject() throws Exception {
 		// build witsmlObjects list
@@ -938,6 +1026,13 @@ public class DotValveTest {
 		this.valve.authenticate("badUsername", "badPassword");
 	}
 
+	@Test
+	public void shouldCloseClientAndDelegator() {
+		this.valve.close();
+		verify(this.mockClient).close();
+		verify(this.mockDelegator).close();
+	}
+
 	@Test
 	public void shouldGetCap() {
 		// get cap
@@ -0,0 +1,115 @@
+/**
+ * Copyright © 2018-2019 Hashmap, Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hashmapinc.tempus.witsml.valve.dot;
+
+import com.hashmapinc.tempus.witsml.valve.dot.client.DotClient;
+import com.hashmapinc.tempus.witsml.valve.dot.client.UidUuidCache;
+import com.mashape.unirest.http.HttpResponse;
+import org.junit.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class IdentityPrefetcherTest {
+    private static final String WELLBORE_GQL = "test.com/wellbore/graphql/";
+    private static final String CHANNEL_SETS = "test.com/channelSets";
+
+    @Test
+    public void shouldPrefetchWellboresAndLogsOfWell() throws Exception {
+        DotClient client = mockClient();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        IdentityPrefetcher prefetcher = new IdentityPrefetcher(WELLBORE_GQL, CHANNEL_SETS, executor, 60 * 1000);
+
+        // the second call for the same well is ignored
+        prefetcher.prefetch("prefetch-well", client, "goodUsername", "goodPassword", "exchangeID");
+        prefetcher.prefetch("prefetch-well", client, "goodUsername", "goodPassword", "exchangeID");
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+
+        assertEquals("wb-uuid-1", UidUuidCache.getUuid("wb-1", "prefetch-well"));
+        assertEquals("wb-uuid-2", UidUuidCache.getUuid("wb-2", "prefetch-well"));
+        assertEquals("log-uuid-1", UidUuidCache.getUuid("log-1", "wb-1", "prefetch-well"));
+        assertEquals("log-uuid-2", UidUuidCache.getUuid("log-2", "wb-2", "prefetch-well"));
+        verify(client, times(1)).makeRequest(argThat(req -> null != req && req.getUrl().startsWith(WELLBORE_GQL)),
+                eq("goodUsername"), eq("goodPassword"), anyString());
+    }
+
+    @Test
+    public void shouldBoundRememberedWells() throws Exception {
+        DotClient client = mockClient();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        IdentityPrefetcher prefetcher = new IdentityPrefetcher(WELLBORE_GQL, CHANNEL_SETS, executor, 60 * 1000, 2);
+
+        prefetcher.prefetch("bounded-well-1", client, "goodUsername", "goodPassword", "exchangeID");
+        prefetcher.prefetch("bounded-well-2", client, "goodUsername", "goodPassword", "exchangeID");
+        prefetcher.prefetch("bounded-well-3", client, "goodUsername", "goodPassword", "exchangeID");
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+
+        // the third well is not prefetched while the first two are remembered
+        assertEquals(2, prefetcher.getWellCount());
+        verify(client, times(2)).makeRequest(argThat(req -> null != req && req.getUrl().startsWith(WELLBORE_GQL)),
+                eq("goodUsername"), eq("goodPassword"), anyString());
+    }
+
+    @Test
+    public void shouldForgetExpiredWellsWhenFull() throws Exception {
+        DotClient client = mockClient();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        IdentityPrefetcher prefetcher = new IdentityPrefetcher(WELLBORE_GQL, CHANNEL_SETS, executor, 0, 2);
+
+        prefetcher.prefetch("expired-well-1", client, "goodUsername", "goodPassword", "exchangeID");
+        prefetcher.prefetch("expired-well-2", client, "goodUsername", "goodPassword", "exchangeID");
+        prefetcher.prefetch("expired-well-3", client, "goodUsername", "goodPassword", "exchangeID");
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+
+        assertEquals(1, prefetcher.getWellCount());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static DotClient mockClient() throws Exception {
+        DotClient client = mock(DotClient.class);
+
+        HttpResponse<String> wellbores = mock(HttpResponse.class);
+        when(wellbores.getStatus()).thenReturn(200);
+        when(wellbores.getBody()).thenReturn("{\"data\":{\"wellbores\":["
+                + "{\"uid\":\"wb-1\",\"uuid\":\"wb-uuid-1\"},{\"uid\":\"wb-2\",\"uuid\":\"wb-uuid-2\"}]}}");
+        when(client.makeRequest(argThat(req -> null != req && req.getUrl().startsWith(WELLBORE_GQL)),
+                eq("goodUsername"), eq("goodPassword"), anyString())).thenReturn(wellbores);
+
+        for (int i = 1; i <= 2; i++) {
+            String containerId = "wb-uuid-" + i;
+            HttpResponse<String> channelSets = mock(HttpResponse.class);
+            when(channelSets.getStatus()).thenReturn(200);
+            when(channelSets.getBody()).thenReturn("[{\"uid\":\"log-" + i + "\",\"uuid\":\"log-uuid-" + i + "\"}]");
+            when(client.makeRequest(argThat(req -> null != req && req.getUrl().startsWith(CHANNEL_SETS)
+                            && req.getUrl().contains("containerId=" + containerId)),
+                    eq("goodUsername"), eq("goodPassword"), anyString())).thenReturn(channelSets);
+        }
+        return client;
+    }
+}
@@ -0,0 +1,187 @@
+/**
+ * Copyright © 2018-2019 Hashmap, Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hashmapinc.tempus.witsml.valve.dot.client;
+
+import com.hashmapinc.tempus.witsml.valve.ValveException;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class AdaptiveConcurrencyLimiterTest {
+
+    @Test
+    public void shouldRaiseLimitWhileInUse() throws ValveException {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("well", 4, 1, 6, 1000, 0, 5, 1000);
+        for (int i = 0; i < 10; i++) {
+            List<AdaptiveConcurrencyLimiter.Permit> permits = new ArrayList<>();
+            for (int p = 0; p < limiter.getLimit(); p++)
+                permits.add(limiter.acquire());
+            permits.forEach(permit -> permit.release(false));
+        }
+        assertEquals(6, limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    public void shouldCutLimitOnFailure() throws ValveException {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("well", 20, 2, 100, 2, 0, 100, 1000);
+        for (int i = 0; i < 5; i++)
+            limiter.acquire().release(true);
+        assertEquals(11, limiter.getLimit());
+        assertFalse(limiter.isCircuitOpen());
+    }
+
+    @Test
+    public void shouldRejectWhenSaturated() throws ValveException {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("channelData", 1, 1, 1, 2, 0, 5, 1000);
+        AdaptiveConcurrencyLimiter.Permit permit = limiter.acquire();
+        try {
+            limiter.acquire();
+            fail("the only slot is taken");
+        } catch (ValveException e) {
+            assertEquals(1, limiter.getRejectedCount());
+        }
+        permit.release(false);
+        permit.release(false);
+        assertEquals(0, limiter.getInFlight());
+        limiter.acquire().release(false);
+    }
+
+    @Test
+    public void shouldOpenAndCloseCircuit() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("channelData", 10, 1, 10, 2, 0, 3, 500);
+        for (int i = 0; i < 3; i++)
+            limiter.acquire().release(true);
+        assertTrue(limiter.isCircuitOpen());
+        try {
+            limiter.acquire();
+            fail("the circuit is open");
+        } catch (ValveException e) {
+            assertTrue(e.getMessage().contains("Circuit broken"));
+        }
+
+        Thread.sleep(600);
+        AdaptiveConcurrencyLimiter.Permit trial = limiter.acquire();
+        try {
+            limiter.acquire();
+            fail("only the trial request passes a half open circuit");
+        } catch (ValveException e) {
+            assertTrue(limiter.isCircuitOpen());
+        }
+        trial.release(false);
+        assertFalse(limiter.isCircuitOpen());
+        limiter.acquire().release(false);
+    }
+
+    @Test
+    public void shouldGroupEndpointsByLongestPath() {
+        Map<String, String> config = new HashMap<>();
+        config.put("well.path", "https://dot/well/v2/witsml/wells/");
+        config.put("well.gql.path", "https://dot/well/v2/graphql/");
+        config.put("wellbore.path", "https://dot/wellbore/v1/witsml/wellbores/");
+        config.put("log.channel.path", "https://dot/channelreader/v4/witsml/channels");
+        config.put("log.channels.path", "https://dot/channelreader/v4/witsml/channels/metadata");
+        config.put("log.channels.data.path", "https://dot/channelreader/v4/witsml/channels/data");
+        config.put("log.mnemonic.data.path", "https://dot/channelreader/v4/witsml/channels/:mnemonic");
+        config.put("log.channelset.uuid.path", "https://dot/channelreader/v4/identities");
+        DotEndpointLimiters limiters = new DotEndpointLimiters(config);
+
+        assertEquals(DotEndpointLimiters.WELL, limiters.getGroup("https://dot/well/v2/witsml/wells/w-1?uidWell=w"));
+        assertEquals(DotEndpointLimiters.GRAPHQL, limiters.getGroup("https://dot/well/v2/graphql"));
+        assertEquals(DotEndpointLimiters.WELLBORE, limiters.getGroup("https://dot/wellbore/v1/witsml/wellbores/wb"));
+        assertEquals(DotEndpointLimiters.CHANNEL_SET,
+                limiters.getGroup("https://dot/channelreader/v4/witsml/channels/metadata?channelSetUuid=1"));
+        assertEquals(DotEndpointLimiters.CHANNEL_DATA,
+                limiters.getGroup("https://dot/channelreader/v4/witsml/channels/data?channelSetUuid=1"));
+        assertEquals(DotEndpointLimiters.IDENTITIES,
+                limiters.getGroup("https://dot/channelreader/v4/identities?uri=x"));
+        assertEquals(DotEndpointLimiters.OTHER, limiters.getGroup("https://elsewhere/token"));
+        assertEquals("well", limiters.forUrl("https://dot/well/v2/witsml/wells/w-1").getName());
+    }
+
+    @Test
+    public void shouldQueueAsyncCallerUntilSlotIsReleased() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("channelData", 1, 1, 1, 1000, 30000, 5, 1000);
+        AdaptiveConcurrencyLimiter.Permit permit = limiter.acquireAsync().get();
+        CompletableFuture<AdaptiveConcurrencyLimiter.Permit> queued = limiter.acquireAsync();
+        assertFalse(queued.isDone());
+        assertEquals(1, limiter.getQueued());
+
+        permit.release(false);
+        assertTrue(queued.isDone());
+        assertEquals(0, limiter.getQueued());
+        assertEquals(1, limiter.getInFlight());
+        queued.get().release(false);
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    public void shouldFailQueuedAsyncCallerAfterWait() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("channelData", 1, 1, 1, 1000, 20, 5, 1000);
+        AdaptiveConcurrencyLimiter.Permit permit = limiter.acquire();
+        CompletableFuture<AdaptiveConcurrencyLimiter.Permit> queued = limiter.acquireAsync();
+        try {
+            queued.get(5, TimeUnit.SECONDS);
+            fail("the only slot is taken");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof ValveException);
+        }
+        assertEquals(1, limiter.getRejectedCount());
+        assertEquals(0, limiter.getQueued());
+
+        // a slot released later is not lost
+        permit.release(false);
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    public void shouldFailQueuedAsyncCallersWhenCircuitOpens() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("channelData", 1, 1, 1, 1000, 30000, 1, 1000);
+        AdaptiveConcurrencyLimiter.Permit permit = limiter.acquire();
+        CompletableFuture<AdaptiveConcurrencyLimiter.Permit> queued = limiter.acquireAsync();
+
+        permit.release(true);
+        assertTrue(limiter.isCircuitOpen());
+        assertTrue(queued.isCompletedExceptionally());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    public void shouldPassSlotOnWhenQueuedCallerGaveUp() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("channelData", 1, 1, 1, 1000, 30000, 5, 1000);
+        AdaptiveConcurrencyLimiter.Permit permit = limiter.acquire();
+        CompletableFuture<AdaptiveConcurrencyLimiter.Permit> cancelled = limiter.acquireAsync();
+        CompletableFuture<AdaptiveConcurrencyLimiter.Permit> queued = limiter.acquireAsync();
+        cancelled.cancel(false);
+
+        permit.release(false);
+        assertTrue(queued.isDone());
+        assertEquals(1, limiter.getInFlight());
+        queued.get().release(false);
+        assertEquals(0, limiter.getInFlight());
+    }
+}
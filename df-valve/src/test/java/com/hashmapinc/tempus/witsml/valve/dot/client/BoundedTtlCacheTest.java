@@ -0,0 +1,81 @@
+/**
+ * Copyright © 2018-2019 Hashmap, Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hashmapinc.tempus.witsml.valve.dot.client;
+
+import org.junit.Test;
+
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class BoundedTtlCacheTest {
+
+    @Test
+    public void shouldCountHitsOnlyForUsableValues() {
+        BoundedTtlCache<String> cache = new BoundedTtlCache<>(60 * 1000, 10);
+        cache.put("a", "1");
+
+        assertEquals("1", cache.get("a"));
+        assertNull(cache.get("a", value -> value.equals("2")));
+        assertNull(cache.get("b"));
+        assertEquals("1", cache.peek("a"));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(2, cache.getMissCount());
+    }
+
+    @Test
+    public void shouldExpireEntries() throws Exception {
+        BoundedTtlCache<String> cache = new BoundedTtlCache<>(10, 10);
+        cache.put("a", "1");
+        cache.put("b", "2", 60 * 1000);
+        cache.restore("c", "3", System.currentTimeMillis() - 1);
+        Thread.sleep(20);
+
+        assertNull(cache.get("a"));
+        assertEquals("2", cache.get("b"));
+        assertNull(cache.get("c"));
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void shouldTrimToNinetyPercentOfBound() {
+        BoundedTtlCache<String> cache = new BoundedTtlCache<>(60 * 1000, 100);
+        for (int i = 0; i <= 100; i++)
+            cache.put("key" + i, "value" + i, 1000 + i);
+
+        assertEquals(90, cache.size());
+        assertEquals(11, cache.getEvictionCount());
+        // the entries closest to expiry went first
+        assertNull(cache.peek("key0"));
+        assertEquals("value100", cache.peek("key100"));
+    }
+
+    @Test
+    public void shouldRemoveByPrefix() {
+        BoundedTtlCache<String> cache = new BoundedTtlCache<>(60 * 1000, 10);
+        cache.put("w1|b1", "1");
+        cache.put("w1|b2", "2");
+        cache.put("w2|b1", "3");
+
+        Map<String, String> removed = cache.removeByPrefix("w1|");
+        assertEquals(2, removed.size());
+        assertEquals("1", removed.get("w1|b1"));
+        assertEquals(1, cache.size());
+        assertTrue(cache.getStats().startsWith("size=1,"));
+    }
+}
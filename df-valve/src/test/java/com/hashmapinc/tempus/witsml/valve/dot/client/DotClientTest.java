@@ -0,0 +1,300 @@
+/**
+ * Copyright © 2018-2019 Hashmap, Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hashmapinc.tempus.witsml.valve.dot.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.http.HttpVersion;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.message.BasicStatusLine;
+import org.apache.http.util.EntityUtils;
+import org.junit.After;
+import org.junit.Test;
+
+import com.auth0.jwt.interfaces.DecodedJWT;
+import com.hashmapinc.tempus.witsml.valve.ValveAuthException;
+import com.mashape.unirest.http.HttpResponse;
+import com.mashape.unirest.http.Unirest;
+
+public class DotClientTest {
+    private static final String TOKEN_PATH = "http://dot/token";
+
+    // token requests in the order they were sent, answered by the test
+    private final List<CompletableFuture<HttpResponse<String>>> tokenRequests =
+            Collections.synchronizedList(new ArrayList<>());
+    // bodies of the token requests, in the same order
+    private final List<String> tokenBodies = Collections.synchronizedList(new ArrayList<>());
+    private DotClient client;
+
+    @After
+    public void tearDown() {
+        if (null != this.client)
+            this.client.close();
+    }
+
+    private DotClient client(String idleSeconds) throws ValveAuthException {
+        Map<String, String> config = new HashMap<>();
+        config.put("token.refresh.interval", "3600"); // renewTokens is called by the tests
+        config.put("token.refresh.ahead", "600");
+        config.put("token.refresh.idle", idleSeconds);
+        this.client = new DotClient(TOKEN_PATH, config, req -> {
+            CompletableFuture<HttpResponse<String>> answer = new CompletableFuture<>();
+            try {
+                this.tokenBodies.add(EntityUtils.toString(req.getBody().getEntity()));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            this.tokenRequests.add(answer);
+            return answer;
+        });
+        return this.client;
+    }
+
+    private static HttpResponse<String> tokenResponse(long expiresInSeconds) {
+        String header = encode("{\"alg\":\"none\",\"typ\":\"JWT\"}");
+        String claims = encode("{\"exp\":" + (System.currentTimeMillis() / 1000 + expiresInSeconds) + "}");
+        BasicHttpResponse response = new BasicHttpResponse(new BasicStatusLine(HttpVersion.HTTP_1_1, 200, ""));
+        response.setEntity(new StringEntity("{\"jwt\":\"" + header + "." + claims + ".c2ln\"}", StandardCharsets.UTF_8));
+        return new HttpResponse<>(response, String.class);
+    }
+
+    private static HttpResponse<String> response(int status) {
+        BasicHttpResponse response = new BasicHttpResponse(new BasicStatusLine(HttpVersion.HTTP_1_1, status, ""));
+        response.setEntity(new StringEntity("{}", StandardCharsets.UTF_8));
+        return new HttpResponse<>(response, String.class);
+    }
+
+    private static String encode(String json) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void shouldShareRefreshInFlight() throws Exception {
+        DotClient client = client("3600");
+        CompletableFuture<DecodedJWT> first = client.getJWTAsync("user", "pass", "1");
+        CompletableFuture<DecodedJWT> second = client.getJWTAsync("user", "pass", "2");
+        assertEquals(1, this.tokenRequests.size());
+
+        this.tokenRequests.get(0).complete(tokenResponse(3600));
+        assertSame(first.get(), second.get());
+        assertEquals(1, client.getRefreshCount());
+        assertEquals(1, client.getSharedRefreshCount());
+
+        // later callers get the cached token
+        assertSame(first.get(), client.getJWT("user", "pass", "3"));
+        assertEquals(1, this.tokenRequests.size());
+    }
+
+    @Test
+    public void shouldNotShareRefreshWithOtherPassword() throws Exception {
+        DotClient client = client("3600");
+        CompletableFuture<DecodedJWT> first = client.getJWTAsync("user", "pass", "1");
+        CompletableFuture<DecodedJWT> second = client.getJWTAsync("user", "other", "2");
+        assertEquals(2, this.tokenRequests.size());
+        assertEquals(0, client.getSharedRefreshCount());
+
+        this.tokenRequests.get(0).complete(tokenResponse(3600));
+        this.tokenRequests.get(1).complete(tokenResponse(3600));
+        assertNotSame(first.get(), second.get());
+    }
+
+    @Test(expected = ValveAuthException.class)
+    public void shouldFailSharedRefreshWithAuthException() throws Exception {
+        DotClient client = client("3600");
+        CompletableFuture<DecodedJWT> first = client.getJWTAsync("user", "pass", "1");
+        BasicHttpResponse rejected = new BasicHttpResponse(new BasicStatusLine(HttpVersion.HTTP_1_1, 401, ""));
+        rejected.setEntity(new StringEntity("bad credentials", StandardCharsets.UTF_8));
+        this.tokenRequests.get(0).complete(new HttpResponse<>(rejected, String.class));
+
+        assertEquals(1, client.getRefreshFailureCount());
+        DotClient.await(first);
+    }
+
+    @Test
+    public void shouldRejectWrongPasswordForCachedToken() throws Exception {
+        DotClient client = client("3600");
+        CompletableFuture<DecodedJWT> first = client.getJWTAsync("user", "pass", "1");
+        this.tokenRequests.get(0).complete(tokenResponse(700));
+        first.get();
+
+        // the cached token is not handed out, the token endpoint decides
+        CompletableFuture<DecodedJWT> wrong = client.getJWTAsync("user", "wrong", "2");
+        assertEquals(2, this.tokenRequests.size());
+        BasicHttpResponse rejected = new BasicHttpResponse(new BasicStatusLine(HttpVersion.HTTP_1_1, 401, ""));
+        rejected.setEntity(new StringEntity("bad credentials", StandardCharsets.UTF_8));
+        this.tokenRequests.get(1).complete(new HttpResponse<>(rejected, String.class));
+        try {
+            DotClient.await(wrong);
+            fail("wrong password got a token");
+        } catch (ValveAuthException e) {
+            // expected
+        }
+
+        // the real user keeps the token, and the renewal still uses the right password
+        assertSame(first.get(), client.getJWT("user", "pass", "3"));
+        CompletableFuture<Void> renewal = CompletableFuture.runAsync(client::renewTokens);
+        while (this.tokenRequests.size() < 3)
+            Thread.sleep(5);
+        this.tokenRequests.get(2).complete(tokenResponse(3600));
+        renewal.get();
+        assertEquals(1, client.getBackgroundRefreshCount());
+        assertTrue(this.tokenBodies.get(2).contains("\"password\":\"pass\""));
+        assertNotSame(first.get(), client.getJWT("user", "pass", "4"));
+        assertEquals(3, this.tokenRequests.size());
+    }
+
+    @Test
+    public void shouldRenewTokensAboutToExpire() throws Exception {
+        DotClient client = client("3600");
+        CompletableFuture<DecodedJWT> first = client.getJWTAsync("user", "pass", "1");
+        // valid for requests, but inside the refresh window
+        this.tokenRequests.get(0).complete(tokenResponse(700));
+        first.get();
+
+        CompletableFuture<Void> renewal = CompletableFuture.runAsync(client::renewTokens);
+        while (this.tokenRequests.size() < 2)
+            Thread.sleep(5);
+        this.tokenRequests.get(1).complete(tokenResponse(3600));
+        renewal.get();
+
+        assertEquals(1, client.getBackgroundRefreshCount());
+        assertNotSame(first.get(), client.getJWT("user", "pass", "2"));
+        assertEquals(2, this.tokenRequests.size());
+    }
+
+    @Test
+    public void shouldForgetIdleUsers() throws Exception {
+        DotClient client = client("0");
+        CompletableFuture<DecodedJWT> first = client.getJWTAsync("user", "pass", "1");
+        this.tokenRequests.get(0).complete(tokenResponse(700));
+        first.get();
+        assertEquals(1, client.getRenewedUserCount());
+
+        Thread.sleep(5);
+        client.renewTokens();
+        assertEquals(0, client.getRenewedUserCount());
+        assertEquals(1, this.tokenRequests.size());
+    }
+
+    @Test
+    public void shouldForgetUsersOnClose() throws Exception {
+        DotClient client = client("3600");
+        CompletableFuture<DecodedJWT> first = client.getJWTAsync("user", "pass", "1");
+        this.tokenRequests.get(0).complete(tokenResponse(3600));
+        first.get();
+        assertEquals(1, client.getRenewedUserCount());
+
+        client.close();
+        assertEquals(0, client.getRenewedUserCount());
+        // tokens still work, but are no longer renewed in the background
+        client.getJWT("user", "pass", "2");
+        assertEquals(0, client.getRenewedUserCount());
+    }
+
+    @Test
+    public void shouldKeepStatsOfEachClient() throws Exception {
+        long before = limiterStatsCount();
+        DotClient first = client("3600");
+        DotClient second = new DotClient(TOKEN_PATH, Collections.singletonMap("token.refresh.interval", "0"),
+                req -> new CompletableFuture<>());
+        assertEquals(before + 2, limiterStatsCount());
+
+        second.close();
+        first.close();
+        assertEquals(before, limiterStatsCount());
+    }
+
+    private static long limiterStatsCount() {
+        return StatsLogger.getStats().stream()
+                .filter(line -> line.startsWith("DoT client ") && line.contains(" limiters: "))
+                .count();
+    }
+
+    @Test
+    public void shouldRetryUnavailableReadOnRetryThread() throws Exception {
+        Map<String, String> config = new HashMap<>();
+        config.put("token.refresh.interval", "0");
+        config.put("dot.retry.base", "1");
+        config.put("dot.retry.threads", "1");
+        AtomicInteger reads = new AtomicInteger();
+        List<String> senders = Collections.synchronizedList(new ArrayList<>());
+        this.client = new DotClient(TOKEN_PATH, config, req -> {
+            if (TOKEN_PATH.equals(req.getUrl()))
+                return CompletableFuture.completedFuture(tokenResponse(3600));
+            senders.add(Thread.currentThread().getName());
+            return CompletableFuture.completedFuture(response(0 == reads.getAndIncrement() ? 503 : 200));
+        });
+
+        HttpResponse<String> response = this.client.makeRequest(
+                Unirest.get("http://dot/witsml/wells/w1"), "user", "pass", "1");
+        assertEquals(200, response.getStatus());
+        assertEquals(2, reads.get());
+        assertEquals("dot-retry", senders.get(1));
+    }
+
+    @Test
+    public void shouldQueueAsyncRequestWithoutBlocking() throws Exception {
+        Map<String, String> config = new HashMap<>();
+        config.put("token.refresh.interval", "0");
+        config.put("dot.limiter.initial", "1");
+        config.put("dot.limiter.min", "1");
+        config.put("dot.limiter.max", "1");
+        List<CompletableFuture<HttpResponse<String>>> reads = Collections.synchronizedList(new ArrayList<>());
+        List<String> senders = Collections.synchronizedList(new ArrayList<>());
+        this.client = new DotClient(TOKEN_PATH, config, req -> {
+            if (TOKEN_PATH.equals(req.getUrl()))
+                return CompletableFuture.completedFuture(tokenResponse(3600));
+            senders.add(Thread.currentThread().getName());
+            CompletableFuture<HttpResponse<String>> answer = new CompletableFuture<>();
+            reads.add(answer);
+            return answer;
+        });
+
+        CompletableFuture<HttpResponse<String>> first = this.client.makeRequestAsync(
+                Unirest.get("http://dot/witsml/wells/w1"), "user", "pass", "1");
+        // the only slot is taken, the caller gets its future back right away
+        CompletableFuture<HttpResponse<String>> second = this.client.makeRequestAsync(
+                Unirest.get("http://dot/witsml/wells/w2"), "user", "pass", "2");
+        assertEquals(1, reads.size());
+        assertFalse(second.isDone());
+
+        reads.get(0).complete(response(200));
+        assertEquals(200, first.get().getStatus());
+        while (reads.size() < 2)
+            Thread.sleep(5);
+        assertEquals("dot-retry", senders.get(1));
+        reads.get(1).complete(response(200));
+        assertEquals(200, second.get().getStatus());
+    }
+}
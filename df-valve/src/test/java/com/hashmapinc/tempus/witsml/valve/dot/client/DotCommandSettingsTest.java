@@ -0,0 +1,104 @@
+/**
+ * Copyright © 2018-2019 Hashmap, Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hashmapinc.tempus.witsml.valve.dot.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.mashape.unirest.http.HttpResponse;
+import com.mashape.unirest.http.exceptions.UnirestException;
+import com.mashape.unirest.request.HttpRequest;
+import com.netflix.hystrix.Hystrix;
+import com.netflix.hystrix.HystrixCommandProperties;
+
+public class DotCommandSettingsTest {
+    private static final String DATA_URL = "http://dot/channelreader/v4/witsml/channels/data";
+    private static final String IDENTITIES_URL = "http://dot/channelreader/v4/identities";
+
+    @After
+    public void tearDown() {
+        Hystrix.reset();
+    }
+
+    @Test
+    public void shouldUseOwnSettingsPerEndpointGroup() {
+        Map<String, String> config = new HashMap<>();
+        config.put("log.channels.data.path", DATA_URL);
+        config.put("log.channelset.uuid.path", IDENTITIES_URL);
+        config.put("dot.command.default.timeout", "5000");
+        config.put("dot.command.channelData.timeout", "90000");
+        DotCommandSettings settings = new DotCommandSettings(config, new DotEndpointLimiters(config));
+
+        DotRestCommand data = new DotRestCommand(mock(HttpRequest.class), settings.forUrl(DATA_URL));
+        DotRestCommand identities = new DotRestCommand(mock(HttpRequest.class), settings.forUrl(IDENTITIES_URL));
+
+        assertEquals("Dot-channelData", data.getCommandKey().name());
+        assertEquals("Dot-identities", identities.getCommandKey().name());
+        assertEquals(90000, (int) data.getProperties().executionTimeoutInMilliseconds().get());
+        assertEquals(5000, (int) identities.getProperties().executionTimeoutInMilliseconds().get());
+        assertEquals(HystrixCommandProperties.ExecutionIsolationStrategy.SEMAPHORE,
+                data.getProperties().executionIsolationStrategy().get());
+    }
+
+    @Test
+    public void shouldRunOnCallingThreadWithSemaphoreIsolation() throws Exception {
+        AtomicReference<Thread> runner = new AtomicReference<>();
+        @SuppressWarnings("unchecked")
+        HttpResponse<String> response = mock(HttpResponse.class);
+        HttpRequest req = mock(HttpRequest.class);
+        when(req.getUrl()).thenReturn(DATA_URL);
+        when(req.asString()).thenAnswer(invocation -> {
+            runner.set(Thread.currentThread());
+            return response;
+        });
+
+        CompletableFuture<HttpResponse<String>> future = new UnirestTransport().send(req);
+
+        assertSame(response, future.get());
+        assertSame(Thread.currentThread(), runner.get());
+    }
+
+    @Test
+    public void shouldPassRequestFailureToCaller() throws Exception {
+        HttpRequest req = mock(HttpRequest.class);
+        when(req.getUrl()).thenReturn(DATA_URL);
+        when(req.asString()).thenThrow(new UnirestException("connection refused"));
+
+        CompletableFuture<HttpResponse<String>> future = new UnirestTransport().send(req);
+
+        assertTrue(future.isCompletedExceptionally());
+        try {
+            future.get();
+            fail("expected the request failure");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof UnirestException);
+            assertEquals("connection refused", e.getCause().getMessage());
+        }
+    }
+}
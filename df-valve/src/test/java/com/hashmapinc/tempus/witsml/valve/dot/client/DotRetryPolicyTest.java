@@ -0,0 +1,108 @@
+/**
+ * Copyright © 2018-2019 Hashmap, Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hashmapinc.tempus.witsml.valve.dot.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+
+import org.junit.Test;
+
+import com.hashmapinc.tempus.witsml.valve.ValveException;
+import com.mashape.unirest.http.HttpMethod;
+import com.mashape.unirest.http.exceptions.UnirestException;
+import com.mashape.unirest.request.HttpRequest;
+import com.mashape.unirest.request.HttpRequestWithBody;
+
+public class DotRetryPolicyTest {
+    private static final String WELL_URL = "http://dot/well/v2/witsml/wells/";
+    private static final String WELL_GQL_URL = "http://dot/well/v2/graphql/";
+
+    private static DotRetryPolicy policy(String... settings) {
+        Map<String, String> config = new HashMap<>();
+        config.put("well.path", WELL_URL);
+        config.put("well.gql.path", WELL_GQL_URL);
+        for (int i = 0; i < settings.length; i += 2)
+            config.put(settings[i], settings[i + 1]);
+        return new DotRetryPolicy(config, new DotEndpointLimiters(config));
+    }
+
+    @Test
+    public void shouldOnlyRetryIdempotentRequests() {
+        DotRetryPolicy policy = policy();
+        assertTrue(policy.isIdempotent(new HttpRequest(HttpMethod.GET, WELL_URL + "w1"), false));
+        assertTrue(policy.isIdempotent(new HttpRequestWithBody(HttpMethod.POST, WELL_GQL_URL), false));
+        assertFalse(policy.isIdempotent(new HttpRequestWithBody(HttpMethod.POST, WELL_URL), false));
+        assertFalse(policy.isIdempotent(new HttpRequestWithBody(HttpMethod.PATCH, WELL_URL + "w1"), false));
+        assertTrue(policy.isIdempotent(new HttpRequestWithBody(HttpMethod.PATCH, WELL_URL + "w1"), true));
+    }
+
+    @Test
+    public void shouldRetryTransientFailuresOnly() {
+        assertTrue(DotRetryPolicy.isRetryableStatus(429));
+        assertTrue(DotRetryPolicy.isRetryableStatus(503));
+        assertFalse(DotRetryPolicy.isRetryableStatus(500));
+        assertFalse(DotRetryPolicy.isRetryableStatus(404));
+        assertTrue(DotRetryPolicy.isRetryableError(new CompletionException(new UnirestException(new IOException("reset")))));
+        assertFalse(DotRetryPolicy.isRetryableError(new CompletionException(new ValveException("no"))));
+    }
+
+    @Test
+    public void shouldParseRetryAfter() {
+        assertEquals(2000, DotRetryPolicy.parseRetryAfter("2"));
+        assertEquals(-1, DotRetryPolicy.parseRetryAfter("soon"));
+        String date = ZonedDateTime.now().plusSeconds(30).format(DateTimeFormatter.RFC_1123_DATE_TIME);
+        long delay = DotRetryPolicy.parseRetryAfter(date);
+        assertTrue(delay > 20000 && delay <= 30000);
+
+        Map<String, List<String>> headers = new HashMap<>();
+        headers.put("retry-after", Collections.singletonList("1"));
+        assertEquals(1000, DotRetryPolicy.getRetryAfter(headers));
+    }
+
+    @Test
+    public void shouldStayWithinBudget() {
+        DotRetryPolicy policy = policy("dot.retry.max", "3", "dot.retry.base", "10", "dot.retry.cap", "40");
+        DotRetryPolicy.Budget budget = policy.newBudget();
+        for (int i = 0; i < 3; i++) {
+            long delay = budget.nextDelay(-1);
+            assertTrue(delay >= 0 && delay <= Math.min(40, 10 << i));
+        }
+        assertEquals(-1, budget.nextDelay(-1));
+        assertEquals(3, policy.getRetryCount());
+        assertEquals(1, policy.getExhaustedCount());
+    }
+
+    @Test
+    public void shouldHonorRetryAfterUnlessBeyondBudget() {
+        DotRetryPolicy policy = policy("dot.retry.budget", "1500");
+        DotRetryPolicy.Budget budget = policy.newBudget();
+        assertEquals(1000, budget.nextDelay(1000));
+        assertEquals(-1, budget.nextDelay(1000));
+
+        DotRetryPolicy disabled = policy("dot.retry.enabled", "false");
+        assertEquals(-1, disabled.newBudget().nextDelay(-1));
+    }
+}
@@ -0,0 +1,256 @@
+/**
+ * Copyright © 2018-2019 Hashmap, Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hashmapinc.tempus.witsml.valve.dot.client;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stand-in for a Redis server in tests. Supports the commands used by
+ * RedisIdentityStore: PING, AUTH, GET, MGET, SET (with PX), DEL, SADD,
+ * SREM, SMEMBERS, PEXPIRE and SCAN (one page with all matching keys).
+ */
+public class EmbeddedRedisServer implements Closeable {
+    private final ServerSocket serverSocket;
+    private final Map<String, Entry> data = new ConcurrentHashMap<>();
+    private final AtomicLong commandCount = new AtomicLong();
+    private final Map<String, AtomicLong> commandCounts = new ConcurrentHashMap<>();
+
+    public EmbeddedRedisServer() throws IOException {
+        this.serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        Thread acceptor = new Thread(this::accept, "embedded-redis");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    public int getPort() {
+        return this.serverSocket.getLocalPort();
+    }
+
+    public long getCommandCount() {
+        return this.commandCount.get();
+    }
+
+    public long getCommandCount(String name) {
+        AtomicLong count = this.commandCounts.get(name);
+        return (null == count) ? 0 : count.get();
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.serverSocket.close();
+    }
+
+    private void accept() {
+        while (!this.serverSocket.isClosed()) {
+            try {
+                Socket socket = this.serverSocket.accept();
+                Thread handler = new Thread(() -> serve(socket), "embedded-redis-connection");
+                handler.setDaemon(true);
+                handler.start();
+            } catch (IOException e) {
+                return; // closed
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (Socket s = socket;
+             InputStream in = new BufferedInputStream(s.getInputStream());
+             OutputStream out = new BufferedOutputStream(s.getOutputStream())) {
+            while (true) {
+                List<String> command = readCommand(in);
+                if (null == command)
+                    return;
+                this.commandCount.incrementAndGet();
+                this.commandCounts.computeIfAbsent(command.get(0).toUpperCase(), name -> new AtomicLong())
+                        .incrementAndGet();
+                out.write(execute(command).getBytes(StandardCharsets.UTF_8));
+                out.flush();
+            }
+        } catch (IOException e) {
+            // client went away
+        }
+    }
+
+    // one command at a time, like Redis
+    private synchronized String execute(List<String> command) {
+        String name = command.get(0).toUpperCase();
+        switch (name) {
+            case "PING":
+                return "+PONG\r\n";
+            case "AUTH":
+                return "+OK\r\n";
+            case "GET": {
+                Entry entry = live(command.get(1));
+                return (null == entry) ? "$-1\r\n" : bulk((String) entry.value);
+            }
+            case "MGET": {
+                StringBuilder reply = new StringBuilder("*").append(command.size() - 1).append("\r\n");
+                for (String key : command.subList(1, command.size())) {
+                    Entry entry = live(key);
+                    reply.append((null == entry) ? "$-1\r\n" : bulk((String) entry.value));
+                }
+                return reply.toString();
+            }
+            case "SET": {
+                long expiresAt = Long.MAX_VALUE;
+                if (command.size() > 4 && "PX".equalsIgnoreCase(command.get(3)))
+                    expiresAt = System.currentTimeMillis() + Long.parseLong(command.get(4));
+                this.data.put(command.get(1), new Entry(command.get(2), expiresAt));
+                return "+OK\r\n";
+            }
+            case "SADD": {
+                Entry entry = live(command.get(1));
+                if (null == entry) {
+                    entry = new Entry(new LinkedHashSet<String>(), Long.MAX_VALUE);
+                    this.data.put(command.get(1), entry);
+                }
+                int added = 0;
+                for (String member : command.subList(2, command.size()))
+                    added += members(entry).add(member) ? 1 : 0;
+                return ":" + added + "\r\n";
+            }
+            case "SREM": {
+                Entry entry = live(command.get(1));
+                int removed = 0;
+                for (String member : command.subList(2, command.size()))
+                    removed += (null != entry && members(entry).remove(member)) ? 1 : 0;
+                return ":" + removed + "\r\n";
+            }
+            case "SMEMBERS": {
+                Entry entry = live(command.get(1));
+                List<String> members = (null == entry) ? new ArrayList<>() : new ArrayList<>(members(entry));
+                StringBuilder reply = new StringBuilder("*").append(members.size()).append("\r\n");
+                members.forEach(member -> reply.append(bulk(member)));
+                return reply.toString();
+            }
+            case "PEXPIRE": {
+                Entry entry = live(command.get(1));
+                if (null == entry)
+                    return ":0\r\n";
+                entry.expiresAt = System.currentTimeMillis() + Long.parseLong(command.get(2));
+                return ":1\r\n";
+            }
+            case "DEL": {
+                int removed = 0;
+                for (String key : command.subList(1, command.size()))
+                    removed += (null == this.data.remove(key)) ? 0 : 1;
+                return ":" + removed + "\r\n";
+            }
+            case "SCAN": {
+                String pattern = command.get(command.indexOf("MATCH") + 1);
+                List<String> keys = new ArrayList<>();
+                for (String key : this.data.keySet()) {
+                    if (matches(pattern, key))
+                        keys.add(key);
+                }
+                StringBuilder reply = new StringBuilder("*2\r\n").append(bulk("0")).append("*").append(keys.size()).append("\r\n");
+                keys.forEach(key -> reply.append(bulk(key)));
+                return reply.toString();
+            }
+            default:
+                return "-ERR unknown command '" + name + "'\r\n";
+        }
+    }
+
+    private Entry live(String key) {
+        Entry entry = this.data.get(key);
+        return (null == entry || entry.expiresAt <= System.currentTimeMillis()) ? null : entry;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Set<String> members(Entry entry) {
+        return (Set<String>) entry.value;
+    }
+
+    /**
+     * matches a glob pattern with escaped literals and a trailing *
+     */
+    private static boolean matches(String pattern, String key) {
+        StringBuilder prefix = new StringBuilder();
+        for (int i = 0; i < pattern.length(); i++) {
+            char c = pattern.charAt(i);
+            if (c == '\\')
+                prefix.append(pattern.charAt(++i));
+            else if (c == '*' && i == pattern.length() - 1)
+                return key.startsWith(prefix.toString());
+            else
+                prefix.append(c);
+        }
+        return key.equals(prefix.toString());
+    }
+
+    private static String bulk(String value) {
+        return "$" + value.getBytes(StandardCharsets.UTF_8).length + "\r\n" + value + "\r\n";
+    }
+
+    private static List<String> readCommand(InputStream in) throws IOException {
+        String header = readLine(in);
+        if (null == header)
+            return null;
+        int count = Integer.parseInt(header.substring(1));
+        List<String> command = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int length = Integer.parseInt(readLine(in).substring(1));
+            byte[] bytes = new byte[length];
+            int read = 0;
+            while (read < length)
+                read += in.read(bytes, read, length - read);
+            readLine(in);
+            command.add(new String(bytes, StandardCharsets.UTF_8));
+        }
+        return command;
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int b;
+        while ((b = in.read()) != '\r') {
+            if (b < 0)
+                return null;
+            line.write(b);
+        }
+        in.read(); // \n
+        return new String(line.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private static class Entry {
+        private final Object value; // a String, or the members of a set
+        private volatile long expiresAt;
+
+        private Entry(Object value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,203 @@
+/**
+ * Copyright © 2018-2019 Hashmap, Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hashmapinc.tempus.witsml.valve.dot.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.HttpVersion;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.message.BasicStatusLine;
+import org.junit.After;
+import org.junit.Test;
+
+import com.mashape.unirest.http.HttpMethod;
+import com.mashape.unirest.http.HttpResponse;
+import com.mashape.unirest.request.HttpRequest;
+
+public class HedgingTransportTest {
+    private static final String URL = "http://dot/well/v2/witsml/wells/w1";
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final List<CompletableFuture<HttpResponse<String>>> sent = Collections.synchronizedList(new ArrayList<>());
+    private final List<HttpRequest> requests = Collections.synchronizedList(new ArrayList<>());
+
+    @After
+    public void tearDown() {
+        this.executor.shutdownNow();
+    }
+
+    private HedgingTransport transport(double budgetPercent, List<CompletableFuture<HttpResponse<String>>> answers) {
+        return transport(budgetPercent, answers, this.executor);
+    }
+
+    private HedgingTransport transport(double budgetPercent, List<CompletableFuture<HttpResponse<String>>> answers,
+                                       Executor executor) {
+        DotTransport delegate = req -> {
+            this.requests.add(req);
+            CompletableFuture<HttpResponse<String>> answer = answers.isEmpty()
+                    ? CompletableFuture.completedFuture(response())
+                    : answers.remove(0);
+            this.sent.add(answer);
+            return answer;
+        };
+        DotEndpointLimiters groups = new DotEndpointLimiters(Collections.emptyMap());
+        return new HedgingTransport(delegate, groups, 95, 10, budgetPercent, 20, executor);
+    }
+
+    private static HttpResponse<String> response() {
+        return response(200);
+    }
+
+    private static HttpResponse<String> response(int status) {
+        BasicHttpResponse response = new BasicHttpResponse(new BasicStatusLine(HttpVersion.HTTP_1_1, status, ""));
+        response.setEntity(new StringEntity("{}", StandardCharsets.UTF_8));
+        return new HttpResponse<>(response, String.class);
+    }
+
+    private static void warmUp(HedgingTransport transport) throws Exception {
+        for (int i = 0; i < 20; i++)
+            transport.send(new HttpRequest(HttpMethod.GET, URL)).get(1, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void shouldNotHedgeWithoutLatencies() {
+        HedgingTransport transport = transport(100, new ArrayList<>());
+        assertEquals(-1, transport.getHedgeDelay(DotEndpointLimiters.OTHER));
+    }
+
+    @Test
+    public void shouldAnswerWithHedgeWhenFirstAttemptIsSlow() throws Exception {
+        List<CompletableFuture<HttpResponse<String>>> answers = Collections.synchronizedList(new ArrayList<>());
+        HedgingTransport transport = transport(5, answers);
+        warmUp(transport);
+        this.sent.clear();
+
+        CompletableFuture<HttpResponse<String>> slow = new CompletableFuture<>();
+        HttpResponse<String> fast = response();
+        answers.add(slow);
+        answers.add(CompletableFuture.completedFuture(fast));
+
+        assertSame(fast, transport.send(new HttpRequest(HttpMethod.GET, URL)).get(1, TimeUnit.SECONDS));
+        assertEquals(2, this.sent.size());
+        assertEquals(1, transport.getHedgeCount());
+        assertEquals(1, transport.getHedgeWinCount());
+    }
+
+    @Test
+    public void shouldNotHedgeBeyondBudget() throws Exception {
+        List<CompletableFuture<HttpResponse<String>>> answers = Collections.synchronizedList(new ArrayList<>());
+        HedgingTransport transport = transport(5, answers);
+        warmUp(transport); // 20 requests at 5% pay for one hedge
+
+        CompletableFuture<HttpResponse<String>> first = new CompletableFuture<>();
+        answers.add(first);
+        answers.add(CompletableFuture.completedFuture(response()));
+        transport.send(new HttpRequest(HttpMethod.GET, URL)).get(1, TimeUnit.SECONDS);
+
+        CompletableFuture<HttpResponse<String>> second = new CompletableFuture<>();
+        answers.add(second);
+        CompletableFuture<HttpResponse<String>> result = transport.send(new HttpRequest(HttpMethod.GET, URL));
+        Thread.sleep(200);
+        assertEquals(1, transport.getDeniedCount());
+        assertFalse(result.isDone());
+        HttpResponse<String> late = response();
+        second.complete(late);
+        assertSame(late, result.get(1, TimeUnit.SECONDS));
+        assertEquals(1, transport.getHedgeCount());
+    }
+
+    @Test
+    public void shouldSendCopyOfRequestAsHedge() throws Exception {
+        List<CompletableFuture<HttpResponse<String>>> answers = Collections.synchronizedList(new ArrayList<>());
+        HedgingTransport transport = transport(5, answers);
+        warmUp(transport);
+        this.requests.clear();
+
+        answers.add(new CompletableFuture<>());
+        HttpRequest request = new HttpRequest(HttpMethod.GET, URL).header("Authorization", "Bearer jwt");
+        transport.send(request).get(1, TimeUnit.SECONDS);
+
+        assertEquals(2, this.requests.size());
+        HttpRequest hedge = this.requests.get(1);
+        assertSame(request, this.requests.get(0));
+        assertNotSame(request, hedge);
+        assertEquals(URL, hedge.getUrl());
+        assertEquals(request.getHeaders(), hedge.getHeaders());
+    }
+
+    @Test
+    public void shouldNotLetFailureResponseWin() throws Exception {
+        List<CompletableFuture<HttpResponse<String>>> answers = Collections.synchronizedList(new ArrayList<>());
+        HedgingTransport transport = transport(5, answers);
+        warmUp(transport);
+
+        CompletableFuture<HttpResponse<String>> slow = new CompletableFuture<>();
+        answers.add(slow);
+        answers.add(CompletableFuture.completedFuture(response(503)));
+        CompletableFuture<HttpResponse<String>> result = transport.send(new HttpRequest(HttpMethod.GET, URL));
+        while (transport.getHedgeCount() < 1)
+            Thread.sleep(5);
+        Thread.sleep(50);
+        assertFalse(result.isDone());
+
+        HttpResponse<String> ok = response();
+        slow.complete(ok);
+        assertSame(ok, result.get(1, TimeUnit.SECONDS));
+        assertEquals(0, transport.getHedgeWinCount());
+    }
+
+    @Test
+    public void shouldAnswerWithFailureResponseIfAllAttemptsFail() throws Exception {
+        List<CompletableFuture<HttpResponse<String>>> answers = Collections.synchronizedList(new ArrayList<>());
+        HedgingTransport transport = transport(5, answers);
+        warmUp(transport);
+
+        CompletableFuture<HttpResponse<String>> slow = new CompletableFuture<>();
+        HttpResponse<String> unavailable = response(503);
+        answers.add(slow);
+        answers.add(CompletableFuture.completedFuture(unavailable));
+        CompletableFuture<HttpResponse<String>> result = transport.send(new HttpRequest(HttpMethod.GET, URL));
+        while (transport.getHedgeCount() < 1)
+            Thread.sleep(5);
+
+        slow.completeExceptionally(new RuntimeException("connection reset"));
+        assertSame(unavailable, result.get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void shouldSendWithoutHedgingWhenAttemptThreadsAreBusy() throws Exception {
+        HedgingTransport transport = transport(100, new ArrayList<>(), runnable -> {
+            throw new RejectedExecutionException("busy");
+        });
+        assertEquals(200, transport.send(new HttpRequest(HttpMethod.GET, URL)).get(1, TimeUnit.SECONDS).getStatus());
+        assertEquals(1, this.requests.size());
+    }
+}
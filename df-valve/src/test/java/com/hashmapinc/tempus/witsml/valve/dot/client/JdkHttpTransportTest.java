@@ -0,0 +1,131 @@
+/**
+ * Copyright © 2018-2019 Hashmap, Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hashmapinc.tempus.witsml.valve.dot.client;
+
+import com.mashape.unirest.http.HttpResponse;
+import com.mashape.unirest.http.Unirest;
+import com.mashape.unirest.http.exceptions.UnirestException;
+import com.mashape.unirest.request.HttpRequestWithBody;
+import com.sun.net.httpserver.HttpsConfigurator;
+import com.sun.net.httpserver.HttpsServer;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.security.KeyStore;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class JdkHttpTransportTest {
+    private HttpServer server;
+    private String baseUrl;
+    private JdkHttpTransport transport;
+
+    @Before
+    public void doSetup() throws Exception {
+        // echo method, uri, auth header and body back to the caller
+        this.server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        this.server.createContext("/", exchange -> {
+            String echo = exchange.getRequestMethod() + " " + exchange.getRequestURI() + " " +
+                    exchange.getRequestHeaders().get("Authorization") + " " +
+                    new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            byte[] body = echo.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "text/plain; charset=utf-8");
+            exchange.sendResponseHeaders(201, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        this.server.start();
+        this.baseUrl = "http://localhost:" + this.server.getAddress().getPort();
+        this.transport = new JdkHttpTransport(SSLContext.getDefault(), Duration.ofSeconds(5));
+    }
+
+    @After
+    public void tearDown() {
+        this.server.stop(0);
+    }
+
+    @Test
+    public void shouldSendUnirestRequest() throws Exception {
+        HttpRequestWithBody request = Unirest.patch(this.baseUrl + "/channelSets/{abc}");
+        request.queryString("channelSetUuid", "abc");
+        request.header("Authorization", "Bearer old");
+        request.header("Authorization", "Bearer new");
+        request.body("{\"a\":1}");
+
+        HttpResponse<String> response = this.transport.send(request).get();
+        assertEquals(201, response.getStatus());
+        assertEquals("PATCH /channelSets/%7Babc%7D?channelSetUuid=abc [Bearer new] {\"a\":1}", response.getBody());
+    }
+
+    @Test
+    public void shouldFailWithUnirestException() throws Exception {
+        this.server.stop(0);
+        try {
+            this.transport.send(Unirest.get(this.baseUrl + "/wells")).get();
+            fail("expected the request to fail");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof UnirestException);
+        }
+    }
+
+    @Test
+    public void shouldTrustSelfSignedCertificateOfOtherHost() throws Exception {
+        // the certificate is issued to dot.example.com, the server is reached as 127.0.0.1
+        char[] password = "changeit".toCharArray();
+        KeyStore keyStore = KeyStore.getInstance("PKCS12");
+        try (InputStream in = getClass().getClassLoader().getResourceAsStream("selfSigned.p12")) {
+            keyStore.load(in, password);
+        }
+        KeyManagerFactory keys = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+        keys.init(keyStore, password);
+        SSLContext serverContext = SSLContext.getInstance("TLS");
+        serverContext.init(keys.getKeyManagers(), null, null);
+
+        HttpsServer https = HttpsServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        https.setHttpsConfigurator(new HttpsConfigurator(serverContext));
+        https.createContext("/", exchange -> {
+            exchange.sendResponseHeaders(200, 2);
+            exchange.getResponseBody().write("ok".getBytes(StandardCharsets.UTF_8));
+            exchange.close();
+        });
+        https.start();
+        try {
+            String url = "https://127.0.0.1:" + https.getAddress().getPort() + "/wells";
+            JdkHttpTransport relaxed = new JdkHttpTransport(JdkHttpTransport.newSslContext(), Duration.ofSeconds(5));
+            assertEquals("ok", relaxed.send(Unirest.get(url)).get().getBody());
+
+            try {
+                this.transport.send(Unirest.get(url)).get();
+                fail("expected the default ssl context to reject the certificate");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof UnirestException);
+            }
+        } finally {
+            https.stop(0);
+        }
+    }
+}
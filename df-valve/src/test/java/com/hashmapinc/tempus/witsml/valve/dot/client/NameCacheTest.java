@@ -0,0 +1,86 @@
+/**
+ * Copyright © 2018-2019 Hashmap, Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hashmapinc.tempus.witsml.valve.dot.client;
+
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class NameCacheTest {
+    @After
+    public void resetCache() {
+        NameCache.configure(10 * 60 * 1000, 10000);
+        NameCache.clear();
+    }
+
+    @Test
+    public void shouldCacheWellAndWellboreNames() {
+        assertNull(NameCache.getWellName("w1"));
+        NameCache.putWellName("w1", "Well 1");
+        NameCache.putWellboreName("w1", "wb1", "Wellbore 1");
+
+        assertEquals("Well 1", NameCache.getWellName("w1"));
+        assertEquals("Wellbore 1", NameCache.getWellboreName("w1", "wb1"));
+        assertNull(NameCache.getWellboreName("w2", "wb1"));
+
+        assertEquals(2, NameCache.getHitCount());
+        assertEquals(2, NameCache.getMissCount());
+        assertEquals(0.5, NameCache.getHitRate(), 0.0);
+    }
+
+    @Test
+    public void shouldNotCacheNullNames() {
+        NameCache.putWellName("w1", null);
+        assertEquals(0, NameCache.size());
+    }
+
+    @Test
+    public void shouldInvalidateWellboresWithWell() {
+        NameCache.putWellName("w1", "Well 1");
+        NameCache.putWellboreName("w1", "wb1", "Wellbore 1");
+        NameCache.putWellboreName("w1", "wb2", "Wellbore 2");
+        NameCache.putWellboreName("w10", "wb1", "Wellbore 1");
+
+        NameCache.invalidateWellbore("w1", "wb2");
+        assertNull(NameCache.getWellboreName("w1", "wb2"));
+        assertEquals("Wellbore 1", NameCache.getWellboreName("w1", "wb1"));
+
+        NameCache.invalidateWell("w1");
+        assertNull(NameCache.getWellName("w1"));
+        assertNull(NameCache.getWellboreName("w1", "wb1"));
+        assertEquals("Wellbore 1", NameCache.getWellboreName("w10", "wb1"));
+    }
+
+    @Test
+    public void shouldExpireNames() throws InterruptedException {
+        NameCache.configure(1, 10000);
+        NameCache.putWellName("w1", "Well 1");
+        Thread.sleep(10);
+        assertNull(NameCache.getWellName("w1"));
+        assertEquals(0, NameCache.size());
+    }
+
+    @Test
+    public void shouldStayWithinSizeBound() {
+        NameCache.configure(10 * 60 * 1000, 10);
+        for (int i = 0; i < 100; i++)
+            NameCache.putWellName("w" + i, "Well " + i);
+        assertEquals(true, NameCache.size() <= 10);
+        assertEquals(true, NameCache.getEvictionCount() >= 90);
+    }
+}
@@ -0,0 +1,174 @@
+/**
+ * Copyright © 2018-2019 Hashmap, Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hashmapinc.tempus.witsml.valve.dot.client;
+
+import org.junit.Test;
+
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class SharedIdentityStoreTest {
+    private static final long TTL = 60 * 1000;
+
+    @Test
+    public void shouldShareEntriesBetweenNodes() throws Exception {
+        try (EmbeddedRedisServer server = new EmbeddedRedisServer()) {
+            // two nodes, each with its own near cache
+            IdentityStore nodeA = node(server);
+            IdentityStore nodeB = node(server);
+
+            nodeA.put("well_uid", "well_uuid", TTL);
+            nodeA.put("well_uid|===|wb_uid", IdentityStore.MISSING, TTL);
+            assertEquals("well_uuid", nodeB.get("well_uid"));
+            assertEquals(IdentityStore.MISSING, nodeB.get("well_uid|===|wb_uid"));
+
+            // answered by node B's near cache from now on
+            long commands = server.getCommandCount();
+            assertEquals("well_uuid", nodeB.get("well_uid"));
+            assertEquals(commands, server.getCommandCount());
+        }
+    }
+
+    @Test
+    public void shouldRemoveEntriesByPrefix() throws Exception {
+        try (EmbeddedRedisServer server = new EmbeddedRedisServer()) {
+            IdentityStore nodeA = node(server);
+            IdentityStore nodeB = node(server);
+
+            nodeA.put("w*|===|b1", "uuid1", TTL);
+            nodeA.put("w*|===|b2", "uuid2", TTL);
+            nodeA.put("wx|===|b3", "uuid3", TTL);
+
+            assertEquals(2, nodeB.removeByPrefix("w*|===|").size());
+            assertNull(new RedisIdentityStore("localhost", server.getPort(), null, 1000, 1).get("w*|===|b1"));
+            assertEquals("uuid3", nodeB.get("wx|===|b3"));
+        }
+    }
+
+    @Test
+    public void shouldRemoveChildrenWithoutScanning() throws Exception {
+        try (EmbeddedRedisServer server = new EmbeddedRedisServer()) {
+            RedisIdentityStore store = new RedisIdentityStore("localhost", server.getPort(), null, 1000, 1);
+            store.put("w1|===|b1", "uuid1", TTL);
+            store.put("w1|===|b1|===|t1", "uuid2", TTL);
+            store.put("w1|===|b2", IdentityStore.MISSING, TTL);
+            store.put("w2|===|b3", "uuid3", TTL);
+
+            Map<String, String> removed = store.removeByPrefix("w1|===|");
+            assertEquals(3, removed.size());
+            assertEquals("uuid2", removed.get("w1|===|b1|===|t1"));
+            assertEquals(IdentityStore.MISSING, removed.get("w1|===|b2"));
+            assertNull(store.get("w1|===|b1"));
+            assertEquals("uuid3", store.get("w2|===|b3"));
+            assertEquals(0, server.getCommandCount("SCAN"));
+
+            // the sets of the removed parents went with them
+            assertTrue(store.removeByPrefix("w1|===|b1|===|").isEmpty());
+            assertEquals(1, store.size());
+        }
+    }
+
+    @Test
+    public void shouldSkipChildrenRemovedBefore() throws Exception {
+        try (EmbeddedRedisServer server = new EmbeddedRedisServer()) {
+            RedisIdentityStore store = new RedisIdentityStore("localhost", server.getPort(), null, 1000, 1);
+            store.put("w1|===|b1", "uuid1", TTL);
+            store.put("w1|===|b1|===|t1", "uuid2", TTL);
+
+            assertEquals(1, store.removeByPrefix("w1|===|b1|===|").size());
+            assertEquals(Collections.singletonMap("w1|===|b1", "uuid1"), store.removeByPrefix("w1|===|"));
+        }
+    }
+
+    @Test
+    public void shouldTreatUnavailableServerAsMiss() throws Exception {
+        int port;
+        try (EmbeddedRedisServer server = new EmbeddedRedisServer()) {
+            port = server.getPort();
+        }
+        NearCacheIdentityStore node = new NearCacheIdentityStore(new InMemoryIdentityStore(100),
+                new RedisIdentityStore("localhost", port, null, 500, 1), TTL);
+
+        node.put("uid", "uuid", TTL);
+        assertEquals("uuid", node.get("uid")); // still in the near cache
+        assertNull(node.get("other_uid"));
+        assertEquals(2, node.getRemoteErrorCount());
+    }
+
+    @Test
+    public void shouldSkipServerWhileBackingOff() throws Exception {
+        // accepts connections but never answers, so every call runs into the timeout
+        List<Socket> accepted = Collections.synchronizedList(new ArrayList<>());
+        try (ServerSocket silent = new ServerSocket(0, 50, InetAddress.getLoopbackAddress())) {
+            Thread acceptor = new Thread(() -> {
+                try {
+                    while (true)
+                        accepted.add(silent.accept());
+                } catch (Exception e) {
+                    // closed
+                }
+            });
+            acceptor.setDaemon(true);
+            acceptor.start();
+            RedisIdentityStore store = new RedisIdentityStore("localhost", silent.getLocalPort(), null, 200, 1);
+
+            try {
+                store.get("uid");
+                fail("expected the read to time out");
+            } catch (UncheckedIOException e) {
+                // timed out
+            }
+            long start = System.currentTimeMillis();
+            try {
+                store.put("uid", "uuid", TTL);
+                fail("expected the server to be skipped");
+            } catch (UncheckedIOException e) {
+                assertTrue(e.getMessage().contains("skipped"));
+            }
+            assertTrue(System.currentTimeMillis() - start < 200);
+            assertEquals(1, accepted.size());
+
+            // probed again once the backoff is over
+            Thread.sleep(1100);
+            try {
+                store.get("uid");
+                fail("expected the read to time out");
+            } catch (UncheckedIOException e) {
+                assertTrue(e.getMessage().contains("failed"));
+            }
+            assertEquals(2, accepted.size());
+        } finally {
+            for (Socket socket : accepted)
+                socket.close();
+        }
+    }
+
+    private static IdentityStore node(EmbeddedRedisServer server) {
+        return new NearCacheIdentityStore(new InMemoryIdentityStore(100),
+                new RedisIdentityStore("localhost", server.getPort(), "secret", 1000, 2), TTL);
+    }
+}
@@ -0,0 +1,62 @@
+/**
+ * Copyright © 2018-2019 Hashmap, Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hashmapinc.tempus.witsml.valve.dot.client;
+
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+public class UidUuidCacheSnapshotTest {
+    @Test
+    public void shouldRestoreMappingsFromSnapshot() throws Exception {
+        Path dir = Files.createTempDirectory("uid-cache");
+        Path file = dir.resolve("snapshot.bin");
+        try {
+            UidUuidCache.putInCache("snap_uuid_A", "snap_uid_A");
+            UidUuidCache.putInCache("snap_uuid_B", "snap_uid_B", "snap_parent_B", "snap_grandparent_B");
+            UidUuidCache.putMissing("snap_uid_C", null, null);
+            UidUuidCacheSnapshot.save(file);
+
+            // restart with an empty cache
+            UidUuidCache.clear();
+            assertNull(UidUuidCache.getUuid("snap_uid_A"));
+            UidUuidCacheSnapshot.load(file, 60 * 1000);
+
+            assertEquals("snap_uuid_A", UidUuidCache.getUuid("snap_uid_A"));
+            assertEquals("snap_uid_A", UidUuidCache.getUid("snap_uuid_A"));
+            assertEquals("snap_uuid_B", UidUuidCache.getUuid("snap_uid_B", "snap_parent_B", "snap_grandparent_B"));
+            assertFalse(UidUuidCache.isMissing("snap_uid_C", null, null));
+        } finally {
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(dir);
+        }
+    }
+
+    @Test
+    public void shouldIgnoreMissingSnapshot() throws Exception {
+        Path dir = Files.createTempDirectory("uid-cache");
+        try {
+            assertEquals(0, UidUuidCacheSnapshot.load(dir.resolve("none.bin"), 60 * 1000));
+        } finally {
+            Files.deleteIfExists(dir);
+        }
+    }
+}
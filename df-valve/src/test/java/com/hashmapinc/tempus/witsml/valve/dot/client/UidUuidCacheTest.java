@@ -18,7 +18,9 @@ package com.hashmapinc.tempus.witsml.valve.dot.client;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 public class UidUuidCacheTest {
     @Test
@@ -77,4 +79,58 @@ public class UidUuidCacheTest {
         assertEquals(uid, UidUuidCache.getUid(uuid));
         assertEquals(uuid, UidUuidCache.getUuid(uid, parentUid, grandparentUid));
     }
+
+    @Test
+    public void shouldCacheMissingObjects() {
+        // set test values
+        String uid = "cool_uid_D";
+        String parentUid = "cool_parent_uid_D";
+        String uuid = "cool_uuid_D";
+
+        // record the object as missing
+        assertFalse(UidUuidCache.isMissing(uid, parentUid, null));
+        UidUuidCache.putMissing(uid, parentUid, null);
+        assertTrue(UidUuidCache.isMissing(uid, parentUid, null));
+        assertNull(UidUuidCache.getUuid(uid, parentUid));
+
+        // a real mapping replaces the missing entry
+        UidUuidCache.putInCache(uuid, uid, parentUid);
+        assertFalse(UidUuidCache.isMissing(uid, parentUid, null));
+        assertEquals(uuid, UidUuidCache.getUuid(uid, parentUid, null));
+    }
+
+    @Test
+    public void shouldRemoveDeletedObjectAndChildren() {
+        // cache a well, its wellbore and a log of the wellbore
+        UidUuidCache.putInCache("well_uuid_E", "well_uid_E");
+        UidUuidCache.putInCache("wellbore_uuid_E", "wellbore_uid_E", "well_uid_E");
+        UidUuidCache.putInCache("log_uuid_E", "log_uid_E", "wellbore_uid_E", "well_uid_E");
+
+        // remove the well
+        UidUuidCache.removeFromCache("well_uid_E", null, null);
+        UidUuidCache.removeChildren("well_uid_E", null, null);
+
+        assertNull(UidUuidCache.getUuid("well_uid_E"));
+        assertNull(UidUuidCache.getUid("well_uuid_E"));
+        assertNull(UidUuidCache.getUuid("wellbore_uid_E", "well_uid_E"));
+        assertNull(UidUuidCache.getUid("wellbore_uuid_E"));
+        assertNull(UidUuidCache.getUuid("log_uid_E", "wellbore_uid_E", "well_uid_E"));
+        assertNull(UidUuidCache.getUid("log_uuid_E"));
+    }
+
+    @Test
+    public void shouldStayWithinSizeBound() {
+        UidUuidCache.clear();
+        UidUuidCache.configure(60 * 60 * 1000, 30 * 1000, 100);
+        try {
+            for (int i = 0; i < 200; i++)
+                UidUuidCache.putInCache("uuid_F" + i, "uid_F" + i);
+
+            assertTrue(UidUuidCache.size() <= 100);
+            assertTrue(UidUuidCache.getEvictionCount() > 0);
+            assertEquals("uuid_F199", UidUuidCache.getUuid("uid_F199"));
+        } finally {
+            UidUuidCache.configure(60 * 60 * 1000, 30 * 1000, 100000);
+        }
+    }
 }
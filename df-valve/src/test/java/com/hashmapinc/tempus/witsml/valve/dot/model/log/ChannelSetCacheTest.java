@@ -0,0 +1,70 @@
+/**
+ * Copyright © 2018-2019 Hashmap, Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hashmapinc.tempus.witsml.valve.dot.model.log;
+
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ChannelSetCacheTest {
+    private static final String HEADER = "{\"uid\":\"log1\",\"citation\":{\"title\":\"Log 1\"}}";
+
+    @After
+    public void resetCache() {
+        ChannelSetCache.configure(5 * 60 * 1000, 10000);
+        ChannelSetCache.clear();
+    }
+
+    @Test
+    public void shouldMatchUnchangedChannelSet() {
+        assertFalse(ChannelSetCache.isUnchanged("cs1", HEADER));
+        ChannelSetCache.putInCache("cs1", HEADER);
+
+        assertTrue(ChannelSetCache.isUnchanged("cs1", HEADER));
+        assertFalse(ChannelSetCache.isUnchanged("cs1", HEADER.replace("Log 1", "Log 2")));
+        assertFalse(ChannelSetCache.isUnchanged("cs2", HEADER));
+        assertEquals(1, ChannelSetCache.getHitCount());
+        assertEquals(3, ChannelSetCache.getMissCount());
+    }
+
+    @Test
+    public void shouldForgetRemovedChannelSet() {
+        ChannelSetCache.putInCache("cs1", HEADER);
+        ChannelSetCache.removeFromCache("cs1");
+        assertFalse(ChannelSetCache.isUnchanged("cs1", HEADER));
+    }
+
+    @Test
+    public void shouldExpireChannelSets() throws InterruptedException {
+        ChannelSetCache.configure(1, 10000);
+        ChannelSetCache.putInCache("cs1", HEADER);
+        Thread.sleep(10);
+        assertFalse(ChannelSetCache.isUnchanged("cs1", HEADER));
+        assertEquals(0, ChannelSetCache.size());
+    }
+
+    @Test
+    public void shouldStayWithinSizeBound() {
+        ChannelSetCache.configure(5 * 60 * 1000, 10);
+        for (int i = 0; i < 100; i++)
+            ChannelSetCache.putInCache("cs" + i, HEADER);
+        assertTrue(ChannelSetCache.size() <= 10);
+        assertTrue(ChannelSetCache.getEvictionCount() >= 90);
+    }
+}
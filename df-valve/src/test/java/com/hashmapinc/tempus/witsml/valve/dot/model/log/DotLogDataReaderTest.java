@@ -0,0 +1,90 @@
+/**
+ * Copyright © 2018-2019 Hashmap, Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hashmapinc.tempus.witsml.valve.dot.model.log;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import com.hashmapinc.tempus.WitsmlObjects.v1411.CsLogData;
+import com.hashmapinc.tempus.witsml.valve.dot.TestUtilities;
+import org.json.JSONObject;
+import org.junit.Test;
+
+public class DotLogDataReaderTest {
+
+    private static InputStream toStream(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void shouldReadLikeJsonObject() throws IOException {
+        String dotLogData = TestUtilities.getResourceAsString("dotConversion/dotLogData.json");
+        CsLogData expected = DotLogDataHelper.convertTo1411FromDot(new JSONObject(dotLogData), "depth", "Mdepth", "m");
+
+        DotLogData logData = DotLogDataReader.read(toStream(dotLogData), "Mdepth", true);
+        CsLogData actual = DotLogDataHelper.convertTo1411FromDot(logData.getColumns(), "Mdepth", "m");
+
+        assertEquals(expected.getMnemonicList(), actual.getMnemonicList());
+        assertEquals(expected.getUnitList(), actual.getUnitList());
+        assertEquals(expected.getData(), actual.getData());
+    }
+
+    @Test
+    public void shouldRenderValuesLikeJsonObject() throws IOException {
+        String dotLogData = "{\"value\":[{\"name\":\"a\",\"unit\":\"m\",\"values\":"
+                + "[{\"4\":1.50},{\"3\":7},{\"2\":\"1.50\"},{\"1\":true},{\"0\":null}]}]}";
+        DotLogData logData = DotLogDataReader.read(toStream(dotLogData), "Mdepth", false);
+        assertEquals(
+                DotLogData.fromJson(new JSONObject(dotLogData), "Mdepth", false).getColumns().toDataRows(),
+                logData.getColumns().toDataRows());
+        assertEquals("1.5", logData.getColumns().getValue(4, 0));
+        assertEquals("7", logData.getColumns().getValue(3, 0));
+        assertEquals("1.50", logData.getColumns().getValue(2, 0));
+    }
+
+    @Test
+    public void shouldTrackIndexRanges() throws IOException {
+        String dotLogData = "{\"value\":["
+                + "{\"values\":[{\"9\":null},{\"8\":\"1\"},{\"7\":\"2\"},{\"6\":\"\"}],\"name\":\"A\",\"unit\":\"m\"},"
+                + "{\"name\":\"b\",\"unit\":\"m\",\"values\":[]},"
+                + "{\"name\":\"c\",\"unit\":\"m\",\"values\":[{\"1\":null}]}]}";
+        DotLogData logData = DotLogDataReader.read(toStream(dotLogData), "Mdepth", true);
+
+        DotLogData.IndexRange range = logData.getIndexRange("a");
+        assertEquals("8", range.getMaxIndex());
+        assertEquals("7", range.getMinIndex());
+        assertEquals(4, range.getPointCount());
+        assertEquals(0, logData.getIndexRange("b").getPointCount());
+        assertNull(logData.getIndexRange("c").getMaxIndex());
+        assertNull(logData.getIndexRange("d"));
+    }
+
+    @Test
+    public void shouldSkipIndexChannel() throws IOException {
+        String dotLogData = "{\"count\":2,\"value\":["
+                + "{\"name\":\"MDEPTH\",\"unit\":\"m\",\"values\":[{\"1\":\"1\"}]},"
+                + "{\"name\":\"a\",\"unit\":\"m\",\"values\":[{\"1\":\"x\"}]}]}";
+        DotLogData logData = DotLogDataReader.read(toStream(dotLogData), "Mdepth", true);
+        assertEquals(1, logData.getColumns().getColumnCount());
+        assertEquals("1.0,x", logData.getColumns().toDataRows().get(0));
+        assertEquals("1", logData.getIndexRange("mdepth").getMaxIndex());
+    }
+}
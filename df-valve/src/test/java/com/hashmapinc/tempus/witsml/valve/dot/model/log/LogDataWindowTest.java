@@ -0,0 +1,101 @@
+/**
+ * Copyright © 2018-2019 Hashmap, Inc
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.hashmapinc.tempus.witsml.valve.dot.model.log;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+public class LogDataWindowTest {
+
+    @Test
+    public void shouldSplitDepthRangeFromTopToBottom() {
+        List<LogDataWindow> windows = LogDataWindow.split(true, null, null, "0", "300", 100, 32);
+        assertEquals(3, windows.size());
+        assertNull(windows.get(0).getEndIndex());
+        assertEquals("200.0", windows.get(0).getStartIndex());
+        assertEquals("200.0", windows.get(1).getEndIndex());
+        assertEquals("100.0", windows.get(1).getStartIndex());
+        assertEquals("100.0", windows.get(2).getEndIndex());
+        assertNull(windows.get(2).getStartIndex());
+    }
+
+    @Test
+    public void shouldClipRequestToChannelSetRange() {
+        List<LogDataWindow> windows = LogDataWindow.split(true, "-50", "150", "0", "300", 100, 32);
+        assertEquals(2, windows.size());
+        assertEquals("150", windows.get(0).getEndIndex());
+        assertEquals("75.0", windows.get(0).getStartIndex());
+        assertEquals("-50", windows.get(1).getStartIndex());
+    }
+
+    @Test
+    public void shouldSplitTimeRange() {
+        List<LogDataWindow> windows = LogDataWindow.split(false, null, null,
+                "2019-01-01T00:00:00.000Z", "2019-01-03T00:00:00.000Z", 86400, 32);
+        assertEquals(2, windows.size());
+        assertEquals("2019-01-02T00:00:00Z", windows.get(0).getStartIndex());
+        assertEquals("2019-01-02T00:00:00Z", windows.get(1).getEndIndex());
+    }
+
+    @Test
+    public void shouldCapNumberOfWindows() {
+        assertEquals(4, LogDataWindow.split(true, null, null, "0", "100000", 1, 4).size());
+    }
+
+    @Test
+    public void shouldNotSplitWithoutRange() {
+        List<LogDataWindow> windows = LogDataWindow.split(true, "10", null, null, null, 1, 32);
+        assertEquals(1, windows.size());
+        assertEquals("10", windows.get(0).getStartIndex());
+        assertNull(windows.get(0).getEndIndex());
+
+        assertEquals(1, LogDataWindow.split(true, null, null, "0", "50", 100, 32).size());
+        assertEquals(1, LogDataWindow.split(true, null, null, "0", "300", 0, 32).size());
+        assertEquals(1, LogDataWindow.split(false, null, null, "yesterday", "today", 1, 32).size());
+    }
+
+    @Test
+    public void shouldStitchWindowsInIndexOrder() throws IOException {
+        List<DotLogData> windows = new ArrayList<>();
+        windows.add(read("{\"value\":[{\"name\":\"a\",\"unit\":\"m\",\"values\":[{\"3\":\"c\"},{\"2\":\"b\"}]},"
+                + "{\"name\":\"b\",\"unit\":\"m\",\"values\":[{\"3\":null}]}]}"));
+        windows.add(read("{\"value\":[{\"name\":\"a\",\"unit\":\"m\",\"values\":[{\"2\":\"b\"},{\"1\":\"a\"}]},"
+                + "{\"name\":\"b\",\"unit\":\"m\",\"values\":[{\"1\":\"x\"}]}]}"));
+
+        DotLogData logData = DotLogData.merge(windows, true);
+        List<String> expected = new ArrayList<>();
+        expected.add("1.0,a,x");
+        expected.add("2.0,b,null");
+        expected.add("3.0,c,null");
+        assertEquals(expected, logData.getColumns().toDataRows());
+        assertEquals("3", logData.getIndexRange("a").getMaxIndex());
+        assertEquals("1", logData.getIndexRange("a").getMinIndex());
+        assertEquals("1", logData.getIndexRange("b").getMaxIndex());
+        assertEquals(2, logData.getIndexRange("b").getPointCount());
+    }
+
+    private static DotLogData read(String json) throws IOException {
+        return DotLogDataReader.read(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), "Mdepth", true);
+    }
+}